@@ -113,7 +113,17 @@ public class AST {
                     throw new UnexpectedTypeOfArgumentException(this);
                 }
 
-                return input.getColumnNumber((java.lang.Integer) value);
+                return ctx.getColumnIndex(input).getColumnNumber((java.lang.Integer) value);
+            }
+
+            @Override
+            public boolean isIntTyped() {
+                return true;
+            }
+
+            @Override
+            public int interpretInt(IEvaluatorContext ctx, Input input) {
+                return ctx.getColumnIndex(input).getColumnNumber(interpretIntOperand(arg, ctx, input));
             }
 
             @Override
@@ -266,6 +276,18 @@ public class AST {
                 return !((java.lang.Boolean) value);
             }
 
+            @Override
+            public boolean isBooleanTyped() {
+                return true;
+            }
+
+            @Override
+            public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+                if (arg.isBooleanTyped())
+                    return !arg.interpretBoolean(ctx, input);
+                return (java.lang.Boolean) interpret(ctx, input);
+            }
+
             @Override
             public java.lang.String toString() {
                 return java.lang.String.format("not(%s)", arg);
@@ -288,6 +310,16 @@ public class AST {
                 return -v;
             }
 
+            @Override
+            public boolean isIntTyped() {
+                return true;
+            }
+
+            @Override
+            public int interpretInt(IEvaluatorContext ctx, Input input) {
+                return -interpretIntOperand(arg, ctx, input);
+            }
+
             @Override
             public java.lang.String toString() {
                 return java.lang.String.format("-(%s)", arg);
@@ -312,6 +344,16 @@ public class AST {
                 return node.getRightExtent() - node.getLeftExtent();
             }
 
+            @Override
+            public boolean isIntTyped() {
+                return true;
+            }
+
+            @Override
+            public int interpretInt(IEvaluatorContext ctx, Input input) {
+                return (java.lang.Integer) interpret(ctx, input);
+            }
+
             @Override
             public java.lang.String toString() {
                 return java.lang.String.format("len(%s)", arg);
@@ -0,0 +1,16 @@
+package org.iguana.datadependent.ast;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.IEvaluatorContext;
+
+/**
+ * An expression or a statement compiled into a closure, see {@link ExpressionCompiler}. Evaluating
+ * a compiled expression gives the same value as interpreting the expression; a compiled statement
+ * evaluates to null.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    Object evaluate(IEvaluatorContext ctx, Input input);
+
+}
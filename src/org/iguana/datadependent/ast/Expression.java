@@ -50,6 +50,50 @@ public abstract class Expression extends AbstractAST {
         return false;
     }
 
+    /**
+     * Returns whether this expression always evaluates to an int, as inferred from the types of its
+     * operands, so that it can be evaluated by {@link #interpretInt} without boxing. The types of
+     * variables are not known statically.
+     */
+    public boolean isIntTyped() {
+        return false;
+    }
+
+    /**
+     * Returns whether this expression always evaluates to a boolean, as inferred from the types of
+     * its operands.
+     */
+    public boolean isBooleanTyped() {
+        return false;
+    }
+
+    public int interpretInt(IEvaluatorContext ctx, Input input) {
+        Object value = interpret(ctx, input);
+        if (!(value instanceof java.lang.Integer))
+            throw new UnexpectedTypeOfArgumentException(this);
+        return (java.lang.Integer) value;
+    }
+
+    public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+        Object value = interpret(ctx, input);
+        if (!(value instanceof java.lang.Boolean))
+            throw new UnexpectedTypeOfArgumentException(this);
+        return (java.lang.Boolean) value;
+    }
+
+    /*
+     * Evaluates an operand of this expression that should be an int, reporting this expression otherwise
+     */
+    protected int interpretIntOperand(Expression operand, IEvaluatorContext ctx, Input input) {
+        if (operand.isIntTyped())
+            return operand.interpretInt(ctx, input);
+
+        Object value = operand.interpret(ctx, input);
+        if (!(value instanceof java.lang.Integer))
+            throw new UnexpectedTypeOfArgumentException(this);
+        return (java.lang.Integer) value;
+    }
+
     public static abstract class Boolean extends Expression {
 
         private static final long serialVersionUID = 1L;
@@ -58,6 +102,11 @@ public abstract class Expression extends AbstractAST {
             return true;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
         static final Boolean TRUE = new Boolean() {
 
             private static final long serialVersionUID = 1L;
@@ -67,6 +116,11 @@ public abstract class Expression extends AbstractAST {
                 return true;
             }
 
+            @Override
+            public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+                return true;
+            }
+
             @Override
             public java.lang.String toString() {
                 return "true";
@@ -87,6 +141,11 @@ public abstract class Expression extends AbstractAST {
                 return false;
             }
 
+            @Override
+            public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+                return false;
+            }
+
             @Override
             public java.lang.String toString() {
                 return "false";
@@ -123,11 +182,21 @@ public abstract class Expression extends AbstractAST {
             return value;
         }
 
+        @Override
+        public boolean isIntTyped() {
+            return true;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             return value;
         }
 
+        @Override
+        public int interpretInt(IEvaluatorContext ctx, Input input) {
+            return value;
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (this == obj) return true;
@@ -366,6 +435,13 @@ public abstract class Expression extends AbstractAST {
             return name;
         }
 
+        /**
+         * Returns the index of the variable in the environment, or -1 if it is looked up by name.
+         */
+        public int getIndex() {
+            return i;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object value = i != -1 ? ctx.lookupVariable(i) : ctx.lookupVariable(name);
@@ -474,6 +550,10 @@ public abstract class Expression extends AbstractAST {
             return id;
         }
 
+        public int getIndex() {
+            return i;
+        }
+
         public Expression getExpression() {
             return exp;
         }
@@ -533,14 +613,20 @@ public abstract class Expression extends AbstractAST {
         }
 
         @Override
-        public Object interpret(IEvaluatorContext ctx, Input input) {
-            Object lhs = this.lhs.interpret(ctx, input);
-            Object rhs = this.rhs.interpret(ctx, input);
+        public boolean isBooleanTyped() {
+            return true;
+        }
 
-            if (lhs instanceof java.lang.Integer && rhs instanceof java.lang.Integer)
-                return (((java.lang.Integer) lhs) & (1 << ((java.lang.Integer) rhs))) == 0;
+        @Override
+        public Object interpret(IEvaluatorContext ctx, Input input) {
+            return interpretBoolean(ctx, input);
+        }
 
-            throw new UnexpectedTypeOfArgumentException(this);
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            int lhs = interpretIntOperand(this.lhs, ctx, input);
+            int rhs = interpretIntOperand(this.rhs, ctx, input);
+            return (lhs & (1 << rhs)) == 0;
         }
 
         @Override
@@ -601,31 +687,40 @@ public abstract class Expression extends AbstractAST {
             return lExt;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
+            return interpretBoolean(ctx, input);
+        }
 
-            int ind = (java.lang.Integer) this.ind.interpret(ctx, input);
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            int ind = this.ind.interpretInt(ctx, input);
 
             if (ind == 0)
                 return true;
 
-            int first = (java.lang.Integer) this.first.interpret(ctx, input);
+            int first = this.first.interpretInt(ctx, input);
             int lExt;
             if (first == 1) {
 
-                int index = (java.lang.Integer) this.index.interpret(ctx, input);
-                lExt = (java.lang.Integer) this.lExt.interpret(ctx, input);
+                int index = this.index.interpretInt(ctx, input);
+                lExt = this.lExt.interpretInt(ctx, input);
 
                 if (lExt - index == 0)
                     return true;
                 else {
-                    int indent = input.getColumnNumber(lExt);
+                    int indent = ctx.getColumnIndex(input).getColumnNumber(lExt);
                     return indent > ind;
                 }
 
             } else {
-                lExt = (java.lang.Integer) this.lExt.interpret(ctx, input);
-                int indent = input.getColumnNumber(lExt);
+                lExt = this.lExt.interpretInt(ctx, input);
+                int indent = ctx.getColumnIndex(input).getColumnNumber(lExt);
                 return indent > ind;
             }
 
@@ -697,13 +792,27 @@ public abstract class Expression extends AbstractAST {
             return lExt;
         }
 
+        public boolean isReturnIndex() {
+            return returnIndex;
+        }
+
+        @Override
+        public boolean isIntTyped() {
+            return true;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
-            int first = (java.lang.Integer) this.first.interpret(ctx, input);
+            return interpretInt(ctx, input);
+        }
+
+        @Override
+        public int interpretInt(IEvaluatorContext ctx, Input input) {
+            int first = this.first.interpretInt(ctx, input);
             if (first == 1) {
 
-                int index = (java.lang.Integer) this.index.interpret(ctx, input);
-                int lExt = (java.lang.Integer) this.lExt.interpret(ctx, input);
+                int index = this.index.interpretInt(ctx, input);
+                int lExt = this.lExt.interpretInt(ctx, input);
 
                 if (lExt - index == 0)
                     return returnIndex ? index : 1;
@@ -771,6 +880,16 @@ public abstract class Expression extends AbstractAST {
             return this.rhs.interpret(ctx, input);
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return rhs.isBooleanTyped();
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            return lhs.interpretBoolean(ctx, input) || rhs.interpretBoolean(ctx, input);
+        }
+
         @Override
         public java.lang.String toString() {
             return java.lang.String.format("%s || %s", lhs, rhs);
@@ -824,6 +943,16 @@ public abstract class Expression extends AbstractAST {
             return this.rhs.interpret(ctx, input);
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return rhs.isBooleanTyped();
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            return lhs.interpretBoolean(ctx, input) && rhs.interpretBoolean(ctx, input);
+        }
+
         @Override
         public java.lang.String toString() {
             return java.lang.String.format("%s && %s", lhs, rhs);
@@ -869,6 +998,20 @@ public abstract class Expression extends AbstractAST {
             return rhs;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            // If one operand is an int, the other one should be an int too
+            if (lhs.isIntTyped() || rhs.isIntTyped())
+                return interpretIntOperand(lhs, ctx, input) < interpretIntOperand(rhs, ctx, input);
+
+            return (java.lang.Boolean) interpret(ctx, input);
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object lhs = this.lhs.interpret(ctx, input);
@@ -930,6 +1073,20 @@ public abstract class Expression extends AbstractAST {
             return rhs;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            // If one operand is an int, the other one should be an int too
+            if (lhs.isIntTyped() || rhs.isIntTyped())
+                return interpretIntOperand(lhs, ctx, input) <= interpretIntOperand(rhs, ctx, input);
+
+            return (java.lang.Boolean) interpret(ctx, input);
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object lhs = this.lhs.interpret(ctx, input);
@@ -991,6 +1148,20 @@ public abstract class Expression extends AbstractAST {
             return rhs;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            // If one operand is an int, the other one should be an int too
+            if (lhs.isIntTyped() || rhs.isIntTyped())
+                return interpretIntOperand(lhs, ctx, input) > interpretIntOperand(rhs, ctx, input);
+
+            return (java.lang.Boolean) interpret(ctx, input);
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object lhs = this.lhs.interpret(ctx, input);
@@ -1052,6 +1223,20 @@ public abstract class Expression extends AbstractAST {
             return rhs;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            // If one operand is an int, the other one should be an int too
+            if (lhs.isIntTyped() || rhs.isIntTyped())
+                return interpretIntOperand(lhs, ctx, input) >= interpretIntOperand(rhs, ctx, input);
+
+            return (java.lang.Boolean) interpret(ctx, input);
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object lhs = this.lhs.interpret(ctx, input);
@@ -1113,6 +1298,20 @@ public abstract class Expression extends AbstractAST {
             return rhs;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            // A variable may be undefined, so only int typed operands are compared as ints
+            if (lhs.isIntTyped() && rhs.isIntTyped())
+                return lhs.interpretInt(ctx, input) == rhs.interpretInt(ctx, input);
+
+            return (java.lang.Boolean) interpret(ctx, input);
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object lhs = this.lhs.interpret(ctx, input);
@@ -1303,6 +1502,25 @@ public abstract class Expression extends AbstractAST {
             return ((NonPackedNode) value).getRightExtent();
         }
 
+        @Override
+        public boolean isIntTyped() {
+            return true;
+        }
+
+        @Override
+        public int interpretInt(IEvaluatorContext ctx, Input input) {
+            Object value = ctx.lookupVariable(label);
+            if (value == null) {
+                throw new UndeclaredVariableException(label);
+            }
+
+            if (!(value instanceof NonPackedNode)) {
+                throw new UnexpectedTypeOfArgumentException(this);
+            }
+
+            return ((NonPackedNode) value).getRightExtent();
+        }
+
         @Override
         public java.lang.String toString() {
             return java.lang.String.format("%s.rExt", label);
@@ -1349,6 +1567,10 @@ public abstract class Expression extends AbstractAST {
             return label;
         }
 
+        public int getIndex() {
+            return i;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
             Object value = i == -1 ? ctx.lookupVariable(label) : ctx.lookupVariable(i);
@@ -1457,9 +1679,19 @@ public abstract class Expression extends AbstractAST {
             return index;
         }
 
+        @Override
+        public boolean isBooleanTyped() {
+            return true;
+        }
+
         @Override
         public Object interpret(IEvaluatorContext ctx, Input input) {
-            int index = (java.lang.Integer) this.index.interpret(ctx, input);
+            return interpretBoolean(ctx, input);
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            int index = this.index.interpretInt(ctx, input);
             int length = input.length();
             return length == index + 1;
         }
@@ -1524,6 +1756,26 @@ public abstract class Expression extends AbstractAST {
                 return elsePart.interpret(ctx, input);
         }
 
+        @Override
+        public boolean isIntTyped() {
+            return thenPart.isIntTyped() && elsePart.isIntTyped();
+        }
+
+        @Override
+        public boolean isBooleanTyped() {
+            return thenPart.isBooleanTyped() && elsePart.isBooleanTyped();
+        }
+
+        @Override
+        public int interpretInt(IEvaluatorContext ctx, Input input) {
+            return condition.interpretBoolean(ctx, input) ? thenPart.interpretInt(ctx, input) : elsePart.interpretInt(ctx, input);
+        }
+
+        @Override
+        public boolean interpretBoolean(IEvaluatorContext ctx, Input input) {
+            return condition.interpretBoolean(ctx, input) ? thenPart.interpretBoolean(ctx, input) : elsePart.interpretBoolean(ctx, input);
+        }
+
         @Override
         public java.lang.String toString() {
             return java.lang.String.format("(%s)? %s : %s", condition, thenPart, elsePart);
@@ -0,0 +1,576 @@
+package org.iguana.datadependent.ast;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.IEvaluatorContext;
+import org.iguana.datadependent.traversal.IAbstractASTVisitor;
+import org.iguana.grammar.exception.UndeclaredVariableException;
+import org.iguana.grammar.exception.UnexpectedTypeOfArgumentException;
+import org.iguana.sppf.NonPackedNode;
+import org.iguana.sppf.NonterminalNodeWithValue;
+
+/**
+ * Compiles expressions and statements into trees of closures, which are linked once, so that
+ * evaluating them does not dispatch on the node types again. Literals are evaluated at compile time,
+ * variables with an index (see {@link org.iguana.grammar.transformation.VarToInt}) are looked up by their
+ * index, and the names of label-derived variables, e.g., the left extent of a label, are computed once.
+ *
+ * Calls of the functions of {@link AST} that are frequent in layout-sensitive grammars are compiled
+ * too; other calls are interpreted, with their own argument handling.
+ *
+ * Comparisons with an int typed operand (see {@link Expression#isIntTyped()}) compare unboxed ints,
+ * unless the expression is compiled with {@link #compile(AbstractAST, boolean)} without typing, which
+ * compares the boxed values as the interpreter does.
+ * The indentation expressions, i.e., indent, OrIndent and the comparisons of indents, evaluate their
+ * int operands unboxed and look up the columns in the column index of the input.
+ */
+public class ExpressionCompiler implements IAbstractASTVisitor<CompiledExpression> {
+
+    private static final ExpressionCompiler instance = new ExpressionCompiler(true);
+
+    private static final ExpressionCompiler boxedInstance = new ExpressionCompiler(false);
+
+    private final boolean typed;
+
+    private ExpressionCompiler(boolean typed) {
+        this.typed = typed;
+    }
+
+    public static CompiledExpression compile(AbstractAST ast) {
+        return ast.accept(instance);
+    }
+
+    /**
+     * Compiles the given expression or statement, with or without the unboxed int comparisons.
+     */
+    public static CompiledExpression compile(AbstractAST ast, boolean typed) {
+        return ast.accept(typed ? instance : boxedInstance);
+    }
+
+    public static CompiledExpression[] compile(AbstractAST[] asts) {
+        if (asts == null) return null;
+
+        CompiledExpression[] compiled = new CompiledExpression[asts.length];
+        for (int i = 0; i < asts.length; i++)
+            compiled[i] = compile(asts[i]);
+        return compiled;
+    }
+
+    private CompiledExpression compileOperand(AbstractAST ast) {
+        return ast.accept(this);
+    }
+
+    private CompiledExpression[] compileOperands(AbstractAST[] asts) {
+        CompiledExpression[] compiled = new CompiledExpression[asts.length];
+        for (int i = 0; i < asts.length; i++)
+            compiled[i] = compileOperand(asts[i]);
+        return compiled;
+    }
+
+    @FunctionalInterface
+    private interface CompiledIntExpression {
+        int evaluate(IEvaluatorContext ctx, Input input);
+    }
+
+    /*
+     * Compiles an operand of the given expression that should be an int
+     */
+    private CompiledIntExpression compileInt(Expression operand, Expression expression) {
+        if (operand instanceof Expression.Integer) {
+            int value = ((Expression.Integer) operand).getValue();
+            return (ctx, input) -> value;
+        }
+
+        if (isIndent(operand)) {
+            CompiledIntExpression arg = compileInt(((Expression.Call) operand).getArguments()[0], operand);
+            return (ctx, input) -> ctx.getColumnIndex(input).getColumnNumber(arg.evaluate(ctx, input));
+        }
+
+        if (operand.isIntTyped())
+            return operand::interpretInt;
+
+        CompiledExpression compiled = compileOperand(operand);
+        return (ctx, input) -> {
+            Object value = compiled.evaluate(ctx, input);
+            if (!(value instanceof java.lang.Integer))
+                throw new UnexpectedTypeOfArgumentException(expression);
+            return (java.lang.Integer) value;
+        };
+    }
+
+    private static boolean isIndent(Expression expression) {
+        return expression instanceof Expression.Call
+            && expression.getClass().getEnclosingClass() == AST.class
+            && ((Expression.Call) expression).getFunName().equals("indent")
+            && ((Expression.Call) expression).getArguments().length == 1;
+    }
+
+    private boolean isIntComparison(Expression lhs, Expression rhs) {
+        return typed && (lhs.isIntTyped() || rhs.isIntTyped());
+    }
+
+    private static CompiledExpression constant(Expression expression) {
+        Object value = expression.interpret(null, null);
+        return (ctx, input) -> value;
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Boolean expression) {
+        return constant(expression);
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Integer expression) {
+        return constant(expression);
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Real expression) {
+        return constant(expression);
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.String expression) {
+        return constant(expression);
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.IntTuple2 expression) {
+        return constant(expression);
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Tuple expression) {
+        CompiledExpression[] elements = compileOperands(expression.getElements());
+
+        if (elements.length == 1)
+            return elements[0];
+
+        return (ctx, input) -> {
+            Object[] values = new Object[elements.length];
+            for (int i = 0; i < elements.length; i++)
+                values[i] = elements[i].evaluate(ctx, input);
+            return values;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Name expression) {
+        String name = expression.getName();
+        int i = expression.getIndex();
+
+        if (i != -1) {
+            return (ctx, input) -> {
+                Object value = ctx.lookupVariable(i);
+                if (value == null)
+                    throw new UndeclaredVariableException(name);
+                return value;
+            };
+        }
+
+        return (ctx, input) -> {
+            Object value = ctx.lookupVariable(name);
+            if (value == null)
+                throw new UndeclaredVariableException(name);
+            return value;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Call expression) {
+        // Only the calls created by AST have known semantics; other subclasses may override interpret
+        if (expression.getClass().getEnclosingClass() != AST.class || expression.getArguments().length != 1)
+            return expression::interpret;
+
+        if (isIndent(expression)) {
+            CompiledIntExpression indent = compileInt(expression, expression);
+            return indent::evaluate;
+        }
+
+        CompiledExpression arg = compileOperand(expression.getArguments()[0]);
+
+        switch (expression.getFunName()) {
+
+            case "not":
+                return (ctx, input) -> {
+                    Object value = arg.evaluate(ctx, input);
+                    if (!(value instanceof java.lang.Boolean))
+                        throw new UnexpectedTypeOfArgumentException(expression);
+                    return !((java.lang.Boolean) value);
+                };
+
+            case "neg":
+                return (ctx, input) -> {
+                    Object value = arg.evaluate(ctx, input);
+                    if (!(value instanceof java.lang.Integer))
+                        throw new UnexpectedTypeOfArgumentException(expression);
+                    return -((java.lang.Integer) value);
+                };
+
+            case "len":
+                return (ctx, input) -> {
+                    Object value = arg.evaluate(ctx, input);
+                    if (!(value instanceof NonPackedNode))
+                        throw new UnexpectedTypeOfArgumentException(expression);
+                    NonPackedNode node = (NonPackedNode) value;
+                    return node.getRightExtent() - node.getLeftExtent();
+                };
+
+            default:
+                return expression::interpret;
+        }
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Assignment expression) {
+        String id = expression.getId();
+        int i = expression.getIndex();
+        CompiledExpression exp = compileOperand(expression.getExpression());
+
+        if (i != -1) {
+            return (ctx, input) -> {
+                ctx.storeVariable(i, exp.evaluate(ctx, input));
+                return null;
+            };
+        }
+
+        return (ctx, input) -> {
+            ctx.storeVariable(id, exp.evaluate(ctx, input));
+            return null;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.LShiftANDEqZero expression) {
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                return (((java.lang.Integer) l) & (1 << ((java.lang.Integer) r))) == 0;
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.OrIndent expression) {
+        CompiledIntExpression index = compileInt(expression.getIndex(), expression);
+        CompiledIntExpression ind = compileInt(expression.getIndent(), expression);
+        CompiledIntExpression first = compileInt(expression.getFirst(), expression);
+        CompiledIntExpression lExt = compileInt(expression.getLExt(), expression);
+
+        return (ctx, input) -> {
+            int indValue = ind.evaluate(ctx, input);
+            if (indValue == 0)
+                return true;
+
+            int firstValue = first.evaluate(ctx, input);
+            if (firstValue == 1) {
+                int indexValue = index.evaluate(ctx, input);
+                int lExtValue = lExt.evaluate(ctx, input);
+                if (lExtValue - indexValue == 0)
+                    return true;
+                return ctx.getColumnIndex(input).getColumnNumber(lExtValue) > indValue;
+            }
+
+            int lExtValue = lExt.evaluate(ctx, input);
+            return ctx.getColumnIndex(input).getColumnNumber(lExtValue) > indValue;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.AndIndent expression) {
+        CompiledIntExpression index = compileInt(expression.getIndex(), expression);
+        CompiledIntExpression first = compileInt(expression.getFirst(), expression);
+        CompiledIntExpression lExt = compileInt(expression.getLExt(), expression);
+        boolean returnIndex = expression.isReturnIndex();
+
+        return (ctx, input) -> {
+            int firstValue = first.evaluate(ctx, input);
+            if (firstValue == 1) {
+                int indexValue = index.evaluate(ctx, input);
+                int lExtValue = lExt.evaluate(ctx, input);
+                if (lExtValue - indexValue == 0)
+                    return returnIndex ? indexValue : 1;
+            }
+            return 0;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Or expression) {
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            if ((java.lang.Boolean) lhs.evaluate(ctx, input))
+                return true;
+            return rhs.evaluate(ctx, input);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.And expression) {
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            if (!(java.lang.Boolean) lhs.evaluate(ctx, input))
+                return false;
+            return rhs.evaluate(ctx, input);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Less expression) {
+        if (isIntComparison(expression.getLhs(), expression.getRhs())) {
+            CompiledIntExpression lhs = compileInt(expression.getLhs(), expression);
+            CompiledIntExpression rhs = compileInt(expression.getRhs(), expression);
+            return (ctx, input) -> lhs.evaluate(ctx, input) < rhs.evaluate(ctx, input);
+        }
+
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                return ((java.lang.Integer) l) < ((java.lang.Integer) r);
+
+            if (l instanceof java.lang.Float && r instanceof java.lang.Float)
+                return ((java.lang.Float) l) < ((java.lang.Float) r);
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.LessThanEqual expression) {
+        if (isIntComparison(expression.getLhs(), expression.getRhs())) {
+            CompiledIntExpression lhs = compileInt(expression.getLhs(), expression);
+            CompiledIntExpression rhs = compileInt(expression.getRhs(), expression);
+            return (ctx, input) -> lhs.evaluate(ctx, input) <= rhs.evaluate(ctx, input);
+        }
+
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                return ((java.lang.Integer) l) <= ((java.lang.Integer) r);
+
+            if (l instanceof java.lang.Float && r instanceof java.lang.Float)
+                return ((java.lang.Float) l) <= ((java.lang.Float) r);
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Greater expression) {
+        if (isIntComparison(expression.getLhs(), expression.getRhs())) {
+            CompiledIntExpression lhs = compileInt(expression.getLhs(), expression);
+            CompiledIntExpression rhs = compileInt(expression.getRhs(), expression);
+            return (ctx, input) -> lhs.evaluate(ctx, input) > rhs.evaluate(ctx, input);
+        }
+
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                return ((java.lang.Integer) l) > ((java.lang.Integer) r);
+
+            if (l instanceof java.lang.Float && r instanceof java.lang.Float)
+                return ((java.lang.Float) l) > ((java.lang.Float) r);
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.GreaterThanEqual expression) {
+        if (isIntComparison(expression.getLhs(), expression.getRhs())) {
+            CompiledIntExpression lhs = compileInt(expression.getLhs(), expression);
+            CompiledIntExpression rhs = compileInt(expression.getRhs(), expression);
+            return (ctx, input) -> lhs.evaluate(ctx, input) >= rhs.evaluate(ctx, input);
+        }
+
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                return ((java.lang.Integer) l) >= ((java.lang.Integer) r);
+
+            if (l instanceof java.lang.Float && r instanceof java.lang.Float)
+                return ((java.lang.Float) l) >= ((java.lang.Float) r);
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Equal expression) {
+        // A variable may be undefined, so only int typed operands are compared as ints
+        if (typed && expression.getLhs().isIntTyped() && expression.getRhs().isIntTyped()) {
+            CompiledIntExpression lhs = compileInt(expression.getLhs(), expression);
+            CompiledIntExpression rhs = compileInt(expression.getRhs(), expression);
+            return (ctx, input) -> lhs.evaluate(ctx, input) == rhs.evaluate(ctx, input);
+        }
+
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if (l == AST.UNDEF || r == AST.UNDEF)
+                return l == r;
+
+            if ((l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                || (l instanceof java.lang.Float && r instanceof java.lang.Float)
+                || (l instanceof java.lang.String && r instanceof java.lang.String))
+                return l.equals(r);
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.NotEqual expression) {
+        CompiledExpression lhs = compileOperand(expression.getLhs());
+        CompiledExpression rhs = compileOperand(expression.getRhs());
+
+        // Compares the values by reference, as Expression.NotEqual does
+        return (ctx, input) -> {
+            Object l = lhs.evaluate(ctx, input);
+            Object r = rhs.evaluate(ctx, input);
+
+            if ((l instanceof java.lang.Integer && r instanceof java.lang.Integer)
+                || (l instanceof java.lang.Float && r instanceof java.lang.Float))
+                return l != r;
+
+            throw new UnexpectedTypeOfArgumentException(expression);
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.LeftExtent expression) {
+        String label = expression.getLabel();
+        String name = String.format(Expression.LeftExtent.format, label);
+
+        return (ctx, input) -> {
+            Object value = ctx.lookupVariable(name);
+            if (value == null)
+                throw new UndeclaredVariableException(label + "." + "lExt");
+            return value;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.RightExtent expression) {
+        String label = expression.getLabel();
+
+        return (ctx, input) -> {
+            Object value = ctx.lookupVariable(label);
+            if (value == null)
+                throw new UndeclaredVariableException(label);
+            if (!(value instanceof NonPackedNode))
+                throw new UnexpectedTypeOfArgumentException(expression);
+            return ((NonPackedNode) value).getRightExtent();
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Yield expression) {
+        String label = expression.getLabel();
+        int i = expression.getIndex();
+
+        return (ctx, input) -> {
+            Object value = i == -1 ? ctx.lookupVariable(label) : ctx.lookupVariable(i);
+            if (value == null)
+                throw new UndeclaredVariableException(label);
+            if (!(value instanceof NonPackedNode))
+                throw new UnexpectedTypeOfArgumentException(expression);
+            NonPackedNode node = (NonPackedNode) value;
+            return input.subString(node.getLeftExtent(), node.getRightExtent());
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.Val expression) {
+        String label = expression.getLabel();
+
+        return (ctx, input) -> {
+            Object value = ctx.lookupVariable(label);
+            if (value == null)
+                throw new UndeclaredVariableException(label);
+            if (!(value instanceof NonterminalNodeWithValue))
+                throw new UnexpectedTypeOfArgumentException(expression);
+            return ((NonterminalNodeWithValue) value).getValue();
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.EndOfFile expression) {
+        CompiledExpression index = compileOperand(expression.getIndex());
+        return (ctx, input) -> input.length() == (java.lang.Integer) index.evaluate(ctx, input) + 1;
+    }
+
+    @Override
+    public CompiledExpression visit(Expression.IfThenElse expression) {
+        CompiledExpression condition = compileOperand(expression.getCondition());
+        CompiledExpression thenPart = compileOperand(expression.getThenPart());
+        CompiledExpression elsePart = compileOperand(expression.getElsePart());
+
+        return (ctx, input) -> (java.lang.Boolean) condition.evaluate(ctx, input) ? thenPart.evaluate(ctx, input)
+                                                                                 : elsePart.evaluate(ctx, input);
+    }
+
+    @Override
+    public CompiledExpression visit(VariableDeclaration declaration) {
+        String name = declaration.getName();
+        int i = declaration.getIndex();
+        CompiledExpression expression = declaration.getExpression() == null ? null : compileOperand(declaration.getExpression());
+
+        return (ctx, input) -> {
+            Object value = expression == null ? VariableDeclaration.defaultValue : expression.evaluate(ctx, input);
+            if (i != -1)
+                ctx.declareVariable(value);
+            else
+                ctx.declareVariable(name, value);
+            return null;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Statement.Expression statement) {
+        CompiledExpression expression = compileOperand(statement.getExpression());
+        return (ctx, input) -> {
+            expression.evaluate(ctx, input);
+            return null;
+        };
+    }
+
+    @Override
+    public CompiledExpression visit(Statement.VariableDeclaration statement) {
+        return compileOperand(statement.getDeclaration());
+    }
+
+}
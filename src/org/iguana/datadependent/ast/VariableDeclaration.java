@@ -63,6 +63,10 @@ public class VariableDeclaration extends AbstractAST {
 		return name;
 	}
 	
+	public int getIndex() {
+		return i;
+	}
+	
 	public Expression getExpression() {
 		return expression;
 	}
@@ -27,6 +27,9 @@
 
 package org.iguana.datadependent.env;
 
+import iguana.utils.input.Input;
+import org.iguana.parser.ColumnIndex;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,6 +39,8 @@ public abstract class AbstractEvaluatorContext implements IEvaluatorContext {
 	
 	private Map<String, Object> global;
 
+	private ColumnIndex columnIndex;
+
 	@Override
 	public Environment getEnvironment() {
 		return env;
@@ -110,6 +115,18 @@ public abstract class AbstractEvaluatorContext implements IEvaluatorContext {
 		return global.get(name);
 	}
 
+	@Override
+	public ColumnIndex getColumnIndex(Input input) {
+		if (columnIndex == null || columnIndex.getInput() != input)
+			columnIndex = new ColumnIndex(input);
+		return columnIndex;
+	}
+
+	@Override
+	public void clearColumnIndex() {
+		columnIndex = null;
+	}
+
 	@Override
 	public void declareVariable(Object value) {
 		env = env._declare(value);
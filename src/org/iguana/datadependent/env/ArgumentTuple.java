@@ -0,0 +1,46 @@
+package org.iguana.datadependent.env;
+
+import java.util.Arrays;
+
+/**
+ * The values of the arguments of a call to a parameterized nonterminal, with a cached hash code.
+ * Tuples are hash-consed by {@link EnvironmentInterner}, so equal tuples of the same parse are
+ * the same object and compare by identity.
+ */
+public class ArgumentTuple {
+
+    private final Object[] values;
+
+    private final int hashCode;
+
+    ArgumentTuple(Object[] values) {
+        this.values = values;
+        this.hashCode = Arrays.hashCode(values);
+    }
+
+    /**
+     * Returns the values of this tuple, which should not be modified.
+     */
+    public Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ArgumentTuple)) return false;
+        ArgumentTuple other = (ArgumentTuple) obj;
+        return hashCode == other.hashCode && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+}
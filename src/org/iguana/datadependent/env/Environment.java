@@ -37,6 +37,14 @@ public interface Environment {
 	Environment push();
 	
 	Environment _declare(String name, Object value);
+
+	/**
+	 * Returns an environment without the binding of the given name, if the bindings are keyed by
+	 * name. Environments that bind by index, and environments without the name, return themselves.
+	 */
+	default Environment _remove(String name) {
+		return this;
+	}
 	
 	Environment declare(String[] names, Object[] values);
 	
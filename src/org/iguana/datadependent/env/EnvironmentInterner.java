@@ -0,0 +1,48 @@
+package org.iguana.datadependent.env;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash-conses the environments and the argument tuples that are kept in the GSS and the keys of
+ * the intermediate nodes of a parse. Structurally equal environments are then the same object, so
+ * the lookups of GSS nodes, GSS edges and intermediate nodes compare them by identity, and the
+ * duplicates become garbage as soon as they are interned.
+ *
+ * Interned environments are shared, so they must not be returned to the {@link EnvironmentPool}.
+ * An interner belongs to a single parse and is not thread-safe.
+ */
+public class EnvironmentInterner {
+
+    private final Map<Environment, Environment> environments = new HashMap<>();
+
+    private final Map<ArgumentTuple, ArgumentTuple> tuples = new HashMap<>();
+
+    public Environment intern(Environment env) {
+        if (env.isEmpty())
+            return env;
+
+        Environment canonical = environments.putIfAbsent(env, env);
+        return canonical == null ? env : canonical;
+    }
+
+    public ArgumentTuple intern(Object[] values) {
+        ArgumentTuple tuple = new ArgumentTuple(values);
+        ArgumentTuple canonical = tuples.putIfAbsent(tuple, tuple);
+        return canonical == null ? tuple : canonical;
+    }
+
+    public int countEnvironments() {
+        return environments.size();
+    }
+
+    public int countTuples() {
+        return tuples.size();
+    }
+
+    public void clear() {
+        environments.clear();
+        tuples.clear();
+    }
+
+}
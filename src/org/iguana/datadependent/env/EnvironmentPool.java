@@ -3,37 +3,109 @@ package org.iguana.datadependent.env;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+/**
+ * A pool of the array-based environments of sizes 1 to 3 whose bindings failed the conditions of
+ * a return slot, so that they can be reused by the next declaration of the same size.
+ *
+ * A pool belongs to the evaluator context of an {@link org.iguana.parser.IguanaRuntime} and is not
+ * shared between parsers, so concurrent parses, each with its own runtime, do not interfere. The
+ * pools grow with the number of returned environments, up to the given capacity per size, and are
+ * released by {@link #clear()} at the end of each parse.
+ */
 public class EnvironmentPool {
 
-    static Deque<Environment>[] environmentPools;
+    private static final int MAX_SIZE = 3;
 
-    static {
-        environmentPools = new ArrayDeque[3];
-        for (int i = 0; i < environmentPools.length; i++) {
-            environmentPools[i] = new ArrayDeque<>(1000);
-        }
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+
+    private Deque<Environment>[] environmentPools;
+
+    private long hits;
+
+    private long misses;
+
+    private long dropped;
+
+    public EnvironmentPool(int capacity) {
+        this.capacity = capacity;
+        this.environmentPools = newPools();
     }
 
-    public static void clean() {
+    @SuppressWarnings("unchecked")
+    private static Deque<Environment>[] newPools() {
+        Deque<Environment>[] environmentPools = new ArrayDeque[MAX_SIZE];
         for (int i = 0; i < environmentPools.length; i++) {
-            environmentPools[i].clear();
+            environmentPools[i] = new ArrayDeque<>(INITIAL_CAPACITY);
         }
+        return environmentPools;
+    }
+
+    /**
+     * Releases the pooled environments. The counters are kept.
+     */
+    public void clear() {
+        environmentPools = newPools();
     }
 
-    public static Environment get(int size) {
-        if (size >= 1 && size <= 3) {
+    /**
+     * Returns a pooled environment of the given size, whose bindings should be overwritten, or null
+     * if there is none.
+     */
+    public Environment get(int size) {
+        if (size >= 1 && size <= MAX_SIZE) {
             Deque<Environment> environmentPool = environmentPools[size - 1];
             if (!environmentPool.isEmpty()) {
+                hits++;
                 return environmentPool.pop();
             }
         }
+        misses++;
         return null;
     }
 
-    public static void returnToPool(Environment env) {
+    /**
+     * Returns an environment to the pool. The environment should not be referenced elsewhere.
+     */
+    public void returnToPool(Environment env) {
         int size = env.size();
-        if (size >= 1 && size <= 3) {
-            environmentPools[size - 1].push(env);
+        if (size >= 1 && size <= MAX_SIZE) {
+            Deque<Environment> environmentPool = environmentPools[size - 1];
+            if (environmentPool.size() < capacity)
+                environmentPool.push(env);
+            else
+                dropped++;
         }
     }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of returned environments that were not pooled, because the pool was full.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Environment pool: %d hits, %d misses (%.2f%%), %d dropped", hits, misses, getHitRate() * 100, dropped);
+    }
+
 }
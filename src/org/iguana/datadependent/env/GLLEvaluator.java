@@ -32,6 +32,7 @@ import org.iguana.datadependent.env.intarray.IntArrayEvaluatorContext;
 import org.iguana.datadependent.env.persistent.PersistentEvaluatorContext;
 import org.iguana.datadependent.env.simple.SimpleEvaluatorContext;
 import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.EnvironmentImpl;
 
 public class GLLEvaluator {
 	
@@ -42,14 +43,27 @@ public class GLLEvaluator {
 	}
 	
 	public static IEvaluatorContext getEvaluatorContext(Configuration config) {
-		switch(config.getEnvImpl()) {
+		return getEvaluatorContext(config, null);
+	}
+
+	/**
+	 * Returns an evaluator context whose array-based environments reuse the environments of the
+	 * given pool, if not null.
+	 */
+	public static IEvaluatorContext getEvaluatorContext(Configuration config, EnvironmentPool pool) {
+		return getEvaluatorContext(config.getEnvImpl(), pool);
+	}
+
+	public static IEvaluatorContext getEvaluatorContext(EnvironmentImpl envImpl, EnvironmentPool pool) {
+		switch(envImpl) {
 			case ARRAY: 
-				return new ArrayEvaluatorContext();
+				return new ArrayEvaluatorContext(pool);
 			case INT_ARRAY:
-				return new IntArrayEvaluatorContext();
+				return new IntArrayEvaluatorContext(pool);
 			case HASH_MAP:
 				return new SimpleEvaluatorContext();
 			case TRIE: 
+			case AUTO: // Until the environment implementation of the grammar is known
 				return new PersistentEvaluatorContext();
 			default:
 				throw new RuntimeException("Should not have happened!");
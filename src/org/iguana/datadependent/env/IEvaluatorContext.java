@@ -27,6 +27,9 @@
 
 package org.iguana.datadependent.env;
 
+import iguana.utils.input.Input;
+import org.iguana.parser.ColumnIndex;
+
 public interface IEvaluatorContext {
 	
 	Environment getEnvironment();
@@ -66,4 +69,14 @@ public interface IEvaluatorContext {
 	
 	Object lookupGlobalVariable(String name);
 
+	// Column numbers of the input, for indentation constraints
+
+	/**
+	 * Returns the column index of the given input, which is built on first use and kept until
+	 * a different input is given or the index is cleared.
+	 */
+	ColumnIndex getColumnIndex(Input input);
+
+	void clearColumnIndex();
+
 }
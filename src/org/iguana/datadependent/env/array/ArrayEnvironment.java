@@ -9,17 +9,26 @@ public class ArrayEnvironment implements Environment {
 
 	private final Object[] values;
 	private int hashCode;
+	private final EnvironmentPool pool;
 	
-	static final ArrayEnvironment EMPTY = new ArrayEnvironment(new Object[0], 0);
+	static final ArrayEnvironment EMPTY = new ArrayEnvironment(new Object[0], 0, null);
 	
-	private ArrayEnvironment(Object[] values, int hashCode) {
+	private ArrayEnvironment(Object[] values, int hashCode, EnvironmentPool pool) {
 		this.values = values;
 		this.hashCode = hashCode;
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the empty environment whose extensions reuse the environments of the given pool, if any.
+	 */
+	static ArrayEnvironment empty(EnvironmentPool pool) {
+		return pool == null ? EMPTY : new ArrayEnvironment(new Object[0], 0, pool);
 	}
 
 	private void init(Object[] oldValues, Object value, int oldHashCode) {
 		int length = oldValues.length;
-		System.arraycopy(this.values, 0, values, 0, length);
+		System.arraycopy(oldValues, 0, values, 0, length);
 
 		values[length] = value;
 
@@ -109,10 +118,12 @@ public class ArrayEnvironment implements Environment {
 	public Environment _declare(Object value) {
 		int length = this.values.length;
 
-		ArrayEnvironment environment = (ArrayEnvironment) EnvironmentPool.get(length + 1);
-		if (environment != null) {
-			environment.init(this.values, value, this.hashCode);
-			return environment;
+		if (pool != null) {
+			ArrayEnvironment environment = (ArrayEnvironment) pool.get(length + 1);
+			if (environment != null) {
+				environment.init(this.values, value, this.hashCode);
+				return environment;
+			}
 		}
 
 		Object[] values = new Object[length + 1];
@@ -132,7 +143,7 @@ public class ArrayEnvironment implements Environment {
 			valueHashCode = 31 * valueHashCode + value.hashCode();
 		}
 		
-		return new ArrayEnvironment(values, valueHashCode);
+		return new ArrayEnvironment(values, valueHashCode, pool);
 	}
 
 	@Override
@@ -152,7 +163,7 @@ public class ArrayEnvironment implements Environment {
 			j++;
 		}
 		
-		return new ArrayEnvironment(vals, hashCode);
+		return new ArrayEnvironment(vals, hashCode, pool);
 	}
 
 	@Override
@@ -171,7 +182,7 @@ public class ArrayEnvironment implements Environment {
 				hashCode = hashCode + values[i].hashCode();
 		}
 		
-		return new ArrayEnvironment(values, hashCode);
+		return new ArrayEnvironment(values, hashCode, pool);
 	}
 
 	@Override
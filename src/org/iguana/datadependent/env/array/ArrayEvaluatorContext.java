@@ -2,16 +2,24 @@ package org.iguana.datadependent.env.array;
 
 import org.iguana.datadependent.env.AbstractEvaluatorContext;
 import org.iguana.datadependent.env.Environment;
+import org.iguana.datadependent.env.EnvironmentPool;
 
 public class ArrayEvaluatorContext extends AbstractEvaluatorContext {
 
+	private final ArrayEnvironment empty;
+
 	public ArrayEvaluatorContext() {
-		setEnvironment(ArrayEnvironment.EMPTY);
+		this(null);
+	}
+
+	public ArrayEvaluatorContext(EnvironmentPool pool) {
+		this.empty = ArrayEnvironment.empty(pool);
+		setEnvironment(empty);
 	}
 
 	@Override
 	public Environment getEmptyEnvironment() {
-		return ArrayEnvironment.EMPTY;
+		return empty;
 	}
 
 }
@@ -12,10 +12,20 @@ public class IntArrayEnvironment implements Environment {
      */
     private long value;
 
-    static final IntArrayEnvironment EMPTY = new IntArrayEnvironment(0);
+    private final EnvironmentPool pool;
 
-    private IntArrayEnvironment(long value) {
+    static final IntArrayEnvironment EMPTY = new IntArrayEnvironment(0, null);
+
+    private IntArrayEnvironment(long value, EnvironmentPool pool) {
         this.value = value;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the empty environment whose extensions reuse the environments of the given pool, if any.
+     */
+    static IntArrayEnvironment empty(EnvironmentPool pool) {
+        return pool == null ? EMPTY : new IntArrayEnvironment(0, pool);
     }
 
     public void init(long value) {
@@ -84,13 +94,15 @@ public class IntArrayEnvironment implements Environment {
 
         result = setSize(size + 1, result);
 
-        IntArrayEnvironment environment = (IntArrayEnvironment) EnvironmentPool.get(size + 1);
-        if (environment != null) {
-            environment.init(result);
-            return environment;
+        if (pool != null) {
+            IntArrayEnvironment environment = (IntArrayEnvironment) pool.get(size + 1);
+            if (environment != null) {
+                environment.init(result);
+                return environment;
+            }
         }
 
-        return new IntArrayEnvironment(result);
+        return new IntArrayEnvironment(result, pool);
     }
 
     private static long set(int i, int value, long currentValue) {
@@ -118,12 +130,12 @@ public class IntArrayEnvironment implements Environment {
 
         long size = values.length;
         value = (size << 60) | (value & 0x0FFFFFFFFFFFFFFFL);
-        return new IntArrayEnvironment(value);
+        return new IntArrayEnvironment(value, pool);
     }
 
     @Override
     public IntArrayEnvironment store(int i, Object value) {
-        return new IntArrayEnvironment(set(i, (int) value, this.value));
+        return new IntArrayEnvironment(set(i, (int) value, this.value), pool);
     }
 
     static MutableLong mutableLong = new MutableLong();
@@ -2,15 +2,23 @@ package org.iguana.datadependent.env.intarray;
 
 import org.iguana.datadependent.env.AbstractEvaluatorContext;
 import org.iguana.datadependent.env.Environment;
+import org.iguana.datadependent.env.EnvironmentPool;
 
 public class IntArrayEvaluatorContext extends AbstractEvaluatorContext {
 
+    private final IntArrayEnvironment empty;
+
     public IntArrayEvaluatorContext() {
-        setEnvironment(getEmptyEnvironment());
+        this(null);
+    }
+
+    public IntArrayEvaluatorContext(EnvironmentPool pool) {
+        this.empty = IntArrayEnvironment.empty(pool);
+        setEnvironment(empty);
     }
 
     @Override
     public Environment getEmptyEnvironment() {
-        return IntArrayEnvironment.EMPTY;
+        return empty;
     }
 }
@@ -39,6 +39,8 @@ public class PersistentEnvironment implements Environment {
 	
 	final private Map.Immutable<String, Object> bindings;
 
+	private int hashCode;
+
 	static final Environment EMPTY = new PersistentEnvironment(null, (Map.Immutable<String, Object>) Map.Immutable.<String, Object>of());
 	
 	private PersistentEnvironment(PersistentEnvironment parent, Map.Immutable<String, Object> bindings) {
@@ -66,6 +68,16 @@ public class PersistentEnvironment implements Environment {
 		return new PersistentEnvironment(parent, bindings.__put(name, value));
 	}
 
+	@Override
+	public Environment _remove(String name) {
+		Map.Immutable<String, Object> bindings = this.bindings.__remove(name);
+		if (bindings == this.bindings) {
+			return this;
+		}
+
+		return new PersistentEnvironment(parent, bindings);
+	}
+
 	@Override
 	public Environment declare(String[] names, Object[] values) {
 		Map.Immutable<String, Object> bindings = this.bindings;
@@ -128,7 +140,13 @@ public class PersistentEnvironment implements Environment {
 	
 	@Override
 	public int hashCode() {
-		return (parent == null ? 0 : parent.hashCode()) + bindings.hashCode();   
+		// Computed once, as environments are immutable
+		int h = hashCode;
+		if (h == 0) {
+			h = (parent == null ? 0 : parent.hashCode()) + bindings.hashCode();
+			hashCode = h;
+		}
+		return h;
 	}
 	
 	@Override
@@ -77,6 +77,17 @@ public class SimpleImmutableEnvironment implements Environment {
 		return new SimpleImmutableEnvironment(parent, bindings, this.hashCode + (name.hashCode() ^ value.hashCode()));
 	}
 
+	@Override
+	public Environment _remove(String name) {
+		Object value = this.bindings.get(name);
+		if (value == null)
+			return this;
+
+		Map<String, Object> bindings = new HashMap<>(this.bindings);
+		bindings.remove(name);
+		return new SimpleImmutableEnvironment(parent, bindings, this.hashCode - (name.hashCode() ^ value.hashCode()));
+	}
+
 	@Override
 	public Environment declare(String[] names, Object[] values) {
 		Map<String, Object> bindings = new HashMap<>(this.bindings);
@@ -36,6 +36,8 @@ import org.iguana.grammar.patterns.PrecedencePattern;
 import org.iguana.grammar.slot.NonterminalNodeType;
 import org.iguana.grammar.symbol.*;
 import org.iguana.traversal.idea.IdeaIDEGenerator;
+import org.iguana.util.serialization.BinarySerializer;
+import org.iguana.util.serialization.GrammarObjectInputStream;
 import org.iguana.util.serialization.JsonSerializer;
 
 import java.io.*;
@@ -71,6 +73,8 @@ public class Grammar implements Serializable {
 	private final Map<String, Set<String>> ebnfRights;
 
 	private final Start startSymbol;
+
+	private final Set<String> precedenceClimbing;
 		
 	public Grammar(Builder builder) {
 		this.definitions = builder.definitions;
@@ -81,6 +85,7 @@ public class Grammar implements Serializable {
 		this.rules = builder.rules;
 		this.ebnfLefts = builder.ebnfLefts;
 		this.ebnfRights = builder.ebnfRights;
+		this.precedenceClimbing = builder.precedenceClimbing;
 	}
 	
 	public Map<Nonterminal, List<Rule>> getDefinitions() {
@@ -110,6 +115,16 @@ public class Grammar implements Serializable {
     public Start getStartSymbol() {
         return startSymbol;
     }
+
+	/**
+	 * Returns the names of the operator nonterminals whose precedence and associativity have been left
+	 * undesugared, to be parsed by precedence climbing, see
+	 * {@link org.iguana.grammar.transformation.DesugarPrecedenceAndAssociativity#setPrecedenceClimbing()}.
+	 */
+	public Set<String> getPrecedenceClimbing() {
+		// Grammars serialized before this field existed have none
+		return precedenceClimbing == null ? Collections.emptySet() : precedenceClimbing;
+	}
 	
 	public int sizeRules() {
 		int num = 0;
@@ -210,6 +225,8 @@ public class Grammar implements Serializable {
 		private Map<String, Set<String>> ebnfLefts = new HashMap<>();
 		private Map<String, Set<String>> ebnfRights = new HashMap<>();
 
+		private Set<String> precedenceClimbing = new LinkedHashSet<>();
+
         public Builder() { }
 
         public Builder(Grammar grammar) {
@@ -221,6 +238,7 @@ public class Grammar implements Serializable {
             ebnfLefts.putAll(grammar.ebnfLefts);
             ebnfRights.putAll(grammar.ebnfRights);
             startSymbol = grammar.startSymbol;
+            precedenceClimbing.addAll(grammar.getPrecedenceClimbing());
         }
 		
 		public Grammar build() {
@@ -263,6 +281,11 @@ public class Grammar implements Serializable {
 		    this.startSymbol = startSymbol;
 		    return this;
         }
+
+		public Builder setPrecedenceClimbing(Set<String> precedenceClimbing) {
+			this.precedenceClimbing = new LinkedHashSet<>(precedenceClimbing);
+			return this;
+		}
 		
 		public Builder addPrecedencePattern(PrecedencePattern pattern) {
 			precedencePatterns.add(pattern);
@@ -309,18 +332,39 @@ public class Grammar implements Serializable {
 		save(new File(uri));
 	}
 
-	public void save(File file) {
-		if (!file.exists()) {
-			try {
-				file.createNewFile();
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
+	/**
+	 * Saves this grammar in the given format: "binary" or "compact" for the format of {@link BinarySerializer},
+	 * which keeps all the information of the grammar, or "json". The JSON format does not keep the
+	 * precedence and associativity information of the rules, and is meant for grammars that have been
+	 * desugared.
+	 */
+	public void save(File file, String format) {
+		switch (format) {
+			case "binary":
+			case "compact":
+				save(file);
+				break;
+
+			case "json":
+				try {
+					JsonSerializer.serialize(this, file.getPath());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				break;
+
+			default:
+				throw new RuntimeException("Unsupported format exception");
 		}
+	}
 
-		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
-			out.writeObject(this);
-		} catch (Exception e) {
+	/**
+	 * Saves this grammar in the format of {@link BinarySerializer}.
+	 */
+	public void save(File file) {
+		try {
+			BinarySerializer.serialize(this, file);
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -347,17 +391,38 @@ public class Grammar implements Serializable {
 		return load(inputStream, "binary");
 	}
 
+	/**
+	 * Loads a grammar in the given format. The "binary" format also reads the grammars that older
+	 * versions saved with Java serialization, through a {@link GrammarObjectInputStream} that only
+	 * resolves the classes of grammars.
+	 */
 	public static Grammar load(InputStream inputStream, String format) {
 		Grammar grammar;
 		switch (format) {
 			case "binary":
-				try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(inputStream))) {
+				BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+				try {
+					if (BinarySerializer.isBinaryGrammar(bufferedInputStream))
+						return BinarySerializer.deserialize(bufferedInputStream);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+
+				try (ObjectInputStream in = new GrammarObjectInputStream(bufferedInputStream)) {
 					grammar = (Grammar) in.readObject();
 				} catch (IOException | ClassNotFoundException e) {
 					throw new RuntimeException(e);
 				}
 				break;
 
+			case "compact":
+				try {
+					grammar = BinarySerializer.deserialize(inputStream);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				break;
+
 			case "json":
 				try {
 					grammar = JsonSerializer.deserialize(inputStream, Grammar.class);
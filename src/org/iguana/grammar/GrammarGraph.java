@@ -1,15 +1,22 @@
 package org.iguana.grammar;
 
 import iguana.regex.matcher.DFAMatcherFactory;
+import iguana.regex.matcher.Matcher;
 import org.iguana.grammar.condition.ConditionsFactory;
+import org.iguana.grammar.condition.DataDependentConditionMemo;
+import org.iguana.grammar.condition.RegularExpressionConditionMemo;
+import org.iguana.grammar.matcher.KeywordMatcherFactory;
 import org.iguana.grammar.slot.BodyGrammarSlot;
 import org.iguana.grammar.slot.GrammarSlot;
 import org.iguana.grammar.slot.NonterminalGrammarSlot;
 import org.iguana.grammar.slot.TerminalGrammarSlot;
 import org.iguana.grammar.symbol.Terminal;
+import org.iguana.util.Configuration.EnvironmentImpl;
 
+import java.util.Collection;
 import java.util.List;
 
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 
 public class GrammarGraph {
@@ -17,10 +24,27 @@ public class GrammarGraph {
     public static final TerminalGrammarSlot epsilonSlot = new TerminalGrammarSlot(Terminal.epsilon(), new DFAMatcherFactory(), ConditionsFactory.DEFAULT, ConditionsFactory.DEFAULT);;
     private final List<GrammarSlot> slots;
     private NonterminalGrammarSlot startSlot;
+    private final Matcher layoutMatcher;
+    private final Collection<RegularExpressionConditionMemo> conditionMemos;
+    private final Collection<DataDependentConditionMemo> dataDependentConditionMemos;
+    private final EnvironmentImpl envImpl;
+    private final KeywordMatcherFactory keywordMatcherFactory;
 
     public GrammarGraph(List<GrammarSlot> slots, NonterminalGrammarSlot startSlot) {
+        this(slots, startSlot, null, emptyList(), emptyList(), null, null);
+    }
+
+    public GrammarGraph(List<GrammarSlot> slots, NonterminalGrammarSlot startSlot, Matcher layoutMatcher,
+                        Collection<RegularExpressionConditionMemo> conditionMemos,
+                        Collection<DataDependentConditionMemo> dataDependentConditionMemos, EnvironmentImpl envImpl,
+                        KeywordMatcherFactory keywordMatcherFactory) {
         this.slots = slots;
         this.startSlot = startSlot;
+        this.layoutMatcher = layoutMatcher;
+        this.conditionMemos = conditionMemos;
+        this.dataDependentConditionMemos = dataDependentConditionMemos;
+        this.envImpl = envImpl;
+        this.keywordMatcherFactory = keywordMatcherFactory;
     }
 
     public List<NonterminalGrammarSlot> getNonterminalGrammarSlots() {
@@ -39,9 +63,49 @@ public class GrammarGraph {
         return startSlot;
     }
 
+    /**
+     * Returns the matcher of the grammar's layout if the layout is a regular expression, otherwise null.
+     */
+    public Matcher getLayoutMatcher() {
+        return layoutMatcher;
+    }
+
+    /**
+     * Returns the memos of the follow and precede conditions of this grammar graph, which count
+     * the matcher invocations saved per condition.
+     */
+    public Collection<RegularExpressionConditionMemo> getRegularExpressionConditionMemos() {
+        return conditionMemos;
+    }
+
+    /**
+     * Returns the memos of the data-dependent conditions of this grammar graph, which count the
+     * hits and misses per condition. Empty unless memoizing conditions is configured.
+     */
+    public Collection<DataDependentConditionMemo> getDataDependentConditionMemos() {
+        return dataDependentConditionMemos;
+    }
+
+    /**
+     * Returns the environment implementation this grammar graph was built for, which is the one
+     * selected for the grammar if the configuration's is AUTO, or null if unknown.
+     */
+    public EnvironmentImpl getEnvImpl() {
+        return envImpl;
+    }
+
     public void clear() {
         for (GrammarSlot slot : slots) {
             slot.reset();
         }
+        for (DataDependentConditionMemo memo : dataDependentConditionMemos) {
+            memo.clear();
+        }
+        for (RegularExpressionConditionMemo memo : conditionMemos) {
+            memo.clear();
+        }
+        if (keywordMatcherFactory != null) {
+            keywordMatcherFactory.clear();
+        }
     }
 }
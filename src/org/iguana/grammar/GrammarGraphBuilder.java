@@ -29,27 +29,38 @@ package org.iguana.grammar;
 
 import iguana.regex.CharRange;
 import iguana.regex.matcher.DFAMatcherFactory;
+import iguana.regex.matcher.Matcher;
 import iguana.regex.matcher.MatcherFactory;
 import iguana.utils.collections.rangemap.RangeMap;
 import iguana.utils.collections.rangemap.RangeMapBuilder;
 import org.iguana.datadependent.ast.Expression;
 import org.iguana.datadependent.ast.Statement;
+import org.iguana.grammar.compiler.GrammarGraphCompiler;
 import org.iguana.grammar.condition.Condition;
 import org.iguana.grammar.condition.Conditions;
 import org.iguana.grammar.condition.ConditionsFactory;
 import org.iguana.grammar.exception.IncorrectNumberOfArgumentsException;
+import org.iguana.grammar.matcher.KeywordMatcherFactory;
+import org.iguana.grammar.matcher.MultiTerminalMatcher;
+import org.iguana.grammar.matcher.TaggedDFA;
+import org.iguana.grammar.operations.EnvironmentAnalysis;
 import org.iguana.grammar.operations.FirstFollowSets;
+import org.iguana.grammar.operations.LiveVariables;
+import org.iguana.grammar.operations.PrecedenceClimbingAnalysis;
 import org.iguana.grammar.slot.*;
 import org.iguana.grammar.slot.EpsilonTransition.Type;
 import org.iguana.grammar.slot.lookahead.FollowTest;
-import org.iguana.grammar.slot.lookahead.RangeTreeFollowTest;
+import org.iguana.grammar.slot.lookahead.TableFollowTest;
+import org.iguana.grammar.slot.lookahead.TableRangeMap;
 import org.iguana.grammar.symbol.*;
 import org.iguana.grammar.transformation.VarToInt;
+import org.iguana.traversal.ToSlotActionConditionVisitor;
 import org.iguana.util.Configuration;
 import org.iguana.util.Configuration.EnvironmentImpl;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.iguana.grammar.GrammarGraph.epsilonSlot;
 
@@ -69,25 +80,66 @@ public class GrammarGraphBuilder implements Serializable {
 
     private Configuration config;
 
+    /*
+     * The environment implementation of the configuration, or the one selected for the grammar if AUTO
+     */
+    private final EnvironmentImpl envImpl;
+
     private final Map<Integer, Map<String, Integer>> mapping;
 
     private Map<String, Integer> current;
 
-    private static MatcherFactory matcherFactory = new DFAMatcherFactory();
+    private static final MatcherFactory dfaMatcherFactory = new DFAMatcherFactory();
+
+    private final MatcherFactory matcherFactory;
+
+    private final ToSlotActionConditionVisitor conditionVisitor;
 
     public static GrammarGraph from(Grammar grammar) {
         return from(grammar, Configuration.load());
     }
 
     public static GrammarGraph from(Grammar grammar, Configuration config) {
-        GrammarGraphBuilder builder = new GrammarGraphBuilder(grammar, config);
-        builder.convert();
+        return from(grammar, config, g -> new FirstFollowSets(g, config.getLookAheadCount()));
+    }
+
+    /**
+     * Builds the grammar graph using the given function to obtain the first and follow sets of the grammar,
+     * which is the grammar after the transformations of the builder, e.g., {@link VarToInt}.
+     */
+    public static GrammarGraph from(Grammar grammar, Configuration config, Function<Grammar, FirstFollowSets> analysis) {
+        return from(grammar, config, analysis, dfaMatcherFactory);
+    }
+
+    /**
+     * Builds the grammar graph as {@link #from(Grammar, Configuration, Function)}, using the given factory
+     * for the matchers of the regular expressions.
+     */
+    public static GrammarGraph from(Grammar grammar, Configuration config, Function<Grammar, FirstFollowSets> analysis, MatcherFactory matcherFactory) {
+        GrammarGraphBuilder builder = new GrammarGraphBuilder(grammar, config, matcherFactory);
+        builder.convert(analysis);
         ((ArrayList) builder.slots).trimToSize();
-        return new GrammarGraph(builder.slots, builder.getHead(Nonterminal.withName(grammar.getStartSymbol().getName())));
+        GrammarGraph grammarGraph = new GrammarGraph(builder.slots, builder.getHead(Nonterminal.withName(grammar.getStartSymbol().getName())),
+                                                     builder.getLayoutMatcher(), builder.conditionVisitor.getRegularExpressionConditionMemos(),
+                                                     builder.conditionVisitor.getDataDependentConditionMemos(),
+                                                     builder.envImpl,
+                                                     builder.matcherFactory instanceof KeywordMatcherFactory ? (KeywordMatcherFactory) builder.matcherFactory : null);
+        if (config.compileGrammarGraph())
+            GrammarGraphCompiler.compile(grammarGraph);
+        else if (config.threadedInterpreter())
+            ThreadedInterpreter.install(grammarGraph.getBodyGrammarSlots());
+        return grammarGraph;
     }
 
-    private void convert() {
-        this.firstFollow = new FirstFollowSets(this.grammar);
+    private Matcher getLayoutMatcher() {
+        Symbol layout = grammar.getLayout();
+        if (layout instanceof Terminal && ((Terminal) layout).getRegularExpression().getLookaheads().isEmpty())
+            return matcherFactory.getMatcher(((Terminal) layout).getRegularExpression());
+        return null;
+    }
+
+    private void convert(Function<Grammar, FirstFollowSets> analysis) {
+        this.firstFollow = analysis.apply(this.grammar);
 
         terminalsMap.put(Terminal.epsilon(), epsilonSlot);
 
@@ -103,11 +155,163 @@ public class GrammarGraphBuilder implements Serializable {
             i++;
         }
 
+        // Only environments that bind by name can leave out bindings
+        if (config.pruneBindings() && (envImpl == EnvironmentImpl.TRIE || envImpl == EnvironmentImpl.HASH_MAP))
+            LiveVariables.apply(slots);
+
         nonterminals.forEach(this::setFirstFollowTests);
+
+        if (config.combineTerminals())
+            nonterminals.forEach(this::setMultiTerminalMatcher);
+
+        if (!this.grammar.getPrecedenceClimbing().isEmpty())
+            setPrecedenceClimbing();
+
+        if (config.deterministicDescent() && config.getLookAheadCount() > 0)
+            setDeterministicNonterminals();
+    }
+
+    /*
+     * Lets the operator nonterminals that were left undesugared, see Grammar.getPrecedenceClimbing(),
+     * be parsed by precedence climbing, and the transitions that call them parse them directly. Their
+     * rules are ambiguous without the climbing, so a nonterminal that cannot be parsed this way, or
+     * that has a call that cannot, is an error.
+     */
+    private void setPrecedenceClimbing() {
+        PrecedenceClimbingAnalysis analysis = PrecedenceClimbingAnalysis.analyse(grammar, firstFollow);
+
+        Map<String, Nonterminal> operatorNonterminals = new HashMap<>();
+        for (Nonterminal nonterminal : analysis.getNonterminals())
+            operatorNonterminals.put(nonterminal.getName(), nonterminal);
+
+        for (String name : grammar.getPrecedenceClimbing()) {
+            Nonterminal nonterminal = operatorNonterminals.get(name);
+            if (nonterminal == null)
+                throw new IllegalStateException("The precedence and associativity of " + name + " have not been desugared, but it cannot be parsed by precedence climbing");
+
+            NonterminalGrammarSlot nonterminalSlot = getNonterminalSlot(nonterminal);
+            List<NonterminalTransition> calls = getCalls(nonterminalSlot);
+            if (!isDeterministic(nonterminalSlot) || !calls.stream().allMatch(GrammarGraphBuilder::isDeterministic))
+                throw new IllegalStateException("The precedence and associativity of " + name + " have not been desugared, but not all its calls can be parsed by precedence climbing");
+
+            nonterminalSlot.setPrecedenceClimbingParser(new PrecedenceClimbingParser(nonterminalSlot, analysis.getOperators(nonterminal)));
+            calls.forEach(transition -> transition.setDeterministic(true));
+        }
+    }
+
+    private List<NonterminalTransition> getCalls(NonterminalGrammarSlot nonterminalSlot) {
+        List<NonterminalTransition> calls = new ArrayList<>();
+        for (GrammarSlot slot : slots) {
+            if (!(slot instanceof BodyGrammarSlot)) continue;
+
+            Transition transition = ((BodyGrammarSlot) slot).getOutTransition();
+            if (transition instanceof NonterminalTransition && ((NonterminalTransition) transition).getSlot() == nonterminalSlot)
+                calls.add((NonterminalTransition) transition);
+        }
+        return calls;
+    }
+
+    /*
+     * Marks the nonterminals of the LL(1) subgrammars that can be parsed by deterministic descent,
+     * and the transitions that call them. The alternatives of these nonterminals may only consist of
+     * terminals and nonterminals, without conditions, bindings or arguments. A nonterminal is only
+     * marked if all its calls can be parsed deterministically, as the nodes of a deterministic call
+     * are not shared with the nodes of a call through the GSS.
+     */
+    private void setDeterministicNonterminals() {
+        Set<NonterminalGrammarSlot> deterministic = new HashSet<>();
+        for (Nonterminal nonterminal : firstFollow.calculateLLNonterminals()) {
+            NonterminalGrammarSlot nonterminalSlot = getNonterminalSlot(nonterminal);
+            String[] parameters = nonterminalSlot.getParameters();
+            if ((parameters == null || parameters.length == 0) && isDeterministic(nonterminalSlot))
+                deterministic.add(nonterminalSlot);
+        }
+
+        // Operator nonterminals are not LL(1), but are parsed without the GSS by precedence climbing
+        for (NonterminalGrammarSlot nonterminalSlot : nonterminalsMap.values()) {
+            if (nonterminalSlot.getPrecedenceClimbingParser() != null)
+                deterministic.add(nonterminalSlot);
+        }
+
+        for (GrammarSlot slot : slots) {
+            if (!(slot instanceof BodyGrammarSlot)) continue;
+
+            Transition transition = ((BodyGrammarSlot) slot).getOutTransition();
+            if (transition instanceof NonterminalTransition && !isDeterministic((NonterminalTransition) transition))
+                deterministic.remove(((NonterminalTransition) transition).getSlot());
+        }
+
+        // A nonterminal is only parsed deterministically if all the nonterminals it calls are
+        boolean changed = true;
+        while (changed)
+            changed = deterministic.removeIf(nonterminalSlot -> !callsOnly(nonterminalSlot, deterministic));
+
+        deterministic.forEach(nonterminalSlot -> nonterminalSlot.setDeterministic(true));
+
+        for (GrammarSlot slot : slots) {
+            if (!(slot instanceof BodyGrammarSlot)) continue;
+
+            Transition transition = ((BodyGrammarSlot) slot).getOutTransition();
+            if (transition instanceof NonterminalTransition) {
+                NonterminalTransition nonterminalTransition = (NonterminalTransition) transition;
+                if (deterministic.contains(nonterminalTransition.getSlot()))
+                    nonterminalTransition.setDeterministic(true);
+            }
+        }
+    }
+
+    private static boolean isDeterministic(NonterminalGrammarSlot nonterminalSlot) {
+        for (BodyGrammarSlot slot : nonterminalSlot.getFirstSlots()) {
+            if (slot.getLabel() != null || slot.getConditions() != ConditionsFactory.DEFAULT)
+                return false;
+
+            while (!slot.isEnd()) {
+                Transition transition = slot.getOutTransition();
+                BodyGrammarSlot dest = transition.destination();
+
+                if (transition instanceof TerminalTransition) {
+                    TerminalTransition terminalTransition = (TerminalTransition) transition;
+                    if (terminalTransition.getPreConditions() != ConditionsFactory.DEFAULT ||
+                        terminalTransition.getPostConditions() != ConditionsFactory.DEFAULT ||
+                        dest.requiresBinding() || dest.getConditions() != ConditionsFactory.DEFAULT)
+                        return false;
+                } else if (transition instanceof NonterminalTransition) {
+                    if (!isDeterministic((NonterminalTransition) transition))
+                        return false;
+                } else {
+                    return false;
+                }
+
+                slot = dest;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDeterministic(NonterminalTransition transition) {
+        BodyGrammarSlot dest = transition.destination();
+        return transition.getArguments() == null
+            && transition.getPreConditions() == ConditionsFactory.DEFAULT
+            && !dest.requiresBinding()
+            && dest.getConditions() == ConditionsFactory.DEFAULT;
+    }
+
+    private static boolean callsOnly(NonterminalGrammarSlot nonterminalSlot, Set<NonterminalGrammarSlot> nonterminalSlots) {
+        for (BodyGrammarSlot slot : nonterminalSlot.getFirstSlots()) {
+            while (!slot.isEnd()) {
+                Transition transition = slot.getOutTransition();
+                if (transition instanceof NonterminalTransition && !nonterminalSlots.contains(((NonterminalTransition) transition).getSlot()))
+                    return false;
+                slot = transition.destination();
+            }
+        }
+        return true;
     }
 
-    private GrammarGraphBuilder(Grammar grammar, Configuration config) {
-        if (config.getEnvImpl() == EnvironmentImpl.ARRAY || config.getEnvImpl() == EnvironmentImpl.INT_ARRAY) {
+    private GrammarGraphBuilder(Grammar grammar, Configuration config, MatcherFactory matcherFactory) {
+        this.envImpl = config.getEnvImpl() == EnvironmentImpl.AUTO ? EnvironmentAnalysis.select(grammar) : config.getEnvImpl();
+
+        if (envImpl == EnvironmentImpl.ARRAY || envImpl == EnvironmentImpl.INT_ARRAY) {
             VarToInt transformer = new VarToInt();
             this.grammar = transformer.transform(grammar);
             this.mapping = transformer.getMapping();
@@ -117,6 +321,8 @@ public class GrammarGraphBuilder implements Serializable {
         }
 
         this.config = config;
+        this.matcherFactory = config.keywordTrie() ? new KeywordMatcherFactory(matcherFactory) : matcherFactory;
+        this.conditionVisitor = new ToSlotActionConditionVisitor(matcherFactory, config.memoizeConditions());
         this.nonterminalsMap = new LinkedHashMap<>();
         this.terminalsMap = new LinkedHashMap<>();
         this.slots = new ArrayList<>();
@@ -146,6 +352,32 @@ public class GrammarGraphBuilder implements Serializable {
         nonterminalSlot.setFollowTest(getFollowTest(nonterminal));
     }
 
+    /*
+     * Groups the terminals at the beginning of the alternatives of the given nonterminal, which are
+     * tried at the same input position, into one combined matcher. A terminal belongs to at most one group.
+     */
+    private void setMultiTerminalMatcher(Nonterminal nonterminal) {
+        NonterminalGrammarSlot nonterminalSlot = getNonterminalSlot(nonterminal);
+
+        List<TerminalGrammarSlot> terminalSlots = new ArrayList<>();
+        for (BodyGrammarSlot firstSlot : nonterminalSlot.getFirstSlots()) {
+            Transition transition = firstSlot.getOutTransition();
+            if (!(transition instanceof TerminalTransition)) continue;
+
+            TerminalGrammarSlot terminalSlot = ((TerminalTransition) transition).getSlot();
+            if (terminalSlot.getMultiTerminalMatcher() == null && !terminalSlots.contains(terminalSlot)
+                && TaggedDFA.supports(terminalSlot.getTerminal().getRegularExpression()))
+                terminalSlots.add(terminalSlot);
+        }
+
+        if (terminalSlots.size() < 2) return;
+
+        List<Terminal> terminals = new ArrayList<>();
+        terminalSlots.forEach(slot -> terminals.add(slot.getTerminal()));
+        MultiTerminalMatcher matcher = new MultiTerminalMatcher(terminals);
+        terminalSlots.forEach(slot -> slot.setMultiTerminalMatcher(matcher));
+    }
+
     private RangeMap<BodyGrammarSlot> getLookAheadTest(Nonterminal nonterminal, NonterminalGrammarSlot nonterminalSlot) {
         if (config.getLookAheadCount() == 0)
             return i -> nonterminalSlot.getFirstSlots();
@@ -159,23 +391,42 @@ public class GrammarGraphBuilder implements Serializable {
             BodyGrammarSlot firstSlot = nonterminalSlot.getFirstSlots().get(i);
             Set<CharRange> set = firstFollow.getPredictionSet(rule, 0);
             set.forEach(cr -> builder.put(cr, firstSlot));
+
+            if (config.getLookAheadCount() > 1)
+                firstSlot.setLookAheadTests(getLookAheadTests(rule));
         }
 
-        return builder.buildRangeMap();
+        if (config.getLookAheadCount() > 1 && alternatives.size() > 1)
+            nonterminalSlot.setMultiCharLookAhead(true);
+
+        return new TableRangeMap<>(builder.buildRangeMap());
+    }
+
+    /*
+     * Returns the tests for the characters at offsets 1 to k - 1 from the beginning of the rule.
+     */
+    private FollowTest[] getLookAheadTests(Rule rule) {
+        List<Set<CharRange>> sets = firstFollow.getLookAheadSets(rule);
+        FollowTest[] tests = new FollowTest[sets.size() - 1];
+        for (int d = 1; d < sets.size(); d++) {
+            Set<CharRange> set = sets.get(d);
+            tests[d - 1] = set == null ? FollowTest.DEFAULT : TableFollowTest.from(set);
+        }
+        return tests;
     }
 
     private FollowTest getFollowTest(Nonterminal nonterminal) {
         if (config.getLookAheadCount() == 0)
             return FollowTest.DEFAULT;
 
-        return new RangeTreeFollowTest(firstFollow.getFollowSet(nonterminal));
+        return TableFollowTest.from(firstFollow.getFollowSet(nonterminal));
     }
 
     private FollowTest getFollowTest(Rule rule, int i) {
         if (config.getLookAheadCount() == 0)
             return FollowTest.DEFAULT;
 
-        return new RangeTreeFollowTest(firstFollow.getPredictionSet(rule, i));
+        return TableFollowTest.from(firstFollow.getPredictionSet(rule, i));
     }
 
     private void addRule(NonterminalGrammarSlot head, Rule rule) {
@@ -453,6 +704,6 @@ public class GrammarGraphBuilder implements Serializable {
     private Conditions getConditions(Set<Condition> conditions) {
         if (conditions.isEmpty())
             return ConditionsFactory.DEFAULT;
-        return ConditionsFactory.getConditions(conditions, matcherFactory);
+        return ConditionsFactory.getConditions(conditions, conditionVisitor);
     }
 }
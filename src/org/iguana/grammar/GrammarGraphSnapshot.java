@@ -0,0 +1,388 @@
+package org.iguana.grammar;
+
+import iguana.regex.CharRange;
+import iguana.regex.RegularExpression;
+import iguana.regex.matcher.DFAMatcherFactory;
+import org.iguana.grammar.matcher.TaggedDFA;
+import org.iguana.grammar.matcher.TaggedDFAMatcherFactory;
+import org.iguana.grammar.operations.FirstFollowSets;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.util.Configuration;
+import org.iguana.util.Tuple;
+import org.iguana.util.serialization.BinarySerializer;
+import org.iguana.util.serialization.JsonSerializer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A binary snapshot of a built grammar graph, which is loaded in a fraction of the time of building
+ * the grammar graph from the grammar. A snapshot contains the grammar together with the result of
+ * its analysis, i.e., the nullable nonterminals and the first, follow and prediction sets, and the
+ * {@link TaggedDFA}s of its regular expressions. The character ranges of the sets are stored once,
+ * and the sets refer to them by index.
+ *
+ * The grammar is stored in the format of {@link BinarySerializer}, and the automata as their int tables,
+ * keyed by the JSON of their regular expressions, so reading a snapshot never runs Java deserialization.
+ *
+ * Loading a snapshot neither runs the analysis nor constructs automata. The slots and transitions are
+ * created again from the grammar, as their conditions and actions are closures, and the lookahead
+ * tables are created from the stored sets.
+ *
+ * Snapshots are keyed by the fingerprint of the grammar and the options of the configuration that
+ * affect the grammar graph, see {@link #from(Grammar, Configuration, File)}.
+ */
+public class GrammarGraphSnapshot {
+
+    private static final int MAGIC = 0x49474753; // IGGS
+
+    private static final int VERSION = 5;
+
+    private static final String EXTENSION = ".iggs";
+
+    /**
+     * Returns the grammar graph of the given grammar, loaded from the snapshot with the hash of the
+     * grammar in the given directory if there is one, otherwise built and saved as a snapshot there.
+     * A snapshot of another format or version is replaced.
+     *
+     * @throws IOException if the snapshot cannot be read or written
+     */
+    public static GrammarGraph from(Grammar grammar, Configuration config, File directory) throws IOException {
+        File file = new File(directory, hash(grammar, config) + EXTENSION);
+        if (file.exists() && isCurrent(file))
+            return load(file, config);
+
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+
+        return save(grammar, config, file);
+    }
+
+    /**
+     * Builds the grammar graph of the given grammar and saves its snapshot to the given file.
+     */
+    public static GrammarGraph save(Grammar grammar, Configuration config, File file) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            return write(grammar, config, out);
+        }
+    }
+
+    /**
+     * Builds the grammar graph of the given grammar and writes its snapshot to the given stream.
+     */
+    public static GrammarGraph write(Grammar grammar, Configuration config, OutputStream stream) throws IOException {
+        Analysis analysis = new Analysis(config.getLookAheadCount());
+        TaggedDFAMatcherFactory matcherFactory = new TaggedDFAMatcherFactory(new DFAMatcherFactory());
+        GrammarGraph grammarGraph = GrammarGraphBuilder.from(grammar, config, analysis::calculate, matcherFactory);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(getConfigurationKey(config));
+        writeGrammar(grammar, out);
+        analysis.write(out);
+        writeAutomata(matcherFactory.getAutomata(), out);
+        out.flush();
+
+        return grammarGraph;
+    }
+
+    /**
+     * Loads the grammar graph of the given snapshot, which must have been saved with a configuration
+     * whose options affecting the grammar graph are the same as of the given configuration.
+     */
+    public static GrammarGraph load(File file, Configuration config) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in, config);
+        }
+    }
+
+    /**
+     * Reads the grammar graph of the snapshot in the given stream, see {@link #load(File, Configuration)}.
+     */
+    public static GrammarGraph read(InputStream stream, Configuration config) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a grammar graph snapshot");
+
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+
+        String key = in.readUTF();
+        if (!key.equals(getConfigurationKey(config)))
+            throw new IllegalArgumentException("The snapshot was saved with a different configuration: " + key);
+
+        Grammar grammar = readGrammar(in);
+        Analysis analysis = new Analysis(config.getLookAheadCount());
+        analysis.read(in);
+        Map<RegularExpression, TaggedDFA> automata = readAutomata(in);
+        return GrammarGraphBuilder.from(grammar, config, analysis::restore, new TaggedDFAMatcherFactory(new DFAMatcherFactory(), automata));
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of the fingerprint of the given grammar, see
+     * {@link GrammarPipeline#fingerprint(Grammar)}, and the options of the given configuration that
+     * affect the grammar graph.
+     */
+    public static String hash(Grammar grammar, Configuration config) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(GrammarPipeline.fingerprint(grammar).getBytes(StandardCharsets.UTF_8));
+            digest.update(getConfigurationKey(config).getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     * The options that change the stored analysis and automata, or the grammar graph built from them.
+     * The other options are applied by the grammar graph builder when a snapshot is loaded.
+     */
+    private static String getConfigurationKey(Configuration config) {
+        return "lookahead=" + config.getLookAheadCount() +
+               ";env=" + config.getEnvImpl() +
+               ";matcher=" + config.getMatcherType() +
+               ";combineTerminals=" + config.combineTerminals() +
+               ";keywordTrie=" + config.keywordTrie() +
+               ";precedenceClimbing=" + config.precedenceClimbing();
+    }
+
+    /*
+     * Whether the given file starts with the header of a snapshot of this version
+     */
+    private static boolean isCurrent(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt() == MAGIC && in.readInt() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static void writeAutomata(Map<RegularExpression, TaggedDFA> automata, DataOutputStream out) throws IOException {
+        out.writeInt(automata.size());
+        for (Map.Entry<RegularExpression, TaggedDFA> entry : automata.entrySet()) {
+            writeString(JsonSerializer.serialize(entry.getKey()), out);
+            entry.getValue().write(out);
+        }
+    }
+
+    private static Map<RegularExpression, TaggedDFA> readAutomata(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<RegularExpression, TaggedDFA> automata = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            RegularExpression regex = JsonSerializer.deserialize(readString(in), RegularExpression.class);
+            automata.put(regex, TaggedDFA.read(in));
+        }
+        return automata;
+    }
+
+    private static void writeGrammar(Grammar grammar, DataOutputStream out) throws IOException {
+        byte[] bytes = BinarySerializer.toBytes(grammar);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Grammar readGrammar(DataInputStream in) throws IOException {
+        return BinarySerializer.deserialize(readBytes(in));
+    }
+
+    /*
+     * Strings are written as their length and UTF-8 bytes, as the JSON of a regular expression
+     * can be longer than the limit of writeUTF
+     */
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Malformed length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /*
+     * The first and follow sets of the grammar graph builder's grammar. Rules are referred to by their
+     * index in the grammar, and nonterminals by the index of their first rule.
+     */
+    private static class Analysis {
+
+        private final int lookAheadCount;
+
+        private FirstFollowSets firstFollow;
+
+        private Grammar grammar;
+
+        private List<CharRange> ranges;
+
+        private int[] nullables;
+
+        private int[] nonterminals;
+
+        private int[][] firstSets;
+
+        private int[][] followSets;
+
+        private int[] predictionRules;
+
+        private int[] predictionPositions;
+
+        private int[][] predictionSets;
+
+        Analysis(int lookAheadCount) {
+            this.lookAheadCount = lookAheadCount;
+        }
+
+        FirstFollowSets calculate(Grammar grammar) {
+            this.grammar = grammar;
+            this.firstFollow = new FirstFollowSets(grammar, lookAheadCount);
+            return firstFollow;
+        }
+
+        FirstFollowSets restore(Grammar grammar) {
+            List<Rule> rules = grammar.getRules();
+
+            Set<Nonterminal> nullableNonterminals = new HashSet<>();
+            for (int index : nullables)
+                nullableNonterminals.add(rules.get(index).getHead());
+
+            Map<Nonterminal, Set<CharRange>> first = new HashMap<>();
+            Map<Nonterminal, Set<CharRange>> follow = new HashMap<>();
+            for (int k = 0; k < nonterminals.length; k++) {
+                Nonterminal nonterminal = rules.get(nonterminals[k]).getHead();
+                first.put(nonterminal, toSet(firstSets[k]));
+                follow.put(nonterminal, toSet(followSets[k]));
+            }
+
+            Map<Tuple<Rule, Integer>, Set<CharRange>> prediction = new HashMap<>();
+            for (int k = 0; k < predictionSets.length; k++)
+                prediction.put(Tuple.of(rules.get(predictionRules[k]), predictionPositions[k]), toSet(predictionSets[k]));
+
+            return new FirstFollowSets(grammar, lookAheadCount, first, follow, prediction, nullableNonterminals);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            List<Rule> rules = grammar.getRules();
+            Map<Rule, Integer> ruleIds = new HashMap<>();
+            Map<Nonterminal, Integer> nonterminalIds = new HashMap<>();
+            for (int i = 0; i < rules.size(); i++) {
+                ruleIds.putIfAbsent(rules.get(i), i);
+                nonterminalIds.putIfAbsent(rules.get(i).getHead(), i);
+            }
+
+            Map<CharRange, Integer> rangeIds = new LinkedHashMap<>();
+            firstFollow.getFirstSets().values().forEach(set -> intern(set, rangeIds));
+            firstFollow.getFollowSets().values().forEach(set -> intern(set, rangeIds));
+            firstFollow.getPredictionSets().values().forEach(set -> intern(set, rangeIds));
+
+            out.writeInt(rangeIds.size());
+            for (CharRange range : rangeIds.keySet()) {
+                out.writeInt(range.getStart());
+                out.writeInt(range.getEnd());
+            }
+
+            Set<Nonterminal> nullableNonterminals = firstFollow.getNullableNonterminals();
+            out.writeInt(nullableNonterminals.size());
+            for (Nonterminal nonterminal : nullableNonterminals)
+                out.writeInt(nonterminalIds.get(nonterminal));
+
+            out.writeInt(firstFollow.getFirstSets().size());
+            for (Map.Entry<Nonterminal, Set<CharRange>> entry : firstFollow.getFirstSets().entrySet()) {
+                out.writeInt(nonterminalIds.get(entry.getKey()));
+                writeSet(entry.getValue(), rangeIds, out);
+                writeSet(firstFollow.getFollowSet(entry.getKey()), rangeIds, out);
+            }
+
+            out.writeInt(firstFollow.getPredictionSets().size());
+            for (Map.Entry<Tuple<Rule, Integer>, Set<CharRange>> entry : firstFollow.getPredictionSets().entrySet()) {
+                out.writeInt(ruleIds.get(entry.getKey().getFirst()));
+                out.writeInt(entry.getKey().getSecond());
+                writeSet(entry.getValue(), rangeIds, out);
+            }
+        }
+
+        void read(DataInputStream in) throws IOException {
+            int rangeCount = in.readInt();
+            ranges = new ArrayList<>(rangeCount);
+            for (int i = 0; i < rangeCount; i++)
+                ranges.add(CharRange.in(in.readInt(), in.readInt()));
+
+            nullables = new int[in.readInt()];
+            for (int i = 0; i < nullables.length; i++)
+                nullables[i] = in.readInt();
+
+            int nonterminalCount = in.readInt();
+            nonterminals = new int[nonterminalCount];
+            firstSets = new int[nonterminalCount][];
+            followSets = new int[nonterminalCount][];
+            for (int i = 0; i < nonterminalCount; i++) {
+                nonterminals[i] = in.readInt();
+                firstSets[i] = readSet(in);
+                followSets[i] = readSet(in);
+            }
+
+            int predictionCount = in.readInt();
+            predictionRules = new int[predictionCount];
+            predictionPositions = new int[predictionCount];
+            predictionSets = new int[predictionCount][];
+            for (int i = 0; i < predictionCount; i++) {
+                predictionRules[i] = in.readInt();
+                predictionPositions[i] = in.readInt();
+                predictionSets[i] = readSet(in);
+            }
+        }
+
+        private Set<CharRange> toSet(int[] ids) {
+            if (ids == null) return null;
+            Set<CharRange> set = new HashSet<>(ids.length * 2);
+            for (int id : ids)
+                set.add(ranges.get(id));
+            return set;
+        }
+
+        private static void intern(Set<CharRange> set, Map<CharRange, Integer> rangeIds) {
+            if (set == null) return;
+            for (CharRange range : set)
+                rangeIds.putIfAbsent(range, rangeIds.size());
+        }
+
+        private static void writeSet(Set<CharRange> set, Map<CharRange, Integer> rangeIds, DataOutputStream out) throws IOException {
+            if (set == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(set.size());
+            for (CharRange range : set)
+                out.writeInt(rangeIds.get(range));
+        }
+
+        private static int[] readSet(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size == -1) return null;
+            int[] set = new int[size];
+            for (int i = 0; i < set.length; i++)
+                set[i] = in.readInt();
+            return set;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.iguana.grammar.compiler;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.GrammarGraphBuilder;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.CompiledSlots;
+import org.iguana.util.Configuration;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles the rules of a grammar graph at runtime into a class generated by {@link SlotCodeGenerator},
+ * and lets the body grammar slots execute the generated code instead of interpreting their transitions.
+ * Requires a JDK, as the source is compiled with the system Java compiler.
+ */
+public class GrammarGraphCompiler {
+
+    private static final String PACKAGE = "org.iguana.grammar.compiler";
+
+    private static final AtomicInteger count = new AtomicInteger();
+
+    public static GrammarGraph compile(Grammar grammar, Configuration config) {
+        return compile(GrammarGraphBuilder.from(grammar, config));
+    }
+
+    public static GrammarGraph compile(GrammarGraph grammarGraph) {
+        List<BodyGrammarSlot> slots = grammarGraph.getBodyGrammarSlots();
+
+        String className = "CompiledSlots" + count.incrementAndGet();
+        String source = new SlotCodeGenerator(slots).generate(PACKAGE, className);
+
+        CompiledSlots compiledSlots;
+        try {
+            Class<?> clazz = InMemoryJavaCompiler.compile(PACKAGE + "." + className, source);
+            compiledSlots = (CompiledSlots) clazz.getConstructor(List.class).newInstance(slots);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+
+        install(compiledSlots, slots);
+        return grammarGraph;
+    }
+
+    /**
+     * Lets the slots execute the given code, which must have been generated for the same slots.
+     */
+    public static void install(CompiledSlots compiledSlots, List<BodyGrammarSlot> slots) {
+        for (int id = 0; id < slots.size(); id++) {
+            BodyGrammarSlot slot = slots.get(id);
+            if (!slot.isEnd())
+                slot.setCompiledSlots(compiledSlots, id);
+        }
+    }
+
+}
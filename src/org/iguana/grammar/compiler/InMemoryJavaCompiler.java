@@ -0,0 +1,79 @@
+package org.iguana.grammar.compiler;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles Java source files with the system Java compiler and loads the resulting classes,
+ * without writing to disk.
+ */
+class InMemoryJavaCompiler {
+
+    static Class<?> compile(String className, String source) {
+        try {
+            return compile(Collections.singletonMap(className, source)).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Compiles the given sources, keyed by qualified class name, together, and returns the class loader
+     * of the resulting classes.
+     */
+    static ClassLoader compile(Map<String, String> sources) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("No Java compiler is available, a JDK is required to compile grammar graphs");
+
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        classes.put(name, out);
+                        return out;
+                    }
+                };
+            }
+        };
+
+        List<JavaFileObject> files = new ArrayList<>();
+        sources.forEach((className, source) -> files.add(new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        }));
+
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"));
+        boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, files).call();
+        if (!success)
+            throw new RuntimeException("Could not compile " + sources.keySet() + ": " + diagnostics.getDiagnostics());
+
+        return new ClassLoader(InMemoryJavaCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream out = classes.get(name);
+                if (out == null)
+                    throw new ClassNotFoundException(name);
+                byte[] bytes = out.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.iguana.grammar.compiler;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraph;
+import org.iguana.grammar.GrammarGraphSnapshot;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.util.Configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+
+/**
+ * Generates, ahead of time, the Java source of a parser for a grammar. Two classes are generated:
+ * the parser class, which embeds a {@link GrammarGraphSnapshot} of the desugared grammar, i.e., the
+ * grammar in the compact format of {@link org.iguana.util.serialization.BinarySerializer} together
+ * with its lookahead sets and the int tables of the automata of its regular expressions, and the
+ * configuration it was generated with, and the class of the compiled slot code, see
+ * {@link SlotCodeGenerator}. At runtime the generated parser neither runs the desugaring transformations,
+ * the analysis of the grammar nor the construction of the automata, does not need a Java compiler, and
+ * produces the same {@link org.iguana.sppf} nodes as the interpreter. The snapshot contains no Java
+ * serialization.
+ *
+ * The slots and transitions are still created at startup by the grammar graph builder from the
+ * embedded grammar and tables, as their conditions and actions are closures.
+ *
+ * Usage: ParserGenerator grammarFile (binary|json) outputDirectory qualifiedClassName [--desugar]
+ */
+public class ParserGenerator {
+
+    /*
+     * Keeps each string constant of the embedded snapshot well below the class file limit of 65535 bytes
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Grammar grammar;
+
+    private final Configuration config;
+
+    /**
+     * Creates a generator for the given grammar. The slot code replaces the compilation and the threaded
+     * interpretation of the grammar graph, so these options of the configuration are not used.
+     */
+    public ParserGenerator(Grammar grammar, Configuration config) {
+        this.grammar = grammar;
+        this.config = Configuration.builder(config).setCompileGrammarGraph(false).setThreadedInterpreter(false).build();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: ParserGenerator grammarFile (binary|json) outputDirectory qualifiedClassName [--desugar]");
+            return;
+        }
+
+        Configuration config = Configuration.load();
+        Grammar grammar = Grammar.load(args[0], args[1]);
+        if (args.length > 4 && args[4].equals("--desugar"))
+            grammar = desugar(grammar, config);
+
+        new ParserGenerator(grammar, config).generate(new File(args[2]), args[3]);
+    }
+
+    /**
+     * Applies the transformations that are otherwise applied before building the grammar graph with
+     * the given configuration.
+     */
+    public static Grammar desugar(Grammar grammar, Configuration config) {
+        return GrammarPipeline.get(config).transform(grammar);
+    }
+
+    /**
+     * Writes the source files of the parser to the package directory under the given directory.
+     */
+    public void generate(File directory, String qualifiedClassName) throws IOException {
+        int index = qualifiedClassName.lastIndexOf('.');
+        String packageName = index == -1 ? "" : qualifiedClassName.substring(0, index);
+        String className = qualifiedClassName.substring(index + 1);
+
+        File packageDirectory = packageName.isEmpty() ? directory : new File(directory, packageName.replace('.', File.separatorChar));
+        if (!packageDirectory.exists() && !packageDirectory.mkdirs())
+            throw new IOException("Could not create " + packageDirectory);
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        GrammarGraph grammarGraph = GrammarGraphSnapshot.write(grammar, config, snapshot);
+        String slotsClassName = className + "Slots";
+
+        write(new File(packageDirectory, slotsClassName + ".java"), new SlotCodeGenerator(grammarGraph.getBodyGrammarSlots()).generate(packageName, slotsClassName));
+        write(new File(packageDirectory, className + ".java"), generateParser(packageName, className, slotsClassName, snapshot.toByteArray()));
+    }
+
+    String generateParser(String packageName, String className, String slotsClassName, byte[] snapshot) {
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty())
+            sb.append("package ").append(packageName).append(";\n\n");
+
+        sb.append("import iguana.utils.logging.LogLevel;\n")
+          .append("import org.iguana.grammar.GrammarGraph;\n")
+          .append("import org.iguana.grammar.GrammarGraphSnapshot;\n")
+          .append("import org.iguana.grammar.compiler.GrammarGraphCompiler;\n")
+          .append("import org.iguana.parser.IguanaParser;\n")
+          .append("import org.iguana.util.Configuration;\n\n")
+          .append("import java.io.ByteArrayInputStream;\n")
+          .append("import java.io.IOException;\n")
+          .append("import java.util.Base64;\n\n")
+          .append("public final class ").append(className).append(" {\n\n")
+          .append("    private static final String SNAPSHOT = new StringBuilder()\n");
+
+        String base64 = Base64.getEncoder().encodeToString(snapshot);
+        for (int i = 0; i < base64.length(); i += CHUNK_SIZE)
+            sb.append("        .append(\"").append(base64, i, Math.min(base64.length(), i + CHUNK_SIZE)).append("\")\n");
+
+        sb.append("        .toString();\n\n")
+          .append("    private static final Configuration CONFIGURATION = ").append(generateConfiguration()).append(";\n\n")
+          .append("    private ").append(className).append("() { }\n\n")
+          .append("    /**\n")
+          .append("     * Returns the configuration the parser was generated with.\n")
+          .append("     */\n")
+          .append("    public static Configuration getConfiguration() {\n")
+          .append("        return CONFIGURATION;\n")
+          .append("    }\n\n")
+          .append("    public static IguanaParser create() {\n")
+          .append("        GrammarGraph grammarGraph;\n")
+          .append("        try {\n")
+          .append("            grammarGraph = GrammarGraphSnapshot.read(new ByteArrayInputStream(Base64.getDecoder().decode(SNAPSHOT)), CONFIGURATION);\n")
+          .append("        } catch (IOException e) {\n")
+          .append("            throw new RuntimeException(e);\n")
+          .append("        }\n")
+          .append("        GrammarGraphCompiler.install(new ").append(slotsClassName).append("(grammarGraph.getBodyGrammarSlots()), grammarGraph.getBodyGrammarSlots());\n")
+          .append("        return new IguanaParser(grammarGraph, CONFIGURATION);\n")
+          .append("    }\n\n")
+          .append("}\n");
+
+        return sb.toString();
+    }
+
+    /*
+     * The builder expression of the configuration of this generator
+     */
+    private String generateConfiguration() {
+        return "Configuration.builder()\n" +
+               "        .setGSSLookupImpl(Configuration.LookupImpl." + config.getGSSLookupImpl() + ")\n" +
+               "        .setMatcherType(Configuration.MatcherType." + config.getMatcherType() + ")\n" +
+               "        .setHashmapImpl(Configuration.HashMapImpl." + config.getHashmapImpl() + ")\n" +
+               "        .setLookaheadCount(" + config.getLookAheadCount() + ")\n" +
+               "        .setEnvironmentImpl(Configuration.EnvironmentImpl." + config.getEnvImpl() + ")\n" +
+               "        .setLogLevel(LogLevel." + config.getLogLevel() + ")\n" +
+               "        .setCombineTerminals(" + config.combineTerminals() + ")\n" +
+               "        .setKeywordTrie(" + config.keywordTrie() + ")\n" +
+               "        .setDeterministicDescent(" + config.deterministicDescent() + ")\n" +
+               "        .setEnvironmentPoolCapacity(" + config.getEnvironmentPoolCapacity() + ")\n" +
+               "        .setPruneBindings(" + config.pruneBindings() + ")\n" +
+               "        .setMemoizeConditions(" + config.memoizeConditions() + ")\n" +
+               "        .setPrecedenceClimbing(" + config.precedenceClimbing() + ")\n" +
+               "        .build()";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+
+}
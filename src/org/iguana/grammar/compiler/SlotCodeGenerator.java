@@ -0,0 +1,192 @@
+package org.iguana.grammar.compiler;
+
+import org.iguana.grammar.condition.ConditionsFactory;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.TerminalTransition;
+import org.iguana.grammar.slot.Transition;
+
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the Java source of a {@link org.iguana.grammar.slot.CompiledSlots} class for the body grammar
+ * slots of a grammar graph. For each slot that is not an end slot, a method runs the transitions from that
+ * slot as straight-line code: terminal transitions without conditions or labels are inlined, and the first
+ * other transition or end slot is called directly through a field of its exact type. The slot ids are the
+ * indices of the slots in {@link org.iguana.grammar.GrammarGraph#getBodyGrammarSlots()}.
+ *
+ * The generated constructor takes the body grammar slots and checks them against a hash of the slots
+ * the code was generated for.
+ */
+public class SlotCodeGenerator {
+
+    private final List<BodyGrammarSlot> slots;
+
+    private final Map<BodyGrammarSlot, Integer> ids = new IdentityHashMap<>();
+
+    private final Map<String, String[]> fields = new LinkedHashMap<>();
+
+    public SlotCodeGenerator(List<BodyGrammarSlot> slots) {
+        this.slots = slots;
+        for (int id = 0; id < slots.size(); id++)
+            ids.put(slots.get(id), id);
+    }
+
+    public static int hash(List<BodyGrammarSlot> slots) {
+        StringBuilder sb = new StringBuilder();
+        for (BodyGrammarSlot slot : slots) {
+            sb.append(slot.getClass().getSimpleName()).append(' ').append(slot).append('\n');
+        }
+        return sb.toString().hashCode();
+    }
+
+    public String generate(String packageName, String className) {
+        fields.clear();
+
+        StringBuilder methods = new StringBuilder();
+        StringBuilder cases = new StringBuilder();
+
+        for (int id = 0; id < slots.size(); id++) {
+            if (slots.get(id).isEnd()) continue;
+            cases.append("            case ").append(id).append(": slot").append(id).append("(input, u, result, env, runtime); break;\n");
+            generateMethod(id, methods);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (packageName != null && !packageName.isEmpty())
+            sb.append("package ").append(packageName).append(";\n\n");
+
+        sb.append("import iguana.utils.input.Input;\n")
+          .append("import org.iguana.datadependent.env.Environment;\n")
+          .append("import org.iguana.grammar.compiler.SlotCodeGenerator;\n")
+          .append("import org.iguana.grammar.slot.*;\n")
+          .append("import org.iguana.gss.GSSNode;\n")
+          .append("import org.iguana.parser.IguanaRuntime;\n")
+          .append("import org.iguana.result.Result;\n\n")
+          .append("import java.util.List;\n\n")
+          .append("public final class ").append(className).append(" implements CompiledSlots {\n\n")
+          .append("    public static final int SLOTS_HASH = ").append(hash(slots)).append(";\n\n");
+
+        for (Map.Entry<String, String[]> field : fields.entrySet())
+            sb.append("    private final ").append(field.getValue()[0]).append(' ').append(field.getKey()).append(";\n");
+
+        sb.append("\n    public ").append(className).append("(List<BodyGrammarSlot> slots) {\n")
+          .append("        if (SlotCodeGenerator.hash(slots) != SLOTS_HASH)\n")
+          .append("            throw new IllegalArgumentException(\"The grammar slots do not match the generated code\");\n\n");
+
+        for (Map.Entry<String, String[]> field : fields.entrySet())
+            sb.append("        ").append(field.getKey()).append(" = ").append(field.getValue()[1]).append(";\n");
+
+        sb.append("    }\n\n")
+          .append("    @Override\n")
+          .append("    public <T extends Result> void execute(int id, Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {\n")
+          .append("        switch (id) {\n")
+          .append(cases)
+          .append("            default: throw new IllegalArgumentException(\"No compiled code for slot \" + id);\n")
+          .append("        }\n")
+          .append("    }\n")
+          .append(methods)
+          .append("\n}\n");
+
+        return sb.toString();
+    }
+
+    private void generateMethod(int id, StringBuilder sb) {
+        sb.append("\n    private <T extends Result> void slot").append(id)
+          .append("(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {\n");
+
+        boolean declared = false;
+        BodyGrammarSlot slot = slots.get(id);
+        int current = id;
+
+        while (true) {
+            sb.append("        // ").append(comment(slot)).append('\n');
+
+            if (slot.isEnd()) {
+                sb.append("        ").append(endSlot(current)).append(".execute(input, u, result, env, runtime);\n");
+                break;
+            }
+
+            Transition transition = slot.getOutTransition();
+            Integer dest = ids.get(transition.destination());
+
+            if (!isInlined(transition) || dest == null) {
+                sb.append("        ").append(transition(current, transition)).append(".execute(input, u, result, env, runtime);\n");
+                break;
+            }
+
+            // Inlined TerminalTransition.execute without conditions and labels
+            if (!declared) {
+                sb.append("        int i;\n");
+                sb.append("        T cr;\n");
+                declared = true;
+            }
+            sb.append("        i = result.isDummy() ? u.getInputIndex() : result.getIndex();\n")
+              .append("        runtime.setEnvironment(env);\n")
+              .append("        cr = ").append(terminal(current)).append(".getResult(input, i, ").append(slot(current)).append(", u, runtime);\n")
+              .append("        if (cr == null) {\n")
+              .append("            runtime.recordParseError(i, ").append(slot(current)).append(", u);\n")
+              .append("            return;\n")
+              .append("        }\n");
+
+            if (transition.destination().isFirst())
+                sb.append("        result = cr;\n");
+            else
+                sb.append("        result = runtime.getResultOps().merge(null, result, cr, ").append(slot(dest)).append(");\n");
+
+            sb.append("        env = runtime.getEnvironment();\n");
+
+            current = dest;
+            slot = slots.get(dest);
+        }
+
+        sb.append("    }\n");
+    }
+
+    private static boolean isInlined(Transition transition) {
+        if (!(transition instanceof TerminalTransition)) return false;
+        TerminalTransition terminalTransition = (TerminalTransition) transition;
+        return terminalTransition.getPreConditions() == ConditionsFactory.DEFAULT
+            && terminalTransition.getPostConditions() == ConditionsFactory.DEFAULT
+            && terminalTransition.destination().getLabel() == null;
+    }
+
+    private String slot(int id) {
+        return field("slot" + id, "BodyGrammarSlot", "slots.get(" + id + ")");
+    }
+
+    private String endSlot(int id) {
+        return field("end" + id, "EndGrammarSlot", "(EndGrammarSlot) slots.get(" + id + ")");
+    }
+
+    private String terminal(int id) {
+        return field("terminal" + id, "TerminalGrammarSlot", "((TerminalTransition) slots.get(" + id + ").getOutTransition()).getSlot()");
+    }
+
+    private String transition(int id, Transition transition) {
+        String type = typeName(transition.getClass());
+        return field("transition" + id, type, "(" + type + ") slots.get(" + id + ").getOutTransition()");
+    }
+
+    private String field(String name, String type, String init) {
+        fields.putIfAbsent(name, new String[] { type, init });
+        return name;
+    }
+
+    /*
+     * The exact class of the transition if it can be named from the generated code, so that the call is monomorphic
+     */
+    private static String typeName(Class<?> type) {
+        if (Modifier.isPublic(type.getModifiers()) && type.getEnclosingClass() == null && type.getCanonicalName() != null)
+            return type.getCanonicalName();
+        return Transition.class.getCanonicalName();
+    }
+
+    private static String comment(BodyGrammarSlot slot) {
+        return slot.toString().replace("\\", "\\\\").replace('\n', ' ').replace('\r', ' ');
+    }
+
+}
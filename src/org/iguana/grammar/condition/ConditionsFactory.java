@@ -61,6 +61,14 @@ public class ConditionsFactory {
 	};
 	
 	public static Conditions getConditions(Set<Condition> conditions, MatcherFactory factory) {
+		return getConditions(conditions, new ToSlotActionConditionVisitor(factory));
+	}
+
+	/**
+	 * Creates the conditions using the given visitor, so that slot actions, and their memos,
+	 * are shared between the conditions created with the same visitor.
+	 */
+	public static Conditions getConditions(Set<Condition> conditions, ToSlotActionConditionVisitor visitor) {
 		
 		List<Condition> list = new ArrayList<>(conditions);
 		
@@ -72,7 +80,6 @@ public class ConditionsFactory {
 			}
 		}
 
-		ToSlotActionConditionVisitor visitor = new ToSlotActionConditionVisitor(factory);
 		List<SlotAction> actions = list.stream().map(c -> c.accept(visitor)).collect(Collectors.toList());
 		
 		if (requiresEnvironment) {
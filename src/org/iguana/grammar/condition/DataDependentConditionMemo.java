@@ -0,0 +1,195 @@
+package org.iguana.grammar.condition;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
+import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
+import org.iguana.datadependent.env.IEvaluatorContext;
+import org.iguana.datadependent.traversal.FreeVariableVisitor;
+
+import java.util.*;
+
+/**
+ * Memoizes the outcomes of a data-dependent condition. A condition without side effects only
+ * depends on the input and the values of its free variables, as computed by
+ * {@link FreeVariableVisitor}, which for precedence constraints recur across many GSS contexts.
+ * The extents a condition is checked at only reach the expression through these variables. The
+ * outcomes are keyed on the values of the free variables, and are cleared at the end of a parse,
+ * or when a different input is parsed. The variables that {@link org.iguana.grammar.transformation.VarToInt}
+ * has given an index are looked up by index, so that the memos also apply to the array environments.
+ */
+public class DataDependentConditionMemo {
+
+    /*
+     * The functions without side effects, whose calls can be memoized
+     */
+    private static final Set<String> PURE_FUNCTIONS = new HashSet<>(Arrays.asList("indent", "not", "neg", "len", "min", "endsWith", "startsWith"));
+
+    private final DataDependentCondition condition;
+
+    private final CompiledExpression expression;
+
+    private final String[] variables;
+
+    /*
+     * The indices of the variables in the environment, or -1 for the variables looked up by name
+     */
+    private final int[] indices;
+
+    private final Map<Object, Boolean> outcomes;
+
+    private Input input;
+
+    private long hits;
+
+    private long misses;
+
+    private DataDependentConditionMemo(DataDependentCondition condition, String[] variables, int[] indices) {
+        this.condition = condition;
+        this.expression = ExpressionCompiler.compile(condition.getExpression());
+        this.variables = variables;
+        this.indices = indices;
+        this.outcomes = new HashMap<>();
+    }
+
+    /**
+     * Returns a memo for the given condition, or null if the condition has side effects, e.g.,
+     * assignments or calls to functions such as println.
+     */
+    public static DataDependentConditionMemo from(DataDependentCondition condition) {
+        Set<String> freeVariables = new LinkedHashSet<>();
+        Set<String> updates = new HashSet<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        boolean[] pure = { true };
+
+        FreeVariableVisitor visitor = new FreeVariableVisitor(freeVariables, updates) {
+            @Override
+            public Void visit(Expression.Call expression) {
+                if (!PURE_FUNCTIONS.contains(expression.getFunName()))
+                    pure[0] = false;
+                return super.visit(expression);
+            }
+
+            @Override
+            public Void visit(Expression.Name expression) {
+                if (expression.getIndex() != -1)
+                    indexes.put(expression.getName(), expression.getIndex());
+                return super.visit(expression);
+            }
+
+            @Override
+            public Void visit(Expression.Yield expression) {
+                if (expression.getIndex() != -1)
+                    indexes.put(expression.getLabel(), expression.getIndex());
+                return super.visit(expression);
+            }
+        };
+
+        Expression expression = condition.getExpression();
+        expression.setEnv(io.usethesource.capsule.Set.Immutable.of());
+        expression.accept(visitor);
+
+        if (!pure[0] || !updates.isEmpty())
+            return null;
+
+        String[] variables = freeVariables.toArray(new String[0]);
+        int[] indices = new int[variables.length];
+        for (int i = 0; i < variables.length; i++)
+            indices[i] = indexes.getOrDefault(variables[i], -1);
+
+        return new DataDependentConditionMemo(condition, variables, indices);
+    }
+
+    /**
+     * Returns the value of the condition in the given context.
+     */
+    public boolean evaluate(IEvaluatorContext ctx, Input input) {
+        if (this.input != input) {
+            this.input = input;
+            outcomes.clear();
+        }
+
+        Object key;
+        try {
+            key = getKey(ctx);
+        } catch (RuntimeException e) {
+            // A variable is undefined, which only fails if the expression uses it
+            return evaluateExpression(ctx, input);
+        }
+
+        Boolean outcome = outcomes.get(key);
+        if (outcome != null) {
+            hits++;
+            return outcome;
+        }
+
+        misses++;
+        boolean value = evaluateExpression(ctx, input);
+        outcomes.put(key, value);
+        return value;
+    }
+
+    private Object getKey(IEvaluatorContext ctx) {
+        if (variables.length == 1)
+            return lookup(ctx, 0);
+
+        Object[] values = new Object[variables.length];
+        for (int i = 0; i < variables.length; i++)
+            values[i] = lookup(ctx, i);
+        return Arrays.asList(values);
+    }
+
+    private Object lookup(IEvaluatorContext ctx, int i) {
+        return indices[i] == -1 ? ctx.lookupVariable(variables[i]) : ctx.lookupVariable(indices[i]);
+    }
+
+    private boolean evaluateExpression(IEvaluatorContext ctx, Input input) {
+        Object value = expression.evaluate(ctx, input);
+        if (!(value instanceof Boolean))
+            throw new RuntimeException("Data dependent condition should evaluate to a boolean value.");
+        return (Boolean) value;
+    }
+
+    /**
+     * Releases the memoized outcomes. The counters are kept.
+     */
+    public void clear() {
+        outcomes.clear();
+        input = null;
+    }
+
+    public DataDependentCondition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Returns the names of the variables the outcomes are keyed on.
+     */
+    public String[] getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the number of evaluations answered from the memo.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of times the expression has been evaluated.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (hits: %d, misses: %d, %.2f%%)", condition, hits, misses, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,96 @@
+package org.iguana.grammar.condition;
+
+import iguana.regex.matcher.Matcher;
+import iguana.utils.input.Input;
+
+import java.util.BitSet;
+
+/**
+ * Memoizes whether the matcher of a regular expression condition matches at an input position.
+ * Follow and precede restrictions only depend on the input and the position they are checked at,
+ * but are checked from many GSS contexts. The outcomes are kept in a pair of bitsets, one for the
+ * positions known to match and one for the positions known not to match, which are reset when
+ * a different input is parsed and released by {@link #clear()} after a parse.
+ */
+public class RegularExpressionConditionMemo {
+
+    private final RegularExpressionCondition condition;
+
+    private final Matcher matcher;
+
+    private BitSet knownTrue;
+
+    private BitSet knownFalse;
+
+    private Input input;
+
+    private long invocations;
+
+    private long savedInvocations;
+
+    public RegularExpressionConditionMemo(RegularExpressionCondition condition, Matcher matcher) {
+        this.condition = condition;
+        this.matcher = matcher;
+        this.knownTrue = new BitSet();
+        this.knownFalse = new BitSet();
+    }
+
+    public boolean matches(Input input, int i) {
+        if (this.input != input) {
+            this.input = input;
+            knownTrue.clear();
+            knownFalse.clear();
+        }
+
+        if (knownTrue.get(i)) {
+            savedInvocations++;
+            return true;
+        }
+
+        if (knownFalse.get(i)) {
+            savedInvocations++;
+            return false;
+        }
+
+        invocations++;
+        if (matcher.match(input, i) >= 0) {
+            knownTrue.set(i);
+            return true;
+        }
+
+        knownFalse.set(i);
+        return false;
+    }
+
+    /**
+     * Releases the memoized outcomes. The counters are kept.
+     */
+    public void clear() {
+        knownTrue = new BitSet();
+        knownFalse = new BitSet();
+        input = null;
+    }
+
+    public RegularExpressionCondition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Returns the number of times the matcher has been run.
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Returns the number of matcher runs that have been answered from the memo.
+     */
+    public long getSavedInvocations() {
+        return savedInvocations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (invocations: %d, saved: %d)", condition, invocations, savedInvocations);
+    }
+}
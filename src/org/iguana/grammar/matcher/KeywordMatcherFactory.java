@@ -0,0 +1,153 @@
+package org.iguana.grammar.matcher;
+
+import iguana.regex.Char;
+import iguana.regex.RegularExpression;
+import iguana.regex.Seq;
+import iguana.regex.matcher.Matcher;
+import iguana.regex.matcher.MatcherFactory;
+import iguana.utils.collections.IntHashMap;
+import iguana.utils.collections.OpenAddressingIntHashMap;
+import iguana.utils.input.Input;
+import org.iguana.util.trie.Node;
+import org.iguana.util.trie.Trie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A matcher factory that recognizes literal regular expressions, i.e., sequences of characters such as keywords,
+ * using one shared trie. At an input position the trie is walked once, and the lengths of all the literals
+ * matching at that position are memoized, so recognizing N literals at the same position costs one walk
+ * instead of N DFA runs. All other regular expressions are delegated to the given factory.
+ *
+ * The memoized lengths are kept for the last input, until they are released by {@link #clear()}.
+ */
+public class KeywordMatcherFactory implements MatcherFactory {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final MatcherFactory delegate;
+
+    private final Trie<Integer> trie;
+
+    private final Map<RegularExpression, Matcher> cache;
+
+    private Input input;
+
+    private IntHashMap<int[]> matchLengths;
+
+    public KeywordMatcherFactory(MatcherFactory delegate) {
+        this.delegate = delegate;
+        this.trie = new Trie<>();
+        this.cache = new HashMap<>();
+    }
+
+    @Override
+    public Matcher getMatcher(RegularExpression regex) {
+        List<Integer> literal = getLiteral(regex);
+        if (literal == null)
+            return delegate.getMatcher(regex);
+
+        return cache.computeIfAbsent(regex, r -> {
+            trie.addToRoot(literal).setAccepting();
+            // Memoized lengths computed before adding this literal are not valid anymore
+            input = null;
+            return new KeywordMatcher(literal.size());
+        });
+    }
+
+    @Override
+    public Matcher getBackwardsMatcher(RegularExpression regex) {
+        return delegate.getBackwardsMatcher(regex);
+    }
+
+    /**
+     * Releases the memoized lengths and the input they were computed for.
+     */
+    public void clear() {
+        input = null;
+        matchLengths = null;
+    }
+
+    /**
+     * Returns the code points of the given regular expression if it is a sequence of characters without
+     * lookaheads, otherwise null.
+     */
+    private static List<Integer> getLiteral(RegularExpression regex) {
+        if (!(regex instanceof Seq) || !regex.getLookaheads().isEmpty())
+            return null;
+
+        List<?> symbols = ((Seq<?>) regex).getSymbols();
+        if (symbols.isEmpty())
+            return null;
+
+        List<Integer> literal = new ArrayList<>(symbols.size());
+        for (Object symbol : symbols) {
+            if (!(symbol instanceof Char) || !((Char) symbol).getLookaheads().isEmpty())
+                return null;
+            literal.add(((Char) symbol).getValue());
+        }
+        return literal;
+    }
+
+    /**
+     * Returns the lengths, in ascending order, of all the literals that match at the input index i.
+     */
+    private int[] getMatchLengths(Input input, int i) {
+        if (this.input != input) {
+            this.input = input;
+            this.matchLengths = new OpenAddressingIntHashMap<>();
+        }
+
+        int[] lengths = matchLengths.get(i);
+        if (lengths == null) {
+            lengths = walk(input, i);
+            matchLengths.put(i, lengths);
+        }
+        return lengths;
+    }
+
+    private int[] walk(Input input, int i) {
+        int[] lengths = EMPTY;
+        Node<Integer> node = trie.getRoot();
+
+        int length = input.length();
+        for (int j = i; j < length; j++) {
+            node = trie.getChild(node, input.charAt(j));
+            if (node == null) break;
+
+            if (node.isAccepting()) {
+                lengths = Arrays.copyOf(lengths, lengths.length + 1);
+                lengths[lengths.length - 1] = j - i + 1;
+            }
+        }
+        return lengths;
+    }
+
+    private class KeywordMatcher implements Matcher {
+
+        private final int length;
+
+        KeywordMatcher(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int match(Input input, int i) {
+            int[] lengths = getMatchLengths(input, i);
+            for (int l : lengths) {
+                if (l == length) return length;
+                if (l > length) break;
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean match(Input input, int start, int end) {
+            return end - start == length && match(input, start) == length;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.iguana.grammar.matcher;
+
+import iguana.utils.collections.IntHashMap;
+import iguana.utils.collections.OpenAddressingIntHashMap;
+import iguana.utils.input.Input;
+import org.iguana.grammar.symbol.Terminal;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Matches a group of terminals that are tried at the same input positions, e.g., the first
+ * terminals of the alternatives of a nonterminal, using a single {@link TaggedDFA}.
+ * The match lengths of all the terminals in the group are computed in one scan and memoized
+ * per input position until {@link #reset()} is called.
+ */
+public class MultiTerminalMatcher {
+
+    private final List<Terminal> terminals;
+
+    private final TaggedDFA dfa;
+
+    private IntHashMap<int[]> lengths;
+
+    public MultiTerminalMatcher(List<Terminal> terminals) {
+        this.terminals = terminals;
+        this.dfa = new TaggedDFA(terminals.stream().map(Terminal::getRegularExpression).collect(toList()));
+    }
+
+    /**
+     * Returns the length of the longest match of the terminal at the given index in this group,
+     * or -1 if the terminal does not match at the input index i.
+     */
+    public int match(Input input, int i, int index) {
+        if (lengths == null) {
+            lengths = new OpenAddressingIntHashMap<>();
+        }
+
+        int[] result = lengths.get(i);
+        if (result == null) {
+            result = new int[terminals.size()];
+            dfa.match(input, i, result);
+            lengths.put(i, result);
+        }
+
+        return result[index];
+    }
+
+    public int indexOf(Terminal terminal) {
+        return terminals.indexOf(terminal);
+    }
+
+    public List<Terminal> getTerminals() {
+        return terminals;
+    }
+
+    public void reset() {
+        lengths = null;
+    }
+
+    @Override
+    public String toString() {
+        return terminals.toString();
+    }
+}
@@ -0,0 +1,530 @@
+package org.iguana.grammar.matcher;
+
+import iguana.regex.*;
+import iguana.utils.input.Input;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * A deterministic automaton recognizing a list of regular expressions at the same time.
+ * Each state carries the indices (tags) of the regular expressions that accept in it,
+ * so one scan of the input reports the longest match of every regular expression.
+ *
+ * Regular expressions with lookaheads or EOF are not supported, see {@link #supports(RegularExpression)}.
+ *
+ * The automaton consists of int tables only, which are written and read by {@link #write(DataOutputStream)}
+ * and {@link #read(DataInputStream)}.
+ */
+public class TaggedDFA implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int[] EMPTY = new int[0];
+
+    /*
+     * For each state, the sorted, disjoint character intervals [starts[k], ends[k]] and
+     * their target states.
+     */
+    private final int[][] starts;
+    private final int[][] ends;
+    private final int[][] targets;
+
+    private final int[][] tags;
+
+    private final int size;
+
+    public TaggedDFA(List<? extends RegularExpression> regularExpressions) {
+        NFA nfa = new NFA();
+        int start = nfa.newState();
+        for (int i = 0; i < regularExpressions.size(); i++) {
+            Fragment fragment = regularExpressions.get(i).accept(new NFABuilder(nfa));
+            nfa.addEpsilon(start, fragment.start);
+            nfa.tag(fragment.end, i);
+        }
+
+        List<int[]> startsList = new ArrayList<>();
+        List<int[]> endsList = new ArrayList<>();
+        List<int[]> targetsList = new ArrayList<>();
+        List<int[]> tagsList = new ArrayList<>();
+
+        Map<BitSet, Integer> states = new HashMap<>();
+        Deque<BitSet> worklist = new ArrayDeque<>();
+
+        BitSet startSet = nfa.closure(singleton(start));
+        states.put(startSet, 0);
+        worklist.add(startSet);
+        startsList.add(null);
+        endsList.add(null);
+        targetsList.add(null);
+        tagsList.add(nfa.tags(startSet));
+
+        while (!worklist.isEmpty()) {
+            BitSet current = worklist.poll();
+            int id = states.get(current);
+
+            // Split the outgoing character ranges of the NFA states into disjoint intervals
+            TreeSet<Integer> boundaries = new TreeSet<>();
+            for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                for (int[] t : nfa.transitions(s)) {
+                    boundaries.add(t[0]);
+                    boundaries.add(t[1] + 1);
+                }
+            }
+
+            List<int[]> intervals = new ArrayList<>();
+            Integer[] points = boundaries.toArray(new Integer[0]);
+            for (int k = 0; k < points.length - 1; k++) {
+                int from = points[k];
+                int to = points[k + 1] - 1;
+
+                BitSet next = new BitSet();
+                for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                    for (int[] t : nfa.transitions(s)) {
+                        if (t[0] <= from && to <= t[1])
+                            next.set(t[2]);
+                    }
+                }
+                if (next.isEmpty()) continue;
+
+                next = nfa.closure(next);
+                Integer target = states.get(next);
+                if (target == null) {
+                    target = states.size();
+                    states.put(next, target);
+                    worklist.add(next);
+                    startsList.add(null);
+                    endsList.add(null);
+                    targetsList.add(null);
+                    tagsList.add(nfa.tags(next));
+                }
+
+                // Merge with the previous interval if adjacent and going to the same state
+                int[] last = intervals.isEmpty() ? null : intervals.get(intervals.size() - 1);
+                if (last != null && last[1] + 1 == from && last[2] == target)
+                    last[1] = to;
+                else
+                    intervals.add(new int[] { from, to, target });
+            }
+
+            int[] s = new int[intervals.size()];
+            int[] e = new int[intervals.size()];
+            int[] t = new int[intervals.size()];
+            for (int k = 0; k < intervals.size(); k++) {
+                s[k] = intervals.get(k)[0];
+                e[k] = intervals.get(k)[1];
+                t[k] = intervals.get(k)[2];
+            }
+            startsList.set(id, s);
+            endsList.set(id, e);
+            targetsList.set(id, t);
+        }
+
+        this.size = states.size();
+        this.starts = startsList.toArray(new int[0][]);
+        this.ends = endsList.toArray(new int[0][]);
+        this.targets = targetsList.toArray(new int[0][]);
+        this.tags = tagsList.toArray(new int[0][]);
+    }
+
+    private TaggedDFA(int[][] starts, int[][] ends, int[][] targets, int[][] tags) {
+        this.starts = starts;
+        this.ends = ends;
+        this.targets = targets;
+        this.tags = tags;
+        this.size = tags.length;
+    }
+
+    /**
+     * Writes the tables of this automaton to the given stream.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int state = 0; state < size; state++) {
+            writeInts(starts[state], out);
+            writeInts(ends[state], out);
+            writeInts(targets[state], out);
+            writeInts(tags[state], out);
+        }
+    }
+
+    /**
+     * Reads an automaton written by {@link #write(DataOutputStream)}.
+     */
+    public static TaggedDFA read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size <= 0)
+            throw new IOException("Malformed tagged DFA of size " + size);
+
+        int[][] starts = new int[size][];
+        int[][] ends = new int[size][];
+        int[][] targets = new int[size][];
+        int[][] tags = new int[size][];
+        for (int state = 0; state < size; state++) {
+            starts[state] = readInts(in);
+            ends[state] = readInts(in);
+            targets[state] = readInts(in);
+            tags[state] = readInts(in);
+
+            if (ends[state].length != starts[state].length || targets[state].length != starts[state].length)
+                throw new IOException("Malformed transitions of state " + state);
+            for (int target : targets[state])
+                if (target < 0 || target >= size)
+                    throw new IOException("Malformed target state " + target);
+        }
+
+        return new TaggedDFA(starts, ends, targets, tags);
+    }
+
+    private static void writeInts(int[] ints, DataOutputStream out) throws IOException {
+        out.writeInt(ints.length);
+        for (int i : ints)
+            out.writeInt(i);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Malformed table length " + length);
+        if (length == 0)
+            return EMPTY;
+
+        int[] ints = new int[length];
+        for (int i = 0; i < length; i++)
+            ints[i] = in.readInt();
+        return ints;
+    }
+
+    /**
+     * Scans the input from index i and stores in lengths, for each regular expression, the length
+     * of its longest match, or -1 if it does not match.
+     */
+    public void match(Input input, int i, int[] lengths) {
+        Arrays.fill(lengths, -1);
+
+        int state = 0;
+        for (int tag : tags[state])
+            lengths[tag] = 0;
+
+        int length = input.length();
+        for (int j = i; j < length; j++) {
+            state = next(state, input.charAt(j));
+            if (state == -1) break;
+
+            for (int tag : tags[state])
+                lengths[tag] = j - i + 1;
+        }
+    }
+
+    /**
+     * Returns the length of the longest match from index i of any of the regular expressions, or -1
+     * if none of them matches.
+     */
+    public int match(Input input, int i) {
+        int state = 0;
+        int result = tags[state].length > 0 ? 0 : -1;
+
+        int length = input.length();
+        for (int j = i; j < length; j++) {
+            state = next(state, input.charAt(j));
+            if (state == -1) break;
+
+            if (tags[state].length > 0)
+                result = j - i + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether one of the regular expressions matches the input from start to end.
+     */
+    public boolean match(Input input, int start, int end) {
+        int state = 0;
+        for (int j = start; j < end; j++) {
+            state = next(state, input.charAt(j));
+            if (state == -1) return false;
+        }
+        return tags[state].length > 0;
+    }
+
+    private int next(int state, int c) {
+        int[] s = starts[state];
+        int[] e = ends[state];
+
+        int low = 0;
+        int high = s.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (c < s[mid])
+                high = mid - 1;
+            else if (c > e[mid])
+                low = mid + 1;
+            else
+                return targets[state][mid];
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns, for each offset d smaller than k, the character ranges that can occur at offset d
+     * of a match of one of the regular expressions.
+     */
+    public List<Set<CharRange>> getCharacterSets(int k) {
+        List<Set<CharRange>> sets = new ArrayList<>(k);
+        BitSet current = new BitSet();
+        current.set(0);
+
+        for (int d = 0; d < k; d++) {
+            Set<CharRange> set = new HashSet<>();
+            BitSet next = new BitSet();
+            for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                for (int j = 0; j < starts[s].length; j++) {
+                    set.add(CharRange.in(starts[s][j], ends[s][j]));
+                    next.set(targets[s][j]);
+                }
+            }
+            sets.add(set);
+            current = next;
+        }
+
+        return sets;
+    }
+
+    /**
+     * Returns the lengths smaller than k of the strings matched by one of the regular expressions.
+     */
+    public BitSet getMatchLengths(int k) {
+        BitSet lengths = new BitSet();
+        BitSet current = new BitSet();
+        current.set(0);
+
+        for (int d = 0; d < k && !current.isEmpty(); d++) {
+            BitSet next = new BitSet();
+            for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                if (tags[s].length > 0)
+                    lengths.set(d);
+                for (int t : targets[s])
+                    next.set(t);
+            }
+            current = next;
+        }
+
+        return lengths;
+    }
+
+    public static boolean supports(RegularExpression regex) {
+        return regex.getLookaheads().isEmpty() && regex.accept(new SupportedVisitor());
+    }
+
+    private static BitSet singleton(int i) {
+        BitSet set = new BitSet();
+        set.set(i);
+        return set;
+    }
+
+    private static class NFA {
+
+        private final List<List<int[]>> transitions = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private final Map<Integer, Integer> tags = new HashMap<>();
+
+        int newState() {
+            transitions.add(new ArrayList<>());
+            epsilons.add(new ArrayList<>());
+            return transitions.size() - 1;
+        }
+
+        void addTransition(int from, int start, int end, int to) {
+            transitions.get(from).add(new int[] { start, end, to });
+        }
+
+        void addEpsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        void tag(int state, int tag) {
+            tags.put(state, tag);
+        }
+
+        List<int[]> transitions(int state) {
+            return transitions.get(state);
+        }
+
+        BitSet closure(BitSet set) {
+            BitSet result = (BitSet) set.clone();
+            Deque<Integer> stack = new ArrayDeque<>();
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1))
+                stack.push(s);
+
+            while (!stack.isEmpty()) {
+                int s = stack.pop();
+                for (int t : epsilons.get(s)) {
+                    if (!result.get(t)) {
+                        result.set(t);
+                        stack.push(t);
+                    }
+                }
+            }
+            return result;
+        }
+
+        int[] tags(BitSet set) {
+            int[] result = EMPTY;
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                Integer tag = tags.get(s);
+                if (tag != null) {
+                    result = Arrays.copyOf(result, result.length + 1);
+                    result[result.length - 1] = tag;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Fragment {
+        final int start;
+        final int end;
+
+        Fragment(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /*
+     * Thompson's construction
+     */
+    private static class NFABuilder implements RegularExpressionVisitor<Fragment> {
+
+        private final NFA nfa;
+
+        NFABuilder(NFA nfa) {
+            this.nfa = nfa;
+        }
+
+        @Override
+        public Fragment visit(Char c) {
+            return range(c.getValue(), c.getValue());
+        }
+
+        @Override
+        public Fragment visit(CharRange r) {
+            return range(r.getStart(), r.getEnd());
+        }
+
+        @Override
+        public Fragment visit(EOF eof) {
+            throw new UnsupportedOperationException("EOF is not supported in a tagged DFA");
+        }
+
+        @Override
+        public Fragment visit(Epsilon e) {
+            int state = nfa.newState();
+            return new Fragment(state, state);
+        }
+
+        @Override
+        public Fragment visit(iguana.regex.Star s) {
+            Fragment fragment = s.getSymbol().accept(this);
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.addEpsilon(start, fragment.start);
+            nfa.addEpsilon(start, end);
+            nfa.addEpsilon(fragment.end, fragment.start);
+            nfa.addEpsilon(fragment.end, end);
+            return new Fragment(start, end);
+        }
+
+        @Override
+        public Fragment visit(iguana.regex.Plus p) {
+            Fragment fragment = p.getSymbol().accept(this);
+            int end = nfa.newState();
+            nfa.addEpsilon(fragment.end, fragment.start);
+            nfa.addEpsilon(fragment.end, end);
+            return new Fragment(fragment.start, end);
+        }
+
+        @Override
+        public Fragment visit(iguana.regex.Opt o) {
+            Fragment fragment = o.getSymbol().accept(this);
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.addEpsilon(start, fragment.start);
+            nfa.addEpsilon(start, end);
+            nfa.addEpsilon(fragment.end, end);
+            return new Fragment(start, end);
+        }
+
+        @Override
+        public <E extends RegularExpression> Fragment visit(iguana.regex.Alt<E> alt) {
+            int start = nfa.newState();
+            int end = nfa.newState();
+            for (E symbol : alt.getSymbols()) {
+                Fragment fragment = symbol.accept(this);
+                nfa.addEpsilon(start, fragment.start);
+                nfa.addEpsilon(fragment.end, end);
+            }
+            return new Fragment(start, end);
+        }
+
+        @Override
+        public <E extends RegularExpression> Fragment visit(iguana.regex.Seq<E> seq) {
+            int start = nfa.newState();
+            int current = start;
+            for (E symbol : seq.getSymbols()) {
+                Fragment fragment = symbol.accept(this);
+                nfa.addEpsilon(current, fragment.start);
+                current = fragment.end;
+            }
+            return new Fragment(start, current);
+        }
+
+        private Fragment range(int from, int to) {
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.addTransition(start, from, to, end);
+            return new Fragment(start, end);
+        }
+    }
+
+    private static class SupportedVisitor implements RegularExpressionVisitor<Boolean> {
+
+        @Override
+        public Boolean visit(Char c) { return true; }
+
+        @Override
+        public Boolean visit(CharRange r) { return true; }
+
+        @Override
+        public Boolean visit(EOF eof) { return false; }
+
+        @Override
+        public Boolean visit(Epsilon e) { return true; }
+
+        @Override
+        public Boolean visit(iguana.regex.Star s) { return s.getSymbol().accept(this); }
+
+        @Override
+        public Boolean visit(iguana.regex.Plus p) { return p.getSymbol().accept(this); }
+
+        @Override
+        public Boolean visit(iguana.regex.Opt o) { return o.getSymbol().accept(this); }
+
+        @Override
+        public <E extends RegularExpression> Boolean visit(iguana.regex.Alt<E> alt) {
+            return alt.getSymbols().stream().allMatch(s -> s.accept(this));
+        }
+
+        @Override
+        public <E extends RegularExpression> Boolean visit(iguana.regex.Seq<E> seq) {
+            return seq.getSymbols().stream().allMatch(s -> s.accept(this));
+        }
+    }
+}
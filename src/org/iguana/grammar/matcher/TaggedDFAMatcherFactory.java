@@ -0,0 +1,86 @@
+package org.iguana.grammar.matcher;
+
+import iguana.regex.RegularExpression;
+import iguana.regex.matcher.Matcher;
+import iguana.regex.matcher.MatcherFactory;
+import iguana.utils.input.Input;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A matcher factory that matches each regular expression with its own {@link TaggedDFA}. The automata
+ * are kept by regular expression, so that they can be saved, e.g., in a grammar graph snapshot, and
+ * given to a new factory instead of being constructed again. The regular expressions that a tagged DFA
+ * does not support, and the backwards matchers, are delegated to the given factory.
+ */
+public class TaggedDFAMatcherFactory implements MatcherFactory {
+
+    private final MatcherFactory delegate;
+
+    private final Map<RegularExpression, TaggedDFA> automata;
+
+    private final Map<RegularExpression, Matcher> cache;
+
+    public TaggedDFAMatcherFactory(MatcherFactory delegate) {
+        this(delegate, new LinkedHashMap<>());
+    }
+
+    /**
+     * Creates a factory that uses the given automata for their regular expressions.
+     */
+    public TaggedDFAMatcherFactory(MatcherFactory delegate, Map<RegularExpression, TaggedDFA> automata) {
+        this.delegate = delegate;
+        this.automata = new LinkedHashMap<>(automata);
+        this.cache = new HashMap<>();
+    }
+
+    @Override
+    public Matcher getMatcher(RegularExpression regex) {
+        Matcher matcher = cache.get(regex);
+        if (matcher == null) {
+            TaggedDFA dfa = automata.get(regex);
+            if (dfa == null && TaggedDFA.supports(regex)) {
+                dfa = new TaggedDFA(Collections.singletonList(regex));
+                automata.put(regex, dfa);
+            }
+            matcher = dfa == null ? delegate.getMatcher(regex) : new TaggedDFAMatcher(dfa);
+            cache.put(regex, matcher);
+        }
+        return matcher;
+    }
+
+    @Override
+    public Matcher getBackwardsMatcher(RegularExpression regex) {
+        return delegate.getBackwardsMatcher(regex);
+    }
+
+    /**
+     * Returns the automata of the regular expressions matched so far.
+     */
+    public Map<RegularExpression, TaggedDFA> getAutomata() {
+        return Collections.unmodifiableMap(automata);
+    }
+
+    private static class TaggedDFAMatcher implements Matcher {
+
+        private final TaggedDFA dfa;
+
+        TaggedDFAMatcher(TaggedDFA dfa) {
+            this.dfa = dfa;
+        }
+
+        @Override
+        public int match(Input input, int i) {
+            return dfa.match(input, i);
+        }
+
+        @Override
+        public boolean match(Input input, int start, int end) {
+            return dfa.match(input, start, end);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.iguana.grammar.operations;
+
+import org.iguana.datadependent.ast.Expression;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.*;
+import org.iguana.grammar.transformation.VarToInt;
+import org.iguana.util.Configuration.EnvironmentImpl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Selects the cheapest environment implementation that supports the data-dependent features of a
+ * grammar, for {@link EnvironmentImpl#AUTO}:
+ *
+ * <ul>
+ *   <li> INT_ARRAY, if the environments only hold the parameters of nonterminals, at most two per
+ *        nonterminal, and the arguments are int literals that fit in the environment or parameters;
+ *   <li> ARRAY, if all the variables can be resolved to indices by {@link VarToInt} and the grammar
+ *        has no labels or state bindings, whose variables are declared by name;
+ *   <li> TRIE otherwise.
+ * </ul>
+ *
+ * The selection is for the whole grammar, as a parse uses a single evaluator context.
+ */
+public class EnvironmentAnalysis {
+
+    /*
+     * The largest int value of an int array environment, which has ten bits per value
+     */
+    private static final int MAX_INT_VALUE = 511;
+
+    private static final int MAX_INT_PARAMETERS = 2;
+
+    private boolean named;
+
+    private boolean intOnly = true;
+
+    public static EnvironmentImpl select(Grammar grammar) {
+        EnvironmentAnalysis analysis = new EnvironmentAnalysis();
+
+        for (Rule rule : grammar.getRules())
+            analysis.visit(rule);
+
+        if (analysis.named)
+            return EnvironmentImpl.TRIE;
+
+        try {
+            new VarToInt().transform(grammar);
+        } catch (RuntimeException e) {
+            return EnvironmentImpl.TRIE;
+        }
+
+        return analysis.intOnly ? EnvironmentImpl.INT_ARRAY : EnvironmentImpl.ARRAY;
+    }
+
+    private void visit(Rule rule) {
+        String[] parameters = rule.getHead().getParameters();
+        if (parameters != null && parameters.length > MAX_INT_PARAMETERS)
+            intOnly = false;
+
+        if (rule.getBody() == null) return;
+
+        Set<String> names = parameters == null ? new HashSet<>() : new HashSet<>(Arrays.asList(parameters));
+        for (Symbol symbol : rule.getBody())
+            visit(symbol, names);
+    }
+
+    private void visit(Symbol symbol, Set<String> parameters) {
+        if (symbol.getLabel() != null)
+            named = true;
+
+        if (symbol instanceof Nonterminal) {
+            Nonterminal nonterminal = (Nonterminal) symbol;
+
+            if (nonterminal.getState() != null)
+                named = true;
+
+            if (nonterminal.getVariable() != null)
+                intOnly = false;
+
+            if (nonterminal.getArguments() != null) {
+                for (Expression argument : nonterminal.getArguments()) {
+                    if (!isSmallInt(argument, parameters))
+                        intOnly = false;
+                }
+            }
+        } else if (symbol instanceof Code) {
+            // Statements may declare variables
+            intOnly = false;
+            visit(((Code) symbol).getSymbol(), parameters);
+        } else if (symbol instanceof Conditional) {
+            visit(((Conditional) symbol).getSymbol(), parameters);
+        } else if (!(symbol instanceof Terminal) && !(symbol instanceof Return) && !(symbol instanceof Start)) {
+            // Other symbols, e.g., blocks, are not analyzed
+            named = true;
+        }
+    }
+
+    private static boolean isSmallInt(Expression expression, Set<String> parameters) {
+        if (expression instanceof Expression.Integer) {
+            int value = ((Expression.Integer) expression).getValue();
+            return value >= 0 && value <= MAX_INT_VALUE;
+        }
+
+        if (expression instanceof Expression.Name)
+            return parameters.contains(((Expression.Name) expression).getName());
+
+        if (expression instanceof Expression.IfThenElse) {
+            Expression.IfThenElse ifThenElse = (Expression.IfThenElse) expression;
+            return isSmallInt(ifThenElse.getThenPart(), parameters) && isSmallInt(ifThenElse.getElsePart(), parameters);
+        }
+
+        return false;
+    }
+
+}
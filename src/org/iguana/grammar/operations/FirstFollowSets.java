@@ -30,8 +30,10 @@ package org.iguana.grammar.operations;
 import iguana.regex.CharRange;
 import iguana.regex.EOF;
 import iguana.regex.Epsilon;
+import iguana.regex.RegularExpression;
 import org.iguana.grammar.AbstractGrammarGraphSymbolVisitor;
 import org.iguana.grammar.Grammar;
+import org.iguana.grammar.matcher.TaggedDFA;
 import org.iguana.grammar.symbol.*;
 import org.iguana.traversal.ISymbolVisitor;
 import org.iguana.util.Tuple;
@@ -60,24 +62,66 @@ public class FirstFollowSets {
 	private final ISymbolVisitor<Boolean> nullableVisitor;
 	
 	private final ISymbolVisitor<Nonterminal> nonterminalVisitor;
-	
+
+	private final int lookAheadCount;
+
+	private final Map<Nonterminal, LookAheadProfile> firstProfiles;
+
+	private final Map<Nonterminal, LookAheadProfile> followProfiles;
+
+	private final Map<Terminal, LookAheadProfile> terminalProfiles;
+
 	public FirstFollowSets(Grammar grammar) {
+		this(grammar, 1);
+	}
+
+	/**
+	 * @param lookAheadCount if greater than one, the characters at each offset smaller than lookAheadCount
+	 *                       are calculated for the alternatives, see {@link #getLookAheadSets(Rule)}.
+	 */
+	public FirstFollowSets(Grammar grammar, int lookAheadCount) {
+		this(grammar, lookAheadCount, new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashSet<>(), true);
+	}
+
+	/**
+	 * Restores the analysis of the given grammar from previously calculated sets, e.g., read from a
+	 * {@link org.iguana.grammar.GrammarGraphSnapshot}, without calculating them again.
+	 */
+	public FirstFollowSets(Grammar grammar, int lookAheadCount, Map<Nonterminal, Set<CharRange>> firstSets,
+						   Map<Nonterminal, Set<CharRange>> followSets, Map<Tuple<Rule, Integer>, Set<CharRange>> predictionSets,
+						   Set<Nonterminal> nullableNonterminals) {
+		this(grammar, lookAheadCount, firstSets, followSets, predictionSets, nullableNonterminals, false);
+	}
+
+	private FirstFollowSets(Grammar grammar, int lookAheadCount, Map<Nonterminal, Set<CharRange>> firstSets,
+							Map<Nonterminal, Set<CharRange>> followSets, Map<Tuple<Rule, Integer>, Set<CharRange>> predictionSets,
+							Set<Nonterminal> nullableNonterminals, boolean calculate) {
 		this.definitions = grammar.getDefinitions();
-		this.firstSets = new HashMap<>();
-		this.nullableNonterminals = new HashSet<>();
-		this.followSets = new HashMap<>();
-		this.predictionSets = new HashMap<>();
+		this.firstSets = firstSets;
+		this.nullableNonterminals = nullableNonterminals;
+		this.followSets = followSets;
+		this.predictionSets = predictionSets;
 		
 		this.firstSetVisitor = new FirstSymbolVisitor(firstSets);
 		this.nonterminalVisitor = new NonterminalVisitor();
 		this.nullableVisitor = new NullableSymbolVisitor(nullableNonterminals);
+
+		this.lookAheadCount = lookAheadCount;
+		this.firstProfiles = new HashMap<>();
+		this.followProfiles = new HashMap<>();
+		this.terminalProfiles = new HashMap<>();
 		
-		definitions.keySet().forEach(k -> { firstSets.put(k, new HashSet<>()); followSets.put(k, new HashSet<>()); });
+		if (calculate) {
+			definitions.keySet().forEach(k -> { firstSets.put(k, new HashSet<>()); followSets.put(k, new HashSet<>()); });
+
+			calculateNullables();
+			new CharClassAnalysis().run();
+		}
 
-		calculateNullables();
-		calculateFirstSets();
-		calculateFollowSets();
-		calcualtePredictionSets();
+		if (lookAheadCount > 1) {
+			calculateFirstProfiles();
+			calculateFollowProfiles();
+		}
 	}
 	
 	public Map<Nonterminal, Set<CharRange>> getFirstSets() {
@@ -110,24 +154,17 @@ public class FirstFollowSets {
 	public Set<CharRange> getPredictionSet(Rule rule, int index) {
 		return predictionSets.get(Tuple.of(rule, index));
 	}
-	
-	private void calculateFirstSets() {
-		
-		Set<Nonterminal> nonterminals = definitions.keySet();
-		
-		boolean changed = true;
 
-		while (changed) {
-			
-			changed = false;
-			
-			for (Nonterminal head : nonterminals) {
-				Set<CharRange> firstSet = firstSets.get(head);
-				for (Rule alternate : definitions.get(head)) {
-					changed |= addFirstSet(firstSet, alternate.getBody(), 0);
-				}
-			}
-		}
+	/**
+	 * Returns, for each offset d smaller than the lookahead count, the characters that can occur at
+	 * offset d from the beginning of the given alternative, including what follows its head. This is the
+	 * linear approximation of the LL(k) prediction set of the alternative. A null element means any character.
+	 */
+	public List<Set<CharRange>> getLookAheadSets(Rule rule) {
+		if (lookAheadCount <= 1)
+			throw new IllegalStateException("Lookahead sets are only calculated for a lookahead count greater than one");
+
+		return getProfile(rule.getBody(), 0).concat(followProfiles.get(rule.getHead()), lookAheadCount).sets;
 	}
 	
 	private void calculateNullables() {
@@ -149,216 +186,505 @@ public class FirstFollowSets {
 		}
 	}
 	
-	/**
-	 * Adds the first set of the current slot to the given set.
-	 * 
-	 * @return true if adding any new terminals are added to the first set.
-	 */
-	private boolean addFirstSet(Set<CharRange> firstSet, List<Symbol> alternative, int index) {
-
-		boolean changed = false;
-		
-		if(alternative == null) return false;
-		 		
-		for(int i = index; i < alternative.size(); i++) {
-			Symbol symbol = alternative.get(i);
-			changed |= firstSet.addAll(symbol.accept(firstSetVisitor));
-			if (!isNullable(symbol)) break;
-		}
-				
-		return changed;
-	}
-	
 	public boolean isNullable(Symbol symbol) {
 		return symbol.accept(nullableVisitor);
 	}
-	
+
 	/**
-	 * 
-	 * Checks if a grammar slot is nullable. This check is performed until
-	 * the end of the alternate: isChainNullable(X ::= alpha . beta) says if the
-	 * part beta is nullable.
-	 *   
+	 * Calculates the first, follow and prediction sets on bitsets. The character ranges of the terminals
+	 * are interned to bit positions, the first and follow sets of the nonterminals are long[] bitsets,
+	 * and the fixed points are reached by propagating changes along the dependencies between the
+	 * nonterminals using a worklist, rather than by iterating over the whole grammar until nothing changes.
 	 */
-	private boolean isChainNullable(List<Symbol> alternate, int index) {
-		if(index >= alternate.size()) return true;
-		
-		for(int i = index; i < alternate.size(); i++) {
-			if (!isNullable(alternate.get(i))) return false;
+	private class CharClassAnalysis {
+
+		private final List<CharRange> charClasses = new ArrayList<>();
+
+		private final Map<CharRange, Integer> charClassIds = new HashMap<>();
+
+		private final Map<Symbol, long[]> terminalBits = new HashMap<>();
+
+		private final Map<Nonterminal, Integer> nonterminalIds = new HashMap<>();
+
+		private final List<Nonterminal> nonterminals = new ArrayList<>();
+
+		private int words;
+
+		private long[][] first;
+
+		private long[][] follow;
+
+		void run() {
+			for (Nonterminal head : definitions.keySet()) {
+				nonterminalIds.put(head, nonterminals.size());
+				nonterminals.add(head);
+			}
+
+			// Interns all character ranges before the bitsets are allocated
+			EOF.getInstance().getFirstSet().forEach(this::intern);
+			for (Nonterminal head : nonterminals) {
+				for (Rule rule : definitions.get(head)) {
+					if (rule.getBody() == null) continue;
+					for (Symbol symbol : rule.getBody()) {
+						if (getNonterminalId(symbol) == -1)
+							symbol.accept(firstSetVisitor).forEach(this::intern);
+					}
+				}
+			}
+			words = (charClasses.size() + 63) >>> 6;
+
+			calculateFirstSets();
+			calculateFollowSets();
+			calculatePredictionSets();
+
+			for (int i = 0; i < nonterminals.size(); i++) {
+				firstSets.put(nonterminals.get(i), toSet(first[i]));
+				followSets.put(nonterminals.get(i), toSet(follow[i]));
+			}
 		}
 
-		return true;
+		private void calculateFirstSets() {
+			int n = nonterminals.size();
+			first = new long[n][words];
+
+			// dependents[b] contains a if first(b) is part of first(a)
+			List<Set<Integer>> dependents = newDependencies(n);
+
+			for (int a = 0; a < n; a++) {
+				for (Rule rule : definitions.get(nonterminals.get(a))) {
+					List<Symbol> alternative = rule.getBody();
+					if (alternative == null) continue;
+
+					for (Symbol symbol : alternative) {
+						int b = getNonterminalId(symbol);
+						if (b == -1)
+							or(first[a], getTerminalBits(symbol));
+						else
+							dependents.get(b).add(a);
+						if (!isNullable(symbol)) break;
+					}
+				}
+			}
+
+			propagate(first, dependents);
+		}
+
+		private void calculateFollowSets() {
+			int n = nonterminals.size();
+			follow = new long[n][words];
+
+			// dependents[a] contains b if follow(a) is part of follow(b)
+			List<Set<Integer>> dependents = newDependencies(n);
+
+			for (int a = 0; a < n; a++) {
+				for (Rule rule : definitions.get(nonterminals.get(a))) {
+					List<Symbol> alternative = rule.getBody();
+					if (alternative == null) continue;
+
+					long[] suffix = new long[words];
+					boolean suffixNullable = true;
+
+					// For rules of the form X ::= alpha B beta, adds the first set of beta to the follow set of B,
+					// and if beta is nullable, the follow set of X to the follow set of B.
+					for (int i = alternative.size() - 1; i >= 0; i--) {
+						Symbol symbol = alternative.get(i);
+						int b = getNonterminalId(symbol);
+						if (b != -1) {
+							or(follow[b], suffix);
+							if (suffixNullable)
+								dependents.get(a).add(b);
+						}
+
+						if (isNullable(symbol)) {
+							or(suffix, getFirstBits(symbol));
+						} else {
+							suffix = getFirstBits(symbol).clone();
+							suffixNullable = false;
+						}
+					}
+				}
+			}
+
+			propagate(follow, dependents);
+
+			// Add the EOF to all nonterminals as each nonterminal can be used as the start symbol.
+			long[] eof = toBits(EOF.getInstance().getFirstSet());
+			for (long[] set : follow)
+				or(set, eof);
+		}
+
+		private void calculatePredictionSets() {
+			for (int a = 0; a < nonterminals.size(); a++) {
+				for (Rule rule : definitions.get(nonterminals.get(a))) {
+					List<Symbol> alternative = rule.getBody();
+					if (alternative == null) continue;
+
+					long[] suffix = follow[a].clone();
+					predictionSets.put(Tuple.of(rule, alternative.size()), toSet(suffix));
+
+					for (int i = alternative.size() - 1; i >= 0; i--) {
+						Symbol symbol = alternative.get(i);
+						if (isNullable(symbol))
+							or(suffix, getFirstBits(symbol));
+						else
+							suffix = getFirstBits(symbol).clone();
+						predictionSets.put(Tuple.of(rule, i), toSet(suffix));
+					}
+				}
+			}
+		}
+
+		/*
+		 * Adds the set of each nonterminal to the sets of its dependents until nothing changes.
+		 */
+		private void propagate(long[][] sets, List<Set<Integer>> dependents) {
+			Deque<Integer> worklist = new ArrayDeque<>();
+			boolean[] queued = new boolean[sets.length];
+			for (int i = 0; i < sets.length; i++) {
+				worklist.add(i);
+				queued[i] = true;
+			}
+
+			while (!worklist.isEmpty()) {
+				int b = worklist.poll();
+				queued[b] = false;
+				for (int a : dependents.get(b)) {
+					if (or(sets[a], sets[b]) && !queued[a]) {
+						worklist.add(a);
+						queued[a] = true;
+					}
+				}
+			}
+		}
+
+		private long[] getFirstBits(Symbol symbol) {
+			int id = getNonterminalId(symbol);
+			return id == -1 ? getTerminalBits(symbol) : first[id];
+		}
+
+		private long[] getTerminalBits(Symbol symbol) {
+			return terminalBits.computeIfAbsent(symbol, s -> toBits(s.accept(firstSetVisitor)));
+		}
+
+		private int getNonterminalId(Symbol symbol) {
+			Nonterminal nonterminal = symbol.accept(nonterminalVisitor);
+			if (nonterminal == null) return -1;
+			Integer id = nonterminalIds.get(nonterminal);
+			return id == null ? -1 : id;
+		}
+
+		private void intern(CharRange range) {
+			if (!charClassIds.containsKey(range)) {
+				charClassIds.put(range, charClasses.size());
+				charClasses.add(range);
+			}
+		}
+
+		private long[] toBits(Set<CharRange> set) {
+			long[] bits = new long[words];
+			for (CharRange range : set) {
+				int id = charClassIds.get(range);
+				bits[id >>> 6] |= 1L << id;
+			}
+			return bits;
+		}
+
+		private Set<CharRange> toSet(long[] bits) {
+			Set<CharRange> set = new HashSet<>();
+			for (int w = 0; w < bits.length; w++) {
+				long word = bits[w];
+				while (word != 0) {
+					set.add(charClasses.get((w << 6) + Long.numberOfTrailingZeros(word)));
+					word &= word - 1;
+				}
+			}
+			return set;
+		}
+
+		private List<Set<Integer>> newDependencies(int n) {
+			List<Set<Integer>> dependencies = new ArrayList<>(n);
+			for (int i = 0; i < n; i++)
+				dependencies.add(new HashSet<>());
+			return dependencies;
+		}
+
+		/**
+		 * Adds the bits of src to dest.
+		 *
+		 * @return true if dest has changed.
+		 */
+		private boolean or(long[] dest, long[] src) {
+			boolean changed = false;
+			for (int i = 0; i < dest.length; i++) {
+				long word = dest[i] | src[i];
+				if (word != dest[i]) {
+					dest[i] = word;
+					changed = true;
+				}
+			}
+			return changed;
+		}
 	}
-		
-	private void calculateFollowSets() {
-		
-		Set<Nonterminal> nonterminals = definitions.keySet();
-		
+	
+	private void calculateFirstProfiles() {
+		definitions.keySet().forEach(k -> firstProfiles.put(k, new LookAheadProfile(lookAheadCount)));
+
 		boolean changed = true;
 
 		while (changed) {
-			
 			changed = false;
-			
-			for (Nonterminal head : nonterminals) {
 
+			for (Nonterminal head : definitions.keySet()) {
+				LookAheadProfile profile = firstProfiles.get(head);
+				for (Rule rule : definitions.get(head)) {
+					changed |= profile.addAll(getProfile(rule.getBody(), 0));
+				}
+			}
+		}
+	}
+
+	private void calculateFollowProfiles() {
+		for (Nonterminal head : definitions.keySet()) {
+			LookAheadProfile profile = new LookAheadProfile(lookAheadCount);
+			profile.sets.get(0).addAll(EOF.getInstance().getFirstSet());
+			followProfiles.put(head, profile);
+		}
+
+		boolean changed = true;
+
+		while (changed) {
+			changed = false;
+
+			for (Nonterminal head : definitions.keySet()) {
 				for (Rule rule : definitions.get(head)) {
 					List<Symbol> alternative = rule.getBody();
-					
-					if(alternative == null || alternative.size() == 0) continue;
-					
-					for(int i = 0; i < alternative.size(); i++) {
-					
-						Symbol symbol = alternative.get(i);
-						
-						Nonterminal nonterminal = symbol.accept(nonterminalVisitor);
-						
+					if (alternative == null) continue;
+
+					for (int i = 0; i < alternative.size(); i++) {
+						Nonterminal nonterminal = alternative.get(i).accept(nonterminalVisitor);
 						if (nonterminal != null) {
-							// For rules of the form X ::= alpha B beta, add the
-							// first set of beta to the follow set of B.
-							Set<CharRange> followSet = followSets.get(nonterminal);
-							changed |= addFirstSet(followSet, alternative, i + 1);
-							
-							// If beta is nullable, then add the follow set of X
-							// to the follow set of B.
-							if (isChainNullable(alternative, i + 1)) {
-								changed |= followSet.addAll(followSets.get(head));
-							}							
+							// For rules of the form X ::= alpha B beta, add beta followed by the follow of X
+							// to the follow of B
+							LookAheadProfile rest = getProfile(alternative, i + 1).concat(followProfiles.get(head), lookAheadCount);
+							changed |= followProfiles.get(nonterminal).addAll(rest);
 						}
 					}
 				}
 			}
 		}
+	}
 
-		for (Nonterminal head : nonterminals) {
-            // Add the EOF to all nonterminals as each nonterminal can be used
-			// as the start symbol.
-			followSets.get(head).addAll(EOF.getInstance().getFirstSet());			
+	/*
+	 * Returns the profile of the symbols of the alternative from the given index.
+	 */
+	private LookAheadProfile getProfile(List<Symbol> alternative, int index) {
+		LookAheadProfile profile = LookAheadProfile.epsilon(lookAheadCount);
+		if (alternative == null) return profile;
+
+		for (int i = index; i < alternative.size(); i++) {
+			if (profile.lengths.isEmpty()) break;
+			profile = profile.concat(getProfile(alternative.get(i)), lookAheadCount);
 		}
+		return profile;
 	}
-	
-	private void calcualtePredictionSets() {
 
-		for (Nonterminal nonterminal : definitions.keySet()) {
-			List<Rule> rules = definitions.get(nonterminal);
-			
-			for (Rule rule : rules) {
-				for (int i = 0; i <= rule.size(); i++) {
-					calculatePredictionSet(rule, i);
+	private LookAheadProfile getProfile(Symbol symbol) {
+		if (symbol instanceof Code)
+			return getProfile(((Code) symbol).getSymbol());
+
+		if (symbol instanceof Conditional)
+			return getProfile(((Conditional) symbol).getSymbol());
+
+		if (symbol instanceof Nonterminal)
+			return firstProfiles.get(symbol);
+
+		if (symbol instanceof Terminal)
+			return terminalProfiles.computeIfAbsent((Terminal) symbol, this::getTerminalProfile);
+
+		return LookAheadProfile.epsilon(lookAheadCount);
+	}
+
+	private LookAheadProfile getTerminalProfile(Terminal terminal) {
+		LookAheadProfile profile = new LookAheadProfile(lookAheadCount);
+		RegularExpression regex = terminal.getRegularExpression();
+
+		if (TaggedDFA.supports(regex)) {
+			TaggedDFA dfa = new TaggedDFA(Collections.singletonList(regex));
+			List<Set<CharRange>> sets = dfa.getCharacterSets(lookAheadCount);
+			for (int d = 0; d < lookAheadCount; d++)
+				profile.sets.get(d).addAll(sets.get(d));
+			profile.lengths.or(dfa.getMatchLengths(lookAheadCount));
+		} else {
+			// Only the first characters are known, any character may follow
+			profile.sets.get(0).addAll(regex.getFirstSet());
+			for (int d = 1; d < lookAheadCount; d++)
+				profile.sets.set(d, null);
+			if (regex.isNullable())
+				profile.lengths.set(0);
+		}
+
+		return profile;
+	}
+
+	/**
+	 * The characters that can occur at each offset smaller than k of the strings derived from a
+	 * sequence of symbols, together with the lengths smaller than k of these strings. A null set
+	 * means any character.
+	 */
+	private static class LookAheadProfile {
+
+		final List<Set<CharRange>> sets;
+
+		final BitSet lengths;
+
+		LookAheadProfile(int k) {
+			this.sets = new ArrayList<>(k);
+			for (int d = 0; d < k; d++)
+				sets.add(new HashSet<>());
+			this.lengths = new BitSet();
+		}
+
+		static LookAheadProfile epsilon(int k) {
+			LookAheadProfile profile = new LookAheadProfile(k);
+			profile.lengths.set(0);
+			return profile;
+		}
+
+		/**
+		 * Returns the profile of the strings of this profile followed by the strings of the other profile.
+		 */
+		LookAheadProfile concat(LookAheadProfile other, int k) {
+			LookAheadProfile result = new LookAheadProfile(k);
+
+			for (int d = 0; d < k; d++) {
+				result.sets.set(d, union(result.sets.get(d), sets.get(d)));
+				for (int l = lengths.nextSetBit(0); l >= 0 && l <= d; l = lengths.nextSetBit(l + 1))
+					result.sets.set(d, union(result.sets.get(d), other.sets.get(d - l)));
+			}
+
+			for (int l1 = lengths.nextSetBit(0); l1 >= 0; l1 = lengths.nextSetBit(l1 + 1))
+				for (int l2 = other.lengths.nextSetBit(0); l2 >= 0 && l1 + l2 < k; l2 = other.lengths.nextSetBit(l2 + 1))
+					result.lengths.set(l1 + l2);
+
+			return result;
+		}
+
+		/**
+		 * Adds the strings of the other profile to this profile.
+		 *
+		 * @return true if this profile has changed.
+		 */
+		boolean addAll(LookAheadProfile other) {
+			boolean changed = false;
+
+			for (int d = 0; d < sets.size(); d++) {
+				Set<CharRange> set = sets.get(d);
+				Set<CharRange> otherSet = other.sets.get(d);
+				if (set == null) continue;
+
+				if (otherSet == null) {
+					sets.set(d, null);
+					changed = true;
+				} else {
+					changed |= set.addAll(otherSet);
 				}
 			}
+
+			BitSet newLengths = (BitSet) lengths.clone();
+			newLengths.or(other.lengths);
+			if (!newLengths.equals(lengths)) {
+				lengths.or(other.lengths);
+				changed = true;
+			}
+
+			return changed;
+		}
+
+		private static Set<CharRange> union(Set<CharRange> s1, Set<CharRange> s2) {
+			if (s1 == null || s2 == null) return null;
+			s1.addAll(s2);
+			return s1;
 		}
 	}
-	
-	private void calculatePredictionSet(Rule rule, int index) {
-		
-		Tuple<Rule, Integer> position = Tuple.of(rule, index);
-		List<Symbol> alternate = rule.getBody();
-		
-		if (alternate == null)
-			return;
-		
-		int i;
-		for (i = index; i < alternate.size(); i++) {
-			
-			Symbol symbol = alternate.get(i);
 
-			Set<CharRange> firstSet = symbol.accept(firstSetVisitor);
-			predictionSets.computeIfAbsent(position, k -> new HashSet<>()).addAll(firstSet);
-			if (!isNullable(symbol)) break;			
+	/**
+	 * Returns the nonterminals of the LL(1) subgrammars: the nonterminals whose alternatives have
+	 * pairwise disjoint prediction sets, and from which only such nonterminals are reachable.
+	 */
+	public Set<Nonterminal> calculateLLNonterminals() {
+
+		Set<Nonterminal> ll1SubGrammarNonterminals = new HashSet<>();
+
+		for (Nonterminal head : definitions.keySet()) {
+			if (isLL1(head)) {
+				ll1SubGrammarNonterminals.add(head);
+			}
+		}
+
+		boolean changed = true;
+
+		while (changed) {
+			changed = false;
+
+			Iterator<Nonterminal> it = ll1SubGrammarNonterminals.iterator();
+			while (it.hasNext()) {
+				if (!reachesOnly(it.next(), ll1SubGrammarNonterminals)) {
+					it.remove();
+					changed = true;
+				}
+			}
 		}
 
-		// if reaching the end of the alternative
-//		if (isChainNullable(alternate, 0)) {
-		if (i == alternate.size())
-			predictionSets.computeIfAbsent(position, k -> new HashSet<>()).addAll(followSets.get(rule.getHead()));
+		return ll1SubGrammarNonterminals;
+	}
+
+	private boolean reachesOnly(Nonterminal head, Set<Nonterminal> nonterminals) {
+		for (Rule rule : definitions.get(head)) {
+			List<Symbol> alternative = rule.getBody();
+			if (alternative == null) continue;
+
+			for (Symbol symbol : alternative) {
+				Nonterminal nonterminal = symbol.accept(nonterminalVisitor);
+				if (nonterminal != null && !nonterminals.contains(nonterminal))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isLL1(Nonterminal nonterminal) {
+
+		List<Rule> rules = definitions.get(nonterminal);
+		int size = rules.size();
+
+		// If there is only one alternate
+		if (size == 1) {
+			return true;
+		}
+
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				if (overlap(getPredictionSet(rules.get(i), 0), getPredictionSet(rules.get(j), 0))) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean overlap(Set<CharRange> s1, Set<CharRange> s2) {
+		if (s1 == null || s2 == null) return false;
+
+		for (CharRange r1 : s1) {
+			for (CharRange r2 : s2) {
+				if (r1.getStart() <= r2.getEnd() && r2.getStart() <= r1.getEnd())
+					return true;
+			}
+		}
+		return false;
 	}
-	
-//	public Set<Nonterminal> calculateLLNonterminals() {
-//
-//		Set<Nonterminal> nonterminals = definitions.keySet();
-//		
-//		Set<Nonterminal> ll1Nonterminals = new HashSet<>();
-//		
-//		Set<Nonterminal> ll1SubGrammarNonterminals = new HashSet<>();
-//		
-//		// Calculating character level predictions
-//		Map<Tuple<Nonterminal, Integer>, Set<Integer>> predictions = new HashMap<>();
-//		
-//		for (Nonterminal head : nonterminals) {
-//
-//			int alternateIndex = 0;
-//			for(Rule rule : definitions.get(head)) {
-//				
-//				List<Symbol> alt = rule.getBody();
-//			
-//				// Calculate the prediction set for the alternate
-//				Set<RegularExpression> s = new HashSet<>();
-//				addFirstSet(head, s, alt, 0);
-//				if(s.contains(Epsilon.getInstance())) {
-//					s.addAll(followSets.get(head));
-//				}
-//
-//				// Expand ranges into integers
-//				Set<Integer> set = new HashSet<>();
-//				for(RegularExpression r : s) {
-//					set.addAll(convert(r.getFirstSet()));
-//				}
-//				
-//				predictions.put(Tuple.of(head, alternateIndex), set);
-//				
-//				alternateIndex++;
-//			}			
-//		}
-//		
-//		for (Nonterminal head : nonterminals) {
-//			if(isLL1(head, predictions)) {
-//				ll1Nonterminals.add(head);
-//			}
-//		}
-//		
-//		for (Nonterminal head : nonterminals) {
-//			if(ll1Nonterminals.contains(head)) {
-//				boolean ll1SubGrammar = true;
-//				for(Nonterminal reachableHead : reachabilityGraph.get(head)) {
-//					if(!ll1Nonterminals.contains(reachableHead)) {
-//						ll1SubGrammar = false;
-//					}
-//				}
-//				if(ll1SubGrammar) {
-//					ll1SubGrammarNonterminals.add(head);
-//				}
-//			}
-//		}
-//		
-//		return ll1SubGrammarNonterminals;
-//	}
-	
-    @SuppressWarnings("unused")
-	private boolean isLL1(Nonterminal nonterminal, Map<Tuple<Nonterminal, Integer>, Set<Integer>> predictions) {
-    	
-    	int size = definitions.get(nonterminal).size();
-    	
-    	// If there is only one alternate
-		if(size == 1) {
-        	return true;
-        }
-        
-        for(int i = 0; i < size; i++) {
-            for(int j = 0; j < size; j++) {
-            	if(i != j) {
-            		HashSet<Integer> intersection = new HashSet<>(predictions.get(Tuple.of(nonterminal, i)));
-            		intersection.retainAll(predictions.get(Tuple.of(nonterminal, j)));
-        			if(!intersection.isEmpty()) {
-        				return false;
-                    }
-            	}
-            }
-        }
 
-        return true;
-    }
-    
     private static class FirstSymbolVisitor extends AbstractGrammarGraphSymbolVisitor<Set<CharRange>> {
 
     	private final Map<Nonterminal, Set<CharRange>> firstSets;
@@ -0,0 +1,398 @@
+package org.iguana.grammar.operations;
+
+import org.iguana.datadependent.ast.AbstractAST;
+import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.Statement;
+import org.iguana.datadependent.ast.VariableDeclaration;
+import org.iguana.datadependent.traversal.IAbstractASTVisitor;
+import org.iguana.grammar.condition.Condition;
+import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.condition.PositionalCondition;
+import org.iguana.grammar.condition.RegularExpressionCondition;
+import org.iguana.grammar.slot.BodyGrammarSlot;
+import org.iguana.grammar.slot.GrammarSlot;
+import org.iguana.grammar.slot.NonterminalTransition;
+import org.iguana.grammar.slot.TerminalTransition;
+import org.iguana.grammar.slot.Transition;
+import org.iguana.grammar.symbol.*;
+import org.iguana.traversal.IConditionVisitor;
+
+import java.util.*;
+
+/**
+ * A liveness analysis of the bindings of a rule, based on the variables used by its symbols. For each
+ * symbol of the rule, it computes the variables that may be used after the symbol has bound its label,
+ * variable or state variables:
+ *
+ * <ul>
+ *   <li> labels, left extents and variables that are not used afterwards need not be declared;
+ *   <li> declared variables, including the state variables returned by nonterminals, that are not used
+ *        afterwards can be removed from the environment.
+ * </ul>
+ *
+ * Uses are collected regardless of scoping, which over-approximates the live variables, and without
+ * modifying the expressions and conditions of the grammar, which are shared by the rules. Rules with
+ * symbols other than terminals, nonterminals, code, conditionals and returns, e.g., the blocks and
+ * alignment symbols of grammars that are not desugared, are not analysed.
+ */
+public class LiveVariables {
+
+    /*
+     * The variables used by each symbol, before and after its binding
+     */
+    private final List<Set<String>> before = new ArrayList<>();
+    private final List<Set<String>> after = new ArrayList<>();
+
+    /*
+     * The variables declared by each symbol
+     */
+    private final List<Set<String>> declarations = new ArrayList<>();
+
+    private boolean supported = true;
+
+    private LiveVariables() {}
+
+    /**
+     * Returns the liveness of the bindings of the given rule, or null if the rule is not supported.
+     */
+    public static LiveVariables analyse(Rule rule) {
+        LiveVariables analysis = new LiveVariables();
+
+        if (rule.getBody() != null) {
+            for (Symbol symbol : rule.getBody()) {
+                Set<String> before = new HashSet<>();
+                Set<String> after = new HashSet<>();
+                Set<String> declarations = new HashSet<>();
+                analysis.collect(symbol, before, after, declarations);
+                analysis.before.add(before);
+                analysis.after.add(after);
+                analysis.declarations.add(declarations);
+            }
+        }
+
+        if (!analysis.supported)
+            return null;
+
+        String[] parameters = rule.getHead().getParameters();
+        if (parameters != null && !analysis.declarations.isEmpty())
+            analysis.declarations.get(0).addAll(Arrays.asList(parameters));
+
+        return analysis;
+    }
+
+    /**
+     * Sets the liveness of the bindings of the given slots, which are the slots after the terminals
+     * and nonterminals of the rules.
+     */
+    public static void apply(Collection<? extends GrammarSlot> slots) {
+        Map<Rule, LiveVariables> analyses = new HashMap<>();
+
+        for (GrammarSlot s : slots) {
+            if (!(s instanceof BodyGrammarSlot)) continue;
+
+            BodyGrammarSlot slot = (BodyGrammarSlot) s;
+            Transition transition = slot.getInTransition();
+            if (!(transition instanceof NonterminalTransition) && !(transition instanceof TerminalTransition)) continue;
+
+            Rule rule = slot.getRule();
+            if (!analyses.containsKey(rule))
+                analyses.put(rule, analyse(rule));
+
+            LiveVariables analysis = analyses.get(rule);
+            if (analysis != null)
+                analysis.apply(slot.getPosition() - 1, slot);
+        }
+    }
+
+    private void apply(int i, BodyGrammarSlot slot) {
+        Set<String> live = getLiveVariables(i);
+
+        String label = slot.getLabel();
+        String leftExtent = slot.getLeftExtentVariable();
+        String variable = slot.getVariable();
+
+        slot.setLiveness(label != null && live.contains(label),
+                         leftExtent != null && (live.contains(leftExtent) || before.get(i).contains(leftExtent)),
+                         variable != null && live.contains(variable),
+                         getDeadVariables(i));
+    }
+
+    /**
+     * Returns the variables that may be used after the symbol at the given index has bound its
+     * label or variable.
+     */
+    public Set<String> getLiveVariables(int i) {
+        Set<String> live = new HashSet<>(after.get(i));
+        for (int j = i + 1; j < before.size(); j++) {
+            live.addAll(before.get(j));
+            live.addAll(after.get(j));
+        }
+        return live;
+    }
+
+    /**
+     * Returns the variables, including the parameters, declared up to the symbol at the given index
+     * that are not used afterwards.
+     */
+    public String[] getDeadVariables(int i) {
+        Set<String> live = getLiveVariables(i);
+        Set<String> dead = new LinkedHashSet<>();
+        for (int j = 0; j <= i; j++) {
+            for (String declaration : declarations.get(j)) {
+                if (!live.contains(declaration))
+                    dead.add(declaration);
+            }
+        }
+        return dead.toArray(new String[0]);
+    }
+
+    private void collect(Symbol symbol, Set<String> before, Set<String> after, Set<String> declarations) {
+        for (Condition condition : symbol.getPreConditions())
+            uses(condition, before);
+
+        String label = symbol.getLabel();
+        if (label != null) {
+            declarations.add(label);
+            declarations.add(String.format(Expression.LeftExtent.format, label));
+        }
+
+        if (symbol instanceof Nonterminal) {
+            Nonterminal nonterminal = (Nonterminal) symbol;
+
+            if (nonterminal.getArguments() != null) {
+                for (Expression argument : nonterminal.getArguments())
+                    uses(argument, before);
+            }
+
+            if (nonterminal.getVariable() != null)
+                declarations.add(nonterminal.getVariable());
+
+            // The values returned for the state variables are bound after the call, except for "_"
+            if (nonterminal.getState() != null) {
+                for (String variable : nonterminal.getState()) {
+                    if (!variable.equals("_"))
+                        declarations.add(variable);
+                }
+            }
+
+        } else if (symbol instanceof Return) {
+            uses(((Return) symbol).getExpression(), before);
+
+        } else if (symbol instanceof Code) {
+            Code code = (Code) symbol;
+            collect(code.getSymbol(), before, after, declarations);
+
+            for (Statement statement : code.getStatements()) {
+                uses(statement, after);
+                if (statement instanceof Statement.VariableDeclaration)
+                    declarations.add(((Statement.VariableDeclaration) statement).getDeclaration().getName());
+            }
+
+        } else if (symbol instanceof Conditional) {
+            Conditional conditional = (Conditional) symbol;
+            collect(conditional.getSymbol(), before, after, declarations);
+            uses(conditional.getExpression(), after);
+
+        } else if (!(symbol instanceof Terminal)) {
+            supported = false;
+        }
+
+        // The label of a code or conditional symbol is stored after its symbol
+        if (label != null && !(symbol instanceof Nonterminal) && !(symbol instanceof Terminal))
+            after.add(label);
+
+        for (Condition condition : symbol.getPostConditions())
+            uses(condition, after);
+    }
+
+    private static void uses(AbstractAST node, Set<String> uses) {
+        node.accept(new UsesVisitor(uses));
+    }
+
+    private static void uses(Condition condition, Set<String> uses) {
+        condition.accept(new UsesVisitor(uses));
+    }
+
+    /*
+     * Collects the variables, labels and extents used by an expression or a condition. Unlike
+     * FreeVariableVisitor, it does not set the environments of the nodes it visits.
+     */
+    private static class UsesVisitor implements IAbstractASTVisitor<Void>, IConditionVisitor<Void> {
+
+        private final Set<String> uses;
+
+        UsesVisitor(Set<String> uses) {
+            this.uses = uses;
+        }
+
+        private Void visitAll(AbstractAST... nodes) {
+            for (AbstractAST node : nodes) {
+                if (node != null)
+                    node.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Boolean expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Integer expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Real expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.String expression) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Tuple expression) {
+            return visitAll(expression.getElements());
+        }
+
+        @Override
+        public Void visit(Expression.Name expression) {
+            uses.add(expression.getName());
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Call expression) {
+            return visitAll(expression.getArguments());
+        }
+
+        @Override
+        public Void visit(Expression.Assignment expression) {
+            uses.add(expression.getId());
+            return visitAll(expression.getExpression());
+        }
+
+        @Override
+        public Void visit(Expression.LShiftANDEqZero expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.OrIndent expression) {
+            return visitAll(expression.getIndex(), expression.getIndent(), expression.getFirst(), expression.getLExt());
+        }
+
+        @Override
+        public Void visit(Expression.AndIndent expression) {
+            return visitAll(expression.getIndex(), expression.getFirst(), expression.getLExt());
+        }
+
+        @Override
+        public Void visit(Expression.Or expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.And expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.Less expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.LessThanEqual expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.Greater expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.GreaterThanEqual expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.Equal expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.NotEqual expression) {
+            return visitAll(expression.getLhs(), expression.getRhs());
+        }
+
+        @Override
+        public Void visit(Expression.LeftExtent expression) {
+            uses.add(String.format(Expression.LeftExtent.format, expression.getLabel()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.RightExtent expression) {
+            uses.add(expression.getLabel());
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Yield expression) {
+            uses.add(expression.getLabel());
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.Val expression) {
+            uses.add(expression.getLabel());
+            return null;
+        }
+
+        @Override
+        public Void visit(Expression.EndOfFile expression) {
+            return visitAll(expression.getIndex());
+        }
+
+        @Override
+        public Void visit(Expression.IfThenElse expression) {
+            return visitAll(expression.getCondition(), expression.getThenPart(), expression.getElsePart());
+        }
+
+        @Override
+        public Void visit(VariableDeclaration declaration) {
+            return visitAll(declaration.getExpression());
+        }
+
+        @Override
+        public Void visit(Statement.Expression statement) {
+            return visitAll(statement.getExpression());
+        }
+
+        @Override
+        public Void visit(Statement.VariableDeclaration statement) {
+            return visitAll(statement.getDeclaration());
+        }
+
+        @Override
+        public Void visit(DataDependentCondition condition) {
+            return visitAll(condition.getExpression());
+        }
+
+        @Override
+        public Void visit(PositionalCondition condition) {
+            return null;
+        }
+
+        @Override
+        public Void visit(RegularExpressionCondition condition) {
+            return null;
+        }
+    }
+
+}
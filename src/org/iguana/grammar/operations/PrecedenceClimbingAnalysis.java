@@ -0,0 +1,397 @@
+package org.iguana.grammar.operations;
+
+import iguana.regex.CharRange;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.*;
+
+import java.util.*;
+
+/**
+ * Finds the operator nonterminals of a grammar, i.e., the nonterminals with rules that have a
+ * precedence level, that can be parsed by precedence climbing instead of by desugaring their
+ * precedence and associativity into data-dependent arguments and conditions. For such a nonterminal
+ * E, the climbing produces the same derivation as the desugared grammar, and the analysis is
+ * conservative about the grammars where this is evident:
+ *
+ * <ul>
+ *   <li> the rules of E consist of terminals and E itself, without labels, conditions or arguments,
+ *        and with the layout of the grammar, which is a terminal, between their symbols;
+ *   <li> each rule is binary (E op ... E), prefix (op ... E), postfix (E op ...) or primary (op ...),
+ *        starting with a non-nullable terminal after the left operand, if any, and the layout;
+ *   <li> the operands between the ends of a rule are followed by a non-nullable terminal;
+ *   <li> each precedence level consists of binary rules of the same precedence and of left, right or
+ *        non-associativity, or only of prefix rules, or only of postfix rules, without associativity;
+ *   <li> the first characters of the primary and prefix rules are disjoint, and so are those of the
+ *        binary and postfix operators, which do not follow E outside its operators either, so that
+ *        an operand ends where no operator follows it;
+ *   <li> the uses of E elsewhere do not have arguments, labels or conditions, and are not the ends of
+ *        the rules of other operator nonterminals.
+ * </ul>
+ */
+public class PrecedenceClimbingAnalysis {
+
+    public enum Kind { PRIMARY, PREFIX, POSTFIX, BINARY }
+
+    /**
+     * The operator defined by a rule of an operator nonterminal.
+     */
+    public static class Operator {
+
+        private final Rule rule;
+        private final Kind kind;
+        private final int token;
+        private final Associativity associativity;
+        private final Set<CharRange> firstSet;
+
+        Operator(Rule rule, Kind kind, int token, Associativity associativity, Set<CharRange> firstSet) {
+            this.rule = rule;
+            this.kind = kind;
+            this.token = token;
+            this.associativity = associativity;
+            this.firstSet = firstSet;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The index of the terminal that selects this operator: the first symbol of a primary or prefix
+         * rule, and the first terminal after the left operand and the layout otherwise.
+         */
+        public int getToken() {
+            return token;
+        }
+
+        public int getPrecedence() {
+            return rule.getPrecedence();
+        }
+
+        /**
+         * The associativity of a binary rule, taken from its associativity group if the rule does not
+         * have its own, and UNDEFINED for the other rules.
+         */
+        public Associativity getAssociativity() {
+            return associativity;
+        }
+
+        /**
+         * The first characters of the terminal that selects this operator.
+         */
+        public Set<CharRange> getFirstSet() {
+            return firstSet;
+        }
+
+        public boolean isContinuation() {
+            return kind == Kind.BINARY || kind == Kind.POSTFIX;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + rule;
+        }
+    }
+
+    private final Grammar grammar;
+
+    private final FirstFollowSets firstFollow;
+
+    private final Map<Nonterminal, List<Operator>> operators = new LinkedHashMap<>();
+
+    private PrecedenceClimbingAnalysis(Grammar grammar, FirstFollowSets firstFollow) {
+        this.grammar = grammar;
+        this.firstFollow = firstFollow;
+    }
+
+    public static PrecedenceClimbingAnalysis analyse(Grammar grammar) {
+        return analyse(grammar, new FirstFollowSets(grammar));
+    }
+
+    /**
+     * Analyses the given grammar, using its first and follow sets.
+     */
+    public static PrecedenceClimbingAnalysis analyse(Grammar grammar, FirstFollowSets firstFollow) {
+        PrecedenceClimbingAnalysis analysis = new PrecedenceClimbingAnalysis(grammar, firstFollow);
+
+        Symbol layout = grammar.getLayout();
+        if (layout != null && !(layout instanceof Terminal))
+            return analysis;
+
+        for (Nonterminal nonterminal : grammar.getNonterminals()) {
+            List<Operator> operators = analysis.analyse(nonterminal);
+            if (operators != null)
+                analysis.operators.put(nonterminal, operators);
+        }
+
+        return analysis;
+    }
+
+    /**
+     * Returns the operator nonterminals that can be parsed by precedence climbing.
+     */
+    public Set<Nonterminal> getNonterminals() {
+        return operators.keySet();
+    }
+
+    public Set<String> getNonterminalNames() {
+        Set<String> names = new HashSet<>();
+        operators.keySet().forEach(nonterminal -> names.add(nonterminal.getName()));
+        return names;
+    }
+
+    /**
+     * Returns the operators of the given nonterminal, in the order of its alternatives, or null if it
+     * cannot be parsed by precedence climbing.
+     */
+    public List<Operator> getOperators(Nonterminal nonterminal) {
+        return operators.get(nonterminal);
+    }
+
+    private List<Operator> analyse(Nonterminal nonterminal) {
+        String name = nonterminal.getName();
+
+        if (nonterminal.getParameters() != null && nonterminal.getParameters().length > 0)
+            return null;
+
+        Start start = grammar.getStartSymbol();
+        if (start != null && start.getName().equals(name))
+            return null;
+
+        List<Rule> alternatives = grammar.getAlternatives(nonterminal);
+        if (alternatives.stream().allMatch(rule -> rule.getPrecedence() == -1))
+            return null;
+
+        List<Operator> operators = new ArrayList<>();
+        for (Rule rule : alternatives) {
+            Operator operator = getOperator(rule, name);
+            if (operator == null)
+                return null;
+            operators.add(operator);
+        }
+
+        if (!hasLevels(operators) || !isDeterministic(operators, nonterminal) || !hasPlainUses(name))
+            return null;
+
+        return operators;
+    }
+
+    private Operator getOperator(Rule rule, String name) {
+        if (rule.getBody() == null || rule.size() == 0 || rule.getLayoutStrategy() == LayoutStrategy.FIXED)
+            return null;
+
+        for (Symbol symbol : rule.getBody()) {
+            if (symbol.getLabel() != null || symbol.hasConditions())
+                return null;
+            if (symbol instanceof Nonterminal) {
+                if (!symbol.getName().equals(name) || !isPlain((Nonterminal) symbol))
+                    return null;
+            } else if (!(symbol instanceof Terminal)) {
+                return null;
+            }
+        }
+
+        int last = rule.size() - 1;
+        boolean left = rule.symbolAt(0) instanceof Nonterminal;
+        boolean right = last > 0 && rule.symbolAt(last) instanceof Nonterminal;
+
+        int token = 0;
+        if (left) {
+            token = 1;
+            while (token < last && isLayout(rule.symbolAt(token)))
+                token++;
+        }
+
+        if (token > last)
+            return null;
+
+        Symbol symbol = rule.symbolAt(token);
+        if (!(symbol instanceof Terminal) || firstFollow.isNullable(symbol))
+            return null;
+
+        // The operands between the ends are delimited by a terminal
+        for (int k = token + 1; k < (right ? last : rule.size()); k++) {
+            if (rule.symbolAt(k) instanceof Nonterminal && !isDelimited(rule, k + 1, right ? last : rule.size()))
+                return null;
+        }
+
+        Kind kind = left ? (right ? Kind.BINARY : Kind.POSTFIX) : (right ? Kind.PREFIX : Kind.PRIMARY);
+
+        Associativity associativity = Associativity.UNDEFINED;
+        if (kind == Kind.BINARY) {
+            associativity = rule.getAssociativity();
+            if (associativity == Associativity.UNDEFINED && rule.getAssociativityGroup() != null)
+                associativity = rule.getAssociativityGroup().getAssociativity();
+            if (associativity == Associativity.UNDEFINED)
+                return null;
+        } else if (kind != Kind.PRIMARY) {
+            if (rule.getAssociativity() != Associativity.UNDEFINED || rule.getAssociativityGroup() != null)
+                return null;
+        }
+
+        if (kind != Kind.PRIMARY && rule.getPrecedence() == -1)
+            return null;
+
+        return new Operator(rule, kind, token, associativity, ((Terminal) symbol).getRegularExpression().getFirstSet());
+    }
+
+    private boolean isDelimited(Rule rule, int from, int to) {
+        for (int k = from; k < to; k++) {
+            Symbol symbol = rule.symbolAt(k);
+            if (symbol instanceof Terminal && !firstFollow.isNullable(symbol))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isLayout(Symbol symbol) {
+        Symbol layout = grammar.getLayout();
+        return layout != null && symbol instanceof Terminal
+            && ((Terminal) symbol).getRegularExpression().equals(((Terminal) layout).getRegularExpression());
+    }
+
+    private static boolean isPlain(Nonterminal nonterminal) {
+        return (nonterminal.getArguments() == null || nonterminal.getArguments().length == 0)
+            && nonterminal.getVariable() == null
+            && nonterminal.getState() == null
+            && (nonterminal.getExcepts() == null || nonterminal.getExcepts().isEmpty());
+    }
+
+    /*
+     * Each precedence level is binary, prefix or postfix, and the levels do not share precedences
+     */
+    private static boolean hasLevels(List<Operator> operators) {
+        Map<Integer, Operator> levels = new HashMap<>();
+        Map<Integer, Integer> precedences = new HashMap<>();
+
+        for (Operator operator : operators) {
+            if (operator.getKind() == Kind.PRIMARY) continue;
+
+            int level = operator.getRule().getPrecedenceLevel().getLhs();
+
+            Integer other = precedences.putIfAbsent(operator.getPrecedence(), level);
+            if (other != null && other != level)
+                return false;
+
+            Operator first = levels.putIfAbsent(level, operator);
+            if (first == null) continue;
+
+            if (first.getKind() != operator.getKind())
+                return false;
+
+            if (operator.getKind() == Kind.BINARY &&
+                (first.getPrecedence() != operator.getPrecedence() || first.getAssociativity() != operator.getAssociativity()))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isDeterministic(List<Operator> operators, Nonterminal nonterminal) {
+        Set<CharRange> follow = getOperandFollowSet(nonterminal);
+        if (follow == null)
+            return false;
+
+        int token = -1;
+        for (int i = 0; i < operators.size(); i++) {
+            Operator operator = operators.get(i);
+
+            if (operator.isContinuation()) {
+                // The operators are selected after the same layout
+                if (token != -1 && token != operator.getToken())
+                    return false;
+                token = operator.getToken();
+
+                if (overlaps(operator.getFirstSet(), follow))
+                    return false;
+            }
+
+            for (int j = i + 1; j < operators.size(); j++) {
+                Operator other = operators.get(j);
+                if (operator.isContinuation() == other.isContinuation() && overlaps(operator.getFirstSet(), other.getFirstSet()))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Returns the characters that can follow E where it is not the left operand of its own operators,
+     * or null if an operand between the ends of a rule may be followed by what follows E.
+     */
+    private Set<CharRange> getOperandFollowSet(Nonterminal nonterminal) {
+        String name = nonterminal.getName();
+        Set<CharRange> follow = new HashSet<>();
+
+        for (Rule rule : grammar.getRules()) {
+            if (rule.getBody() == null) continue;
+
+            boolean operator = rule.getHead().getName().equals(name);
+            int last = rule.size() - 1;
+
+            for (int k = 0; k <= last; k++) {
+                if (!(rule.symbolAt(k) instanceof Nonterminal) || !rule.symbolAt(k).getName().equals(name)) continue;
+
+                if (operator) {
+                    // Left and right operands are followed by the operators and what follows E
+                    if (k == 0 || k == last) continue;
+                    if (!isDelimited(rule, k + 1, rule.size()))
+                        return null;
+                }
+
+                follow.addAll(firstFollow.getPredictionSet(rule, k + 1));
+            }
+        }
+        return follow;
+    }
+
+    /*
+     * The uses of E can be parsed by a call to the climbing
+     */
+    private boolean hasPlainUses(String name) {
+        for (Rule rule : grammar.getRules()) {
+            if (rule.getBody() == null || rule.getHead().getName().equals(name)) continue;
+
+            for (int k = 0; k < rule.size(); k++) {
+                Symbol symbol = rule.symbolAt(k);
+
+                if (symbol instanceof Code || symbol instanceof Conditional) {
+                    if (uses(symbol, name))
+                        return false;
+                    continue;
+                }
+
+                if (!(symbol instanceof Nonterminal) || !symbol.getName().equals(name)) continue;
+
+                if (symbol.getLabel() != null || symbol.hasConditions() || !isPlain((Nonterminal) symbol))
+                    return false;
+
+                // The ends of the rules of other operator nonterminals are rewritten by their desugaring
+                if (rule.getPrecedence() != -1 && (k == 0 || k == rule.size() - 1))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean uses(Symbol symbol, String name) {
+        if (symbol instanceof Code)
+            return uses(((Code) symbol).getSymbol(), name);
+        if (symbol instanceof Conditional)
+            return uses(((Conditional) symbol).getSymbol(), name);
+        return symbol instanceof Nonterminal && symbol.getName().equals(name);
+    }
+
+    private static boolean overlaps(Set<CharRange> set1, Set<CharRange> set2) {
+        for (CharRange r1 : set1) {
+            for (CharRange r2 : set2) {
+                if (r1.getStart() <= r2.getEnd() && r2.getStart() <= r1.getEnd())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -31,6 +31,7 @@ import iguana.utils.collections.Keys;
 import iguana.utils.collections.OpenAddressingHashMap;
 import iguana.utils.collections.key.Key;
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.Expression;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.condition.Conditions;
 import org.iguana.grammar.slot.lookahead.FollowTest;
@@ -54,6 +55,25 @@ public class BodyGrammarSlot implements GrammarSlot {
 	private final Conditions conditions;
 	
 	private final String label;
+
+	/*
+	 * The name of the variable holding the left extent of the label, computed once. Null if the
+	 * left extent is not used.
+	 */
+	private String leftExtentVariable;
+
+	/*
+	 * Whether the label and the variable are used after this slot, see setLiveness
+	 */
+	private boolean labelLive = true;
+
+	private boolean variableLive = true;
+
+	/*
+	 * The variables that are not used after this slot, removed from the environments of the GSS edges
+	 * returning to this slot
+	 */
+	private String[] deadVariables;
 	
 	private final int i1;
 	
@@ -65,10 +85,20 @@ public class BodyGrammarSlot implements GrammarSlot {
 	
 	private FollowTest followTest;
 
+	/*
+	 * Tests for the characters at offsets 1, 2, ... from the input index at which this slot is
+	 * predicted. Only set for the first slots of alternatives when the lookahead count is greater than one.
+	 */
+	private FollowTest[] lookAheadTests;
+
 	private Transition outTransition;
 
 	private Transition inTransition;
 
+	private CompiledSlots compiledSlots;
+
+	private int compiledSlotId;
+
 	public BodyGrammarSlot(Position position, String label, String variable, Set<String> state, Conditions conditions) {
 		this(position, label, -1, variable, -1, state, conditions);
 	}
@@ -77,6 +107,7 @@ public class BodyGrammarSlot implements GrammarSlot {
 		this.position = position;
 		this.conditions = conditions;
 		this.label = label;
+		this.leftExtentVariable = label == null ? null : String.format(Expression.LeftExtent.format, label);
 		this.i1 = i1;
 		this.variable = variable;
 		this.i2 = i2;
@@ -96,12 +127,32 @@ public class BodyGrammarSlot implements GrammarSlot {
 		return followTest.test(v);
 	}
 
+	public void setLookAheadTests(FollowTest[] lookAheadTests) {
+		this.lookAheadTests = lookAheadTests;
+	}
+
+	/**
+	 * Tests the characters following the input index i against the k-character lookahead of this slot.
+	 * The character at i itself is tested by the first-slot dispatch of the nonterminal.
+	 */
+	public boolean testLookAhead(Input input, int i) {
+		if (lookAheadTests == null)
+			return true;
+
+		int length = input.length();
+		for (int d = 0; d < lookAheadTests.length && i + d + 1 < length; d++) {
+			if (!lookAheadTests[d].test(input.charAt(i + d + 1)))
+				return false;
+		}
+		return true;
+	}
+
 	@SuppressWarnings("unchecked")
 	public <T extends Result> T getIntermediateNode(T leftResult, int destinationIndex, T rightResult, Environment env, IguanaRuntime<T> runtime) {
 		if (isFirst())
 			return rightResult;
 
-		Key key = Keys.from(destinationIndex, rightResult.getIndex(), env);
+		Key key = Keys.from(destinationIndex, rightResult.getIndex(), runtime.intern(env));
 
 		if (intermediateNodes == null) {
 		    intermediateNodes = new OpenAddressingHashMap<>();
@@ -130,29 +181,80 @@ public class BodyGrammarSlot implements GrammarSlot {
 	public String getLabel() {
 		return label;
 	}
+
+	/**
+	 * Returns the name of the variable holding the left extent of the label of this slot, or null
+	 * if this slot has no label.
+	 */
+	public String getLeftExtentVariable() {
+		return leftExtentVariable;
+	}
 	
 	public String getVariable() {
 		return variable;
 	}
+
+	/**
+	 * Records which bindings of this slot are used by the rest of the rule, as computed by
+	 * {@link org.iguana.grammar.operations.LiveVariables}. Bindings that are not used are not
+	 * declared, and the dead variables are removed from the environments of the GSS edges that
+	 * return to this slot. Only applicable to environments that bind by name.
+	 */
+	public void setLiveness(boolean labelLive, boolean leftExtentLive, boolean variableLive, String[] deadVariables) {
+		this.labelLive = labelLive;
+		if (!leftExtentLive)
+			this.leftExtentVariable = null;
+		this.variableLive = variableLive;
+		this.deadVariables = deadVariables == null || deadVariables.length == 0 ? null : deadVariables;
+	}
+
+	/**
+	 * Whether the result of the symbol before this slot is bound to its label.
+	 */
+	public boolean bindsLabel() {
+		return label != null && labelLive;
+	}
+
+	/**
+	 * Removes the variables that are not used after this slot from the given environment.
+	 */
+	public Environment removeDeadVariables(Environment env) {
+		if (deadVariables != null) {
+			for (String deadVariable : deadVariables)
+				env = env._remove(deadVariable);
+		}
+		return env;
+	}
 	
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
-        outTransition.execute(input, u, result, env, runtime);
+		if (compiledSlots != null)
+			compiledSlots.execute(compiledSlotId, input, u, result, env, runtime);
+		else
+			outTransition.execute(input, u, result, env, runtime);
+	}
+
+	/**
+	 * Lets this slot execute the given generated code instead of interpreting its transitions.
+	 */
+	public void setCompiledSlots(CompiledSlots compiledSlots, int id) {
+		this.compiledSlots = compiledSlots;
+		this.compiledSlotId = id;
 	}
 		
 	public boolean requiresBinding() {
-		return label != null || variable != null || state != null; 
+		return bindsLabel() || (variable != null && variableLive) || state != null;
 	}
 	
 	public Environment doBinding(Result result, Environment env) {
 
-		if (label != null) {
+		if (bindsLabel()) {
 			if (i1 != -1)
 				env = env._declare(result);
 			else
 				env = env._declare(label, result);
 		}
 		
-		if (variable != null && state == null) {
+		if (variable != null && variableLive && state == null) {
 			if (i2 != -1)
 				env = env._declare(result.getValue());
 			else
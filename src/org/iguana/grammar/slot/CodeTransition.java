@@ -28,6 +28,8 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
 import org.iguana.datadependent.ast.Statement;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.gss.GSSNode;
@@ -40,17 +42,24 @@ public class CodeTransition extends AbstractTransition {
 	
 	private final Statement[] statements;
 
+	private final CompiledExpression[] compiledStatements;
+
 	public CodeTransition(Statement[] statements, BodyGrammarSlot origin, BodyGrammarSlot dest) {
 		super(origin, dest);
 		this.statements = statements;
+		this.compiledStatements = ExpressionCompiler.compile(statements);
 	}
 
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
-		runtime.evaluate(statements, env, input);
+		step(input, env, runtime);
 		dest.execute(input, u, result, runtime.getEnvironment(), runtime);
 	}
 
+	<T extends Result> void step(Input input, Environment env, IguanaRuntime<T> runtime) {
+		runtime.execute(compiledStatements, env, input);
+	}
+
 	@Override
 	public String getLabel() {
 		return listToString(statements, ";");
@@ -0,0 +1,18 @@
+package org.iguana.grammar.slot;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.parser.IguanaRuntime;
+import org.iguana.result.Result;
+
+/**
+ * Code generated for the body grammar slots of a grammar graph. Executing the code of a slot
+ * has the same effect as executing the transitions from that slot up to the next nonterminal
+ * call or end slot.
+ */
+public interface CompiledSlots {
+
+    <T extends Result> void execute(int id, Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime);
+
+}
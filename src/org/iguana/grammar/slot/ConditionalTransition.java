@@ -28,7 +28,9 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
 import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.exception.UnexpectedRuntimeTypeException;
 import org.iguana.gss.GSSNode;
@@ -38,6 +40,8 @@ import org.iguana.result.Result;
 public class ConditionalTransition extends AbstractTransition {
 	
 	private final Expression condition;
+
+	private final CompiledExpression compiledCondition;
 	
 	private final BodyGrammarSlot ifFalse;
 
@@ -48,6 +52,7 @@ public class ConditionalTransition extends AbstractTransition {
 	private ConditionalTransition(Expression condition, BodyGrammarSlot origin, BodyGrammarSlot dest, BodyGrammarSlot ifFalse) {
 		super(origin, dest);
 		this.condition = condition;
+		this.compiledCondition = ExpressionCompiler.compile(condition);
 		this.ifFalse = ifFalse;
 	}
 
@@ -62,20 +67,23 @@ public class ConditionalTransition extends AbstractTransition {
 
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
-		
-		Object value = runtime.evaluate(condition, env, input);
+		BodyGrammarSlot next = step(input, env, runtime);
+		if (next != null)
+			next.execute(input, u, result, env, runtime);
+		// TODO: logging
+	}
+
+	/*
+	 * Returns the slot to continue at, or null if the condition does not hold and there is no alternative slot
+	 */
+	<T extends Result> BodyGrammarSlot step(Input input, Environment env, IguanaRuntime<T> runtime) {
+		Object value = runtime.evaluate(compiledCondition, env, input);
 		
 		if (!(value instanceof Boolean)) {
 			throw new UnexpectedRuntimeTypeException(condition);
 		}
 		
-		boolean isTrue = (Boolean) value;
-		
-		if (isTrue)
-			dest.execute(input, u, result, env, runtime);
-		else if (ifFalse != null)
-			ifFalse.execute(input, u, result, env, runtime);
-		// TODO: logging
+		return (Boolean) value ? dest : ifFalse;
 	}
 
 }
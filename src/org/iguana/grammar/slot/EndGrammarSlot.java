@@ -73,7 +73,7 @@ public class EndGrammarSlot extends BodyGrammarSlot {
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Object value, IguanaRuntime<T> runtime) {
 		int rightExtent = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
-		if (nonterminal.testFollow(input.charAtIgnoreLayout(rightExtent)))
+		if (nonterminal.testFollow(runtime.charAtIgnoreLayout(input, rightExtent)))
             u.pop(input, this, result, value, runtime);
 	}
 
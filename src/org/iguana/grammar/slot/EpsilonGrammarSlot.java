@@ -44,6 +44,10 @@ public class EpsilonGrammarSlot extends EndGrammarSlot {
 		this.epsilonSlot = epsilonSlot;
 	}
 
+	TerminalGrammarSlot getEpsilonSlot() {
+		return epsilonSlot;
+	}
+
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
 		execute(input, u, result, (Object) null, runtime);
@@ -53,7 +57,7 @@ public class EpsilonGrammarSlot extends EndGrammarSlot {
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Object value, IguanaRuntime<T> runtime) {
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
-		if (getNonterminal().testFollow(input.charAtIgnoreLayout(i)))
+		if (getNonterminal().testFollow(runtime.charAtIgnoreLayout(input, i)))
             u.pop(input, this, epsilonSlot.getResult(input, i, this, u, runtime), value, runtime);
 	}
 
@@ -43,6 +43,7 @@ public class EpsilonTransition extends AbstractTransition {
 	
 	private final Type type;
     private final String label;
+    private final String leftExtentVariable;
     private final Conditions conditions;
 
 	public EpsilonTransition(Conditions conditions, BodyGrammarSlot origin, BodyGrammarSlot dest) {
@@ -53,6 +54,7 @@ public class EpsilonTransition extends AbstractTransition {
 		super(origin, dest);
 		this.type = type;
         this.label = null;
+        this.leftExtentVariable = null;
         this.conditions = conditions;
     }
 
@@ -63,6 +65,7 @@ public class EpsilonTransition extends AbstractTransition {
 		
 		this.type = type;
 		this.label = label;
+		this.leftExtentVariable = String.format(Expression.LeftExtent.format, label);
 		this.conditions = conditions;
 	}
 
@@ -87,6 +90,14 @@ public class EpsilonTransition extends AbstractTransition {
 
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
+		if (step(input, u, result, env, runtime))
+			dest.execute(input, u, result, runtime.getEnvironment(), runtime);
+	}
+
+	/*
+	 * Returns whether to continue at the destination slot, with the environment of the runtime
+	 */
+	<T extends Result> boolean step(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
 		runtime.setEnvironment(env);
@@ -95,7 +106,7 @@ public class EpsilonTransition extends AbstractTransition {
 		
             case DUMMY:
                 if (conditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-                    return;
+                    return false;
                 break;
 
             case CLEAR_LABEL: // TODO: Decide if this case is needed
@@ -103,22 +114,22 @@ public class EpsilonTransition extends AbstractTransition {
 
             case OPEN:
                 if (conditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-                    return;
+                    return false;
                 runtime.getEvaluatorContext().pushEnvironment();
                 break;
 
             case CLOSE:
                 runtime.getEvaluatorContext().popEnvironment();
                 if (conditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-                    return;
+                    return false;
                 break;
 
             case DECLARE_LABEL:
                 runtime.getEvaluatorContext().declareVariable(label, Tuple.of(i, -1));
-                runtime.getEvaluatorContext().declareVariable(String.format(Expression.LeftExtent.format, label), Tuple.of(i, -1));
+                runtime.getEvaluatorContext().declareVariable(leftExtentVariable, Tuple.of(i, -1));
 
                 if (conditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-                    return;
+                    return false;
                 break;
 
             case STORE_LABEL:
@@ -135,11 +146,11 @@ public class EpsilonTransition extends AbstractTransition {
                 runtime.getEvaluatorContext().storeVariable(label, Tuple.of(lhs, i));
 
                 if (conditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-                    return;
+                    return false;
                 break;
             }
 		
-		dest.execute(input, u, result, runtime.getEnvironment(), runtime);
+		return true;
 	}
 
 	public enum Type {
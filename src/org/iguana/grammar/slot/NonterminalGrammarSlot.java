@@ -34,7 +34,9 @@ import iguana.utils.collections.OpenAddressingIntHashMap;
 import iguana.utils.collections.key.Key;
 import iguana.utils.collections.rangemap.RangeMap;
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
 import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.env.ArgumentTuple;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.slot.lookahead.FollowTest;
 import org.iguana.grammar.symbol.Nonterminal;
@@ -67,6 +69,26 @@ public class NonterminalGrammarSlot implements GrammarSlot {
 
     private FollowTest followTest;
 
+    private boolean multiCharLookAhead;
+
+    private boolean deterministic;
+
+    private IntHashMap<Object> deterministicResults;
+
+    private PrecedenceClimbingParser precedenceClimbingParser;
+
+    /*
+     * Results of parseDeterministically that are not nonterminal nodes
+     */
+    static final Object FAILURE = "failure";
+    static final Object ABANDONED = "abandoned";
+
+    /*
+     * Beyond this nesting depth the deterministic descent gives up and the GSS is used instead,
+     * so that long right-recursive lists do not exhaust the Java stack.
+     */
+    private static final int MAX_DESCENT_DEPTH = 512;
+
     public NonterminalGrammarSlot(Nonterminal nonterminal) {
         this.nonterminal = nonterminal;
         this.firstSlots = new ArrayList<>();
@@ -80,8 +102,23 @@ public class NonterminalGrammarSlot implements GrammarSlot {
         return firstSlots;
     }
 
-    private List<BodyGrammarSlot> getFirstSlots(int v) {
-        return lookAheadTest.get(v);
+    private List<BodyGrammarSlot> getFirstSlots(Input input, int i) {
+        List<BodyGrammarSlot> slots = lookAheadTest.get(input.charAt(i));
+        if (!multiCharLookAhead || slots == null || slots.size() < 2)
+            return slots;
+
+        int j = 0;
+        while (j < slots.size() && slots.get(j).testLookAhead(input, i)) j++;
+        if (j == slots.size())
+            return slots;
+
+        // At least one of the slots is ruled out by the characters after i
+        List<BodyGrammarSlot> result = new ArrayList<>(slots.subList(0, j));
+        for (j = j + 1; j < slots.size(); j++) {
+            if (slots.get(j).testLookAhead(input, i))
+                result.add(slots.get(j));
+        }
+        return result;
     }
 
     public void setLookAheadTest(RangeMap<BodyGrammarSlot> lookAheadTest) {
@@ -92,10 +129,42 @@ public class NonterminalGrammarSlot implements GrammarSlot {
         this.followTest = followTest;
     }
 
+    /**
+     * Enables filtering the first slots on the characters after the current one, see
+     * {@link BodyGrammarSlot#testLookAhead(Input, int)}.
+     */
+    public void setMultiCharLookAhead(boolean multiCharLookAhead) {
+        this.multiCharLookAhead = multiCharLookAhead;
+    }
+
     boolean testFollow(int v) {
         return followTest.test(v);
     }
 
+    /**
+     * Marks this nonterminal as the head of an LL(1) subgrammar that can be parsed by deterministic
+     * descent, see {@link NonterminalTransition#setDeterministic(boolean)}.
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Lets this operator nonterminal be parsed by precedence climbing, which is used wherever it would
+     * be parsed by deterministic descent.
+     */
+    public void setPrecedenceClimbingParser(PrecedenceClimbingParser precedenceClimbingParser) {
+        this.precedenceClimbingParser = precedenceClimbingParser;
+    }
+
+    public PrecedenceClimbingParser getPrecedenceClimbingParser() {
+        return precedenceClimbingParser;
+    }
+
     public Nonterminal getNonterminal() {
         return nonterminal;
     }
@@ -135,19 +204,102 @@ public class NonterminalGrammarSlot implements GrammarSlot {
     public void reset() {
         gssNodes = null;
         intGSSNodes = null;
+        deterministicResults = null;
     }
 
-    public <T extends Result> void create(Input input, BodyGrammarSlot returnSlot, GSSNode<T> u, T result, Expression[] arguments, Environment env, IguanaRuntime<T> runtime) {
+    /**
+     * Parses this nonterminal from input index i by deterministic descent: the alternative is chosen by
+     * the lookahead and the nonterminals in it are parsed by recursive calls, without GSS nodes or
+     * descriptors. Returns the nonterminal node, {@link #FAILURE} if there is no parse, or
+     * {@link #ABANDONED} if the descent is nested too deep. An operator nonterminal is parsed by
+     * precedence climbing instead, which is never abandoned.
+     *
+     * Abandoned descents are memoized as well, so that the calls through the GSS at the levels below
+     * fall back immediately, instead of each descending to the depth limit again.
+     */
+    <T extends Result> Object parseDeterministically(Input input, int i, GSSNode<T> u, int depth, IguanaRuntime<T> runtime) {
+        if (deterministicResults == null) {
+            deterministicResults = new OpenAddressingIntHashMap<>();
+        } else {
+            Object node = deterministicResults.get(i);
+            if (node != null)
+                return node;
+        }
+
+        Object node;
+        if (precedenceClimbingParser != null)
+            node = precedenceClimbingParser.parse(input, i, u, runtime);
+        else if (depth > MAX_DESCENT_DEPTH)
+            node = ABANDONED;
+        else
+            node = descend(input, i, u, depth, runtime);
+
+        deterministicResults.put(i, node);
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Result> Object descend(Input input, int i, GSSNode<T> u, int depth, IguanaRuntime<T> runtime) {
+        List<BodyGrammarSlot> firstSlots = getFirstSlots(input, i);
+        if (firstSlots == null || firstSlots.isEmpty())
+            return FAILURE;
+
+        // The prediction sets of an LL(1) nonterminal are disjoint
+        if (firstSlots.size() > 1)
+            return ABANDONED;
+
+        BodyGrammarSlot slot = firstSlots.get(0);
+        T result = runtime.getResultOps().dummy();
+        int index = i;
+
+        while (!slot.isEnd()) {
+            Transition transition = slot.getOutTransition();
+            BodyGrammarSlot dest = transition.destination();
+            T child;
+
+            if (transition instanceof TerminalTransition) {
+                child = ((TerminalTransition) transition).getSlot().getResult(input, index, slot, u, runtime);
+                if (child == null) {
+                    runtime.recordParseError(index, slot, u);
+                    return FAILURE;
+                }
+            } else {
+                Object node = ((NonterminalTransition) transition).getSlot().parseDeterministically(input, index, u, depth + 1, runtime);
+                if (node == FAILURE || node == ABANDONED)
+                    return node;
+                child = (T) node;
+                if (!dest.testFollow(runtime.charAtIgnoreLayout(input, child.getIndex())))
+                    return FAILURE;
+            }
+
+            result = dest.isFirst() ? child : runtime.getResultOps().merge(null, result, child, dest);
+            index = child.getIndex();
+            slot = dest;
+        }
+
+        if (!testFollow(runtime.charAtIgnoreLayout(input, index)))
+            return FAILURE;
+
+        if (slot instanceof EpsilonGrammarSlot)
+            result = ((EpsilonGrammarSlot) slot).getEpsilonSlot().getResult(input, i, slot, u, runtime);
+
+        return runtime.getResultOps().convert(null, result, (EndGrammarSlot) slot, null);
+    }
+
+    public <T extends Result> void create(Input input, BodyGrammarSlot returnSlot, GSSNode<T> u, T result, CompiledExpression[] arguments, Environment env, IguanaRuntime<T> runtime) {
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
         Key key = null;
         Object[] data = null;
 
         if (arguments != null) {
-            data = runtime.evaluate(arguments, env, input);
-            key = Keys.from(i, data);
+            ArgumentTuple tuple = runtime.intern(runtime.evaluate(arguments, env, input));
+            data = tuple.getValues();
+            key = Keys.from(i, tuple);
         }
 
+        env = returnSlot.removeDeadVariables(env);
+
         GSSNode<T> gssNode = null;
 
         if (arguments == null) {
@@ -166,7 +318,7 @@ public class NonterminalGrammarSlot implements GrammarSlot {
 
         if (gssNode == null) {
 
-            List<BodyGrammarSlot> firstSlots = getFirstSlots(input.charAt(i));
+            List<BodyGrammarSlot> firstSlots = getFirstSlots(input, i);
             if (firstSlots == null || firstSlots.isEmpty()) {
                 return;
             }
@@ -180,7 +332,7 @@ public class NonterminalGrammarSlot implements GrammarSlot {
             Environment newEnv = runtime.getEnvironment();
 
             if (data != null) {
-                if (runtime.getConfiguration().getEnvImpl() == EnvironmentImpl.ARRAY || runtime.getConfiguration().getEnvImpl() == EnvironmentImpl.INT_ARRAY)
+                if (runtime.getEnvImpl() == EnvironmentImpl.ARRAY || runtime.getEnvImpl() == EnvironmentImpl.INT_ARRAY)
                     newEnv = runtime.getEmptyEnvironment().declare(data);
                 else
                     newEnv = runtime.getEmptyEnvironment().declare(nonterminal.getParameters(), data);
@@ -190,8 +342,8 @@ public class NonterminalGrammarSlot implements GrammarSlot {
                 BodyGrammarSlot slot = firstSlots.get(j);
                 runtime.setEnvironment(newEnv);
 
-                if (slot.getLabel() != null)
-                    runtime.getEvaluatorContext().declareVariable(String.format(Expression.LeftExtent.format, slot.getLabel()), i);
+                if (slot.getLeftExtentVariable() != null)
+                    runtime.getEvaluatorContext().declareVariable(slot.getLeftExtentVariable(), i);
 
                 int inputIndex = result.isDummy() ? gssNode.getInputIndex() : result.getIndex();
                 if (!slot.getConditions().execute(input, returnSlot, gssNode, inputIndex, runtime.getEvaluatorContext(), runtime))
@@ -28,7 +28,9 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
 import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.condition.Conditions;
 import org.iguana.gss.GSSNode;
@@ -46,17 +48,42 @@ public class NonterminalTransition extends AbstractTransition {
 	
 	private final Expression[] arguments;
 
+	private final CompiledExpression[] compiledArguments;
+
+	private boolean deterministic;
+
 	public NonterminalTransition(NonterminalGrammarSlot nonterminal, BodyGrammarSlot origin, BodyGrammarSlot dest,
 			                     Expression[] arguments, Conditions preConditions) {
 		super(origin, dest);
 		this.nonterminal = nonterminal;
 		this.arguments = arguments;
+		this.compiledArguments = ExpressionCompiler.compile(arguments);
 		this.preConditions = preConditions;
 	}
 
 	public NonterminalGrammarSlot getSlot() {
 		return nonterminal;
 	}
+
+	public Expression[] getArguments() {
+		return arguments;
+	}
+
+	public Conditions getPreConditions() {
+		return preConditions;
+	}
+
+	/**
+	 * Lets this transition parse its nonterminal by deterministic descent. Only set when the nonterminal
+	 * belongs to an LL(1) subgrammar, and this transition has no arguments, conditions or bindings.
+	 */
+	public void setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+	}
+
+	public boolean isDeterministic() {
+		return deterministic;
+	}
 	
 	@Override
 	public String getLabel() {
@@ -66,12 +93,23 @@ public class NonterminalTransition extends AbstractTransition {
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
 
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
-        if (dest.getLabel() != null) {
-			env = env._declare(String.format(Expression.LeftExtent.format, dest.getLabel()), i);
+        if (deterministic) {
+            Object child = nonterminal.parseDeterministically(input, i, u, 0, runtime);
+            if (child != NonterminalGrammarSlot.ABANDONED) {
+                if (child != NonterminalGrammarSlot.FAILURE)
+                    returnDeterministically(input, u, result, (T) child, env, runtime);
+                return;
+            }
+            // Too deep for the deterministic descent, continue with the GSS
+        }
+
+        if (dest.getLeftExtentVariable() != null) {
+			env = env._declare(dest.getLeftExtentVariable(), i);
 		}
 		
 		runtime.setEnvironment(env);
@@ -79,7 +117,19 @@ public class NonterminalTransition extends AbstractTransition {
 		if (preConditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
 			return;
 				
-		nonterminal.create(input, dest, u, result, arguments, runtime.getEnvironment(), runtime);
+		nonterminal.create(input, dest, u, result, compiledArguments, runtime.getEnvironment(), runtime);
+	}
+
+	/*
+	 * Continues at the return slot as if the nonterminal node had been popped from a GSS node
+	 */
+	private <T extends Result> void returnDeterministically(Input input, GSSNode<T> u, T result, T child, Environment env, IguanaRuntime<T> runtime) {
+		if (!dest.testFollow(runtime.charAtIgnoreLayout(input, child.getIndex())))
+			return;
+
+		T n = dest.getIntermediateNode(result, u.getInputIndex(), child, env, runtime);
+		if (n != null)
+			dest.execute(input, u, n, env, runtime);
 	}
 
 }
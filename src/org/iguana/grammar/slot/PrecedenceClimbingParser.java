@@ -0,0 +1,252 @@
+package org.iguana.grammar.slot;
+
+import iguana.utils.collections.rangemap.RangeMap;
+import iguana.utils.collections.rangemap.RangeMapBuilder;
+import iguana.utils.input.Input;
+import org.iguana.grammar.operations.PrecedenceClimbingAnalysis;
+import org.iguana.grammar.operations.PrecedenceClimbingAnalysis.Kind;
+import org.iguana.grammar.slot.lookahead.TableRangeMap;
+import org.iguana.grammar.symbol.Associativity;
+import org.iguana.gss.GSSNode;
+import org.iguana.parser.IguanaRuntime;
+import org.iguana.result.Result;
+import org.iguana.result.ResultOps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses an operator nonterminal, whose precedence and associativity have not been desugared, by
+ * precedence climbing, see {@link PrecedenceClimbingAnalysis}. The operand is selected by the primary
+ * and prefix rules, after which the binary and postfix operators whose precedence is at least the
+ * current minimum are applied to it. The nodes are built on the slots of the original rules, as in the
+ * deterministic descent, so the derivation is the one the desugared grammar would produce.
+ *
+ * The operands are parsed with explicit stacks, so that deeply nested expressions do not exhaust the
+ * Java stack, and the climbing never falls back to the GSS.
+ */
+public class PrecedenceClimbingParser {
+
+    private static class Operator {
+        final Kind kind;
+        final int precedence;
+        final Associativity associativity;
+        final BodyGrammarSlot firstSlot;
+        final BodyGrammarSlot tokenSlot;
+
+        Operator(PrecedenceClimbingAnalysis.Operator operator, BodyGrammarSlot firstSlot) {
+            this.kind = operator.getKind();
+            this.precedence = operator.getPrecedence();
+            this.associativity = operator.getAssociativity();
+            this.firstSlot = firstSlot;
+
+            BodyGrammarSlot slot = firstSlot;
+            for (int k = 0; k < operator.getToken(); k++)
+                slot = slot.getOutTransition().destination();
+            this.tokenSlot = slot;
+        }
+
+        boolean isContinuation() {
+            return kind == Kind.BINARY || kind == Kind.POSTFIX;
+        }
+
+        /*
+         * The minimum precedence of the operators in the right operand
+         */
+        int getOperandPrecedence() {
+            if (kind == Kind.PREFIX || associativity == Associativity.RIGHT)
+                return precedence;
+            return precedence + 1;
+        }
+    }
+
+    /*
+     * An operand being parsed: the operators applied to it so far, and the minimum precedence of
+     * the operators that may still be applied
+     */
+    private static class Operand<T> {
+        final int minPrecedence;
+        T left;
+        int nonAssociative = -1;
+
+        Operand(int minPrecedence) {
+            this.minPrecedence = minPrecedence;
+        }
+    }
+
+    /*
+     * A rule being matched
+     */
+    private static class Application<T> {
+        final Operator operator;
+        BodyGrammarSlot slot;
+        T result;
+        int index;
+        boolean committed;
+
+        Application(Operator operator, BodyGrammarSlot slot, T result, int index) {
+            this.operator = operator;
+            this.slot = slot;
+            this.result = result;
+            this.index = index;
+        }
+    }
+
+    private final NonterminalGrammarSlot nonterminalSlot;
+
+    private final RangeMap<Operator> operands;
+
+    private final RangeMap<Operator> continuations;
+
+    /*
+     * The slot before the layout between the left operand and the operator, if any
+     */
+    private final BodyGrammarSlot layoutSlot;
+
+    private final TerminalGrammarSlot layout;
+
+    /**
+     * Creates the parser for a nonterminal, given the operators of its rules in the order of its
+     * alternatives.
+     */
+    public PrecedenceClimbingParser(NonterminalGrammarSlot nonterminalSlot, List<PrecedenceClimbingAnalysis.Operator> operators) {
+        List<BodyGrammarSlot> firstSlots = nonterminalSlot.getFirstSlots();
+        RangeMapBuilder<Operator> operandsBuilder = new RangeMapBuilder<>();
+        RangeMapBuilder<Operator> continuationsBuilder = new RangeMapBuilder<>();
+
+        BodyGrammarSlot layoutSlot = null;
+
+        for (int i = 0; i < operators.size(); i++) {
+            Operator operator = new Operator(operators.get(i), firstSlots.get(i));
+            RangeMapBuilder<Operator> builder = operator.isContinuation() ? continuationsBuilder : operandsBuilder;
+            operators.get(i).getFirstSet().forEach(range -> builder.put(range, operator));
+
+            if (operator.isContinuation() && operator.tokenSlot != operator.firstSlot.getOutTransition().destination())
+                layoutSlot = operator.firstSlot.getOutTransition().destination();
+        }
+
+        this.nonterminalSlot = nonterminalSlot;
+        this.operands = new TableRangeMap<>(operandsBuilder.buildRangeMap());
+        this.continuations = new TableRangeMap<>(continuationsBuilder.buildRangeMap());
+        this.layoutSlot = layoutSlot;
+        this.layout = layoutSlot == null ? null : ((TerminalTransition) layoutSlot.getOutTransition()).getSlot();
+    }
+
+    /**
+     * Parses the nonterminal from input index i. Returns the nonterminal node, or
+     * {@link NonterminalGrammarSlot#FAILURE} if there is no parse.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends Result> Object parse(Input input, int i, GSSNode<T> u, IguanaRuntime<T> runtime) {
+        ResultOps<T> ops = runtime.getResultOps();
+
+        // Alternating operands and applications, starting with an operand
+        List<Object> stack = new ArrayList<>();
+        stack.add(new Operand<T>(Integer.MIN_VALUE));
+
+        int start = i;
+        boolean select = true;
+
+        while (true) {
+            if (select) {
+                // Selects the primary or prefix rule that starts the operand
+                Operator operator = first(operands.get(input.charAt(start)));
+                if (operator == null) {
+                    runtime.recordParseError(start, nonterminalSlot, u);
+                    return NonterminalGrammarSlot.FAILURE;
+                }
+                stack.add(new Application<>(operator, operator.firstSlot, ops.dummy(), start));
+                select = false;
+            }
+
+            Application<T> application = (Application<T>) stack.get(stack.size() - 1);
+            Operator operator = application.operator;
+
+            // Matches the terminals up to the end of the rule or the next operand
+            boolean abandoned = false;
+            while (!application.slot.isEnd() && application.slot.getOutTransition() instanceof TerminalTransition) {
+                BodyGrammarSlot slot = application.slot;
+                TerminalTransition transition = (TerminalTransition) slot.getOutTransition();
+                BodyGrammarSlot dest = transition.destination();
+
+                T child = transition.getSlot().getResult(input, application.index, slot, u, runtime);
+                if (child == null) {
+                    // The operand ends before an operator that does not match
+                    if (operator.isContinuation() && !application.committed) {
+                        abandoned = true;
+                        break;
+                    }
+                    runtime.recordParseError(application.index, slot, u);
+                    return NonterminalGrammarSlot.FAILURE;
+                }
+
+                if (slot == operator.tokenSlot)
+                    application.committed = true;
+
+                application.result = dest.isFirst() ? child : ops.merge(null, application.result, child, dest);
+                application.index = child.getIndex();
+                application.slot = dest;
+            }
+
+            Operand<T> operand;
+
+            if (abandoned) {
+                stack.remove(stack.size() - 1);
+                operand = (Operand<T>) stack.get(stack.size() - 1);
+            } else if (!application.slot.isEnd()) {
+                // Parses the next operand of the rule
+                boolean right = application.slot.getOutTransition().destination().isEnd();
+                stack.add(new Operand<T>(right ? operator.getOperandPrecedence() : Integer.MIN_VALUE));
+                start = application.index;
+                select = true;
+                continue;
+            } else {
+                stack.remove(stack.size() - 1);
+                operand = (Operand<T>) stack.get(stack.size() - 1);
+                operand.left = ops.convert(null, application.result, (EndGrammarSlot) application.slot, null);
+                operand.nonAssociative = operator.kind == Kind.BINARY && operator.associativity == Associativity.NON_ASSOC ? operator.precedence : -1;
+
+                // Applies the next binary or postfix operator to the operand
+                Operator continuation = getContinuation(input, operand.left.getIndex(), u, runtime);
+                if (continuation != null && continuation.precedence >= operand.minPrecedence) {
+                    if (continuation.precedence == operand.nonAssociative) {
+                        runtime.recordParseError(operand.left.getIndex(), continuation.firstSlot, u);
+                        return NonterminalGrammarSlot.FAILURE;
+                    }
+                    BodyGrammarSlot slot = continuation.firstSlot.getOutTransition().destination();
+                    stack.add(new Application<>(continuation, slot, operand.left, operand.left.getIndex()));
+                    continue;
+                }
+            }
+
+            // The operand is complete, and is returned to the rule that contains it
+            stack.remove(stack.size() - 1);
+            if (stack.isEmpty())
+                return operand.left;
+
+            Application<T> parent = (Application<T>) stack.get(stack.size() - 1);
+            BodyGrammarSlot dest = parent.slot.getOutTransition().destination();
+            parent.result = dest.isFirst() ? operand.left : ops.merge(null, parent.result, operand.left, dest);
+            parent.index = operand.left.getIndex();
+            parent.slot = dest;
+        }
+    }
+
+    /*
+     * Returns the binary or postfix operator that follows the operand ending at index i, if any
+     */
+    private <T extends Result> Operator getContinuation(Input input, int i, GSSNode<T> u, IguanaRuntime<T> runtime) {
+        int j = i;
+        if (layout != null) {
+            T result = layout.getResult(input, i, layoutSlot, u, runtime);
+            if (result != null)
+                j = result.getIndex();
+        }
+        return first(continuations.get(input.charAt(j)));
+    }
+
+    private static Operator first(List<Operator> operators) {
+        return operators == null || operators.isEmpty() ? null : operators.get(0);
+    }
+
+}
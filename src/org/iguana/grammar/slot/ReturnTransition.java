@@ -28,7 +28,9 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
 import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.gss.GSSNode;
 import org.iguana.parser.IguanaRuntime;
@@ -38,9 +40,12 @@ public class ReturnTransition extends AbstractTransition {
 	
 	private final Expression expression;
 
+	private final CompiledExpression compiledExpression;
+
 	public ReturnTransition(Expression expression, BodyGrammarSlot origin, BodyGrammarSlot dest) {
 		super(origin, dest);
 		this.expression = expression;
+		this.compiledExpression = ExpressionCompiler.compile(expression);
 	}
 
 	@Override
@@ -50,8 +55,14 @@ public class ReturnTransition extends AbstractTransition {
 
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
-		Object value = runtime.evaluate(expression, env, input);
-		((EndGrammarSlot) dest).execute(input, u, result, value, runtime);
+		((EndGrammarSlot) dest).execute(input, u, result, step(input, env, runtime), runtime);
+	}
+
+	/*
+	 * Returns the value returned from the rule
+	 */
+	<T extends Result> Object step(Input input, Environment env, IguanaRuntime<T> runtime) {
+		return runtime.evaluate(compiledExpression, env, input);
 	}
 
 }
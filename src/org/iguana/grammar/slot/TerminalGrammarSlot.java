@@ -33,6 +33,7 @@ import iguana.utils.collections.IntHashMap;
 import iguana.utils.collections.OpenAddressingIntHashMap;
 import iguana.utils.input.Input;
 import org.iguana.grammar.condition.Conditions;
+import org.iguana.grammar.matcher.MultiTerminalMatcher;
 import org.iguana.grammar.symbol.Terminal;
 import org.iguana.gss.GSSNode;
 import org.iguana.parser.IguanaRuntime;
@@ -46,6 +47,9 @@ public class TerminalGrammarSlot implements GrammarSlot {
     private final Conditions preConditions;
     private final Conditions postConditions;
 
+    private MultiTerminalMatcher multiMatcher;
+    private int multiMatcherIndex;
+
     // Record failures, it's cheaper for some complex regular expressions to do a lookup than to match again
 	private static final Object failure = "failure";
 
@@ -71,7 +75,7 @@ public class TerminalGrammarSlot implements GrammarSlot {
         }
 
 		if (node == null) {
-			int length = matcher.match(input, i);
+			int length = multiMatcher == null ? matcher.match(input, i) : multiMatcher.match(input, i, multiMatcherIndex);
 			if (length < 0) {
 				node = null;
 				terminalNodes.put(i, failure);
@@ -87,6 +91,18 @@ public class TerminalGrammarSlot implements GrammarSlot {
 		return (T) node;
 	}
 
+	/**
+	 * Lets this terminal be matched together with the other terminals of the given matcher.
+	 */
+	public void setMultiTerminalMatcher(MultiTerminalMatcher multiMatcher) {
+		this.multiMatcher = multiMatcher;
+		this.multiMatcherIndex = multiMatcher.indexOf(terminal);
+	}
+
+	public MultiTerminalMatcher getMultiTerminalMatcher() {
+		return multiMatcher;
+	}
+
 	public int countTerminalNodes() {
 		return terminalNodes.size();
 	}
@@ -103,6 +119,8 @@ public class TerminalGrammarSlot implements GrammarSlot {
     @Override
 	public void reset() {
 		terminalNodes = null;
+		if (multiMatcher != null)
+			multiMatcher.reset();
 	}
 
 }
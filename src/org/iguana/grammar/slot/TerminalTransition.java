@@ -28,7 +28,6 @@
 package org.iguana.grammar.slot;
 
 import iguana.utils.input.Input;
-import org.iguana.datadependent.ast.Expression;
 import org.iguana.datadependent.env.Environment;
 import org.iguana.grammar.condition.Conditions;
 import org.iguana.gss.GSSNode;
@@ -53,6 +52,14 @@ public class TerminalTransition extends AbstractTransition {
 	public TerminalGrammarSlot getSlot() {
 		return slot;
 	}
+
+	public Conditions getPreConditions() {
+		return preConditions;
+	}
+
+	public Conditions getPostConditions() {
+		return postConditions;
+	}
 	
 	@Override
 	public String getLabel() {
@@ -61,32 +68,40 @@ public class TerminalTransition extends AbstractTransition {
 	
 	@Override
 	public <T extends Result> void execute(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
+		T n = step(input, u, result, env, runtime);
+		if (n != null)
+			dest.execute(input, u, n, runtime.getEnvironment(), runtime);
+	}
+
+	/*
+	 * Returns the result to continue with at the destination slot, or null if the terminal
+	 * does not match or a condition fails.
+	 */
+	<T extends Result> T step(Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
         int i = result.isDummy() ? u.getInputIndex() : result.getIndex();
 
 		runtime.setEnvironment(env);
 		
-		if (dest.getLabel() != null)
-			runtime.getEvaluatorContext().declareVariable(String.format(Expression.LeftExtent.format, dest.getLabel()), i);
+		if (dest.getLeftExtentVariable() != null)
+			runtime.getEvaluatorContext().declareVariable(dest.getLeftExtentVariable(), i);
 
 		if (preConditions.execute(input, origin, u, i, runtime.getEvaluatorContext(), runtime))
-			return;
+			return null;
 
 		T cr = slot.getResult(input, i, origin, u, runtime);
 		
 		if (cr == null) {
 			runtime.recordParseError(i, origin, u);
-			return;
+			return null;
 		}
 
-		if (dest.getLabel() != null)
+		if (dest.bindsLabel())
 			runtime.getEvaluatorContext().declareVariable(dest.getLabel(), cr);
 
 		if (postConditions.execute(input, origin, u, cr.getLeftExtent(), cr.getIndex(), runtime.getEvaluatorContext(), runtime))
-			return;
+			return null;
 
-		T n = dest.isFirst() ? cr : runtime.getResultOps().merge(null, result, cr, dest);
-				
-		dest.execute(input, u, n, runtime.getEnvironment(), runtime);
+		return dest.isFirst() ? cr : runtime.getResultOps().merge(null, result, cr, dest);
 	}
 	
 }
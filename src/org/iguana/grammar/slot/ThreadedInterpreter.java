@@ -0,0 +1,177 @@
+package org.iguana.grammar.slot;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.Environment;
+import org.iguana.gss.GSSNode;
+import org.iguana.parser.IguanaRuntime;
+import org.iguana.result.Result;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the transitions of the rules in a loop instead of by recursive calls between body grammar slots
+ * and transitions. The out transitions of the slots are flattened into arrays indexed by the position of
+ * the slots in {@link org.iguana.grammar.GrammarGraph#getBodyGrammarSlots()}, together with the index of
+ * their destination slot, so that a descriptor runs in one stack frame until it reaches a nonterminal
+ * call or an end slot.
+ *
+ * Each transition is run by the same step method its own execute method uses, so the conditions, the
+ * environment handling and the parse error reporting are the same as in the recursive interpreter.
+ */
+public class ThreadedInterpreter implements CompiledSlots {
+
+    private static final int TERMINAL = 0;
+    private static final int NONTERMINAL = 1;
+    private static final int EPSILON = 2;
+    private static final int CONDITIONAL = 3;
+    private static final int CODE = 4;
+    private static final int RETURN = 5;
+    private static final int OTHER = 6;
+
+    /*
+     * The index used for destination slots that are end slots or otherwise not run by this interpreter
+     */
+    private static final int EXIT = -1;
+
+    private final int[] kinds;
+
+    private final Transition[] transitions;
+
+    private final BodyGrammarSlot[] destinations;
+
+    private final int[] next;
+
+    /*
+     * The index of the slot to continue at if the condition of a conditional transition does not hold
+     */
+    private final int[] nextIfFalse;
+
+    private ThreadedInterpreter(List<BodyGrammarSlot> slots) {
+        int size = slots.size();
+        kinds = new int[size];
+        transitions = new Transition[size];
+        destinations = new BodyGrammarSlot[size];
+        next = new int[size];
+        nextIfFalse = new int[size];
+
+        Map<BodyGrammarSlot, Integer> ids = new IdentityHashMap<>();
+        for (int id = 0; id < size; id++)
+            ids.put(slots.get(id), id);
+
+        for (int id = 0; id < size; id++) {
+            BodyGrammarSlot slot = slots.get(id);
+            Transition transition = slot.getOutTransition();
+            next[id] = EXIT;
+            nextIfFalse[id] = EXIT;
+            if (slot.isEnd() || transition == null)
+                continue;
+
+            transitions[id] = transition;
+            destinations[id] = transition.destination();
+            kinds[id] = kind(transition);
+            next[id] = indexOf(transition.destination(), ids);
+
+            if (transition instanceof ConditionalTransition)
+                nextIfFalse[id] = indexOf(((ConditionalTransition) transition).ifFalseDestination(), ids);
+        }
+    }
+
+    /**
+     * Lets the given slots, which must be all the body grammar slots of a grammar graph, run their
+     * transitions in this interpreter.
+     */
+    public static void install(List<BodyGrammarSlot> slots) {
+        ThreadedInterpreter interpreter = new ThreadedInterpreter(slots);
+        for (int id = 0; id < slots.size(); id++) {
+            BodyGrammarSlot slot = slots.get(id);
+            if (!slot.isEnd() && slot.getOutTransition() != null)
+                slot.setCompiledSlots(interpreter, id);
+        }
+    }
+
+    private static int kind(Transition transition) {
+        // Subclasses may override execute, so only the exact classes are run by their step methods
+        Class<?> clazz = transition.getClass();
+        if (clazz == TerminalTransition.class) return TERMINAL;
+        if (clazz == NonterminalTransition.class) return NONTERMINAL;
+        if (clazz == EpsilonTransition.class) return EPSILON;
+        if (clazz == ConditionalTransition.class) return CONDITIONAL;
+        if (clazz == CodeTransition.class) return CODE;
+        if (clazz == ReturnTransition.class) return RETURN;
+        return OTHER;
+    }
+
+    private static int indexOf(BodyGrammarSlot slot, Map<BodyGrammarSlot, Integer> ids) {
+        if (slot == null || slot.isEnd() || slot.getOutTransition() == null)
+            return EXIT;
+        Integer id = ids.get(slot);
+        return id == null ? EXIT : id;
+    }
+
+    @Override
+    public <T extends Result> void execute(int id, Input input, GSSNode<T> u, T result, Environment env, IguanaRuntime<T> runtime) {
+        while (true) {
+            Transition transition = transitions[id];
+            int target;
+
+            switch (kinds[id]) {
+                case TERMINAL:
+                    result = ((TerminalTransition) transition).step(input, u, result, env, runtime);
+                    if (result == null)
+                        return;
+                    env = runtime.getEnvironment();
+                    target = next[id];
+                    break;
+
+                case EPSILON:
+                    if (!((EpsilonTransition) transition).step(input, u, result, env, runtime))
+                        return;
+                    env = runtime.getEnvironment();
+                    target = next[id];
+                    break;
+
+                case CONDITIONAL: {
+                    BodyGrammarSlot slot = ((ConditionalTransition) transition).step(input, env, runtime);
+                    if (slot == null)
+                        return;
+                    if (slot != destinations[id]) {
+                        if (nextIfFalse[id] == EXIT) {
+                            slot.execute(input, u, result, env, runtime);
+                            return;
+                        }
+                        id = nextIfFalse[id];
+                        continue;
+                    }
+                    target = next[id];
+                    break;
+                }
+
+                case CODE:
+                    ((CodeTransition) transition).step(input, env, runtime);
+                    env = runtime.getEnvironment();
+                    target = next[id];
+                    break;
+
+                case RETURN:
+                    Object value = ((ReturnTransition) transition).step(input, env, runtime);
+                    ((EndGrammarSlot) destinations[id]).execute(input, u, result, value, runtime);
+                    return;
+
+                case NONTERMINAL:
+                default:
+                    // A nonterminal call ends the descriptor, or continues through the return slot by deterministic descent
+                    transition.execute(input, u, result, env, runtime);
+                    return;
+            }
+
+            if (target == EXIT) {
+                destinations[id].execute(input, u, result, env, runtime);
+                return;
+            }
+            id = target;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.iguana.grammar.slot.lookahead;
+
+import iguana.regex.CharRange;
+
+import java.util.Set;
+
+/**
+ * A follow test that answers characters below {@link #TABLE_SIZE} from a bit table computed
+ * up front, and delegates the other characters, including EOF, to a fallback test.
+ */
+public class TableFollowTest implements FollowTest {
+
+    public static final int TABLE_SIZE = 256;
+
+    private final long[] table;
+
+    private final FollowTest fallback;
+
+    public TableFollowTest(FollowTest fallback) {
+        this.table = new long[TABLE_SIZE / 64];
+        this.fallback = fallback;
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            if (fallback.test(c))
+                table[c >>> 6] |= 1L << c;
+        }
+    }
+
+    /**
+     * Returns a follow test for the given set. If the set does not contain characters outside
+     * the table, the range tree is not kept for the lookups.
+     */
+    public static FollowTest from(Set<CharRange> set) {
+        FollowTest rangeTree = new RangeTreeFollowTest(set);
+        TableFollowTest test = new TableFollowTest(rangeTree);
+        if (set.stream().allMatch(r -> r.getStart() >= 0 && r.getEnd() < TABLE_SIZE))
+            return new TableFollowTest(test.table, v -> false);
+        return test;
+    }
+
+    private TableFollowTest(long[] table, FollowTest fallback) {
+        this.table = table;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public boolean test(int v) {
+        if (v >= 0 && v < TABLE_SIZE)
+            return (table[v >>> 6] & (1L << v)) != 0;
+        return fallback.test(v);
+    }
+
+}
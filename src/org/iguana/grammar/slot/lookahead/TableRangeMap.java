@@ -0,0 +1,32 @@
+package org.iguana.grammar.slot.lookahead;
+
+import iguana.utils.collections.rangemap.RangeMap;
+
+import java.util.List;
+
+/**
+ * A range map that answers keys below {@link TableFollowTest#TABLE_SIZE} from an array computed
+ * up front, and delegates the other keys, including EOF, to the underlying range map.
+ */
+public class TableRangeMap<T> implements RangeMap<T> {
+
+    private final List<T>[] table;
+
+    private final RangeMap<T> fallback;
+
+    @SuppressWarnings("unchecked")
+    public TableRangeMap(RangeMap<T> fallback) {
+        this.table = new List[TableFollowTest.TABLE_SIZE];
+        this.fallback = fallback;
+        for (int c = 0; c < table.length; c++)
+            table[c] = fallback.get(c);
+    }
+
+    @Override
+    public List<T> get(int key) {
+        if (key >= 0 && key < table.length)
+            return table[key];
+        return fallback.get(key);
+    }
+
+}
@@ -33,6 +33,7 @@ import org.iguana.datadependent.ast.Statement;
 import org.iguana.grammar.Grammar;
 import org.iguana.grammar.condition.Condition;
 import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.operations.PrecedenceClimbingAnalysis;
 import org.iguana.grammar.symbol.*;
 import org.iguana.traversal.ISymbolVisitor;
 
@@ -57,6 +58,10 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 	
 	private OP config_op = OP._2;
 	
+	private boolean precedenceClimbing = false;
+	
+	private Set<String> climbing; // operator nonterminals left to precedence climbing
+	
 	private class Configuration {
 		
 		// Of associativity groups, rules that specify an associativity different from the group 
@@ -199,6 +204,16 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 		config_op = OP._2;
 	}
 	
+	/**
+	 * Leaves the operator nonterminals that can be parsed by precedence climbing, as found by
+	 * {@link PrecedenceClimbingAnalysis}, undesugared. Their names are recorded in the resulting
+	 * grammar, see {@link Grammar#getPrecedenceClimbing()}, as the grammar graph has to parse them by
+	 * precedence climbing.
+	 */
+	public void setPrecedenceClimbing() {
+		precedenceClimbing = true;
+	}
+	
 	private static boolean canBePrefix(String nt, String leftEnd, Map<String, Configuration> configs) {
 		
 		if (leftEnd.startsWith("$")) 
@@ -282,6 +297,10 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 		leftOrRightRecursiveNonterminals = new HashSet<>();
 		headsWithLabeledRules = new HashMap<>();
 		
+		climbing = new LinkedHashSet<>(grammar.getPrecedenceClimbing());
+		if (precedenceClimbing)
+			climbing.addAll(PrecedenceClimbingAnalysis.analyse(grammar).getNonterminalNames());
+		
 		FindLabelsUsedInExcepts usedLabels = new FindLabelsUsedInExcepts();
 		usedLabels.compute(grammar);
 		
@@ -310,6 +329,9 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 			
 			Nonterminal head = rule.getHead();
 			
+			if (climbing.contains(head.getName()))
+				continue;
+			
 			// 1. Excepts
 			if (rule.getLabel() != null && usedLabels.getLables().containsKey(rule.getHead().getName())
 					&& usedLabels.getLables().get(rule.getHead().getName()).contains(rule.getLabel())) {
@@ -522,7 +544,7 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 			
 			if (config_op == OP._1) break;
 			
-			if (rule.getPrecedence() == -1)
+			if (rule.getPrecedence() == -1 || climbing.contains(rule.getHead().getName()))
 				continue;
 			
 			Configuration config = configs.get(rule.getHead().getName());
@@ -716,7 +738,7 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 			
 			for (Rule rule : grammar.getRules()) {
 				
-				if (rule.getPrecedence() == -1 || !rule.isIRightRecursive()) 
+				if (rule.getPrecedence() == -1 || !rule.isIRightRecursive() || climbing.contains(rule.getHead().getName())) 
 					continue;
 				
 				Configuration config = configs.get(rule.getHead().getName());
@@ -749,9 +771,9 @@ public class DesugarPrecedenceAndAssociativity implements GrammarTransformation
 		
 		Set<Rule> rules = new LinkedHashSet<>();
 		for (Rule rule :grammar.getRules())
-			rules.add(transform(rule));
+			rules.add(climbing.contains(rule.getHead().getName()) ? rule : transform(rule));
 		
-		return Grammar.builder().addRules(rules).setLayout(grammar.getLayout()).setStartSymbol(grammar.getStartSymbol()).build();
+		return Grammar.builder().addRules(rules).setLayout(grammar.getLayout()).setStartSymbol(grammar.getStartSymbol()).setPrecedenceClimbing(climbing).build();
 	}
 	
 	public Rule transform(Rule rule) {
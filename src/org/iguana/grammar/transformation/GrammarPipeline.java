@@ -0,0 +1,363 @@
+package org.iguana.grammar.transformation;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.patterns.ExceptPattern;
+import org.iguana.grammar.patterns.PrecedencePattern;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.util.Configuration;
+import org.iguana.util.serialization.BinarySerializer;
+import org.iguana.util.serialization.JsonSerializer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a sequence of grammar transformations, caching the output of each stage in memory and,
+ * if a cache directory is set, on disk. The output of a stage is content-addressed: its fingerprint
+ * is the hash of the fingerprint of the stage's input and the name of the stage, and the fingerprint
+ * of the pipeline's input grammar is the hash of its content, including the precedence and
+ * associativity information of its rules. As the fingerprints of the stages only depend on the input
+ * grammar, the pipeline resumes after the last stage whose output is cached, without loading the
+ * outputs of the stages before it, so only the input grammar is hashed when all the stages are cached.
+ * The memory cache keeps the most recently used outputs up to a capacity, see
+ * {@link Builder#setCacheCapacity(int)}.
+ *
+ * The pipeline of {@link #getStandard()} is shared, so that its cache is shared by all callers.
+ *
+ * The name of a stage identifies the transformation together with its options, e.g.,
+ * "DesugarPrecedenceAndAssociativity(OP2)", as a new transformation is created for each run.
+ *
+ * The stages of a grammar depend on each other and run in order; the grammars passed to
+ * {@link #transformAll(Collection)} are run in parallel.
+ */
+public class GrammarPipeline {
+
+    private static final String EXTENSION = ".igg";
+
+    public static final int DEFAULT_CACHE_CAPACITY = 32;
+
+    private static final GrammarPipeline STANDARD = standard().build();
+
+    private static final GrammarPipeline PRECEDENCE_CLIMBING = precedenceClimbing().build();
+
+    private final List<Stage> stages;
+
+    private final File cacheDirectory;
+
+    private final Map<String, Grammar> cache;
+
+    private GrammarPipeline(Builder builder) {
+        this.stages = Collections.unmodifiableList(new ArrayList<>(builder.stages));
+        this.cacheDirectory = builder.cacheDirectory;
+
+        int capacity = builder.cacheCapacity;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Grammar>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Grammar> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Returns the shared pipeline of the {@link #standard()} transformations.
+     */
+    public static GrammarPipeline getStandard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns the shared pipeline for grammar graphs built with the given configuration: the one of
+     * the {@link #precedenceClimbing()} transformations if it parses operator nonterminals by
+     * precedence climbing, and the standard one otherwise.
+     */
+    public static GrammarPipeline get(Configuration config) {
+        return config.precedenceClimbing() ? PRECEDENCE_CLIMBING : STANDARD;
+    }
+
+    /**
+     * The transformations applied before building the grammar graph: EBNF to BNF, precedence and
+     * associativity, layout and the start symbol.
+     */
+    public static Builder standard() {
+        return builder()
+            .addStage("EBNFToBNF", EBNFToBNF::new)
+            .addStage("DesugarPrecedenceAndAssociativity(OP2)", () -> {
+                DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+                precedenceAndAssociativity.setOP2();
+                return precedenceAndAssociativity;
+            })
+            .addStage("LayoutWeaver", LayoutWeaver::new)
+            .addStage("DesugarStartSymbol", DesugarStartSymbol::new);
+    }
+
+    /**
+     * The standard transformations, except for the operator nonterminals that can be parsed by
+     * precedence climbing, which are left undesugared and listed in
+     * {@link Grammar#getPrecedenceClimbing()}.
+     */
+    public static Builder precedenceClimbing() {
+        return builder()
+            .addStage("EBNFToBNF", EBNFToBNF::new)
+            .addStage("DesugarPrecedenceAndAssociativity(OP2,PrecedenceClimbing)", () -> {
+                DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+                precedenceAndAssociativity.setOP2();
+                precedenceAndAssociativity.setPrecedenceClimbing();
+                return precedenceAndAssociativity;
+            })
+            .addStage("LayoutWeaver", LayoutWeaver::new)
+            .addStage("DesugarStartSymbol", DesugarStartSymbol::new);
+    }
+
+    /**
+     * The standard transformations preceded by the ones of data-dependent grammars: align before and
+     * offside after the EBNF to BNF transformation, and state.
+     */
+    public static Builder dataDependent() {
+        return builder()
+            .addStage("DesugarAlignAndOffside(align)", () -> {
+                DesugarAlignAndOffside desugarAlignAndOffside = new DesugarAlignAndOffside();
+                desugarAlignAndOffside.doAlign();
+                return desugarAlignAndOffside;
+            })
+            .addStage("EBNFToBNF", EBNFToBNF::new)
+            .addStage("DesugarAlignAndOffside(offside)", () -> {
+                DesugarAlignAndOffside desugarAlignAndOffside = new DesugarAlignAndOffside();
+                desugarAlignAndOffside.doOffside();
+                return desugarAlignAndOffside;
+            })
+            .addStage("DesugarState", DesugarState::new)
+            .addStage("DesugarPrecedenceAndAssociativity(OP2)", () -> {
+                DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+                precedenceAndAssociativity.setOP2();
+                return precedenceAndAssociativity;
+            })
+            .addStage("LayoutWeaver", LayoutWeaver::new)
+            .addStage("DesugarStartSymbol", DesugarStartSymbol::new);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<String> getStageNames() {
+        return stages.stream().map(stage -> stage.name).collect(Collectors.toList());
+    }
+
+    public Grammar transform(Grammar grammar) {
+        String[] keys = new String[stages.size()];
+        String fingerprint = fingerprint(grammar);
+        for (int i = 0; i < keys.length; i++) {
+            fingerprint = hash(fingerprint + "/" + stages.get(i).name);
+            keys[i] = fingerprint;
+        }
+
+        // Resumes after the last stage whose output is cached
+        int start = 0;
+        for (int i = keys.length - 1; i >= 0; i--) {
+            Grammar output = getCached(keys[i]);
+            if (output != null) {
+                grammar = output;
+                start = i + 1;
+                break;
+            }
+        }
+
+        for (int i = start; i < keys.length; i++) {
+            Grammar output = stages.get(i).transformation.get().transform(grammar);
+
+            // Some transformations rebuild the grammar from its rules and layout only
+            if (output.getStartSymbol() == null && grammar.getStartSymbol() != null)
+                output = new Grammar.Builder(output).setStartSymbol(grammar.getStartSymbol()).build();
+
+            if (output.getPrecedenceClimbing().isEmpty() && !grammar.getPrecedenceClimbing().isEmpty())
+                output = new Grammar.Builder(output).setPrecedenceClimbing(grammar.getPrecedenceClimbing()).build();
+
+            saveToDisk(keys[i], output);
+            cache.put(keys[i], output);
+            grammar = output;
+        }
+
+        return grammar;
+    }
+
+    private Grammar getCached(String key) {
+        Grammar grammar = cache.get(key);
+        if (grammar == null) {
+            grammar = loadFromDisk(key);
+            if (grammar != null)
+                cache.put(key, grammar);
+        }
+        return grammar;
+    }
+
+    /**
+     * Transforms the given grammars in parallel, and returns the results in the same order.
+     */
+    public List<Grammar> transformAll(Collection<Grammar> grammars) {
+        return grammars.parallelStream().map(this::transform).collect(Collectors.toList());
+    }
+
+    /**
+     * Removes the outputs cached in memory. The outputs cached on disk are kept.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private Grammar loadFromDisk(String key) {
+        if (cacheDirectory == null)
+            return null;
+
+        File file = new File(cacheDirectory, key + EXTENSION);
+        if (!file.exists())
+            return null;
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            // A cache entry of another format or version is replaced, other failures are errors
+            if (!BinarySerializer.isCurrentBinaryGrammar(in))
+                return null;
+            return BinarySerializer.deserialize(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read the cached grammar " + file, e);
+        }
+    }
+
+    private void saveToDisk(String key, Grammar grammar) {
+        if (cacheDirectory == null)
+            return;
+
+        if (!cacheDirectory.exists() && !cacheDirectory.mkdirs() && !cacheDirectory.exists())
+            throw new RuntimeException("Could not create " + cacheDirectory);
+
+        // Written to a temporary file first, so that concurrent pipelines never read a partial entry
+        try {
+            File tmp = File.createTempFile(key, ".tmp", cacheDirectory);
+            BinarySerializer.serialize(grammar, tmp);
+            Files.move(tmp.toPath(), new File(cacheDirectory, key + EXTENSION).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of the content of the given grammar. The JSON format
+     * of grammars does not keep the precedence and associativity information of the rules, and the
+     * patterns of the grammar, so these are hashed separately.
+     */
+    public static String fingerprint(Grammar grammar) {
+        StringBuilder sb = new StringBuilder(JsonSerializer.toJSON(grammar));
+
+        for (Rule rule : grammar.getRules()) {
+            sb.append('\n')
+              .append(rule.getRecursion()).append(',')
+              .append(rule.getIRecursion()).append(',')
+              .append(rule.getLeftEnd()).append(',')
+              .append(rule.getRightEnd()).append(',')
+              .append(sorted(rule.getLeftEnds())).append(',')
+              .append(sorted(rule.getRightEnds())).append(',')
+              .append(rule.getAssociativity()).append(',')
+              .append(rule.getAssociativityGroup()).append(',')
+              .append(rule.getPrecedence()).append(',')
+              .append(rule.getPrecedenceLevel()).append(',')
+              .append(rule.getAttributes() == null ? null : new TreeMap<>(rule.getAttributes()));
+        }
+
+        for (PrecedencePattern pattern : grammar.getPrecedencePatterns())
+            sb.append('\n').append(pattern);
+
+        for (ExceptPattern pattern : grammar.getExceptPatterns())
+            sb.append('\n').append(pattern);
+
+        sb.append('\n').append(sortedMap(grammar.getEBNFLefts()));
+        sb.append('\n').append(sortedMap(grammar.getEBNFRights()));
+
+        return hash(sb.toString());
+    }
+
+    private static Object sorted(Set<String> set) {
+        return set == null ? null : new TreeSet<>(set);
+    }
+
+    private static Object sortedMap(Map<String, Set<String>> map) {
+        if (map == null) return null;
+        Map<String, Object> sortedMap = new TreeMap<>();
+        map.forEach((key, value) -> sortedMap.put(key, sorted(value)));
+        return sortedMap;
+    }
+
+    private static String hash(String s) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(s.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest())
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class Stage {
+
+        private final String name;
+
+        private final Supplier<GrammarTransformation> transformation;
+
+        Stage(String name, Supplier<GrammarTransformation> transformation) {
+            this.name = name;
+            this.transformation = transformation;
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Stage> stages = new ArrayList<>();
+
+        private File cacheDirectory;
+
+        private int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+
+        /**
+         * Adds a stage that runs a transformation created by the given supplier. Transformations may
+         * keep state between calls, so a new one is created for each run.
+         */
+        public Builder addStage(String name, Supplier<GrammarTransformation> transformation) {
+            stages.add(new Stage(name, transformation));
+            return this;
+        }
+
+        public Builder setCacheDirectory(File cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the number of stage outputs kept in memory.
+         */
+        public Builder setCacheCapacity(int cacheCapacity) {
+            if (cacheCapacity < 0)
+                throw new IllegalArgumentException("The cache capacity cannot be negative: " + cacheCapacity);
+            this.cacheCapacity = cacheCapacity;
+            return this;
+        }
+
+        public GrammarPipeline build() {
+            return new GrammarPipeline(this);
+        }
+    }
+
+}
@@ -47,7 +47,7 @@ public class LayoutWeaver implements GrammarTransformation {
 	public Grammar transform(Grammar grammar) {
 		Symbol layout = grammar.getLayout();
 		
-		Grammar.Builder builder = Grammar.builder().setLayout(layout).setStartSymbol(grammar.getStartSymbol());
+		Grammar.Builder builder = Grammar.builder().setLayout(layout).setStartSymbol(grammar.getStartSymbol()).setPrecedenceClimbing(grammar.getPrecedenceClimbing());
 		
 		for (Rule rule : grammar.getRules()) {
 			
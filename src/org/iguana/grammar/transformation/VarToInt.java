@@ -48,6 +48,7 @@ public class VarToInt implements GrammarTransformation, IAbstractASTVisitor<Abst
                 .addEBNFl(grammar.getEBNFLefts())
                 .addEBNFr(grammar.getEBNFRights())
                 .setLayout(grammar.getLayout())
+                .setPrecedenceClimbing(grammar.getPrecedenceClimbing())
                 .build();
     }
 
@@ -32,7 +32,6 @@ import iguana.utils.collections.OpenAddressingHashMap;
 import iguana.utils.collections.key.Key;
 import iguana.utils.input.Input;
 import org.iguana.datadependent.env.Environment;
-import org.iguana.datadependent.env.EnvironmentPool;
 import org.iguana.grammar.slot.*;
 import org.iguana.parser.IguanaRuntime;
 import org.iguana.result.Result;
@@ -149,7 +148,7 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
 	}
 
 	private void processPoppedElement(T poppedElement, GSSEdge<T> edge, BodyGrammarSlot returnSlot, GSSNode<T> destination, Input input, Environment env, IguanaRuntime<T> runtime) {
-		if (returnSlot.testFollow(input.charAtIgnoreLayout(poppedElement.getIndex()))) {
+		if (returnSlot.testFollow(runtime.charAtIgnoreLayout(input, poppedElement.getIndex()))) {
 			T result = addDescriptor(input, this, poppedElement, edge, returnSlot, runtime);
 			if (result != null) {
 				runtime.scheduleDescriptor(returnSlot, destination, result, env);
@@ -195,7 +194,8 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
      */
     private T addDescriptor(Input input, GSSNode<T> source, T result, GSSEdge<T> edge, BodyGrammarSlot returnSlot, IguanaRuntime<T> runtime) {
         int inputIndex = result.isDummy() ? source.getInputIndex() : result.getIndex();
-        Environment env = edge.getEnv() == null ? runtime.getEmptyEnvironment() : edge.getEnv();
+        Environment edgeEnv = edge.getEnv() == null ? runtime.getEmptyEnvironment() : edge.getEnv();
+        Environment env = edgeEnv;
         GSSNode<T> destination = edge.getDestination() != null ? edge.getDestination() : source;
 
         if (returnSlot.requiresBinding())
@@ -204,7 +204,9 @@ public class DefaultGSSNode<T extends Result> implements GSSNode<T> {
         runtime.setEnvironment(env);
 
         if (returnSlot.getConditions().execute(input, returnSlot, source, inputIndex, runtime.getEvaluatorContext(), runtime)) {
-            EnvironmentPool.returnToPool(env);
+            // The environment of the edge is interned and shared
+            if (env != edgeEnv)
+                runtime.getEnvironmentPool().returnToPool(env);
             return null;
         }
 
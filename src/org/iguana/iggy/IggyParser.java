@@ -8,6 +8,7 @@ import org.iguana.grammar.symbol.Symbol;
 import org.iguana.grammar.transformation.DesugarPrecedenceAndAssociativity;
 import org.iguana.grammar.transformation.DesugarStartSymbol;
 import org.iguana.grammar.transformation.EBNFToBNF;
+import org.iguana.grammar.transformation.GrammarPipeline;
 import org.iguana.grammar.transformation.LayoutWeaver;
 import org.iguana.parser.IguanaParser;
 import org.iguana.parsetree.*;
@@ -32,13 +33,7 @@ public class IggyParser {
 
     public static void main(String[] args) throws IOException {
         Grammar g = Grammar.load(new java.io.File("/Users/afroozeh/iggy"));
-        DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
-        precedenceAndAssociativity.setOP2();
-
-        g = new EBNFToBNF().transform(g);
-        g = precedenceAndAssociativity.transform(g);
-        g = new LayoutWeaver().transform(g);
-        g = new DesugarStartSymbol().transform(g);
+        g = GrammarPipeline.getStandard().transform(g);
         System.out.println(JsonSerializer.toJSON(g));
     }
 
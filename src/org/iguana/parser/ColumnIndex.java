@@ -0,0 +1,89 @@
+package org.iguana.parser;
+
+import iguana.utils.input.Input;
+
+import java.util.Arrays;
+
+/**
+ * Stores the column number of each position of an input, and the start positions of its lines, so that
+ * the indentation constraints of layout-sensitive grammars, e.g., the desugared align and offside
+ * constraints, look up columns in an array.
+ *
+ * The index is built by a single scan over the input. Within a line, the column increases by one per
+ * character; after a tab or a carriage return, whose width is decided by the input, the remaining
+ * columns of the line are taken from {@link Input#getColumnNumber(int)}.
+ */
+public class ColumnIndex {
+
+    private final Input input;
+
+    private final int[] columns;
+
+    private final int[] lineStarts;
+
+    private final int firstLineNumber;
+
+    public ColumnIndex(Input input) {
+        this.input = input;
+
+        int length = input.length();
+        this.columns = new int[length];
+
+        int[] lineStarts = new int[16];
+        int lines = 1;
+
+        int firstColumn = length == 0 ? 1 : input.getColumnNumber(0);
+        int lineStart = 0;
+        boolean irregular = false;
+
+        for (int i = 0; i < length; i++) {
+            columns[i] = irregular ? input.getColumnNumber(i) : firstColumn + i - lineStart;
+
+            int c = input.charAt(i);
+            if (c == '\n') {
+                lineStart = i + 1;
+                irregular = false;
+                if (lines == lineStarts.length)
+                    lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                lineStarts[lines++] = lineStart;
+            } else if (c == '\t' || c == '\r') {
+                irregular = true;
+            }
+        }
+
+        this.lineStarts = Arrays.copyOf(lineStarts, lines);
+        this.firstLineNumber = length == 0 ? 1 : input.getLineNumber(0);
+    }
+
+    public Input getInput() {
+        return input;
+    }
+
+    public int getColumnNumber(int i) {
+        if (i < 0 || i >= columns.length)
+            return input.getColumnNumber(i);
+        return columns[i];
+    }
+
+    public int getLineNumber(int i) {
+        if (i < 0 || i >= columns.length)
+            return input.getLineNumber(i);
+
+        int line = Arrays.binarySearch(lineStarts, i);
+        if (line < 0)
+            line = -line - 2;
+        return firstLineNumber + line;
+    }
+
+    /**
+     * Returns the position at which the line of the given position of the input starts.
+     */
+    public int getLineStart(int i) {
+        return lineStarts[getLineNumber(i) - firstLineNumber];
+    }
+
+    public int getNumberOfLines() {
+        return lineStarts.length;
+    }
+
+}
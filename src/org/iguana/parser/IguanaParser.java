@@ -49,7 +49,11 @@ public class IguanaParser {
     }
 
     public IguanaParser(Grammar grammar, Configuration config) {
-        this.grammarGraph = GrammarGraphBuilder.from(grammar, config);
+        this(GrammarGraphBuilder.from(grammar, config), config);
+    }
+
+    public IguanaParser(GrammarGraph grammarGraph, Configuration config) {
+        this.grammarGraph = grammarGraph;
         this.runtime = new IguanaRuntime<>(config, new ParserResultOps());
     }
 
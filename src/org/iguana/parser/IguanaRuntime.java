@@ -1,9 +1,13 @@
 package org.iguana.parser;
 
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
 import org.iguana.datadependent.ast.Expression;
 import org.iguana.datadependent.ast.Statement;
+import org.iguana.datadependent.env.ArgumentTuple;
 import org.iguana.datadependent.env.Environment;
+import org.iguana.datadependent.env.EnvironmentInterner;
+import org.iguana.datadependent.env.EnvironmentPool;
 import org.iguana.datadependent.env.GLLEvaluator;
 import org.iguana.datadependent.env.IEvaluatorContext;
 import org.iguana.grammar.GrammarGraph;
@@ -18,6 +22,7 @@ import org.iguana.result.ParserResultOps;
 import org.iguana.result.Result;
 import org.iguana.result.ResultOps;
 import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.EnvironmentImpl;
 import org.iguana.util.ParserLogger;
 
 import java.util.*;
@@ -39,7 +44,13 @@ public class IguanaRuntime<T extends Result> {
 
     private final Deque<Descriptor<T>> descriptorsStack;
 
-    private final IEvaluatorContext ctx;
+    private IEvaluatorContext ctx;
+
+    private EnvironmentImpl envImpl;
+
+    private final EnvironmentInterner interner = new EnvironmentInterner();
+
+    private final EnvironmentPool environmentPool;
 
     private final Configuration config;
 
@@ -51,16 +62,27 @@ public class IguanaRuntime<T extends Result> {
 
     private Input input;
 
+    private LayoutIndex layoutIndex;
+
     public IguanaRuntime(Configuration config, ResultOps<T> resultOps) {
         this.config = config;
         this.resultOps = resultOps;
         this.descriptorsStack = new ArrayDeque<>(512);
         this.descriptorPool = new ArrayDeque<>(512);
-        this.ctx = GLLEvaluator.getEvaluatorContext(config);
+        this.environmentPool = new EnvironmentPool(config.getEnvironmentPoolCapacity());
+        this.envImpl = config.getEnvImpl();
+        this.ctx = GLLEvaluator.getEvaluatorContext(envImpl, environmentPool);
     }
 
     public Result run(Input input, GrammarGraph grammarGraph, Map<String, Object> map, boolean global) {
         this.input = input;
+        this.layoutIndex = new LayoutIndex(input, grammarGraph.getLayoutMatcher());
+
+        // The environment implementation selected for the grammar, with AUTO
+        if (grammarGraph.getEnvImpl() != null && grammarGraph.getEnvImpl() != envImpl) {
+            envImpl = grammarGraph.getEnvImpl();
+            ctx = GLLEvaluator.getEvaluatorContext(envImpl, environmentPool);
+        }
 
         IEvaluatorContext ctx = getEvaluatorContext();
 
@@ -104,6 +126,10 @@ public class IguanaRuntime<T extends Result> {
         grammarGraph.clear();
         descriptorPool.clear();
         descriptorsStack.clear();
+        interner.clear();
+        environmentPool.clear();
+        ctx.clearColumnIndex();
+        layoutIndex = null;
 
         T result = startGSSNode.getResult(inputLength);
         hasParseError = result == null;
@@ -148,6 +174,16 @@ public class IguanaRuntime<T extends Result> {
         logger.descriptorAdded(descriptor);
     }
 
+    /**
+     * Returns the first non-layout character at or after the input index i, using the layout index of
+     * the current parse.
+     */
+    public int charAtIgnoreLayout(Input input, int i) {
+        if (layoutIndex == null || layoutIndex.getInput() != input)
+            return input.charAtIgnoreLayout(i);
+        return layoutIndex.charAtIgnoreLayout(i);
+    }
+
     public IEvaluatorContext getEvaluatorContext() {
         return ctx;
     }
@@ -164,11 +200,33 @@ public class IguanaRuntime<T extends Result> {
         return ctx.getEmptyEnvironment();
     }
 
+    /**
+     * Returns the pool of the array-based environments of this runtime, with its hit rate.
+     */
+    public EnvironmentPool getEnvironmentPool() {
+        return environmentPool;
+    }
+
+    /**
+     * Returns the environment of this parse that is equal to the given one, see {@link EnvironmentInterner}.
+     */
+    public Environment intern(Environment env) {
+        return interner.intern(env);
+    }
+
+    /**
+     * Returns the argument tuple of this parse with the given values.
+     */
+    public ArgumentTuple intern(Object[] arguments) {
+        return interner.intern(arguments);
+    }
+
     public GSSEdge<T> createGSSEdge(BodyGrammarSlot returnSlot, T result, GSSNode<T> gssNode, Environment env) {
         if (result.isDummy()) {
             if (env.isEmpty()) {
                 return gssNode != null? new DummyGSSEdge<>(returnSlot, gssNode) : new CyclicDummyGSSEdges<>();
             } else {
+                env = intern(env);
                 return gssNode != null? new DummyGSSEdgeWithEnv<>(returnSlot, gssNode, env) : new CyclicDummyGSSEdgesWithEnv<>(env);
             }
         }
@@ -176,7 +234,7 @@ public class IguanaRuntime<T extends Result> {
         if (env.isEmpty()) {
             return new DefaultGSSEdge<>(returnSlot, result, gssNode);
         } else {
-            return new DefaultGSSEdgeWithEnv<>(returnSlot, result, gssNode, env);
+            return new DefaultGSSEdgeWithEnv<>(returnSlot, result, gssNode, intern(env));
         }
     }
 
@@ -213,6 +271,37 @@ public class IguanaRuntime<T extends Result> {
         return values;
     }
 
+    public void execute(CompiledExpression[] statements, Environment env, Input input) {
+        ctx.setEnvironment(env);
+
+        int i = 0;
+        while (i < statements.length) {
+            statements[i].evaluate(ctx, input);
+            i++;
+        }
+    }
+
+    public Object evaluate(CompiledExpression expression, Environment env, Input input) {
+        ctx.setEnvironment(env);
+        return expression.evaluate(ctx, input);
+    }
+
+    public Object[] evaluate(CompiledExpression[] arguments, Environment env, Input input) {
+        if (arguments == null) return null;
+
+        ctx.setEnvironment(env);
+
+        Object[] values = new Object[arguments.length];
+
+        int i = 0;
+        while (i < arguments.length) {
+            values[i] = arguments[i].evaluate(ctx, input);
+            i++;
+        }
+
+        return values;
+    }
+
     public ParseError getParseError() {
         if (!hasParseError) return null;
         return new ParseError(errorSlot, input, errorIndex);
@@ -244,6 +333,14 @@ public class IguanaRuntime<T extends Result> {
         return config;
     }
 
+    /**
+     * Returns the environment implementation of the current parse, which differs from the one of the
+     * configuration if that is AUTO.
+     */
+    public EnvironmentImpl getEnvImpl() {
+        return envImpl;
+    }
+
     public int getDescriptorPoolSize() {
         return descriptorPool.size();
     }
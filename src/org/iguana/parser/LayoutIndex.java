@@ -0,0 +1,83 @@
+package org.iguana.parser;
+
+import iguana.regex.matcher.Matcher;
+import iguana.utils.input.Input;
+
+import java.util.Arrays;
+
+/**
+ * Stores, for the positions of an input, the next non-layout position and the character at that position,
+ * so that repeated follow tests at the same position do not rescan the layout.
+ *
+ * The index is divided into blocks which are allocated on first access, and the entries of a block are
+ * computed on demand. If the grammar's layout is a regular expression, its matcher is used to skip the
+ * layout, otherwise the entries are taken from {@link Input#charAtIgnoreLayout(int)}.
+ */
+public class LayoutIndex {
+
+    private static final int BLOCK_BITS = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private final Input input;
+
+    private final Matcher layoutMatcher;
+
+    private final int[][] positions;
+
+    private final int[][] chars;
+
+    public LayoutIndex(Input input, Matcher layoutMatcher) {
+        this.input = input;
+        this.layoutMatcher = layoutMatcher;
+        int numberOfBlocks = (input.length() >> BLOCK_BITS) + 1;
+        this.positions = new int[numberOfBlocks][];
+        this.chars = new int[numberOfBlocks][];
+    }
+
+    public Input getInput() {
+        return input;
+    }
+
+    public int charAtIgnoreLayout(int i) {
+        int[] block = getBlock(chars, i);
+        int c = block[i & BLOCK_MASK];
+        if (c == UNKNOWN) {
+            c = layoutMatcher == null ? input.charAtIgnoreLayout(i) : input.charAt(nextNonLayoutIndex(i));
+            block[i & BLOCK_MASK] = c;
+        }
+        return c;
+    }
+
+    /**
+     * Returns the first position at or after i that is not layout. Requires the grammar's layout to be
+     * a regular expression.
+     */
+    public int nextNonLayoutIndex(int i) {
+        if (layoutMatcher == null)
+            throw new UnsupportedOperationException("The layout of the grammar is not a regular expression");
+
+        int[] block = getBlock(positions, i);
+        int next = block[i & BLOCK_MASK];
+        if (next == UNKNOWN) {
+            int length = layoutMatcher.match(input, i);
+            next = length > 0 ? i + length : i;
+            block[i & BLOCK_MASK] = next;
+        }
+        return next;
+    }
+
+    private static int[] getBlock(int[][] blocks, int i) {
+        int index = i >> BLOCK_BITS;
+        int[] block = blocks[index];
+        if (block == null) {
+            block = new int[BLOCK_SIZE];
+            Arrays.fill(block, UNKNOWN);
+            blocks[index] = block;
+        }
+        return block;
+    }
+
+}
@@ -30,15 +30,20 @@ package org.iguana.traversal;
 import iguana.regex.matcher.Matcher;
 import iguana.regex.matcher.MatcherFactory;
 import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
 import org.iguana.datadependent.env.IEvaluatorContext;
 import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.condition.DataDependentConditionMemo;
 import org.iguana.grammar.condition.PositionalCondition;
 import org.iguana.grammar.condition.RegularExpressionCondition;
+import org.iguana.grammar.condition.RegularExpressionConditionMemo;
 import org.iguana.grammar.condition.SlotAction;
 import org.iguana.grammar.slot.BodyGrammarSlot;
 import org.iguana.gss.GSSNode;
 import org.iguana.result.Result;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,17 +55,51 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 	
 	private Map<RegularExpressionCondition, SlotAction> cacheRegular = new HashMap<>();
 
+	private Map<RegularExpressionCondition, RegularExpressionConditionMemo> memos = new HashMap<>();
+
+	private Map<DataDependentCondition, DataDependentConditionMemo> dataDependentMemos = new HashMap<>();
+
+	private final boolean memoizeConditions;
+
 	public ToSlotActionConditionVisitor(MatcherFactory factory) {
+		this(factory, false);
+	}
+
+	/**
+	 * @param memoizeConditions whether the outcomes of data-dependent conditions without side effects
+	 *                          are memoized
+	 */
+	public ToSlotActionConditionVisitor(MatcherFactory factory, boolean memoizeConditions) {
 		this.factory = factory;
+		this.memoizeConditions = memoizeConditions;
 	}
 	
 	@Override
 	public SlotAction visit(DataDependentCondition condition) {
+		if (memoizeConditions) {
+			DataDependentConditionMemo memo = getMemo(condition);
+			if (memo != null) {
+				return new SlotAction() {
+
+					@Override
+					public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
+						return !memo.evaluate(ctx, input);
+					}
+
+					@Override
+					public String toString() {
+						return condition.toString();
+					}
+				};
+			}
+		}
+
+		CompiledExpression expression = ExpressionCompiler.compile(condition.getExpression());
 		return new SlotAction() {
 
             @Override
             public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
-                Object value = condition.getExpression().interpret(ctx, input);
+                Object value = expression.evaluate(ctx, input);
                 if (!(value instanceof Boolean))
                     throw new RuntimeException("Data dependent condition should evaluate to a boolean value.");
                 return (!(Boolean) value);
@@ -119,18 +158,45 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 	public SlotAction visit(RegularExpressionCondition condition) {
 		return cacheRegular.computeIfAbsent(condition, c -> create(c, factory));
 	}
+
+	/**
+	 * Returns the memos of the follow and precede conditions created by this visitor.
+	 */
+	public Collection<RegularExpressionConditionMemo> getRegularExpressionConditionMemos() {
+		return memos.values();
+	}
+
+	/**
+	 * Returns the memos of the data-dependent conditions created by this visitor.
+	 */
+	public Collection<DataDependentConditionMemo> getDataDependentConditionMemos() {
+		return dataDependentMemos.values();
+	}
+
+	/*
+	 * Returns null if the condition cannot be memoized
+	 */
+	private DataDependentConditionMemo getMemo(DataDependentCondition condition) {
+		DataDependentConditionMemo memo = dataDependentMemos.get(condition);
+		if (memo == null) {
+			memo = DataDependentConditionMemo.from(condition);
+			if (memo != null)
+				dataDependentMemos.put(condition, memo);
+		}
+		return memo;
+	}
 	
-	private static SlotAction create(RegularExpressionCondition condition, MatcherFactory factory) {
+	private SlotAction create(RegularExpressionCondition condition, MatcherFactory factory) {
 		
 		switch (condition.getType()) {		
 		    case FOLLOW:
 		    case FOLLOW_IGNORE_LAYOUT:		    	
 		    	return new SlotAction() {
-		    		Matcher matcher = factory.getMatcher(condition.getRegularExpression());
+		    		RegularExpressionConditionMemo memo = getMemo(condition, factory.getMatcher(condition.getRegularExpression()));
 
                     @Override
                     public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
-                        return matcher.match(input, rightExtent) == -1;
+                        return !memo.matches(input, rightExtent);
                     }
 
 					@Override
@@ -142,11 +208,11 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 		    case NOT_FOLLOW:
 		    case NOT_FOLLOW_IGNORE_LAYOUT: 
 			    return new SlotAction() {
-			    	Matcher matcher = factory.getMatcher(condition.getRegularExpression());
+			    	RegularExpressionConditionMemo memo = getMemo(condition, factory.getMatcher(condition.getRegularExpression()));
 
                     @Override
                     public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
-                        return matcher.match(input, rightExtent) >= 0;
+                        return memo.matches(input, rightExtent);
                     }
 
 					@Override
@@ -172,11 +238,11 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 				
 			case NOT_PRECEDE: 
 				return new SlotAction() {
-					Matcher matcher = factory.getBackwardsMatcher(condition.getRegularExpression());
+					RegularExpressionConditionMemo memo = getMemo(condition, factory.getBackwardsMatcher(condition.getRegularExpression()));
 
                     @Override
                     public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
-                        return matcher.match(input, rightExtent) >= 0;
+                        return memo.matches(input, rightExtent);
                     }
 
 					@Override
@@ -185,11 +251,11 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 				
 			case PRECEDE:
 				return new SlotAction() {
-					Matcher matcher = factory.getBackwardsMatcher(condition.getRegularExpression());
+					RegularExpressionConditionMemo memo = getMemo(condition, factory.getBackwardsMatcher(condition.getRegularExpression()));
 
                     @Override
                     public <T extends Result> boolean execute(Input input, BodyGrammarSlot slot, GSSNode<T> gssNode, int leftExtent, int rightExtent, IEvaluatorContext ctx) {
-                        return matcher.match(input, rightExtent) == -1;
+                        return !memo.matches(input, rightExtent);
                     }
 
 					@Override
@@ -201,4 +267,8 @@ public class ToSlotActionConditionVisitor implements IConditionVisitor<SlotActio
 		}
 	}
 
+	private RegularExpressionConditionMemo getMemo(RegularExpressionCondition condition, Matcher matcher) {
+		return memos.computeIfAbsent(condition, c -> new RegularExpressionConditionMemo(c, matcher));
+	}
+
 }
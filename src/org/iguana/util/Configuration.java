@@ -33,6 +33,8 @@ import org.iguana.util.config.XMLConfigFileParser;
 public class Configuration {
 
 	public static final int DEFAULT_LOOKAHEAD = 1;
+
+	public static final int DEFAULT_ENVIRONMENT_POOL_CAPACITY = 1024;
 	
 	private final LookupImpl gssLookupImpl;
 	
@@ -46,6 +48,24 @@ public class Configuration {
 
     private final LogLevel logLevel;
 
+    private final boolean combineTerminals;
+
+    private final boolean keywordTrie;
+
+    private final boolean deterministicDescent;
+
+    private final boolean compileGrammarGraph;
+
+    private final boolean threadedInterpreter;
+
+    private final int environmentPoolCapacity;
+
+    private final boolean pruneBindings;
+
+    private final boolean memoizeConditions;
+
+    private final boolean precedenceClimbing;
+
     public static Configuration load() {
         Configuration configuration;
         try {
@@ -64,6 +84,15 @@ public class Configuration {
 		this.hashmapImpl = builder.hashmapImpl;
 		this.envImpl = builder.envImpl;
         this.logLevel = builder.logLevel;
+        this.combineTerminals = builder.combineTerminals;
+        this.keywordTrie = builder.keywordTrie;
+        this.deterministicDescent = builder.deterministicDescent;
+        this.compileGrammarGraph = builder.compileGrammarGraph;
+        this.threadedInterpreter = builder.threadedInterpreter;
+        this.environmentPoolCapacity = builder.environmentPoolCapacity;
+        this.pruneBindings = builder.pruneBindings;
+        this.memoizeConditions = builder.memoizeConditions;
+        this.precedenceClimbing = builder.precedenceClimbing;
 	}
 		
 	public LookupImpl getGSSLookupImpl() {
@@ -90,9 +119,107 @@ public class Configuration {
         return logLevel;
     }
 
+    /**
+     * Whether the first terminals of the alternatives of a nonterminal are matched together
+     * using a single combined automaton.
+     */
+    public boolean combineTerminals() {
+        return combineTerminals;
+    }
+
+    /**
+     * Whether literal terminals, e.g., keywords, are recognized using a shared trie.
+     */
+    public boolean keywordTrie() {
+        return keywordTrie;
+    }
+
+    /**
+     * Whether nonterminals of LL(1) subgrammars are parsed by deterministic descent, without
+     * creating GSS nodes and descriptors.
+     */
+    public boolean deterministicDescent() {
+        return deterministicDescent;
+    }
+
+    /**
+     * Whether the rules of the grammar graph are compiled at runtime into generated code,
+     * which requires a JDK.
+     */
+    public boolean compileGrammarGraph() {
+        return compileGrammarGraph;
+    }
+
+    /**
+     * Whether the transitions of the rules are run in a loop over flattened arrays instead of
+     * by recursive calls between slots and transitions.
+     */
+    public boolean threadedInterpreter() {
+        return threadedInterpreter;
+    }
+
+    /**
+     * The maximum number of environments of each size kept by the environment pool of a parser
+     * runtime; zero disables pooling.
+     */
+    public int getEnvironmentPoolCapacity() {
+        return environmentPoolCapacity;
+    }
+
+    /**
+     * Whether the labels and variables that are not used by the rest of a rule are not bound, and
+     * the variables are removed from the environments after their last use. Only applies to the
+     * environments that bind by name.
+     */
+    public boolean pruneBindings() {
+        return pruneBindings;
+    }
+
+    /**
+     * Whether the outcomes of the data-dependent conditions are memoized per parse, keyed on the
+     * values of their free variables.
+     */
+    public boolean memoizeConditions() {
+        return memoizeConditions;
+    }
+
+    /**
+     * Whether the operator nonterminals that can be parsed by precedence climbing are left
+     * undesugared, i.e., whether {@link org.iguana.grammar.transformation.GrammarPipeline#get(Configuration)}
+     * returns the pipeline of {@link org.iguana.grammar.transformation.GrammarPipeline#precedenceClimbing()}.
+     * The grammar graph parses the nonterminals a grammar lists in
+     * {@link org.iguana.grammar.Grammar#getPrecedenceClimbing()} by precedence climbing in any case.
+     */
+    public boolean precedenceClimbing() {
+        return precedenceClimbing;
+    }
+
     public static Builder builder() {
 		return new Builder();
 	}
+
+    /**
+     * Returns a builder with the options of the given configuration.
+     */
+    public static Builder builder(Configuration config) {
+        Builder builder = new Builder();
+        builder.gssLookupImpl = config.gssLookupImpl;
+        builder.matcherType = config.matcherType;
+        builder.hashmapImpl = config.hashmapImpl;
+        builder.lookaheadCount = config.lookAheadCount;
+        builder.envImpl = config.envImpl;
+        builder.logLevel = config.logLevel;
+        builder.combineTerminals = config.combineTerminals;
+        builder.keywordTrie = config.keywordTrie;
+        builder.deterministicDescent = config.deterministicDescent;
+        builder.compileGrammarGraph = config.compileGrammarGraph;
+        builder.threadedInterpreter = config.threadedInterpreter;
+        builder.environmentPoolCapacity = config.environmentPoolCapacity;
+        builder.pruneBindings = config.pruneBindings;
+        builder.memoizeConditions = config.memoizeConditions;
+        builder.precedenceClimbing = config.precedenceClimbing;
+        return builder;
+    }
 	
 	public enum MatcherType {
 		DFA,
@@ -113,7 +240,12 @@ public class Configuration {
 		ARRAY,
 		INT_ARRAY,
 		HASH_MAP,
-		TRIE
+		TRIE,
+		/**
+		 * The cheapest of the above that supports the grammar, see
+		 * {@link org.iguana.grammar.operations.EnvironmentAnalysis}.
+		 */
+		AUTO
 	}
 		
 	@Override
@@ -135,6 +267,15 @@ public class Configuration {
 		private HashMapImpl hashmapImpl = HashMapImpl.JAVA; // HashMapImpl.INT_OPEN_ADDRESSING;
 		private int lookaheadCount = DEFAULT_LOOKAHEAD;
         private LogLevel logLevel = LogLevel.NONE;
+        private boolean combineTerminals = false;
+        private boolean keywordTrie = false;
+        private boolean deterministicDescent = false;
+        private boolean compileGrammarGraph = false;
+        private boolean threadedInterpreter = false;
+        private int environmentPoolCapacity = DEFAULT_ENVIRONMENT_POOL_CAPACITY;
+        private boolean pruneBindings = false;
+        private boolean memoizeConditions = false;
+        private boolean precedenceClimbing = false;
 		
 		private EnvironmentImpl envImpl = EnvironmentImpl.TRIE;
 				
@@ -172,5 +313,50 @@ public class Configuration {
             return this;
         }
 
+        public Builder setCombineTerminals(boolean combineTerminals) {
+            this.combineTerminals = combineTerminals;
+            return this;
+        }
+
+        public Builder setKeywordTrie(boolean keywordTrie) {
+            this.keywordTrie = keywordTrie;
+            return this;
+        }
+
+        public Builder setDeterministicDescent(boolean deterministicDescent) {
+            this.deterministicDescent = deterministicDescent;
+            return this;
+        }
+
+        public Builder setCompileGrammarGraph(boolean compileGrammarGraph) {
+            this.compileGrammarGraph = compileGrammarGraph;
+            return this;
+        }
+
+        public Builder setThreadedInterpreter(boolean threadedInterpreter) {
+            this.threadedInterpreter = threadedInterpreter;
+            return this;
+        }
+
+        public Builder setEnvironmentPoolCapacity(int environmentPoolCapacity) {
+            this.environmentPoolCapacity = environmentPoolCapacity;
+            return this;
+        }
+
+        public Builder setPruneBindings(boolean pruneBindings) {
+            this.pruneBindings = pruneBindings;
+            return this;
+        }
+
+        public Builder setMemoizeConditions(boolean memoizeConditions) {
+            this.memoizeConditions = memoizeConditions;
+            return this;
+        }
+
+        public Builder setPrecedenceClimbing(boolean precedenceClimbing) {
+            this.precedenceClimbing = precedenceClimbing;
+            return this;
+        }
+
 	}
 }
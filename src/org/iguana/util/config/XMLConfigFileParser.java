@@ -59,6 +59,42 @@ public class XMLConfigFileParser implements ConfigFileParser {
                 case "EnvironmentImpl":
                     builder.setEnvironmentImpl(Configuration.EnvironmentImpl.valueOf(node.getTextContent().toUpperCase()));
                     break;
+
+                case "CombineTerminals":
+                    builder.setCombineTerminals(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "KeywordTrie":
+                    builder.setKeywordTrie(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "DeterministicDescent":
+                    builder.setDeterministicDescent(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "CompileGrammarGraph":
+                    builder.setCompileGrammarGraph(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "ThreadedInterpreter":
+                    builder.setThreadedInterpreter(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "EnvironmentPoolCapacity":
+                    builder.setEnvironmentPoolCapacity(Integer.parseInt(node.getTextContent().trim()));
+                    break;
+
+                case "PruneBindings":
+                    builder.setPruneBindings(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "MemoizeConditions":
+                    builder.setMemoizeConditions(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
+
+                case "PrecedenceClimbing":
+                    builder.setPrecedenceClimbing(Boolean.parseBoolean(node.getTextContent().trim()));
+                    break;
             }
         }
     }
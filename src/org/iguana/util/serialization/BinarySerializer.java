@@ -0,0 +1,718 @@
+package org.iguana.util.serialization;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import org.iguana.grammar.Grammar;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format for grammars. A grammar is written as the stream of tokens of its JSON
+ * representation, with the precedence and associativity information of the rules and the patterns that
+ * the JSON format of {@link JsonSerializer} leaves out, so a grammar can be saved before it is desugared.
+ * Each token is a tag byte,
+ * numbers are zigzag varints, and strings, e.g., field names, kinds and nonterminal names, are interned:
+ * the first occurrence of a string is written in full and added to a table, and every later occurrence
+ * is written as its index in the table.
+ *
+ * The format starts with a magic number and a version, see {@link #isBinaryGrammar(InputStream)}.
+ * The tokens are written as the JSON serializers produce them, and handed to the JSON deserializers
+ * as they are decoded, so neither direction buffers the grammar's tokens.
+ */
+public class BinarySerializer {
+
+    private static final int MAGIC = 0x49474742; // IGGB
+
+    /*
+     * Version 1 did not have the precedence and associativity information, which
+     * version 2 added. Grammars of version 1 are read with the defaults of these fields.
+     */
+    private static final int VERSION = 2;
+
+    private static final int TAG_END = 0;
+    private static final int TAG_START_OBJECT = 1;
+    private static final int TAG_END_OBJECT = 2;
+    private static final int TAG_START_ARRAY = 3;
+    private static final int TAG_END_ARRAY = 4;
+    private static final int TAG_FIELD_NAME = 5;
+    private static final int TAG_STRING = 6;
+    private static final int TAG_INT = 7;
+    private static final int TAG_FLOAT = 8;
+    private static final int TAG_TRUE = 9;
+    private static final int TAG_FALSE = 10;
+    private static final int TAG_NULL = 11;
+
+    public static void serialize(Grammar grammar, OutputStream out) throws IOException {
+        TokenWriter writer = new TokenWriter(out);
+        writer.writeHeader();
+        try (JsonGenerator generator = new TokenGenerator(writer)) {
+            JsonSerializer.getCompactMapper().writeValue(generator, grammar);
+        }
+        writer.writeTag(TAG_END);
+        writer.flush();
+    }
+
+    public static void serialize(Grammar grammar, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            serialize(grammar, out);
+        }
+    }
+
+    public static byte[] toBytes(Grammar grammar) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            serialize(grammar, out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static Grammar deserialize(InputStream in) throws IOException {
+        TokenReader reader = new TokenReader(in);
+        reader.readHeader();
+
+        try (JsonParser parser = new TokenParser(reader)) {
+            return JsonSerializer.getCompactMapper().readValue(parser, Grammar.class);
+        }
+    }
+
+    public static Grammar deserialize(byte[] bytes) throws IOException {
+        return deserialize(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Returns whether the given stream starts with a grammar in this format, without consuming it.
+     * The stream must support mark and reset.
+     */
+    public static boolean isBinaryGrammar(InputStream in) throws IOException {
+        return readVersion(in) != -1;
+    }
+
+    /**
+     * Returns whether the given stream starts with a grammar in the current version of this format,
+     * without consuming it. The stream must support mark and reset.
+     */
+    public static boolean isCurrentBinaryGrammar(InputStream in) throws IOException {
+        return readVersion(in) == VERSION;
+    }
+
+    /*
+     * The version in the header at the start of the given stream, or -1 if the stream does not start
+     * with the header of this format. The stream is reset to its start.
+     */
+    private static int readVersion(InputStream in) throws IOException {
+        in.mark(9);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = in.read();
+                if (b == -1)
+                    return -1;
+                magic = (magic << 8) | b;
+            }
+            if (magic != MAGIC)
+                return -1;
+
+            int version = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.read();
+                if (b == -1)
+                    return -1;
+                version |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return version;
+            }
+            return -1;
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static class TokenWriter {
+
+        private final OutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        TokenWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeHeader() throws IOException {
+            out.write(MAGIC >>> 24);
+            out.write(MAGIC >>> 16);
+            out.write(MAGIC >>> 8);
+            out.write(MAGIC);
+            writeVarInt(VERSION);
+        }
+
+        void writeTag(int tag) throws IOException {
+            out.write(tag);
+        }
+
+        void writeLong(long value) throws IOException {
+            writeTag(TAG_INT);
+            writeVarLong(zigzag(value));
+        }
+
+        void writeDouble(double value) throws IOException {
+            writeTag(TAG_FLOAT);
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8)
+                out.write((int) (bits >>> shift));
+        }
+
+        /*
+         * 0 followed by the UTF-8 bytes for a new string, otherwise the index of the string plus one
+         */
+        void writeString(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                writeVarInt(index + 1);
+                return;
+            }
+
+            strings.put(s, strings.size());
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(0);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static class TokenReader {
+
+        private final InputStream in;
+
+        private final List<String> strings = new ArrayList<>();
+
+        TokenReader(InputStream in) {
+            this.in = in instanceof BufferedInputStream || in instanceof ByteArrayInputStream ? in : new BufferedInputStream(in);
+        }
+
+        void readHeader() throws IOException {
+            int magic = 0;
+            for (int i = 0; i < 4; i++)
+                magic = (magic << 8) | readByte();
+
+            if (magic != MAGIC)
+                throw new IOException("Not a binary grammar");
+
+            int version = (int) readVarLong();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported binary grammar version " + version);
+        }
+
+        int readTag() throws IOException {
+            return readByte();
+        }
+
+        long readLong() throws IOException {
+            return unzigzag(readVarLong());
+        }
+
+        double readDouble() throws IOException {
+            long bits = 0;
+            for (int i = 0; i < 8; i++)
+                bits = (bits << 8) | readByte();
+            return Double.longBitsToDouble(bits);
+        }
+
+        String readString() throws IOException {
+            int index = (int) readVarLong();
+            if (index > 0)
+                return strings.get(index - 1);
+
+            byte[] bytes = new byte[(int) readVarLong()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                int n = in.read(bytes, offset, bytes.length - offset);
+                if (n == -1)
+                    throw new EOFException();
+                offset += n;
+            }
+
+            String s = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b == -1)
+                throw new EOFException();
+            return b;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /*
+     * A JSON generator that writes its tokens to a token writer
+     */
+    private static class TokenGenerator extends GeneratorBase {
+
+        private final TokenWriter writer;
+
+        TokenGenerator(TokenWriter writer) {
+            super(0, JsonSerializer.getCompactMapper());
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeStartArray() throws IOException {
+            _verifyValueWrite("start an array");
+            _writeContext = _writeContext.createChildArrayContext();
+            writer.writeTag(TAG_START_ARRAY);
+        }
+
+        @Override
+        public void writeEndArray() throws IOException {
+            if (!_writeContext.inArray())
+                _reportError("Current context not an array but " + _writeContext.typeDesc());
+            _writeContext = _writeContext.clearAndGetParent();
+            writer.writeTag(TAG_END_ARRAY);
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            _verifyValueWrite("start an object");
+            _writeContext = _writeContext.createChildObjectContext();
+            writer.writeTag(TAG_START_OBJECT);
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            if (!_writeContext.inObject())
+                _reportError("Current context not an object but " + _writeContext.typeDesc());
+            _writeContext = _writeContext.clearAndGetParent();
+            writer.writeTag(TAG_END_OBJECT);
+        }
+
+        @Override
+        public void writeFieldName(String name) throws IOException {
+            if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE)
+                _reportError("Can not write a field name, expecting a value");
+            writer.writeTag(TAG_FIELD_NAME);
+            writer.writeString(name);
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            if (text == null) {
+                writeNull();
+                return;
+            }
+            _verifyValueWrite("write a string");
+            writer.writeTag(TAG_STRING);
+            writer.writeString(text);
+        }
+
+        @Override
+        public void writeString(char[] text, int offset, int len) throws IOException {
+            writeString(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+            writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+            writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeRaw(String text) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(String text, int offset, int len) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char[] text, int offset, int len) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char c) throws IOException {
+            _reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+            _reportError("Binary values are not supported");
+        }
+
+        @Override
+        public void writeNumber(int v) throws IOException {
+            writeNumber((long) v);
+        }
+
+        @Override
+        public void writeNumber(long v) throws IOException {
+            _verifyValueWrite("write a number");
+            writer.writeLong(v);
+        }
+
+        @Override
+        public void writeNumber(BigInteger v) throws IOException {
+            if (v == null) {
+                writeNull();
+                return;
+            }
+            writeNumber(v.longValueExact());
+        }
+
+        @Override
+        public void writeNumber(double v) throws IOException {
+            _verifyValueWrite("write a number");
+            writer.writeDouble(v);
+        }
+
+        @Override
+        public void writeNumber(float v) throws IOException {
+            writeNumber((double) v);
+        }
+
+        @Override
+        public void writeNumber(BigDecimal v) throws IOException {
+            if (v == null) {
+                writeNull();
+                return;
+            }
+            writeNumber(v.doubleValue());
+        }
+
+        @Override
+        public void writeNumber(String encodedValue) throws IOException {
+            try {
+                writeNumber(Long.parseLong(encodedValue));
+            } catch (NumberFormatException e) {
+                writeNumber(Double.parseDouble(encodedValue));
+            }
+        }
+
+        @Override
+        public void writeBoolean(boolean state) throws IOException {
+            _verifyValueWrite("write a boolean");
+            writer.writeTag(state ? TAG_TRUE : TAG_FALSE);
+        }
+
+        @Override
+        public void writeNull() throws IOException {
+            _verifyValueWrite("write a null");
+            writer.writeTag(TAG_NULL);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        protected void _releaseBuffers() { }
+
+        @Override
+        protected void _verifyValueWrite(String typeMsg) throws IOException {
+            if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME)
+                _reportError("Can not " + typeMsg + ", expecting a field name");
+        }
+    }
+
+    /*
+     * A JSON parser over the tokens of a token reader
+     */
+    private static class TokenParser extends ParserMinimalBase {
+
+        private final TokenReader reader;
+
+        private ObjectCodec codec;
+
+        private JsonReadContext context;
+
+        private String text;
+
+        private long longValue;
+
+        private double doubleValue;
+
+        private boolean closed;
+
+        TokenParser(TokenReader reader) {
+            this.reader = reader;
+            this.codec = JsonSerializer.getCompactMapper();
+            this.context = JsonReadContext.createRootContext(null);
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            if (closed)
+                return null;
+
+            int tag = reader.readTag();
+            switch (tag) {
+                case TAG_END:
+                    _currToken = null;
+                    break;
+
+                case TAG_START_OBJECT:
+                    _currToken = JsonToken.START_OBJECT;
+                    context.expectComma();
+                    context = context.createChildObjectContext(-1, -1);
+                    break;
+
+                case TAG_START_ARRAY:
+                    _currToken = JsonToken.START_ARRAY;
+                    context.expectComma();
+                    context = context.createChildArrayContext(-1, -1);
+                    break;
+
+                case TAG_END_OBJECT:
+                case TAG_END_ARRAY:
+                    _currToken = tag == TAG_END_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+                    context = context.getParent();
+                    break;
+
+                case TAG_FIELD_NAME:
+                    _currToken = JsonToken.FIELD_NAME;
+                    text = reader.readString();
+                    context.setCurrentName(text);
+                    break;
+
+                case TAG_STRING:
+                    _currToken = JsonToken.VALUE_STRING;
+                    text = reader.readString();
+                    break;
+
+                case TAG_INT:
+                    _currToken = JsonToken.VALUE_NUMBER_INT;
+                    longValue = reader.readLong();
+                    break;
+
+                case TAG_FLOAT:
+                    _currToken = JsonToken.VALUE_NUMBER_FLOAT;
+                    doubleValue = reader.readDouble();
+                    break;
+
+                case TAG_TRUE: _currToken = JsonToken.VALUE_TRUE; break;
+                case TAG_FALSE: _currToken = JsonToken.VALUE_FALSE; break;
+                case TAG_NULL: _currToken = JsonToken.VALUE_NULL; break;
+
+                default:
+                    throw new IOException("Unknown tag " + tag);
+            }
+
+            if (_currToken != null && _currToken.isScalarValue())
+                context.expectComma();
+
+            return _currToken;
+        }
+
+        @Override
+        protected void _handleEOF() { }
+
+        @Override
+        public String getCurrentName() {
+            if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) {
+                JsonReadContext parent = context.getParent();
+                return parent == null ? null : parent.getCurrentName();
+            }
+            return context.getCurrentName();
+        }
+
+        @Override
+        public void overrideCurrentName(String name) {
+            try {
+                context.setCurrentName(name);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public JsonStreamContext getParsingContext() {
+            return context;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public ObjectCodec getCodec() {
+            return codec;
+        }
+
+        @Override
+        public void setCodec(ObjectCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public Version version() {
+            return Version.unknownVersion();
+        }
+
+        @Override
+        public JsonLocation getTokenLocation() {
+            return JsonLocation.NA;
+        }
+
+        @Override
+        public JsonLocation getCurrentLocation() {
+            return JsonLocation.NA;
+        }
+
+        @Override
+        public String getText() {
+            if (_currToken == null)
+                return null;
+
+            switch (_currToken) {
+                case FIELD_NAME:
+                case VALUE_STRING:
+                    return text;
+                case VALUE_NUMBER_INT:
+                    return String.valueOf(longValue);
+                case VALUE_NUMBER_FLOAT:
+                    return String.valueOf(doubleValue);
+                default:
+                    return _currToken.asString();
+            }
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            String s = getText();
+            return s == null ? null : s.toCharArray();
+        }
+
+        @Override
+        public int getTextLength() {
+            String s = getText();
+            return s == null ? 0 : s.length();
+        }
+
+        @Override
+        public int getTextOffset() {
+            return 0;
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            return false;
+        }
+
+        @Override
+        public Number getNumberValue() {
+            if (_currToken == JsonToken.VALUE_NUMBER_FLOAT)
+                return doubleValue;
+            if (longValue == (int) longValue)
+                return (int) longValue;
+            return longValue;
+        }
+
+        @Override
+        public NumberType getNumberType() {
+            if (_currToken == JsonToken.VALUE_NUMBER_FLOAT)
+                return NumberType.DOUBLE;
+            return longValue == (int) longValue ? NumberType.INT : NumberType.LONG;
+        }
+
+        @Override
+        public int getIntValue() {
+            return _currToken == JsonToken.VALUE_NUMBER_FLOAT ? (int) doubleValue : (int) longValue;
+        }
+
+        @Override
+        public long getLongValue() {
+            return _currToken == JsonToken.VALUE_NUMBER_FLOAT ? (long) doubleValue : longValue;
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() {
+            return _currToken == JsonToken.VALUE_NUMBER_FLOAT ? BigDecimal.valueOf(doubleValue).toBigInteger() : BigInteger.valueOf(longValue);
+        }
+
+        @Override
+        public float getFloatValue() {
+            return (float) getDoubleValue();
+        }
+
+        @Override
+        public double getDoubleValue() {
+            return _currToken == JsonToken.VALUE_NUMBER_FLOAT ? doubleValue : longValue;
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() {
+            return _currToken == JsonToken.VALUE_NUMBER_FLOAT ? BigDecimal.valueOf(doubleValue) : BigDecimal.valueOf(longValue);
+        }
+
+        @Override
+        public Object getEmbeddedObject() {
+            return null;
+        }
+
+        @Override
+        public byte[] getBinaryValue(Base64Variant variant) throws IOException {
+            throw _constructError("Binary values are not supported");
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.iguana.util.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * An object input stream for grammars saved with Java serialization by older versions, which only
+ * resolves the classes a grammar consists of: the classes of Iguana, the collections and boxed
+ * values of the JDK, and the sets of capsule. Any other class in the stream, e.g., a class that a
+ * crafted file uses to run code while it is deserialized, is rejected before it is instantiated.
+ *
+ * Grammars are saved in the format of {@link BinarySerializer}; this stream is only for reading the
+ * files of the old format.
+ */
+public class GrammarObjectInputStream extends ObjectInputStream {
+
+    private static final String[] ALLOWED_PACKAGES = {
+        "org.iguana.",
+        "iguana.",
+        "io.usethesource.capsule.",
+        "java.util."
+    };
+
+    private static final String[] ALLOWED_CLASSES = {
+        "java.lang.Object",
+        "java.lang.String",
+        "java.lang.Enum",
+        "java.lang.Number",
+        "java.lang.Boolean",
+        "java.lang.Character",
+        "java.lang.Integer",
+        "java.lang.Long",
+        "java.lang.Double"
+    };
+
+    public GrammarObjectInputStream(InputStream in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        if (!isAllowed(desc.getName()))
+            throw new InvalidClassException(desc.getName(), "Not allowed in a grammar");
+        return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+        throw new InvalidClassException("Proxy classes are not allowed in a grammar");
+    }
+
+    static boolean isAllowed(String name) {
+        // Arrays are allowed if their elements are, e.g., [I or [Ljava.lang.Integer;
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[')
+            dimensions++;
+
+        if (dimensions > 0) {
+            String element = name.substring(dimensions);
+            if (element.length() == 1)
+                return true;
+            if (!element.startsWith("L") || !element.endsWith(";"))
+                return false;
+            name = element.substring(1, element.length() - 1);
+        }
+
+        for (String allowed : ALLOWED_CLASSES)
+            if (name.equals(allowed))
+                return true;
+
+        for (String prefix : ALLOWED_PACKAGES)
+            if (name.startsWith(prefix))
+                return true;
+
+        return false;
+    }
+
+}
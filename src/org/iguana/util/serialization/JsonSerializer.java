@@ -2,11 +2,14 @@ package org.iguana.util.serialization;
 
 import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
 import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -25,7 +28,11 @@ import org.iguana.grammar.symbol.*;
 import org.iguana.parsetree.*;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +43,12 @@ public class JsonSerializer {
 
     private final static ObjectMapper mapper = new ObjectMapper();
 
+    /*
+     * The mapper of the compact format of BinarySerializer, which, unlike the JSON format, keeps the
+     * precedence and associativity information of rules, and the patterns and EBNF maps of grammars.
+     */
+    private final static ObjectMapper compactMapper;
+
     static {
         mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
                 .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
@@ -112,7 +125,25 @@ public class JsonSerializer {
         SimpleModule module = new SimpleModule();
         module.addDeserializer(Grammar.class, new GrammarDeserializer());
         module.addDeserializer(Expression.Call.class, new CallDeserializer());
+        module.setDeserializerModifier(new InterningDeserializerModifier());
         mapper.registerModule(module);
+
+        compactMapper = mapper.copy();
+        compactMapper.addMixIn(Grammar.class, CompactGrammarMixIn.class);
+        compactMapper.addMixIn(Rule.class, CompactRuleMixIn.class);
+        compactMapper.addMixIn(Nonterminal.class, CompactNonterminalMixIn.class);
+        compactMapper.addMixIn(PrecedenceLevel.class, PrecedenceLevelMixIn.class);
+        compactMapper.addMixIn(AssociativityGroup.class, AssociativityGroupMixIn.class);
+        compactMapper.addMixIn(PrecedencePattern.class, PrecedencePatternMixIn.class);
+        compactMapper.addMixIn(ExceptPattern.class, ExceptPatternMixIn.class);
+    }
+
+    static ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    static ObjectMapper getCompactMapper() {
+        return compactMapper;
     }
 
     public static String toJSON(Grammar grammar) {
@@ -232,6 +263,7 @@ public class JsonSerializer {
                     "org.iguana.parsetree.",
                     "org.iguana.grammar.symbol.",
                     "org.iguana.grammar.condition.",
+                    "org.iguana.grammar.patterns.",
                     "iguana.regex.",
                     "org.iguana.datadependent.ast.Expression$"
             };
@@ -254,24 +286,65 @@ public class JsonSerializer {
         }
     }
 
+    /*
+     * Reads a grammar rule by rule from the token stream, without first reading the whole grammar into
+     * a tree. The symbols are read through the same context, which shares equal symbols, see SymbolInterner.
+     */
     static class GrammarDeserializer extends JsonDeserializer<Grammar> {
 
         @Override
         public Grammar deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
-            ObjectCodec codec = parser.getCodec();
-            JsonNode node = codec.readTree(parser);
-
             Grammar.Builder builder = Grammar.builder();
 
-            builder.setLayout(getLayout(node));
-            builder.setStartSymbol(getStartSymbol(node));
+            JsonToken token = parser.getCurrentToken();
+            if (token == JsonToken.START_OBJECT)
+                token = parser.nextToken();
+
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+
+                if (token == JsonToken.VALUE_NULL)
+                    continue;
+
+                switch (field) {
+                    case "layout":
+                        builder.setLayout(getLayout(parser, ctxt));
+                        break;
+
+                    case "startSymbol":
+                        builder.setStartSymbol(ctxt.readValue(parser, Start.class));
+                        break;
+
+                    case "rules":
+                        while (parser.nextToken() != JsonToken.END_ARRAY)
+                            builder.addRule(ctxt.readValue(parser, Rule.class));
+                        break;
 
-            JsonNode rulesNode = node.get("rules");
+                    case "precedenceClimbing":
+                        builder.setPrecedenceClimbing(readStrings(parser));
+                        break;
 
-            if (rulesNode.isArray()) {
-                for (JsonNode ruleNode : rulesNode) {
-                    Rule rule = mapper.readValue(ruleNode.toString(), Rule.class);
-                    builder.addRule(rule);
+                    case "precedencePatterns":
+                        while (parser.nextToken() != JsonToken.END_ARRAY)
+                            builder.addPrecedencePattern(ctxt.readValue(parser, PrecedencePattern.class));
+                        break;
+
+                    case "exceptPatterns":
+                        while (parser.nextToken() != JsonToken.END_ARRAY)
+                            builder.addExceptPattern(ctxt.readValue(parser, ExceptPattern.class));
+                        break;
+
+                    case "ebnfLefts":
+                        builder.addEBNFl(readStringSets(parser));
+                        break;
+
+                    case "ebnfRights":
+                        builder.addEBNFr(readStringSets(parser));
+                        break;
+
+                    default:
+                        parser.skipChildren();
                 }
             }
 
@@ -279,48 +352,61 @@ public class JsonSerializer {
         }
     }
 
-    static Symbol getLayout(JsonNode node) throws IOException {
-        JsonNode layoutNode = node.get("layout");
-        if (layoutNode == null)
-            return null;
+    private static Set<String> readStrings(JsonParser parser) throws IOException {
+        Set<String> strings = new LinkedHashSet<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+            strings.add(parser.getText());
+        return strings;
+    }
 
-        String layoutKind = layoutNode.get("kind").asText();
-        if (layoutKind.equals("Nonterminal"))
-            return mapper.readValue(layoutNode.toString(), Nonterminal.class);
-        else if (layoutKind.equals("Terminal"))
-            return mapper.readValue(layoutNode.toString(), Terminal.class);
-        else
-            throw new RuntimeException("Unknown layout kind '" + layoutKind + "'");
+    private static Map<String, Set<String>> readStringSets(JsonParser parser) throws IOException {
+        Map<String, Set<String>> map = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            map.put(key, readStrings(parser));
+        }
+        return map;
     }
 
-    static Start getStartSymbol(JsonNode node) throws IOException {
-        JsonNode layoutNode = node.get("startSymbol");
-        if (layoutNode == null)
-            return null;
+    static Symbol getLayout(JsonParser parser, DeserializationContext ctxt) throws IOException {
+        Symbol layout = ctxt.readValue(parser, Symbol.class);
+        if (layout instanceof Nonterminal || layout instanceof Terminal)
+            return layout;
 
-        return mapper.readValue(layoutNode.toString(), Start.class);
+        throw new RuntimeException("Unknown layout kind '" + layout.getClass().getSimpleName() + "'");
     }
 
     static class CallDeserializer extends JsonDeserializer<Expression.Call> {
 
         @Override
         public Expression.Call deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
-            ObjectCodec codec = parser.getCodec();
-            JsonNode node = codec.readTree(parser);
-
-            String fun = node.get("fun").asText();
-            JsonNode arguments = node.get("arguments");
-
-            Expression[] expressions = new Expression[0];
-            if (arguments != null && arguments.isArray()) {
-                expressions = new Expression[arguments.size()];
-                int i = 0;
-                for (JsonNode child : arguments) {
-                    Expression expression = mapper.readValue(child.toString(), Expression.class);
-                    expressions[i++] = expression;
+            String fun = null;
+            List<Expression> arguments = new ArrayList<>();
+
+            JsonToken token = parser.getCurrentToken();
+            if (token == JsonToken.START_OBJECT)
+                token = parser.nextToken();
+
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.getCurrentName();
+                token = parser.nextToken();
+
+                if (field.equals("fun")) {
+                    fun = parser.getText();
+                } else if (field.equals("arguments") && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY)
+                        arguments.add(ctxt.readValue(parser, Expression.class));
+                } else {
+                    parser.skipChildren();
                 }
             }
 
+            if (fun == null)
+                throw new RuntimeException("Missing the function of a call");
+
+            Expression[] expressions = arguments.toArray(new Expression[0]);
+
             switch (fun) {
                 case "println":
                     return AST.println(expressions);
@@ -477,6 +563,50 @@ public class JsonSerializer {
         Map<String, Object> attributes;
     }
 
+    /*
+     * The mixins of the compact format, which keep the fields the JSON format leaves out
+     */
+    abstract static class CompactGrammarMixIn {
+        @JsonIgnore
+        Map<Nonterminal, List<Rule>> definitions;
+    }
+
+    @JsonDeserialize(builder = Rule.Builder.class)
+    abstract static class CompactRuleMixIn {
+        @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = LayoutStrategyFilter.class)
+        LayoutStrategy layoutStrategy;
+    }
+
+    abstract static class PrecedenceLevelMixIn {
+        @JsonCreator
+        PrecedenceLevelMixIn(@JsonProperty("lhs") int lhs) { }
+    }
+
+    abstract static class AssociativityGroupMixIn {
+        @JsonCreator
+        AssociativityGroupMixIn(@JsonProperty("associativity") Associativity associativity,
+                                @JsonProperty("precedenceLevel") PrecedenceLevel precedenceLevel,
+                                @JsonProperty("lhs") int lhs,
+                                @JsonProperty("rhs") int rhs,
+                                @JsonProperty("precedence") int precedence) { }
+    }
+
+    abstract static class PrecedencePatternMixIn {
+        @JsonCreator
+        PrecedencePatternMixIn(@JsonProperty("nonterminal") Nonterminal nonterminal,
+                               @JsonProperty("parent") List<Symbol> parent,
+                               @JsonProperty("position") int position,
+                               @JsonProperty("child") List<Symbol> child) { }
+    }
+
+    abstract static class ExceptPatternMixIn {
+        @JsonCreator
+        ExceptPatternMixIn(@JsonProperty("nonterminal") Nonterminal nonterminal,
+                           @JsonProperty("parent") List<Symbol> parent,
+                           @JsonProperty("position") int position,
+                           @JsonProperty("child") List<Symbol> child) { }
+    }
+
     static class LayoutStrategyFilter {
         @Override
         public boolean equals(Object obj) {
@@ -512,6 +642,19 @@ public class JsonSerializer {
         }
     }
 
+    @JsonDeserialize(builder = Nonterminal.Builder.class)
+    abstract static class CompactNonterminalMixIn {
+
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        int index;
+
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+        boolean ebnfList;
+
+        @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = NonterminalMixIn.NonterminalNodeTypeFilter.class)
+        NonterminalNodeType nodeType;
+    }
+
     @JsonDeserialize(builder = Star.Builder.class)
     abstract static class StarMixIn {
     }
@@ -764,6 +907,114 @@ public class JsonSerializer {
         io.usethesource.capsule.Set.Immutable<String> env;
     }
 
+    /*
+     * Shares the instances of equal nonterminals, terminals and regular expressions within one deserialization.
+     * As nonterminals are equal by name and terminals by regular expression, only the ones without labels,
+     * conditions, arguments, bindings or lookaheads, which are fully determined by what they are compared on,
+     * are shared.
+     */
+    static class SymbolInterner {
+
+        private final Map<Object, Nonterminal> nonterminals = new HashMap<>();
+
+        private final Map<Object, Terminal> terminals = new HashMap<>();
+
+        private final Map<RegularExpression, RegularExpression> regularExpressions = new HashMap<>();
+
+        static Object intern(Object value, DeserializationContext ctxt) {
+            SymbolInterner interner = (SymbolInterner) ctxt.getAttribute(SymbolInterner.class);
+            if (interner == null) {
+                interner = new SymbolInterner();
+                ctxt.setAttribute(SymbolInterner.class, interner);
+            }
+            return interner.intern(value);
+        }
+
+        private Object intern(Object value) {
+            if (value instanceof RegularExpression && ((RegularExpression) value).getLookaheads().isEmpty())
+                return regularExpressions.computeIfAbsent((RegularExpression) value, k -> k);
+
+            if (value != null && value.getClass() == Nonterminal.class) {
+                Nonterminal nonterminal = (Nonterminal) value;
+                if (isPlain(nonterminal))
+                    return nonterminals.computeIfAbsent(Arrays.asList(nonterminal.getName(), nonterminal.getIndex()), k -> nonterminal);
+            }
+
+            if (value != null && value.getClass() == Terminal.class) {
+                Terminal terminal = (Terminal) value;
+                if (isPlain(terminal))
+                    return terminals.computeIfAbsent(Arrays.asList(terminal.getName(), terminal.getNodeType(), terminal.getRegularExpression()), k -> terminal);
+            }
+
+            return value;
+        }
+
+        static boolean isPlain(Nonterminal nonterminal) {
+            return nonterminal.getLabel() == null
+                && isEmpty(nonterminal.getPreConditions())
+                && isEmpty(nonterminal.getPostConditions())
+                && nonterminal.getVariable() == null
+                && isEmpty(nonterminal.getState())
+                && (nonterminal.getParameters() == null || nonterminal.getParameters().length == 0)
+                && (nonterminal.getArguments() == null || nonterminal.getArguments().length == 0)
+                && isEmpty(nonterminal.getExcepts())
+                && (nonterminal.getAttributes() == null || nonterminal.getAttributes().isEmpty())
+                && nonterminal.getNodeType() == NonterminalNodeType.Basic
+                && !nonterminal.isEbnfList();
+        }
+
+        private static boolean isPlain(Terminal terminal) {
+            return terminal.getLabel() == null
+                && isEmpty(terminal.getPreConditions())
+                && isEmpty(terminal.getPostConditions())
+                && isEmpty(terminal.getTerminalPreConditions())
+                && isEmpty(terminal.getTerminalPostConditions());
+        }
+
+        private static boolean isEmpty(Collection<?> collection) {
+            return collection == null || collection.isEmpty();
+        }
+    }
+
+    static class InterningDeserializerModifier extends BeanDeserializerModifier {
+
+        @Override
+        public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+            // Builder based deserializers are described by their builder class, nested in the symbol class
+            Class<?> clazz = beanDesc.getBeanClass();
+            Class<?> enclosing = clazz.getEnclosingClass();
+            if (isInterned(clazz) || (enclosing != null && isInterned(enclosing)))
+                return new InterningDeserializer(deserializer);
+            return deserializer;
+        }
+
+        private static boolean isInterned(Class<?> clazz) {
+            return clazz == Nonterminal.class || clazz == Terminal.class || RegularExpression.class.isAssignableFrom(clazz);
+        }
+    }
+
+    static class InterningDeserializer extends DelegatingDeserializer {
+
+        InterningDeserializer(JsonDeserializer<?> delegatee) {
+            super(delegatee);
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new InterningDeserializer(newDelegatee);
+        }
+
+        @Override
+        public Object deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            return SymbolInterner.intern(_delegatee.deserialize(parser, ctxt), ctxt);
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser parser, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {
+            return SymbolInterner.intern(_delegatee.deserializeWithType(parser, ctxt, typeDeserializer), ctxt);
+        }
+    }
+
     static class TerminalNodeBuilder {
         private int start;
         private int end;
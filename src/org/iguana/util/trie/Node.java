@@ -34,6 +34,8 @@ import java.util.List;
 public class Node<T> {
 
 	private List<Edge<T>> edges;
+
+	private boolean accepting;
 	
 	public Node() {
 		edges = new ArrayList<>();
@@ -53,4 +55,15 @@ public class Node<T> {
 		edges.add(edge);
 	}
 
+	/**
+	 * Marks this node as the end of a label sequence added to the trie.
+	 */
+	public void setAccepting() {
+		accepting = true;
+	}
+
+	public boolean isAccepting() {
+		return accepting;
+	}
+
 }
@@ -52,11 +52,12 @@ public class Trie<T> {
 		return node;
 	}
 	
-	public void addToRoot(Iterable<T> labels) {
+	public Node<T> addToRoot(Iterable<T> labels) {
 		Node<T> node = root;
 		for (T label : labels) {
 			node = add(node, label);
 		}
+		return node;
 	}
 	
 	public Node<T> add(Node<T> node, T label) {
@@ -72,6 +73,10 @@ public class Trie<T> {
 		}
 	}
 	
+	public Node<T> getChild(Node<T> node, T label) {
+		return getNodeWithEdgeLabel(node, label);
+	}
+
 	private Node<T> getNodeWithEdgeLabel(Node<T> node, T label) {
 		for(Edge<T> edge : node.getEdges()) {
 			if(edge.getLabel().equals(label)) {
@@ -0,0 +1,71 @@
+package org.iguana.benchmark;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.operations.FirstFollowSets;
+import org.iguana.grammar.transformation.DesugarPrecedenceAndAssociativity;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.grammar.transformation.EBNFToBNF;
+import org.iguana.grammar.transformation.LayoutWeaver;
+import org.iguana.iggy.IggyParser;
+import org.iguana.util.serialization.JsonSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static iguana.utils.io.FileUtils.readFile;
+
+/**
+ * Measures the time to calculate the first, follow and prediction sets of the iggy grammar
+ * and of the grammars of the paper.
+ */
+public class FirstFollowSetsBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, Grammar> grammars = new LinkedHashMap<>();
+
+        grammars.put("iggy.json", JsonSerializer.deserialize(readFile(FirstFollowSetsBenchmark.class.getResourceAsStream("/iggy.json")), Grammar.class));
+
+        File[] files = new File("test/org/iguana/parser/iggy/paper/grammars").listFiles((dir, name) -> name.endsWith(".iggy"));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    grammars.put(file.getName(), desugar(IggyParser.getGrammar(file.getPath())));
+                } catch (RuntimeException e) {
+                    System.out.println("Skipping " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        for (Map.Entry<String, Grammar> entry : grammars.entrySet()) {
+            Grammar grammar = entry.getValue();
+
+            for (int i = 0; i < WARMUP; i++)
+                new FirstFollowSets(grammar);
+
+            long total = 0;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                new FirstFollowSets(grammar);
+                total += System.nanoTime() - start;
+            }
+
+            System.out.printf("%-16s %6d nonterminals %10.3f ms%n", entry.getKey(), grammar.getDefinitions().size(), total / RUNS / 1_000_000.0);
+        }
+    }
+
+    private static Grammar desugar(Grammar grammar) {
+        DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+        precedenceAndAssociativity.setOP2();
+
+        grammar = new EBNFToBNF().transform(grammar);
+        grammar = precedenceAndAssociativity.transform(grammar);
+        grammar = new LayoutWeaver().transform(grammar);
+        return new DesugarStartSymbol().transform(grammar);
+    }
+
+}
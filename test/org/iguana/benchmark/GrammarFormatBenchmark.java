@@ -0,0 +1,54 @@
+package org.iguana.benchmark;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.util.serialization.BinarySerializer;
+import org.iguana.util.serialization.JsonSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static iguana.utils.io.FileUtils.readFile;
+
+/**
+ * Compares the size and the load time of the iggy grammar in the legacy Java serialization, JSON and
+ * compact binary formats.
+ */
+public class GrammarFormatBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Grammar grammar = JsonSerializer.deserialize(readFile(GrammarFormatBenchmark.class.getResourceAsStream("/iggy.json")), Grammar.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(grammar);
+        }
+        byte[] java = out.toByteArray();
+        byte[] json = JsonSerializer.toJSON(grammar).getBytes(StandardCharsets.UTF_8);
+        byte[] compact = BinarySerializer.toBytes(grammar);
+
+        run("java", java, "binary");
+        run("json", json, "json");
+        run("compact", compact, "compact");
+    }
+
+    private static void run(String name, byte[] bytes, String format) {
+        for (int i = 0; i < WARMUP; i++)
+            Grammar.load(new ByteArrayInputStream(bytes), format);
+
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            Grammar.load(new ByteArrayInputStream(bytes), format);
+            total += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-8s %10d bytes %10.3f ms%n", name, bytes.length, total / RUNS / 1_000_000.0);
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.iguana.benchmark;
+
+import iguana.regex.matcher.DFAMatcherFactory;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraphBuilder;
+import org.iguana.grammar.GrammarGraphSnapshot;
+import org.iguana.grammar.operations.FirstFollowSets;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.util.Configuration;
+import org.iguana.util.serialization.JsonSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static iguana.utils.io.FileUtils.readFile;
+
+/**
+ * Compares the time of building the grammar graph of the iggy grammar, i.e., running its analysis
+ * and constructing the automata of its regular expressions, with the time of loading it from a
+ * snapshot. Each build uses a new matcher factory, as a new process would.
+ */
+public class GrammarGraphSnapshotBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Grammar grammar = JsonSerializer.deserialize(readFile(GrammarGraphSnapshotBenchmark.class.getResourceAsStream("/iggy.json")), Grammar.class);
+        Grammar desugared = GrammarPipeline.getStandard().transform(grammar);
+        Configuration config = Configuration.load();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GrammarGraphSnapshot.write(desugared, config, out);
+        byte[] snapshot = out.toByteArray();
+
+        run("build", () -> GrammarGraphBuilder.from(desugared, config, g -> new FirstFollowSets(g, config.getLookAheadCount()), new DFAMatcherFactory()));
+        run("snapshot", () -> GrammarGraphSnapshot.read(new ByteArrayInputStream(snapshot), config));
+
+        System.out.printf("snapshot size: %d bytes%n", snapshot.length);
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static void run(String name, Task task) throws IOException {
+        for (int i = 0; i < WARMUP; i++)
+            task.run();
+
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            task.run();
+            total += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-10s %10.3f ms%n", name, total / RUNS / 1_000_000.0);
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.iguana.benchmark;
+
+import iguana.regex.CharRange;
+import iguana.utils.collections.rangemap.RangeMap;
+import iguana.utils.collections.rangemap.RangeMapBuilder;
+import org.iguana.grammar.slot.lookahead.FollowTest;
+import org.iguana.grammar.slot.lookahead.RangeTreeFollowTest;
+import org.iguana.grammar.slot.lookahead.TableFollowTest;
+import org.iguana.grammar.slot.lookahead.TableRangeMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures the cost of a single follow test and first-slot lookup with the range tree and
+ * with the table based representation, on mostly ASCII input.
+ */
+public class LookAheadBenchmark {
+
+    private static final int LOOKUPS = 10_000_000;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        Set<CharRange> set = new HashSet<>(Arrays.asList(
+                CharRange.in('a', 'z'), CharRange.in('A', 'Z'), CharRange.in('0', '9'),
+                CharRange.in('_', '_'), CharRange.in('(', '('), CharRange.in(';', ';'), CharRange.in(0x391, 0x3A9)));
+
+        int[] chars = new int[4096];
+        Random random = new Random(42);
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = random.nextInt(100) == 0 ? 0x391 + random.nextInt(64) : random.nextInt(128);
+
+        FollowTest rangeTree = new RangeTreeFollowTest(set);
+        FollowTest table = TableFollowTest.from(set);
+
+        RangeMapBuilder<String> builder = new RangeMapBuilder<>();
+        set.forEach(r -> builder.put(r, r.toString()));
+        RangeMap<String> rangeMap = builder.buildRangeMap();
+        RangeMap<String> tableMap = new TableRangeMap<>(rangeMap);
+
+        for (int run = 0; run < RUNS; run++) {
+            System.out.printf("Follow test, range tree: %.2f ns/lookup%n", followTest(rangeTree, chars));
+            System.out.printf("Follow test, table:      %.2f ns/lookup%n", followTest(table, chars));
+            System.out.printf("First slots, range map:  %.2f ns/lookup%n", firstSlots(rangeMap, chars));
+            System.out.printf("First slots, table:      %.2f ns/lookup%n", firstSlots(tableMap, chars));
+        }
+    }
+
+    private static double followTest(FollowTest test, int[] chars) {
+        long start = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (test.test(chars[i & (chars.length - 1)])) count++;
+        }
+        long end = System.nanoTime();
+        if (count == -1) System.out.println();
+        return (double) (end - start) / LOOKUPS;
+    }
+
+    private static double firstSlots(RangeMap<String> map, int[] chars) {
+        long start = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            List<String> list = map.get(chars[i & (chars.length - 1)]);
+            if (list != null) count += list.size();
+        }
+        long end = System.nanoTime();
+        if (count == -1) System.out.println();
+        return (double) (end - start) / LOOKUPS;
+    }
+
+}
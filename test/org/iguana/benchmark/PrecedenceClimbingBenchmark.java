@@ -0,0 +1,105 @@
+package org.iguana.benchmark;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.*;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.parser.IguanaParser;
+import org.iguana.util.Configuration;
+
+import java.util.Random;
+
+/**
+ * Compares the time of parsing expressions with an operator nonterminal whose precedence and
+ * associativity have been desugared into data-dependent arguments and conditions, with the time
+ * of parsing them by precedence climbing.
+ */
+public class PrecedenceClimbingBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    private static final int[] SIZES = { 1_000, 10_000, 100_000 };
+
+    public static void main(String[] args) {
+        Configuration config = Configuration.load();
+
+        IguanaParser desugared = new IguanaParser(GrammarPipeline.getStandard().transform(getGrammar()), config);
+        IguanaParser climbing = new IguanaParser(GrammarPipeline.precedenceClimbing().build().transform(getGrammar()), config);
+
+        Random random = new Random(42);
+        for (int size : SIZES) {
+            Input input = Input.fromString(expression(size, random));
+            double desugaredTime = run(desugared, input);
+            double climbingTime = run(climbing, input);
+            System.out.printf("%7d operators: desugared %10.3f ms, climbing %10.3f ms, speedup %.2fx%n",
+                              size, desugaredTime, climbingTime, desugaredTime / climbingTime);
+        }
+    }
+
+    /*
+     * S ::= E
+     * E ::= - E
+     *     > E * E  left
+     *     > E + E  left
+     *     | a
+     */
+    private static Grammar getGrammar() {
+        Nonterminal E = Nonterminal.withName("E");
+        Nonterminal S = Nonterminal.withName("S");
+        return Grammar.builder()
+            .addRule(Rule.withHead(E).addSymbol(Terminal.from(Char.from('-'))).addSymbol(E)
+                .setRecursion(Recursion.RIGHT_REC).setPrecedence(1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(Terminal.from(Char.from('a')))
+                .setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(Terminal.from(Char.from('+'))).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(2)
+                .setPrecedenceLevel(PrecedenceLevel.from(2, 2, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(Terminal.from(Char.from('*'))).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(3)
+                .setPrecedenceLevel(PrecedenceLevel.from(3, 3, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(S).addSymbol(E).setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, -1, false, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .setStartSymbol(Start.from(S))
+            .build();
+    }
+
+    /*
+     * Returns a random expression with the given number of binary operators, with a prefix
+     * operator before one in four operands
+     */
+    private static String expression(int size, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= size; i++) {
+            if (i > 0)
+                sb.append(random.nextBoolean() ? '+' : '*');
+            if (random.nextInt(4) == 0)
+                sb.append('-');
+            sb.append('a');
+        }
+        return sb.toString();
+    }
+
+    private static double run(IguanaParser parser, Input input) {
+        for (int i = 0; i < WARMUP; i++)
+            parse(parser, input);
+
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            parse(parser, input);
+            total += System.nanoTime() - start;
+        }
+
+        return total / RUNS / 1_000_000.0;
+    }
+
+    private static void parse(IguanaParser parser, Input input) {
+        if (parser.getSPPF(input) == null)
+            throw new RuntimeException("Parse error: " + parser.getParseError());
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.iguana.benchmark;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.CompiledExpression;
+import org.iguana.datadependent.ast.Expression;
+import org.iguana.datadependent.ast.ExpressionCompiler;
+import org.iguana.datadependent.env.GLLEvaluator;
+import org.iguana.datadependent.env.IEvaluatorContext;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.condition.Condition;
+import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Symbol;
+import org.iguana.grammar.transformation.DesugarPrecedenceAndAssociativity;
+import org.iguana.parser.IguanaParser;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the closures that the expression compiler generates, with and without the unboxed int
+ * comparisons, for the data-dependent conditions that the precedence and associativity desugaring
+ * generates for the grammars of the precedence test suite, and reports the parse time of each grammar.
+ */
+public class TypedEvaluationBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+    private static final int EVALUATIONS = 100_000;
+
+    private static final String DIRECTORY = "test/org/iguana/parser/datadependent/precedence/";
+
+    public static void main(String[] args) throws FileNotFoundException {
+        run("Test10_1_c", "a+a*a*a*a*a*a");
+        run("Test13_c", "a+-a+a");
+        run("Test3_1_c", "a+a^a^a*a");
+        run("Test5PaperToCompare", "a*+a*a+a--a/a");
+    }
+
+    private static void run(String name, String text) throws FileNotFoundException {
+        DesugarPrecedenceAndAssociativity desugarPrecedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+        desugarPrecedenceAndAssociativity.setOP1();
+        Grammar grammar = desugarPrecedenceAndAssociativity.transform(Grammar.load(new File(DIRECTORY + name)));
+
+        Input input = Input.fromString(text);
+
+        for (int i = 0; i < WARMUP; i++)
+            new IguanaParser(grammar).getParserTree(input);
+
+        long parse = 0;
+        for (int i = 0; i < RUNS; i++) {
+            IguanaParser parser = new IguanaParser(grammar);
+            long start = System.nanoTime();
+            parser.getParserTree(input);
+            parse += System.nanoTime() - start;
+        }
+
+        List<Expression> conditions = new ArrayList<>();
+        List<IEvaluatorContext> contexts = new ArrayList<>();
+        collectConditions(grammar, input, conditions, contexts);
+
+        CompiledExpression[] boxedConditions = new CompiledExpression[conditions.size()];
+        CompiledExpression[] typedConditions = new CompiledExpression[conditions.size()];
+        for (int k = 0; k < conditions.size(); k++) {
+            boxedConditions[k] = ExpressionCompiler.compile(conditions.get(k), false);
+            typedConditions[k] = ExpressionCompiler.compile(conditions.get(k), true);
+        }
+
+        long boxed = 0;
+        long typed = 0;
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < EVALUATIONS; j++)
+                for (int k = 0; k < boxedConditions.length; k++)
+                    boxedConditions[k].evaluate(contexts.get(k), input);
+            long boxedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int j = 0; j < EVALUATIONS; j++)
+                for (int k = 0; k < typedConditions.length; k++)
+                    typedConditions[k].evaluate(contexts.get(k), input);
+            long typedTime = System.nanoTime() - start;
+
+            if (i >= WARMUP) {
+                boxed += boxedTime;
+                typed += typedTime;
+            }
+        }
+
+        System.out.printf("%-20s parse %8.3f ms, %3d conditions, boxed %8.3f ms, typed %8.3f ms%n",
+                          name, parse / RUNS / 1_000_000.0, conditions.size(),
+                          boxed / RUNS / 1_000_000.0, typed / RUNS / 1_000_000.0);
+    }
+
+    /*
+     * Collects the data-dependent conditions of the grammar, each with a context that binds the
+     * parameters of its rule to ints. The conditions that refer to other variables are skipped.
+     */
+    private static void collectConditions(Grammar grammar, Input input, List<Expression> conditions, List<IEvaluatorContext> contexts) {
+        for (Rule rule : grammar.getRules()) {
+            if (rule.getBody() == null) continue;
+
+            IEvaluatorContext ctx = GLLEvaluator.getDefaultEvaluatorContext();
+            ctx.setEnvironment(ctx.getEmptyEnvironment());
+
+            Nonterminal head = rule.getHead();
+            if (head.getParameters() != null) {
+                int value = 1;
+                for (String parameter : head.getParameters())
+                    ctx.declareVariable(parameter, value++);
+            }
+
+            for (Symbol symbol : rule.getBody()) {
+                for (Condition condition : symbol.getPreConditions()) {
+                    if (!(condition instanceof DataDependentCondition)) continue;
+
+                    Expression expression = ((DataDependentCondition) condition).getExpression();
+                    try {
+                        ExpressionCompiler.compile(expression).evaluate(ctx, input);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    conditions.add(expression);
+                    contexts.add(ctx);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.iguana.datadependent.ast;
+
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.GLLEvaluator;
+import org.iguana.datadependent.env.IEvaluatorContext;
+import org.iguana.grammar.exception.UndeclaredVariableException;
+import org.iguana.grammar.exception.UnexpectedTypeOfArgumentException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.iguana.datadependent.ast.AST.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionCompilerTest {
+
+    private final Input input = Input.fromString("ab\n  cd\n    ef");
+
+    private IEvaluatorContext ctx;
+
+    @Before
+    public void init() {
+        ctx = GLLEvaluator.getDefaultEvaluatorContext();
+        ctx.setEnvironment(ctx.getEmptyEnvironment());
+        ctx.declareVariable("x", 3);
+        ctx.declareVariable("y", 5);
+        ctx.declareVariable("s", "a");
+        ctx.declareVariable(String.format(Expression.LeftExtent.format, "l"), 5);
+    }
+
+    private void assertSameValue(Expression expression) {
+        Object expected = expression.interpret(ctx, input);
+        for (boolean typed : new boolean[] { true, false }) {
+            Object actual = ExpressionCompiler.compile(expression, typed).evaluate(ctx, input);
+            if (expected instanceof Object[])
+                assertArrayEquals((Object[]) expected, (Object[]) actual);
+            else
+                assertEquals(expected, actual);
+        }
+    }
+
+    private void assertSameBoolean(Expression expression) {
+        assertTrue(expression.isBooleanTyped());
+        assertEquals(expression.interpret(ctx, input), expression.interpretBoolean(ctx, input));
+        assertSameValue(expression);
+    }
+
+    private void assertSameInt(Expression expression) {
+        assertTrue(expression.isIntTyped());
+        assertEquals(expression.interpret(ctx, input), expression.interpretInt(ctx, input));
+        assertSameValue(expression);
+    }
+
+    @Test
+    public void testLiteralsAndVariables() {
+        assertSameValue(integer(1));
+        assertSameValue(string("a"));
+        assertSameValue(TRUE);
+        assertSameValue(var("x"));
+        assertSameValue(tuple(var("x"), var("y")));
+        assertSameValue(tuple(var("x")));
+        assertSameValue(lExt("l"));
+    }
+
+    @Test
+    public void testOperators() {
+        assertSameValue(less(var("x"), var("y")));
+        assertSameValue(lessEq(var("y"), var("x")));
+        assertSameValue(greater(var("x"), integer(3)));
+        assertSameValue(greaterEq(var("x"), integer(3)));
+        assertSameValue(equal(var("s"), string("a")));
+        assertSameValue(notEqual(var("x"), integer(3)));
+        assertSameValue(and(less(var("x"), var("y")), equal(var("x"), integer(4))));
+        assertSameValue(or(greater(var("x"), var("y")), equal(var("x"), integer(3))));
+        assertSameValue(not(equal(var("x"), var("y"))));
+        assertSameValue(neg(var("x")));
+        assertSameValue(lShiftANDEqZero(var("y"), integer(1)));
+        assertSameValue(ifThenElse(less(var("x"), var("y")), var("x"), var("y")));
+        assertSameValue(endOfFile(var("x")));
+    }
+
+    @Test
+    public void testIndentation() {
+        assertSameValue(indent(lExt("l")));
+        assertSameValue(orIndent(var("x"), integer(0), integer(1), lExt("l")));
+        assertSameValue(orIndent(var("x"), integer(2), integer(1), lExt("l")));
+        assertSameValue(orIndent(var("x"), integer(2), integer(0), lExt("l")));
+        assertSameValue(andIndent(integer(5), integer(1), lExt("l")));
+        assertSameValue(andIndent(integer(5), integer(1), lExt("l"), true));
+        assertSameValue(andIndent(var("x"), integer(1), lExt("l")));
+    }
+
+    @Test
+    public void testStatements() {
+        ExpressionCompiler.compile(stat(assign("x", integer(7)))).evaluate(ctx, input);
+        assertEquals(7, ctx.lookupVariable("x"));
+
+        ExpressionCompiler.compile(varDeclStat("z", var("y"))).evaluate(ctx, input);
+        assertEquals(5, ctx.lookupVariable("z"));
+    }
+
+    @Test(expected = UndeclaredVariableException.class)
+    public void testUndeclaredVariable() {
+        ExpressionCompiler.compile(var("w")).evaluate(ctx, input);
+    }
+
+    @Test
+    public void testTypeInference() {
+        assertTrue(integer(1).isIntTyped());
+        assertTrue(TRUE.isBooleanTyped());
+        assertFalse(var("x").isIntTyped());
+        assertFalse(var("x").isBooleanTyped());
+        assertTrue(ifThenElse(var("b"), integer(1), integer(2)).isIntTyped());
+        assertFalse(ifThenElse(var("b"), integer(1), var("x")).isIntTyped());
+        assertTrue(and(var("b"), less(var("x"), integer(1))).isBooleanTyped());
+        assertFalse(or(TRUE, var("b")).isBooleanTyped());
+        assertFalse(notEqual(var("x"), integer(1)).isBooleanTyped());
+    }
+
+    @Test
+    public void testTypedComparisons() {
+        assertSameBoolean(less(var("x"), integer(4)));
+        assertSameBoolean(lessEq(integer(5), var("y")));
+        assertSameBoolean(greater(var("x"), integer(3)));
+        assertSameBoolean(greaterEq(var("x"), integer(3)));
+        assertSameBoolean(less(var("x"), var("y")));
+        assertSameBoolean(equal(integer(3), integer(3)));
+        assertSameBoolean(equal(var("x"), integer(3)));
+        assertSameBoolean(and(greater(var("y"), integer(1)), less(var("x"), integer(1))));
+        assertSameBoolean(or(greater(var("y"), integer(1)), less(var("x"), integer(1))));
+        assertSameBoolean(lShiftANDEqZero(var("y"), integer(1)));
+        assertSameBoolean(not(less(var("x"), integer(1))));
+        assertSameBoolean(endOfFile(integer(14)));
+    }
+
+    @Test
+    public void testTypedIndentation() {
+        assertSameInt(indent(lExt("l")));
+        assertSameInt(andIndent(integer(5), integer(1), lExt("l")));
+        assertSameInt(andIndent(integer(5), integer(1), lExt("l"), true));
+        assertSameInt(ifThenElse(less(var("x"), var("y")), integer(1), neg(var("y"))));
+        assertSameBoolean(orIndent(var("x"), integer(2), integer(1), lExt("l")));
+        assertSameBoolean(orIndent(var("x"), integer(2), integer(0), lExt("l")));
+        assertSameBoolean(greater(indent(lExt("l")), var("x")));
+    }
+
+    @Test(expected = UnexpectedTypeOfArgumentException.class)
+    public void testUnexpectedType() {
+        less(var("s"), integer(1)).interpretBoolean(ctx, input);
+    }
+
+    @Test(expected = UnexpectedTypeOfArgumentException.class)
+    public void testUnexpectedTypeCompiled() {
+        ExpressionCompiler.compile(less(var("s"), integer(1))).evaluate(ctx, input);
+    }
+
+}
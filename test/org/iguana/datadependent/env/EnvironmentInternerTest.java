@@ -0,0 +1,55 @@
+package org.iguana.datadependent.env;
+
+import org.iguana.datadependent.env.array.ArrayEvaluatorContext;
+import org.iguana.datadependent.env.persistent.PersistentEvaluatorContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentInternerTest {
+
+    @Test
+    public void testArrayEnvironments() {
+        EnvironmentInterner interner = new EnvironmentInterner();
+        Environment empty = new ArrayEvaluatorContext().getEmptyEnvironment();
+
+        Environment env1 = interner.intern(empty._declare(1)._declare(2));
+        Environment env2 = interner.intern(empty._declare(1)._declare(2));
+        Environment env3 = interner.intern(empty._declare(2)._declare(1));
+
+        assertSame(env1, env2);
+        assertNotSame(env1, env3);
+        assertEquals(2, interner.countEnvironments());
+    }
+
+    @Test
+    public void testPersistentEnvironments() {
+        EnvironmentInterner interner = new EnvironmentInterner();
+        Environment empty = new PersistentEvaluatorContext().getEmptyEnvironment();
+
+        Environment env1 = interner.intern(empty._declare("x", 1)._declare("y", 2));
+        Environment env2 = interner.intern(empty._declare("y", 2)._declare("x", 1));
+
+        assertSame(env1, env2);
+        assertSame(empty, interner.intern(empty));
+        assertEquals(1, interner.countEnvironments());
+    }
+
+    @Test
+    public void testArgumentTuples() {
+        EnvironmentInterner interner = new EnvironmentInterner();
+
+        ArgumentTuple tuple1 = interner.intern(new Object[] { 1, "a" });
+        ArgumentTuple tuple2 = interner.intern(new Object[] { 1, "a" });
+        ArgumentTuple tuple3 = interner.intern(new Object[] { 2, "a" });
+
+        assertSame(tuple1, tuple2);
+        assertNotSame(tuple1, tuple3);
+        assertArrayEquals(new Object[] { 1, "a" }, tuple2.getValues());
+        assertEquals(2, interner.countTuples());
+
+        interner.clear();
+        assertEquals(0, interner.countTuples());
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.iguana.datadependent.env;
+
+import org.iguana.datadependent.env.array.ArrayEvaluatorContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentPoolTest {
+
+    @Test
+    public void testReuse() {
+        EnvironmentPool pool = new EnvironmentPool(10);
+        Environment empty = new ArrayEvaluatorContext(pool).getEmptyEnvironment();
+
+        Environment env1 = empty._declare(1)._declare(2);
+        pool.returnToPool(env1);
+
+        Environment env2 = empty._declare(3)._declare(4);
+        assertSame(env1, env2);
+        assertEquals(3, env2.lookup(0));
+        assertEquals(4, env2.lookup(1));
+
+        assertEquals(1, pool.getHits());
+        assertEquals(3, pool.getMisses());
+        assertEquals(0.25, pool.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testPoolsAreNotShared() {
+        EnvironmentPool pool1 = new EnvironmentPool(10);
+        EnvironmentPool pool2 = new EnvironmentPool(10);
+
+        Environment env = new ArrayEvaluatorContext(pool1).getEmptyEnvironment()._declare(1);
+        pool1.returnToPool(env);
+
+        assertNotSame(env, new ArrayEvaluatorContext(pool2).getEmptyEnvironment()._declare(2));
+        assertEquals(0, pool2.getHits());
+    }
+
+    @Test
+    public void testCapacity() {
+        EnvironmentPool pool = new EnvironmentPool(1);
+        Environment empty = new ArrayEvaluatorContext(pool).getEmptyEnvironment();
+
+        Environment env1 = empty._declare(1);
+        Environment env2 = empty._declare(2);
+        pool.returnToPool(env1);
+        pool.returnToPool(env2);
+        assertEquals(1, pool.getDropped());
+
+        pool.clear();
+        assertNotNull(empty._declare(3));
+        assertEquals(0, pool.getHits());
+    }
+
+    @Test
+    public void testNoPool() {
+        Environment env = new ArrayEvaluatorContext().getEmptyEnvironment()._declare(1);
+        assertEquals(1, env.lookup(0));
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.iguana.grammar;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GrammarGraphSnapshotTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Configuration config = Configuration.load();
+
+    /*
+     * E ::= E "+" E | "(" E ")" | "a" | epsilon
+     */
+    private static Grammar getGrammar() {
+        Nonterminal E = Nonterminal.withName("E");
+        Terminal plus = Terminal.from(Char.from('+'));
+        Terminal open = Terminal.from(Char.from('('));
+        Terminal close = Terminal.from(Char.from(')'));
+        Terminal a = Terminal.from(Char.from('a'));
+
+        Rule r1 = Rule.withHead(E).addSymbols(E, plus, E).build();
+        Rule r2 = Rule.withHead(E).addSymbols(open, E, close).build();
+        Rule r3 = Rule.withHead(E).addSymbols(a).build();
+        Rule r4 = Rule.withHead(E).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3, r4).setStartSymbol(Start.from(E)).build());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = folder.newFile("E.iggs");
+        GrammarGraph built = GrammarGraphSnapshot.save(getGrammar(), config, file);
+        GrammarGraph loaded = GrammarGraphSnapshot.load(file, config);
+
+        Input input = Input.fromString("(a+)+a");
+        ParseTreeNode expected = new IguanaParser(built, config).getParserTree(input);
+        ParseTreeNode actual = new IguanaParser(loaded, config).getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testKeyedByHash() throws IOException {
+        File directory = folder.getRoot();
+        GrammarGraphSnapshot.from(getGrammar(), config, directory);
+
+        File file = new File(directory, GrammarGraphSnapshot.hash(getGrammar(), config) + ".iggs");
+        assertTrue(file.exists());
+
+        GrammarGraph loaded = GrammarGraphSnapshot.from(getGrammar(), config, directory);
+        assertNotNull(new IguanaParser(loaded, config).getParserTree(Input.fromString("a+a")));
+    }
+
+    @Test
+    public void testHashIncludesPrecedence() {
+        Grammar grammar = getGrammar();
+        List<Rule> rules = new ArrayList<>(grammar.getRules());
+        rules.set(0, rules.get(0).copyBuilder().setPrecedence(rules.get(0).getPrecedence() + 1).build());
+        Grammar withPrecedence = Grammar.builder().addRules(rules).setStartSymbol(grammar.getStartSymbol()).build();
+
+        assertNotEquals(GrammarGraphSnapshot.hash(grammar, config), GrammarGraphSnapshot.hash(withPrecedence, config));
+    }
+
+    @Test
+    public void testHashIncludesMatcherOptions() {
+        Configuration base = Configuration.builder().build();
+        Configuration combined = Configuration.builder().setCombineTerminals(!base.combineTerminals()).build();
+        Configuration keywordTrie = Configuration.builder().setKeywordTrie(!base.keywordTrie()).build();
+
+        assertNotEquals(GrammarGraphSnapshot.hash(getGrammar(), base), GrammarGraphSnapshot.hash(getGrammar(), combined));
+        assertNotEquals(GrammarGraphSnapshot.hash(getGrammar(), base), GrammarGraphSnapshot.hash(getGrammar(), keywordTrie));
+    }
+
+    @Test
+    public void testOlderVersionIsReplaced() throws IOException {
+        File directory = folder.getRoot();
+        File file = new File(directory, GrammarGraphSnapshot.hash(getGrammar(), config) + ".iggs");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x49474753);
+            out.writeInt(1);
+        }
+
+        GrammarGraph grammarGraph = GrammarGraphSnapshot.from(getGrammar(), config, directory);
+        assertNotNull(new IguanaParser(grammarGraph, config).getParserTree(Input.fromString("a+a")));
+        assertNotNull(GrammarGraphSnapshot.load(file, config));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedSnapshot() throws IOException {
+        File directory = folder.getRoot();
+        File file = new File(directory, GrammarGraphSnapshot.hash(getGrammar(), config) + ".iggs");
+        GrammarGraphSnapshot.save(getGrammar(), config, file);
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        GrammarGraphSnapshot.from(getGrammar(), config, directory);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentConfiguration() throws IOException {
+        File file = folder.newFile("E.iggs");
+        GrammarGraphSnapshot.save(getGrammar(), config, file);
+        GrammarGraphSnapshot.load(file, Configuration.builder().setLookaheadCount(config.getLookAheadCount() + 1).build());
+    }
+
+}
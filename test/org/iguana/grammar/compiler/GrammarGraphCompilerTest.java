@@ -0,0 +1,83 @@
+package org.iguana.grammar.compiler;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.ParseStatistics;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeNotNull;
+
+public class GrammarGraphCompilerTest {
+
+    @Before
+    public void requireCompiler() {
+        assumeNotNull(ToolProvider.getSystemJavaCompiler());
+    }
+
+    /*
+     * E ::= E "+" E | "(" E ")" | "a"
+     */
+    private static Grammar getGrammar() {
+        Nonterminal E = Nonterminal.withName("E");
+        Terminal plus = Terminal.from(Char.from('+'));
+        Terminal open = Terminal.from(Char.from('('));
+        Terminal close = Terminal.from(Char.from(')'));
+        Terminal a = Terminal.from(Char.from('a'));
+
+        Rule r1 = Rule.withHead(E).addSymbols(E, plus, E).build();
+        Rule r2 = Rule.withHead(E).addSymbols(open, E, close).build();
+        Rule r3 = Rule.withHead(E).addSymbols(a).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3).setStartSymbol(Start.from(E)).build());
+    }
+
+    private static IguanaParser getParser(boolean compile) {
+        return new IguanaParser(getGrammar(), Configuration.builder().setCompileGrammarGraph(compile).build());
+    }
+
+    @Test
+    public void testSameParseTree() {
+        Input input = Input.fromString("(a+a)+a");
+        ParseTreeNode expected = getParser(false).getParserTree(input);
+        ParseTreeNode actual = getParser(true).getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSameStatistics() {
+        Input input = Input.fromString("a+a+a+a");
+        IguanaParser interpreted = getParser(false);
+        interpreted.getSPPF(input);
+        ParseStatistics expected = interpreted.getStatistics();
+
+        IguanaParser compiled = getParser(true);
+        compiled.getSPPF(input);
+
+        assertEquals(expected, compiled.getStatistics());
+    }
+
+    @Test
+    public void testParseError() {
+        IguanaParser parser = getParser(true);
+        assertNull(parser.getParserTree(Input.fromString("(a+a")));
+        assertNotNull(parser.getParseError());
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.iguana.grammar.compiler;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraphSnapshot;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+public class ParserGeneratorTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /*
+     * S ::= "a" S "b" | "\u00e9"
+     */
+    private static Grammar getGrammar() {
+        Nonterminal S = Nonterminal.withName("S");
+        Rule r1 = Rule.withHead(S).addSymbols(Terminal.from(Char.from('a')), S, Terminal.from(Char.from('b'))).build();
+        Rule r2 = Rule.withHead(S).addSymbols(Terminal.from(Char.from('\u00e9'))).build();
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2).setStartSymbol(Start.from(S)).build());
+    }
+
+    @Test
+    public void testGeneratedSources() throws IOException {
+        new ParserGenerator(getGrammar(), Configuration.load()).generate(folder.getRoot(), "test.generated.SParser");
+
+        File directory = new File(folder.getRoot(), "test" + File.separator + "generated");
+        String parser = new String(Files.readAllBytes(new File(directory, "SParser.java").toPath()), StandardCharsets.UTF_8);
+        String slots = new String(Files.readAllBytes(new File(directory, "SParserSlots.java").toPath()), StandardCharsets.UTF_8);
+
+        assertTrue(parser.startsWith("package test.generated;"));
+        assertTrue(parser.contains("public final class SParser"));
+        assertTrue(parser.contains("new SParserSlots(grammarGraph.getBodyGrammarSlots())"));
+        assertTrue(slots.contains("class SParserSlots"));
+
+        // Only printable ASCII in the embedded snapshot
+        for (char c : parser.toCharArray())
+            assertTrue(c == '\n' || (c >= 0x20 && c <= 0x7E));
+    }
+
+    @Test
+    public void testSnapshotWithoutJavaSerialization() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GrammarGraphSnapshot.write(getGrammar(), Configuration.load(), out);
+        byte[] bytes = out.toByteArray();
+
+        // The header of Java serialization streams: the magic number 0xACED and version 5
+        for (int i = 0; i + 3 < bytes.length; i++)
+            assertFalse(bytes[i] == (byte) 0xAC && bytes[i + 1] == (byte) 0xED && bytes[i + 2] == 0 && bytes[i + 3] == 5);
+    }
+
+    @Test
+    public void testSameParseAsInterpreter() throws Exception {
+        assumeNotNull(ToolProvider.getSystemJavaCompiler());
+
+        new ParserGenerator(getGrammar(), Configuration.load()).generate(folder.getRoot(), "test.generated.SParser");
+
+        File directory = new File(folder.getRoot(), "test" + File.separator + "generated");
+        Map<String, String> sources = new HashMap<>();
+        sources.put("test.generated.SParser", new String(Files.readAllBytes(new File(directory, "SParser.java").toPath()), StandardCharsets.UTF_8));
+        sources.put("test.generated.SParserSlots", new String(Files.readAllBytes(new File(directory, "SParserSlots.java").toPath()), StandardCharsets.UTF_8));
+
+        Class<?> clazz = InMemoryJavaCompiler.compile(sources).loadClass("test.generated.SParser");
+        IguanaParser generated = (IguanaParser) clazz.getMethod("create").invoke(null);
+        IguanaParser interpreted = new IguanaParser(getGrammar(), (Configuration) clazz.getMethod("getConfiguration").invoke(null));
+
+        Input input = Input.fromString("aa\u00e9bb");
+        ParseTreeNode expected = interpreted.getParserTree(input);
+        ParseTreeNode actual = generated.getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+        assertEquals(interpreted.getStatistics(), generated.getStatistics());
+
+        assertNull(generated.getParserTree(Input.fromString("aa\u00e9b")));
+    }
+
+}
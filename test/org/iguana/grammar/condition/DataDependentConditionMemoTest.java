@@ -0,0 +1,153 @@
+package org.iguana.grammar.condition;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.datadependent.env.GLLEvaluator;
+import org.iguana.datadependent.env.IEvaluatorContext;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.*;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.parser.IguanaParser;
+import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.EnvironmentImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.iguana.datadependent.ast.AST.*;
+import static org.junit.Assert.*;
+
+public class DataDependentConditionMemoTest {
+
+    private final Input input = Input.fromString("abc");
+
+    private IEvaluatorContext ctx;
+
+    @Before
+    public void init() {
+        ctx = GLLEvaluator.getEvaluatorContext(EnvironmentImpl.TRIE, null);
+        ctx.setEnvironment(ctx.getEmptyEnvironment());
+    }
+
+    @Test
+    public void testHits() {
+        DataDependentConditionMemo memo = DataDependentConditionMemo.from(DataDependentCondition.predicate(greaterEq(var("p"), integer(2))));
+        assertNotNull(memo);
+        assertArrayEquals(new String[] { "p" }, memo.getVariables());
+
+        ctx.declareVariable("p", 1);
+        assertFalse(memo.evaluate(ctx, input));
+        assertFalse(memo.evaluate(ctx, input));
+
+        ctx.declareVariable("p", 3);
+        assertTrue(memo.evaluate(ctx, input));
+        assertTrue(memo.evaluate(ctx, input));
+        assertTrue(memo.evaluate(ctx, input));
+
+        assertEquals(2, memo.getMisses());
+        assertEquals(3, memo.getHits());
+        assertEquals(0.6, memo.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testKeyedOnFreeVariablesOnly() {
+        DataDependentConditionMemo memo = DataDependentConditionMemo.from(DataDependentCondition.predicate(less(var("p"), var("q"))));
+
+        ctx.declareVariable("p", 1);
+        ctx.declareVariable("q", 2);
+        ctx.declareVariable("r", 1);
+        assertTrue(memo.evaluate(ctx, input));
+
+        ctx.declareVariable("r", 2);
+        assertTrue(memo.evaluate(ctx, input));
+
+        ctx.declareVariable("q", 0);
+        assertFalse(memo.evaluate(ctx, input));
+
+        assertEquals(1, memo.getHits());
+        assertEquals(2, memo.getMisses());
+    }
+
+    @Test
+    public void testClear() {
+        DataDependentConditionMemo memo = DataDependentConditionMemo.from(DataDependentCondition.predicate(greaterEq(var("p"), integer(2))));
+
+        ctx.declareVariable("p", 3);
+        assertTrue(memo.evaluate(ctx, input));
+        memo.clear();
+        assertTrue(memo.evaluate(ctx, input));
+        assertTrue(memo.evaluate(ctx, Input.fromString("abc")));
+
+        assertEquals(3, memo.getMisses());
+    }
+
+    @Test
+    public void testSideEffectsAreNotMemoized() {
+        assertNull(DataDependentConditionMemo.from(DataDependentCondition.predicate(equal(assign("p", integer(1)), integer(1)))));
+        assertNull(DataDependentConditionMemo.from(DataDependentCondition.predicate(equal(println(var("p")), integer(1)))));
+        assertNotNull(DataDependentConditionMemo.from(DataDependentCondition.predicate(equal(indent(var("p")), integer(1)))));
+    }
+
+    @Test
+    public void testIndexedVariables() {
+        DataDependentConditionMemo memo = DataDependentConditionMemo.from(DataDependentCondition.predicate(less(var("p", 0), var("q", 1))));
+        assertArrayEquals(new String[] { "p", "q" }, memo.getVariables());
+
+        IEvaluatorContext ctx = GLLEvaluator.getEvaluatorContext(EnvironmentImpl.ARRAY, null);
+        ctx.setEnvironment(ctx.getEmptyEnvironment());
+        ctx.declareVariables(new Object[] { 1, 2 });
+        assertTrue(memo.evaluate(ctx, input));
+        assertTrue(memo.evaluate(ctx, input));
+
+        ctx.setEnvironment(ctx.getEmptyEnvironment());
+        ctx.declareVariables(new Object[] { 2, 1 });
+        assertFalse(memo.evaluate(ctx, input));
+
+        assertEquals(1, memo.getHits());
+        assertEquals(2, memo.getMisses());
+    }
+
+    /*
+     * S ::= E
+     * E ::= - E
+     *     > E * E  left
+     *     > E + E  left
+     *     | a
+     */
+    @Test
+    public void testArrayEnvironments() {
+        Nonterminal E = Nonterminal.withName("E");
+        Nonterminal S = Nonterminal.withName("S");
+        Grammar grammar = Grammar.builder()
+            .addRule(Rule.withHead(E).addSymbol(Terminal.from(Char.from('-'))).addSymbol(E)
+                .setRecursion(Recursion.RIGHT_REC).setPrecedence(1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(Terminal.from(Char.from('a')))
+                .setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(Terminal.from(Char.from('+'))).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(2)
+                .setPrecedenceLevel(PrecedenceLevel.from(2, 2, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(Terminal.from(Char.from('*'))).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(3)
+                .setPrecedenceLevel(PrecedenceLevel.from(3, 3, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(S).addSymbol(E).setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, -1, false, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .setStartSymbol(Start.from(S))
+            .build();
+
+        Grammar desugared = GrammarPipeline.getStandard().transform(grammar);
+        Configuration config = Configuration.builder().setEnvironmentImpl(EnvironmentImpl.AUTO).setMemoizeConditions(true).build();
+        IguanaParser parser = new IguanaParser(desugared, config);
+
+        EnvironmentImpl envImpl = parser.getGrammarGraph().getEnvImpl();
+        assertTrue(envImpl == EnvironmentImpl.ARRAY || envImpl == EnvironmentImpl.INT_ARRAY);
+        assertFalse(parser.getGrammarGraph().getDataDependentConditionMemos().isEmpty());
+
+        assertNotNull(parser.getParserTree(Input.fromString("a+-a*a+a*a*a")));
+        assertEquals(0, parser.getStatistics().getAmbiguousNodesCount());
+
+        long evaluations = parser.getGrammarGraph().getDataDependentConditionMemos().stream().mapToLong(memo -> memo.getHits() + memo.getMisses()).sum();
+        assertTrue(evaluations > 0);
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.iguana.grammar.condition;
+
+import iguana.regex.Seq;
+import iguana.regex.matcher.DFAMatcherFactory;
+import iguana.utils.input.Input;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegularExpressionConditionMemoTest {
+
+    @Test
+    public void testSavedInvocations() {
+        RegularExpressionCondition condition = RegularExpressionCondition.notFollow(Seq.from(":"));
+        RegularExpressionConditionMemo memo = new RegularExpressionConditionMemo(condition, new DFAMatcherFactory().getMatcher(condition.getRegularExpression()));
+
+        Input input = Input.fromString("abc:");
+
+        assertTrue(memo.matches(input, 3));
+        assertTrue(memo.matches(input, 3));
+        assertFalse(memo.matches(input, 2));
+        assertFalse(memo.matches(input, 2));
+        assertFalse(memo.matches(input, 2));
+
+        assertEquals(2, memo.getInvocations());
+        assertEquals(3, memo.getSavedInvocations());
+    }
+
+    @Test
+    public void testNewInputResetsMemo() {
+        RegularExpressionCondition condition = RegularExpressionCondition.follow(Seq.from("a"));
+        RegularExpressionConditionMemo memo = new RegularExpressionConditionMemo(condition, new DFAMatcherFactory().getMatcher(condition.getRegularExpression()));
+
+        assertTrue(memo.matches(Input.fromString("a"), 0));
+        assertFalse(memo.matches(Input.fromString("b"), 0));
+        assertEquals(2, memo.getInvocations());
+    }
+
+    @Test
+    public void testClear() {
+        RegularExpressionCondition condition = RegularExpressionCondition.follow(Seq.from("a"));
+        RegularExpressionConditionMemo memo = new RegularExpressionConditionMemo(condition, new DFAMatcherFactory().getMatcher(condition.getRegularExpression()));
+
+        Input input = Input.fromString("a");
+        assertTrue(memo.matches(input, 0));
+        memo.clear();
+        assertTrue(memo.matches(input, 0));
+
+        // The outcomes are released, the counters are kept
+        assertEquals(2, memo.getInvocations());
+        assertEquals(0, memo.getSavedInvocations());
+    }
+
+}
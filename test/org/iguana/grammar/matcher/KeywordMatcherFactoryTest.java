@@ -0,0 +1,51 @@
+package org.iguana.grammar.matcher;
+
+import iguana.regex.Seq;
+import iguana.regex.matcher.DFAMatcherFactory;
+import iguana.regex.matcher.Matcher;
+import iguana.utils.input.Input;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeywordMatcherFactoryTest {
+
+    @Test
+    public void testKeywordsWithCommonPrefix() {
+        KeywordMatcherFactory factory = new KeywordMatcherFactory(new DFAMatcherFactory());
+        Matcher in = factory.getMatcher(Seq.from("in"));
+        Matcher instanceof_ = factory.getMatcher(Seq.from("instanceof"));
+        Matcher int_ = factory.getMatcher(Seq.from("int"));
+
+        Input input = Input.fromString("x instanceof y");
+
+        assertEquals(2, in.match(input, 2));
+        assertEquals(10, instanceof_.match(input, 2));
+        assertEquals(-1, int_.match(input, 2));
+        assertEquals(-1, in.match(input, 0));
+
+        assertTrue(in.match(input, 2, 4));
+        assertFalse(in.match(input, 2, 5));
+    }
+
+    @Test
+    public void testSameLiteralReturnsSameMatcher() {
+        KeywordMatcherFactory factory = new KeywordMatcherFactory(new DFAMatcherFactory());
+        assertTrue(factory.getMatcher(Seq.from("if")) == factory.getMatcher(Seq.from("if")));
+    }
+
+    @Test
+    public void testClear() {
+        KeywordMatcherFactory factory = new KeywordMatcherFactory(new DFAMatcherFactory());
+        Matcher if_ = factory.getMatcher(Seq.from("if"));
+
+        Input input = Input.fromString("if");
+        assertEquals(2, if_.match(input, 0));
+        factory.clear();
+        assertEquals(2, if_.match(input, 0));
+        assertEquals(-1, if_.match(Input.fromString("in"), 0));
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.iguana.grammar.matcher;
+
+import iguana.regex.CharRange;
+import iguana.regex.Plus;
+import iguana.regex.RegularExpression;
+import iguana.regex.Seq;
+import iguana.utils.input.Input;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TaggedDFATest {
+
+    @Test
+    public void testKeywordsAndIdentifier() {
+        List<RegularExpression> regexes = Arrays.asList(Seq.from("if"), Seq.from("in"), Plus.from(CharRange.in('a', 'z')));
+        TaggedDFA dfa = new TaggedDFA(regexes);
+
+        int[] lengths = new int[3];
+
+        dfa.match(Input.fromString("if x"), 0, lengths);
+        assertArrayEquals(new int[] {2, -1, 2}, lengths);
+
+        dfa.match(Input.fromString("inside"), 0, lengths);
+        assertArrayEquals(new int[] {-1, 2, 6}, lengths);
+
+        dfa.match(Input.fromString("123"), 0, lengths);
+        assertArrayEquals(new int[] {-1, -1, -1}, lengths);
+    }
+
+    @Test
+    public void testMatchFromIndex() {
+        TaggedDFA dfa = new TaggedDFA(Arrays.asList(Seq.from("ab"), Seq.from("abc")));
+        int[] lengths = new int[2];
+
+        dfa.match(Input.fromString("xabc"), 1, lengths);
+        assertArrayEquals(new int[] {2, 3}, lengths);
+    }
+
+    @Test
+    public void testCharacterSets() {
+        TaggedDFA dfa = new TaggedDFA(Arrays.asList(Seq.from("if"), Seq.from("in")));
+        List<Set<CharRange>> sets = dfa.getCharacterSets(3);
+
+        assertEquals(Collections.singleton(CharRange.in('i', 'i')), sets.get(0));
+        assertEquals(new HashSet<>(Arrays.asList(CharRange.in('f', 'f'), CharRange.in('n', 'n'))), sets.get(1));
+        assertEquals(Collections.emptySet(), sets.get(2));
+
+        BitSet lengths = new BitSet();
+        lengths.set(2);
+        assertEquals(lengths, dfa.getMatchLengths(3));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<RegularExpression> regexes = Arrays.asList(Seq.from("if"), Seq.from("in"), Plus.from(CharRange.in('a', 'z')));
+        TaggedDFA dfa = new TaggedDFA(regexes);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        dfa.write(new DataOutputStream(bytes));
+        TaggedDFA copy = TaggedDFA.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(dfa.size(), copy.size());
+
+        int[] expected = new int[3];
+        int[] actual = new int[3];
+        for (String s : Arrays.asList("if x", "inside", "123", "")) {
+            dfa.match(Input.fromString(s), 0, expected);
+            copy.match(Input.fromString(s), 0, actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.iguana.grammar.operations;
+
+import iguana.regex.Char;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.util.Configuration.EnvironmentImpl;
+import org.junit.Test;
+
+import static org.iguana.datadependent.ast.AST.*;
+import static org.junit.Assert.assertEquals;
+
+public class EnvironmentAnalysisTest {
+
+    private final Nonterminal S = Nonterminal.withName("S");
+    private final Nonterminal E = Nonterminal.builder("E").addParameters("p").build();
+    private final Terminal a = Terminal.from(Char.from('a'));
+
+    /*
+     * S ::= E(arg)
+     * E(p) ::= [p >= 1] a | a
+     */
+    private Grammar getGrammar(Nonterminal call) {
+        Terminal guarded = a.copyBuilder().addPreCondition(DataDependentCondition.predicate(greaterEq(var("p"), integer(1)))).build();
+
+        return Grammar.builder()
+                .addRule(Rule.withHead(S).addSymbols(call).build())
+                .addRule(Rule.withHead(E).addSymbols(guarded).build())
+                .addRule(Rule.withHead(E).addSymbols(a).build())
+                .build();
+    }
+
+    @Test
+    public void testNoDataDependency() {
+        Grammar grammar = Grammar.builder().addRule(Rule.withHead(S).addSymbols(a, S).build()).build();
+        assertEquals(EnvironmentImpl.INT_ARRAY, EnvironmentAnalysis.select(grammar));
+    }
+
+    @Test
+    public void testIntParameters() {
+        Nonterminal call = Nonterminal.builder("E").apply(integer(1)).build();
+        assertEquals(EnvironmentImpl.INT_ARRAY, EnvironmentAnalysis.select(getGrammar(call)));
+    }
+
+    @Test
+    public void testOtherParameters() {
+        Nonterminal call = Nonterminal.builder("E").apply(string("a")).build();
+        assertEquals(EnvironmentImpl.ARRAY, EnvironmentAnalysis.select(getGrammar(call)));
+
+        call = Nonterminal.builder("E").apply(integer(1000)).build();
+        assertEquals(EnvironmentImpl.ARRAY, EnvironmentAnalysis.select(getGrammar(call)));
+    }
+
+    @Test
+    public void testLabels() {
+        Nonterminal call = Nonterminal.builder("E").apply(integer(1)).setLabel("e").build();
+        assertEquals(EnvironmentImpl.TRIE, EnvironmentAnalysis.select(getGrammar(call)));
+    }
+
+}
@@ -0,0 +1,120 @@
+package org.iguana.grammar.operations;
+
+import iguana.regex.Char;
+import iguana.regex.CharRange;
+import iguana.regex.EOF;
+import iguana.regex.Seq;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Terminal;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FirstFollowSetsTest {
+
+    private final Nonterminal A = Nonterminal.withName("A");
+    private final Nonterminal B = Nonterminal.withName("B");
+    private final Nonterminal C = Nonterminal.withName("C");
+    private final Terminal a = Terminal.from(Char.from('a'));
+    private final Terminal b = Terminal.from(Char.from('b'));
+    private final Terminal c = Terminal.from(Char.from('c'));
+
+    /*
+     * A ::= B C | a A
+     * B ::= b | epsilon
+     * C ::= c B
+     */
+    private Grammar getGrammar() {
+        return Grammar.builder()
+                .addRule(Rule.withHead(A).addSymbols(B, C).build())
+                .addRule(Rule.withHead(A).addSymbols(a, A).build())
+                .addRule(Rule.withHead(B).addSymbols(b).build())
+                .addRule(Rule.withHead(B).build())
+                .addRule(Rule.withHead(C).addSymbols(c, B).build())
+                .build();
+    }
+
+    @Test
+    public void testFirstSets() {
+        FirstFollowSets firstFollow = new FirstFollowSets(getGrammar());
+
+        assertEquals(set('a', 'b', 'c'), firstFollow.getFirstSets().get(A));
+        assertEquals(set('b'), firstFollow.getFirstSets().get(B));
+        assertEquals(set('c'), firstFollow.getFirstSets().get(C));
+        assertTrue(firstFollow.getNullableNonterminals().contains(B));
+    }
+
+    @Test
+    public void testFollowSets() {
+        FirstFollowSets firstFollow = new FirstFollowSets(getGrammar());
+
+        assertEquals(withEOF(), firstFollow.getFollowSet(A));
+        assertEquals(withEOF('c'), firstFollow.getFollowSet(B));
+        assertEquals(withEOF(), firstFollow.getFollowSet(C));
+    }
+
+    @Test
+    public void testPredictionSets() {
+        Grammar grammar = getGrammar();
+        FirstFollowSets firstFollow = new FirstFollowSets(grammar);
+
+        Rule r1 = grammar.getAlternatives(A).get(0);
+        Rule r4 = grammar.getAlternatives(B).get(1);
+
+        assertEquals(set('b', 'c'), firstFollow.getPredictionSet(r1, 0));
+        assertEquals(set('c'), firstFollow.getPredictionSet(r1, 1));
+        assertEquals(withEOF(), firstFollow.getPredictionSet(r1, 2));
+        assertEquals(withEOF('c'), firstFollow.getPredictionSet(r4, 0));
+    }
+
+    /*
+     * K ::= "if" | "in" | "i" $
+     */
+    @Test
+    public void testLookAheadSetsOfSharedPrefix() {
+        Nonterminal K = Nonterminal.withName("K");
+        Rule r1 = Rule.withHead(K).addSymbols(Terminal.from(Seq.from("if"))).build();
+        Rule r2 = Rule.withHead(K).addSymbols(Terminal.from(Seq.from("in"))).build();
+        Rule r3 = Rule.withHead(K).addSymbols(Terminal.from(Char.from('i')), Terminal.from(EOF.getInstance())).build();
+        FirstFollowSets firstFollow = new FirstFollowSets(Grammar.builder().addRules(r1, r2, r3).build(), 3);
+
+        List<Set<CharRange>> sets1 = firstFollow.getLookAheadSets(r1);
+        assertEquals(3, sets1.size());
+        assertEquals(set('i'), sets1.get(0));
+        assertEquals(set('f'), sets1.get(1));
+        assertEquals(withEOF(), sets1.get(2));
+
+        List<Set<CharRange>> sets2 = firstFollow.getLookAheadSets(r2);
+        assertEquals(set('i'), sets2.get(0));
+        assertEquals(set('n'), sets2.get(1));
+        assertEquals(withEOF(), sets2.get(2));
+
+        // The automaton of EOF is not known, so any character may follow it
+        List<Set<CharRange>> sets3 = firstFollow.getLookAheadSets(r3);
+        assertEquals(set('i'), sets3.get(0));
+        assertEquals(withEOF(), sets3.get(1));
+        assertNull(sets3.get(2));
+    }
+
+    private static Set<CharRange> set(char...chars) {
+        Set<CharRange> set = new HashSet<>();
+        for (char c : chars)
+            set.addAll(Char.from(c).getFirstSet());
+        return set;
+    }
+
+    private static Set<CharRange> withEOF(char...chars) {
+        Set<CharRange> set = set(chars);
+        set.addAll(EOF.getInstance().getFirstSet());
+        return set;
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.iguana.grammar.operations;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.datadependent.ast.Expression;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.condition.DataDependentCondition;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.iguana.util.Configuration.EnvironmentImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.iguana.datadependent.ast.AST.*;
+import static org.junit.Assert.*;
+
+public class LiveVariablesTest {
+
+    private final Nonterminal X = Nonterminal.withName("X");
+    private final Nonterminal S = Nonterminal.builder("S").addParameters("p").build();
+    private final Nonterminal A = Nonterminal.withName("A");
+    private final Nonterminal B = Nonterminal.builder("B").addParameters("q").build();
+    private final Nonterminal C = Nonterminal.withName("C");
+
+    private final String lExtL = String.format(Expression.LeftExtent.format, "l");
+    private final String lExtM = String.format(Expression.LeftExtent.format, "m");
+
+    /*
+     * S(p) ::= l:A B(p) m:'c' [l.rExt > 0] C
+     */
+    private final Rule rule = Rule.withHead(S)
+            .addSymbol(Nonterminal.builder(A).setLabel("l").build())
+            .addSymbol(Nonterminal.builder(B).apply(var("p")).build())
+            .addSymbol(Terminal.builder(Char.from('c')).setLabel("m").build())
+            .addSymbol(Nonterminal.builder(C).addPreCondition(DataDependentCondition.predicate(greater(rExt("l"), integer(0)))).build())
+            .build();
+
+    /*
+     * X ::= S(1)
+     * A ::= 'a'
+     * B(q) ::= 'b'
+     * C ::= 'c'
+     */
+    private Grammar getGrammar() {
+        Grammar grammar = Grammar.builder()
+                .addRule(Rule.withHead(X).addSymbol(Nonterminal.builder(S).apply(integer(1)).build()).build())
+                .addRule(rule)
+                .addRule(Rule.withHead(A).addSymbol(Terminal.from(Char.from('a'))).build())
+                .addRule(Rule.withHead(B).addSymbol(Terminal.from(Char.from('b'))).build())
+                .addRule(Rule.withHead(C).addSymbol(Terminal.from(Char.from('c'))).build())
+                .setStartSymbol(Start.from(X))
+                .build();
+        return new DesugarStartSymbol().transform(grammar);
+    }
+
+    private static Set<String> set(String...names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    public void testLiveVariables() {
+        LiveVariables analysis = LiveVariables.analyse(rule);
+        assertNotNull(analysis);
+
+        assertEquals(set("p", "l"), analysis.getLiveVariables(0));
+        assertEquals(set("l"), analysis.getLiveVariables(1));
+        assertEquals(set("l"), analysis.getLiveVariables(2));
+        assertEquals(set(), analysis.getLiveVariables(3));
+    }
+
+    @Test
+    public void testDeadVariables() {
+        LiveVariables analysis = LiveVariables.analyse(rule);
+
+        assertEquals(set(lExtL), set(analysis.getDeadVariables(0)));
+        assertEquals(set(lExtL, "p"), set(analysis.getDeadVariables(1)));
+        assertEquals(set(lExtL, "p", "m", lExtM), set(analysis.getDeadVariables(2)));
+        assertEquals(set(lExtL, "p", "m", lExtM, "l"), set(analysis.getDeadVariables(3)));
+    }
+
+    /*
+     * S(p) ::= A {x, _} [x > 0] C
+     */
+    @Test
+    public void testStateVariables() {
+        Rule rule = Rule.withHead(S)
+                .addSymbol(Nonterminal.builder(A).setState(set("x", "_")).build())
+                .addSymbol(Nonterminal.builder(C).addPreCondition(DataDependentCondition.predicate(greater(var("x"), integer(0)))).build())
+                .build();
+
+        LiveVariables analysis = LiveVariables.analyse(rule);
+        assertNotNull(analysis);
+
+        assertEquals(set("x"), analysis.getLiveVariables(0));
+        assertEquals(set("p"), set(analysis.getDeadVariables(0)));
+        assertEquals(set("p", "x"), set(analysis.getDeadVariables(1)));
+    }
+
+    @Test
+    public void testGrammarIsNotModified() {
+        Expression condition = greater(rExt("l"), integer(0));
+        io.usethesource.capsule.Set.Immutable<String> env = io.usethesource.capsule.Set.Immutable.of("l");
+        condition.setEnv(env);
+
+        Rule rule = Rule.withHead(S)
+                .addSymbol(Nonterminal.builder(A).setLabel("l").build())
+                .addSymbol(Nonterminal.builder(C).addPreCondition(DataDependentCondition.predicate(condition)).build())
+                .build();
+
+        assertNotNull(LiveVariables.analyse(rule));
+        assertSame(env, condition.getEnv());
+    }
+
+    @Test
+    public void testSameParseTree() {
+        Input input = Input.fromString("abcc");
+
+        IguanaParser parser = new IguanaParser(getGrammar(), Configuration.builder().setEnvironmentImpl(EnvironmentImpl.TRIE).build());
+        ParseTreeNode expected = parser.getParserTree(input);
+
+        IguanaParser pruning = new IguanaParser(getGrammar(), Configuration.builder().setEnvironmentImpl(EnvironmentImpl.TRIE).setPruneBindings(true).build());
+        ParseTreeNode actual = pruning.getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+}
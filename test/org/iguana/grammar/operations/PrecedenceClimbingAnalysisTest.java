@@ -0,0 +1,161 @@
+package org.iguana.grammar.operations;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.GrammarGraphBuilder;
+import org.iguana.grammar.operations.PrecedenceClimbingAnalysis.Kind;
+import org.iguana.grammar.symbol.*;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parsetree.NonterminalNode;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.iguana.util.serialization.JsonSerializer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrecedenceClimbingAnalysisTest {
+
+    private final Nonterminal E = Nonterminal.withName("E");
+    private final Nonterminal S = Nonterminal.withName("S");
+
+    private static Terminal terminal(char c) {
+        return Terminal.from(Char.from(c));
+    }
+
+    /*
+     * S ::= E
+     * E ::= - E
+     *     > E * E  left
+     *     > E + E  left
+     *     | a
+     */
+    private Grammar getGrammar(Associativity associativity) {
+        return Grammar.builder()
+            .addRule(Rule.withHead(E).addSymbol(terminal('-')).addSymbol(E)
+                .setRecursion(Recursion.RIGHT_REC).setPrecedence(1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(terminal('a'))
+                .setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(terminal('+')).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(associativity).setPrecedence(2)
+                .setPrecedenceLevel(PrecedenceLevel.from(2, 2, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(E).addSymbol(E).addSymbol(terminal('*')).addSymbol(E)
+                .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(3)
+                .setPrecedenceLevel(PrecedenceLevel.from(3, 3, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build())
+            .addRule(Rule.withHead(S).addSymbol(E).setRecursion(Recursion.NON_REC).setPrecedence(-1)
+                .setPrecedenceLevel(PrecedenceLevel.from(1, 1, -1, false, false, false, new Integer[]{}, false, new Integer[]{})).build())
+            .setStartSymbol(Start.from(S))
+            .build();
+    }
+
+    /*
+     * Brackets the operators of a parse tree
+     */
+    private static String brackets(ParseTreeNode node) {
+        if (!(node instanceof NonterminalNode))
+            return node.getText();
+
+        List<ParseTreeNode> children = ((NonterminalNode) node).children();
+        if (children.size() == 1)
+            return brackets(children.get(0));
+
+        StringBuilder sb = new StringBuilder("(");
+        children.forEach(child -> sb.append(brackets(child)));
+        return sb.append(")").toString();
+    }
+
+    @Test
+    public void testOperators() {
+        PrecedenceClimbingAnalysis analysis = PrecedenceClimbingAnalysis.analyse(getGrammar(Associativity.LEFT));
+        assertEquals(1, analysis.getNonterminals().size());
+
+        List<PrecedenceClimbingAnalysis.Operator> operators = analysis.getOperators(E);
+        assertNotNull(operators);
+        assertEquals(Kind.PREFIX, operators.get(0).getKind());
+        assertEquals(Kind.PRIMARY, operators.get(1).getKind());
+        assertEquals(Kind.BINARY, operators.get(2).getKind());
+        assertEquals(1, operators.get(2).getToken());
+        assertEquals(Associativity.LEFT, operators.get(2).getAssociativity());
+
+        assertNull(analysis.getOperators(S));
+    }
+
+    @Test
+    public void testUndefinedAssociativityIsNotSupported() {
+        assertTrue(PrecedenceClimbingAnalysis.analyse(getGrammar(Associativity.UNDEFINED)).getNonterminals().isEmpty());
+    }
+
+    @Test
+    public void testSameDerivations() {
+        Grammar desugared = GrammarPipeline.standard().build().transform(getGrammar(Associativity.LEFT));
+        Grammar climbing = GrammarPipeline.precedenceClimbing().build().transform(getGrammar(Associativity.LEFT));
+
+        assertTrue(desugared.getPrecedenceClimbing().isEmpty());
+        assertEquals(Collections.singleton("E"), climbing.getPrecedenceClimbing());
+
+        IguanaParser parser = new IguanaParser(desugared);
+        // The grammar graph parses the undesugared nonterminals by precedence climbing without the option
+        IguanaParser climbingParser = new IguanaParser(climbing, Configuration.builder().build());
+
+        assertEquals("(a+(-(a+a)))", brackets(parser.getParserTree(Input.fromString("a+-a+a"))));
+
+        for (String s : new String[] { "a+-a+a", "a*a+a*a", "a+a+a", "-a*a", "a*-a*a+a" }) {
+            Input input = Input.fromString(s);
+            ParseTreeNode expected = parser.getParserTree(input);
+            ParseTreeNode actual = climbingParser.getParserTree(input);
+
+            assertNotNull(actual);
+            assertEquals(0, climbingParser.getStatistics().getAmbiguousNodesCount());
+            assertEquals(brackets(expected), brackets(actual));
+        }
+
+        assertNull(climbingParser.getParserTree(Input.fromString("a+*a")));
+    }
+
+    @Test
+    public void testPipeline() {
+        assertSame(GrammarPipeline.getStandard(), GrammarPipeline.get(Configuration.builder().build()));
+        assertEquals(Collections.singleton("E"),
+                     GrammarPipeline.get(Configuration.builder().setPrecedenceClimbing(true).build()).transform(getGrammar(Associativity.LEFT)).getPrecedenceClimbing());
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        Grammar climbing = GrammarPipeline.precedenceClimbing().build().transform(getGrammar(Associativity.LEFT));
+        Grammar grammar = JsonSerializer.deserialize(JsonSerializer.toJSON(climbing), Grammar.class);
+        assertEquals(climbing.getPrecedenceClimbing(), grammar.getPrecedenceClimbing());
+        assertNotEquals(GrammarPipeline.fingerprint(climbing), GrammarPipeline.fingerprint(new Grammar.Builder(climbing).setPrecedenceClimbing(Collections.emptySet()).build()));
+    }
+
+    /*
+     * A nonterminal left undesugared must be parsed by precedence climbing, as its rules are ambiguous otherwise
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testNotParsableIsAnError() {
+        Grammar desugared = GrammarPipeline.getStandard().transform(getGrammar(Associativity.LEFT));
+        Grammar grammar = new Grammar.Builder(desugared).setPrecedenceClimbing(Collections.singleton("E")).build();
+        GrammarGraphBuilder.from(grammar, Configuration.builder().build());
+    }
+
+    @Test
+    public void testDeepNesting() {
+        Grammar climbing = GrammarPipeline.precedenceClimbing().build().transform(getGrammar(Associativity.LEFT));
+        IguanaParser parser = new IguanaParser(climbing, Configuration.builder().setPrecedenceClimbing(true).build());
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            sb.append('-');
+        sb.append('a');
+
+        assertNotNull(parser.getSPPF(Input.fromString(sb.toString())));
+    }
+
+}
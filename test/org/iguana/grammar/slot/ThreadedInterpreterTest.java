@@ -0,0 +1,77 @@
+package org.iguana.grammar.slot;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parser.IguanaParser;
+import org.iguana.parser.ParseError;
+import org.iguana.parser.ParseStatistics;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ThreadedInterpreterTest {
+
+    /*
+     * E ::= E "+" E | "(" E ")" | "a" "a" "a"
+     */
+    private static Grammar getGrammar() {
+        Nonterminal E = Nonterminal.withName("E");
+        Terminal plus = Terminal.from(Char.from('+'));
+        Terminal open = Terminal.from(Char.from('('));
+        Terminal close = Terminal.from(Char.from(')'));
+        Terminal a = Terminal.from(Char.from('a'));
+
+        Rule r1 = Rule.withHead(E).addSymbols(E, plus, E).build();
+        Rule r2 = Rule.withHead(E).addSymbols(open, E, close).build();
+        Rule r3 = Rule.withHead(E).addSymbols(a, a, a).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3).setStartSymbol(Start.from(E)).build());
+    }
+
+    private static IguanaParser getParser(boolean threaded) {
+        return new IguanaParser(getGrammar(), Configuration.builder().setThreadedInterpreter(threaded).build());
+    }
+
+    @Test
+    public void testSameParseTree() {
+        Input input = Input.fromString("(aaa+aaa)+aaa");
+
+        IguanaParser recursive = getParser(false);
+        ParseTreeNode expected = recursive.getParserTree(input);
+        ParseStatistics expectedStatistics = recursive.getStatistics();
+
+        IguanaParser threaded = getParser(true);
+        ParseTreeNode actual = threaded.getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+        assertEquals(expectedStatistics, threaded.getStatistics());
+    }
+
+    @Test
+    public void testSameParseError() {
+        Input input = Input.fromString("(aaa+aa)");
+
+        IguanaParser recursive = getParser(false);
+        assertNull(recursive.getParserTree(input));
+        ParseError expected = recursive.getParseError();
+
+        IguanaParser threaded = getParser(true);
+        assertNull(threaded.getParserTree(input));
+        ParseError actual = threaded.getParseError();
+
+        assertEquals(expected.getInputIndex(), actual.getInputIndex());
+        assertEquals(expected.getGrammarSlot().toString(), actual.getGrammarSlot().toString());
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.iguana.grammar.slot.lookahead;
+
+import iguana.regex.CharRange;
+import iguana.regex.EOF;
+import iguana.utils.collections.rangemap.RangeMap;
+import iguana.utils.collections.rangemap.RangeMapBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class TableFollowTestTest {
+
+    private final Set<CharRange> set = new HashSet<>(Arrays.asList(CharRange.in('a', 'z'), CharRange.in(0xE9, 0x3A9)));
+
+    {
+        set.addAll(EOF.getInstance().getFirstSet());
+    }
+
+    @Test
+    public void testSameAsRangeTree() {
+        FollowTest rangeTree = new RangeTreeFollowTest(set);
+        FollowTest table = TableFollowTest.from(set);
+
+        for (int c = -2; c < 0x400; c++)
+            assertEquals(rangeTree.test(c), table.test(c));
+    }
+
+    @Test
+    public void testOnlyTableCharacters() {
+        FollowTest table = TableFollowTest.from(new HashSet<>(Arrays.asList(CharRange.in('0', '9'))));
+
+        assertEquals(true, table.test('5'));
+        assertEquals(false, table.test('a'));
+        assertEquals(false, table.test(0x660));
+        for (CharRange eof : EOF.getInstance().getFirstSet())
+            assertEquals(false, table.test(eof.getStart()));
+    }
+
+    @Test
+    public void testRangeMap() {
+        RangeMapBuilder<String> builder = new RangeMapBuilder<>();
+        set.forEach(r -> builder.put(r, r.toString()));
+        RangeMap<String> rangeMap = builder.buildRangeMap();
+        RangeMap<String> table = new TableRangeMap<>(rangeMap);
+
+        for (int c = -2; c < 0x400; c++)
+            assertEquals(rangeMap.get(c), table.get(c));
+    }
+
+}
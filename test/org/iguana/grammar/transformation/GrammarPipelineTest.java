@@ -0,0 +1,163 @@
+package org.iguana.grammar.transformation;
+
+import iguana.regex.Char;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Plus;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class GrammarPipelineTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /*
+     * S ::= A+
+     * A ::= "a"
+     */
+    private static Grammar getGrammar() {
+        Nonterminal S = Nonterminal.withName("S");
+        Nonterminal A = Nonterminal.withName("A");
+
+        Rule r1 = Rule.withHead(S).addSymbol(Plus.from(A)).build();
+        Rule r2 = Rule.withHead(A).addSymbol(Terminal.from(Char.from('a'))).build();
+
+        return Grammar.builder().addRules(r1, r2).setStartSymbol(Start.from(S)).build();
+    }
+
+    private static Grammar desugar(Grammar grammar) {
+        DesugarPrecedenceAndAssociativity precedenceAndAssociativity = new DesugarPrecedenceAndAssociativity();
+        precedenceAndAssociativity.setOP2();
+
+        grammar = new EBNFToBNF().transform(grammar);
+        grammar = precedenceAndAssociativity.transform(grammar);
+        grammar = new LayoutWeaver().transform(grammar);
+        return new DesugarStartSymbol().transform(grammar);
+    }
+
+    @Test
+    public void testSameAsTransformations() {
+        Grammar grammar = getGrammar();
+        assertEquals(desugar(grammar), GrammarPipeline.standard().build().transform(grammar));
+    }
+
+    @Test
+    public void testStagesAreCachedInMemory() {
+        AtomicInteger runs = new AtomicInteger();
+        GrammarPipeline pipeline = GrammarPipeline.builder()
+            .addStage("EBNFToBNF", () -> { runs.incrementAndGet(); return new EBNFToBNF(); })
+            .build();
+
+        Grammar first = pipeline.transform(getGrammar());
+        Grammar second = pipeline.transform(getGrammar());
+
+        assertSame(first, second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testStagesAreCachedOnDisk() throws Exception {
+        File directory = folder.newFolder("cache");
+        AtomicInteger runs = new AtomicInteger();
+
+        GrammarPipeline.Builder builder = GrammarPipeline.standard()
+            .addStage("Counter", () -> grammar -> { runs.incrementAndGet(); return grammar; })
+            .setCacheDirectory(directory);
+
+        Grammar first = builder.build().transform(getGrammar());
+        Grammar second = builder.build().transform(getGrammar());
+
+        assertEquals(first, second);
+        assertEquals(1, runs.get());
+        assertEquals(5, directory.listFiles().length);
+    }
+
+    @Test
+    public void testEntriesOfAnotherFormatAreReplaced() throws Exception {
+        File directory = folder.newFolder("cache");
+        AtomicInteger runs = new AtomicInteger();
+
+        GrammarPipeline.Builder builder = GrammarPipeline.standard()
+            .addStage("Counter", () -> grammar -> { runs.incrementAndGet(); return grammar; })
+            .setCacheDirectory(directory);
+
+        Grammar first = builder.build().transform(getGrammar());
+        for (File file : directory.listFiles())
+            Files.write(file.toPath(), new byte[] { (byte) 0xAC, (byte) 0xED, 0, 5 });
+
+        Grammar second = builder.build().transform(getGrammar());
+
+        assertEquals(first, second);
+        assertEquals(2, runs.get());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncatedEntryIsAnError() throws IOException {
+        File directory = folder.newFolder("cache");
+        GrammarPipeline.Builder builder = GrammarPipeline.standard().setCacheDirectory(directory);
+
+        builder.build().transform(getGrammar());
+        for (File file : directory.listFiles()) {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        }
+
+        builder.build().transform(getGrammar());
+    }
+
+    @Test
+    public void testResumesAfterLastCachedStage() {
+        AtomicInteger runs = new AtomicInteger();
+        GrammarPipeline pipeline = GrammarPipeline.builder()
+            .addStage("Counter", () -> grammar -> { runs.incrementAndGet(); return grammar; })
+            .addStage("EBNFToBNF", EBNFToBNF::new)
+            .setCacheCapacity(1)
+            .build();
+
+        Grammar first = pipeline.transform(getGrammar());
+        Grammar second = pipeline.transform(getGrammar());
+
+        // Only the output of the last stage is kept, and the first stage is not run again
+        assertSame(first, second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testSharedPipeline() {
+        assertSame(GrammarPipeline.getStandard(), GrammarPipeline.getStandard());
+        assertEquals(desugar(getGrammar()), GrammarPipeline.getStandard().transform(getGrammar()));
+    }
+
+    @Test
+    public void testFingerprint() {
+        Grammar grammar = getGrammar();
+        assertEquals(GrammarPipeline.fingerprint(grammar), GrammarPipeline.fingerprint(getGrammar()));
+        assertNotEquals(GrammarPipeline.fingerprint(grammar), GrammarPipeline.fingerprint(new EBNFToBNF().transform(grammar)));
+    }
+
+    @Test
+    public void testTransformAll() {
+        GrammarPipeline pipeline = GrammarPipeline.standard().build();
+        List<Grammar> grammars = pipeline.transformAll(Arrays.asList(getGrammar(), getGrammar(), getGrammar()));
+
+        Grammar expected = desugar(getGrammar());
+        for (Grammar grammar : grammars)
+            assertEquals(expected, grammar);
+    }
+
+}
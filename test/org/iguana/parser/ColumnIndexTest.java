@@ -0,0 +1,40 @@
+package org.iguana.parser;
+
+import iguana.utils.input.Input;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ColumnIndexTest {
+
+    private static void assertSameAsInput(Input input) {
+        ColumnIndex index = new ColumnIndex(input);
+        for (int i = 0; i < input.length(); i++) {
+            assertEquals(input.getColumnNumber(i), index.getColumnNumber(i));
+            assertEquals(input.getLineNumber(i), index.getLineNumber(i));
+        }
+    }
+
+    @Test
+    public void testColumns() {
+        assertSameAsInput(Input.fromString("ab\n  cd\n    ef"));
+        assertSameAsInput(Input.fromString("\n\nx\n"));
+        assertSameAsInput(Input.fromString(""));
+    }
+
+    @Test
+    public void testTabsAndCarriageReturns() {
+        assertSameAsInput(Input.fromString("a\tb\n\t\tc\r\nd"));
+    }
+
+    @Test
+    public void testLineStarts() {
+        ColumnIndex index = new ColumnIndex(Input.fromString("ab\n  cd\n    ef"));
+
+        assertEquals(3, index.getNumberOfLines());
+        assertEquals(0, index.getLineStart(1));
+        assertEquals(3, index.getLineStart(5));
+        assertEquals(8, index.getLineStart(12));
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.iguana.parser;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.condition.RegularExpressionCondition;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DeterministicDescentTest {
+
+    private static Grammar getGrammar() {
+        Nonterminal S = Nonterminal.withName("S");
+        Nonterminal L = Nonterminal.withName("L");
+        Terminal open = Terminal.from(Char.from('('));
+        Terminal close = Terminal.from(Char.from(')'));
+        Terminal a = Terminal.from(Char.from('a'));
+
+        // S ::= "(" L ")" | "a"
+        // L ::= S L | epsilon
+        Rule r1 = Rule.withHead(S).addSymbols(open, L, close).build();
+        Rule r2 = Rule.withHead(S).addSymbols(a).build();
+        Rule r3 = Rule.withHead(L).addSymbols(S, L).build();
+        Rule r4 = Rule.withHead(L).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3, r4).setStartSymbol(Start.from(S)).build());
+    }
+
+    /*
+     * S ::= A "b" | A !>> "x" "c"
+     * A ::= "a"
+     */
+    private static Grammar getMixedCallsGrammar() {
+        Nonterminal S = Nonterminal.withName("S");
+        Nonterminal A = Nonterminal.withName("A");
+        Nonterminal notFollowedByX = Nonterminal.builder(A).addPostCondition(RegularExpressionCondition.notFollow(Char.from('x'))).build();
+
+        Rule r1 = Rule.withHead(S).addSymbols(A, Terminal.from(Char.from('b'))).build();
+        Rule r2 = Rule.withHead(S).addSymbols(notFollowedByX, Terminal.from(Char.from('c'))).build();
+        Rule r3 = Rule.withHead(A).addSymbols(Terminal.from(Char.from('a'))).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3).setStartSymbol(Start.from(S)).build());
+    }
+
+    private static IguanaParser getParser(boolean deterministicDescent) {
+        return getParser(getGrammar(), deterministicDescent);
+    }
+
+    private static IguanaParser getParser(Grammar grammar, boolean deterministicDescent) {
+        return new IguanaParser(grammar, Configuration.builder().setDeterministicDescent(deterministicDescent).build());
+    }
+
+    private static void assertSameNodeCounts(ParseStatistics expected, ParseStatistics actual) {
+        assertEquals(expected.getNonterminalNodesCount(), actual.getNonterminalNodesCount());
+        assertEquals(expected.getTerminalNodesCount(), actual.getTerminalNodesCount());
+        assertEquals(expected.getIntermediateNodesCount(), actual.getIntermediateNodesCount());
+        assertEquals(expected.getPackedNodesCount(), actual.getPackedNodesCount());
+        assertEquals(expected.getAmbiguousNodesCount(), actual.getAmbiguousNodesCount());
+    }
+
+    @Test
+    public void testSameParseTree() {
+        Input input = Input.fromString("(a(a()a)a)");
+        ParseTreeNode expected = getParser(false).getParserTree(input);
+        ParseTreeNode actual = getParser(true).getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testSameNodeCounts() {
+        Input input = Input.fromString("(a(a()a)a)");
+        IguanaParser expected = getParser(false);
+        IguanaParser actual = getParser(true);
+        expected.getParserTree(input);
+        actual.getParserTree(input);
+
+        assertSameNodeCounts(expected.getStatistics(), actual.getStatistics());
+    }
+
+    @Test
+    public void testMixedCalls() {
+        // A is also called with a condition, so it is parsed through the GSS at both calls, and the
+        // nodes of A are shared between them
+        for (String s : new String[] { "ab", "ac" }) {
+            Input input = Input.fromString(s);
+            IguanaParser expected = getParser(getMixedCallsGrammar(), false);
+            IguanaParser actual = getParser(getMixedCallsGrammar(), true);
+
+            ParseTreeNode expectedTree = expected.getParserTree(input);
+            assertNotNull(expectedTree);
+            assertEquals(expectedTree, actual.getParserTree(input));
+            assertSameNodeCounts(expected.getStatistics(), actual.getStatistics());
+        }
+    }
+
+    @Test
+    public void testNoParse() {
+        assertNull(getParser(true).getParserTree(Input.fromString("(a(a)")));
+    }
+
+    @Test
+    public void testDeepNesting() {
+        // The descent gives up on deeply nested input and the GSS takes over
+        Input input = Input.fromString("(" + Stream.generate(() -> "a").limit(1000).collect(Collectors.joining()) + ")");
+        ParseTreeNode expected = getParser(false).getParserTree(input);
+        ParseTreeNode actual = getParser(true).getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testDeepParentheses() {
+        // The abandoned descents are memoized, and each level below the limit falls back to the GSS once
+        String open = Stream.generate(() -> "(").limit(600).collect(Collectors.joining());
+        String close = Stream.generate(() -> ")").limit(600).collect(Collectors.joining());
+        Input input = Input.fromString(open + "a" + close);
+        ParseTreeNode expected = getParser(false).getParserTree(input);
+        ParseTreeNode actual = getParser(true).getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+    }
+
+}
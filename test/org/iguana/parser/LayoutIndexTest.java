@@ -0,0 +1,35 @@
+package org.iguana.parser;
+
+import iguana.regex.Char;
+import iguana.regex.Star;
+import iguana.regex.matcher.DFAMatcherFactory;
+import iguana.utils.input.Input;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LayoutIndexTest {
+
+    @Test
+    public void testWithLayoutMatcher() {
+        Input input = Input.fromString("a   b c");
+        LayoutIndex index = new LayoutIndex(input, new DFAMatcherFactory().getMatcher(Star.from(Char.from(' '))));
+
+        assertEquals('a', index.charAtIgnoreLayout(0));
+        assertEquals('b', index.charAtIgnoreLayout(1));
+        assertEquals(4, index.nextNonLayoutIndex(1));
+        assertEquals(4, index.nextNonLayoutIndex(2));
+        assertEquals('c', index.charAtIgnoreLayout(5));
+    }
+
+    @Test
+    public void testWithoutLayoutMatcher() {
+        Input input = Input.fromString("a   b");
+        LayoutIndex index = new LayoutIndex(input, null);
+
+        for (int i = 0; i < input.length(); i++) {
+            assertEquals(input.charAtIgnoreLayout(i), index.charAtIgnoreLayout(i));
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.iguana.parser;
+
+import iguana.regex.Char;
+import iguana.utils.input.Input;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Start;
+import org.iguana.grammar.symbol.Terminal;
+import org.iguana.grammar.transformation.DesugarStartSymbol;
+import org.iguana.parsetree.ParseTreeNode;
+import org.iguana.util.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LookAheadCountTest {
+
+    /*
+     * S ::= "i" "f" S | "i" "n" S | "x"
+     */
+    private static Grammar getGrammar() {
+        Nonterminal S = Nonterminal.withName("S");
+        Terminal i = Terminal.from(Char.from('i'));
+        Terminal f = Terminal.from(Char.from('f'));
+        Terminal n = Terminal.from(Char.from('n'));
+        Terminal x = Terminal.from(Char.from('x'));
+
+        Rule r1 = Rule.withHead(S).addSymbols(i, f, S).build();
+        Rule r2 = Rule.withHead(S).addSymbols(i, n, S).build();
+        Rule r3 = Rule.withHead(S).addSymbols(x).build();
+
+        return new DesugarStartSymbol().transform(Grammar.builder().addRules(r1, r2, r3).setStartSymbol(Start.from(S)).build());
+    }
+
+    private static IguanaParser getParser(int lookAheadCount) {
+        return new IguanaParser(getGrammar(), Configuration.builder().setLookaheadCount(lookAheadCount).setDeterministicDescent(false).build());
+    }
+
+    @Test
+    public void testSameParseTreeWithFewerDescriptors() {
+        Input input = Input.fromString("ifinifx");
+        IguanaParser k1 = getParser(1);
+        IguanaParser k2 = getParser(2);
+
+        ParseTreeNode expected = k1.getParserTree(input);
+        ParseTreeNode actual = k2.getParserTree(input);
+
+        assertNotNull(expected);
+        assertEquals(expected, actual);
+        assertTrue(k2.getStatistics().getDescriptorsCount() < k1.getStatistics().getDescriptorsCount());
+    }
+
+    @Test
+    public void testNoParse() {
+        assertNull(getParser(2).getParserTree(Input.fromString("ifix")));
+    }
+
+}
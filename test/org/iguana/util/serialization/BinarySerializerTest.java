@@ -0,0 +1,122 @@
+package org.iguana.util.serialization;
+
+import iguana.regex.Char;
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.patterns.ExceptPattern;
+import org.iguana.grammar.patterns.PrecedencePattern;
+import org.iguana.grammar.symbol.*;
+import org.iguana.grammar.transformation.GrammarPipeline;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static iguana.utils.io.FileUtils.readFile;
+import static org.junit.Assert.*;
+
+public class BinarySerializerTest {
+
+    private static Grammar getIggyGrammar() throws IOException {
+        return JsonSerializer.deserialize(readFile(BinarySerializerTest.class.getResourceAsStream("/iggy.json")), Grammar.class);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Grammar grammar = getIggyGrammar();
+        byte[] bytes = BinarySerializer.toBytes(grammar);
+
+        assertEquals(grammar, BinarySerializer.deserialize(bytes));
+        assertEquals(JsonSerializer.toJSON(grammar), JsonSerializer.toJSON(BinarySerializer.deserialize(bytes)));
+    }
+
+    @Test
+    public void testSmallerThanJson() throws IOException {
+        Grammar grammar = getIggyGrammar();
+        assertTrue(BinarySerializer.toBytes(grammar).length < JsonSerializer.toJSON(grammar).getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testLoadRecognizesFormat() throws IOException {
+        Grammar grammar = getIggyGrammar();
+        byte[] bytes = BinarySerializer.toBytes(grammar);
+
+        assertTrue(BinarySerializer.isBinaryGrammar(new ByteArrayInputStream(bytes)));
+        assertFalse(BinarySerializer.isBinaryGrammar(new ByteArrayInputStream(new byte[] { 1, 2 })));
+        assertEquals(grammar, Grammar.load(new ByteArrayInputStream(bytes), "binary"));
+    }
+
+    /*
+     * E ::= - E
+     *     > E * E  left
+     *     | a
+     */
+    private static Grammar getExpressionGrammar() {
+        Nonterminal E = Nonterminal.withName("E");
+        Rule minus = Rule.withHead(E).addSymbol(Terminal.from(Char.from('-'))).addSymbol(E)
+            .setRecursion(Recursion.RIGHT_REC).setPrecedence(1)
+            .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build();
+        Rule times = Rule.withHead(E).addSymbol(E).addSymbol(Terminal.from(Char.from('*'))).addSymbol(E)
+            .setRecursion(Recursion.LEFT_RIGHT_REC).setAssociativity(Associativity.LEFT).setPrecedence(2)
+            .setPrecedenceLevel(PrecedenceLevel.from(2, 2, -1, false, false, true, new Integer[]{1}, false, new Integer[]{})).build();
+        Rule a = Rule.withHead(E).addSymbol(Terminal.from(Char.from('a')))
+            .setRecursion(Recursion.NON_REC).setPrecedence(-1)
+            .setPrecedenceLevel(PrecedenceLevel.from(1, 1, 1, true, false, false, new Integer[]{}, false, new Integer[]{})).build();
+
+        return Grammar.builder()
+            .addRules(minus, times, a)
+            .addPrecedencePattern(PrecedencePattern.from(times, 0, minus))
+            .addExceptPattern(new ExceptPattern(E, times.getBody(), 2, a.getBody()))
+            .addEBNFl("E+", Collections.singleton("E"))
+            .addEBNFr("E+", Collections.singleton("E"))
+            .setStartSymbol(Start.from(E))
+            .build();
+    }
+
+    @Test
+    public void testRoundTripKeepsPrecedenceAndAssociativity() throws IOException {
+        Grammar grammar = getExpressionGrammar();
+        Grammar copy = BinarySerializer.deserialize(BinarySerializer.toBytes(grammar));
+
+        assertEquals(grammar, copy);
+        for (int i = 0; i < grammar.getRules().size(); i++) {
+            Rule rule = grammar.getRules().get(i);
+            Rule other = copy.getRules().get(i);
+            assertEquals(rule.getRecursion(), other.getRecursion());
+            assertEquals(rule.getAssociativity(), other.getAssociativity());
+            assertEquals(rule.getPrecedence(), other.getPrecedence());
+            assertEquals(rule.getPrecedenceLevel().getLhs(), other.getPrecedenceLevel().getLhs());
+            assertEquals(rule.getPrecedenceLevel().getRhs(), other.getPrecedenceLevel().getRhs());
+            assertArrayEquals(rule.getPrecedenceLevel().prefixUnaryBelow, other.getPrecedenceLevel().prefixUnaryBelow);
+        }
+        assertEquals(grammar.getPrecedencePatterns(), copy.getPrecedencePatterns());
+        assertEquals(grammar.getExceptPatterns(), copy.getExceptPatterns());
+        assertEquals(grammar.getEBNFLefts(), copy.getEBNFLefts());
+        assertEquals(grammar.getEBNFRights(), copy.getEBNFRights());
+
+        // The grammar desugars to the same grammar after the round trip
+        assertEquals(JsonSerializer.toJSON(GrammarPipeline.getStandard().transform(getExpressionGrammar())),
+                     JsonSerializer.toJSON(GrammarPipeline.getStandard().transform(copy)));
+    }
+
+    @Test
+    public void testLoadRejectsUnknownClasses() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(new java.io.File("grammar"));
+        }
+
+        try {
+            Grammar.load(new ByteArrayInputStream(out.toByteArray()), "binary");
+            fail("Expected the class to be rejected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvalidClassException);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.iguana.util.serialization;
+
+import org.iguana.grammar.Grammar;
+import org.iguana.grammar.symbol.Nonterminal;
+import org.iguana.grammar.symbol.Rule;
+import org.iguana.grammar.symbol.Symbol;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static iguana.utils.io.FileUtils.readFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonSerializerTest {
+
+    private static Grammar getIggyGrammar() throws IOException {
+        return JsonSerializer.deserialize(readFile(JsonSerializerTest.class.getResourceAsStream("/iggy.json")), Grammar.class);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Grammar grammar = getIggyGrammar();
+        String json = JsonSerializer.toJSON(grammar);
+        Grammar other = JsonSerializer.deserialize(json, Grammar.class);
+
+        assertEquals(grammar, other);
+        assertEquals(grammar.getLayout(), other.getLayout());
+        assertEquals(grammar.getStartSymbol(), other.getStartSymbol());
+        assertEquals(json, JsonSerializer.toJSON(other));
+    }
+
+    @Test
+    public void testPlainNonterminalsAreShared() throws IOException {
+        Grammar grammar = getIggyGrammar();
+
+        Map<Nonterminal, Nonterminal> seen = new HashMap<>();
+        int shared = 0;
+        for (Rule rule : grammar.getRules()) {
+            if (rule.getBody() == null)
+                continue;
+
+            for (Symbol symbol : rule.getBody()) {
+                if (symbol.getClass() != Nonterminal.class || !isPlain((Nonterminal) symbol))
+                    continue;
+
+                Nonterminal previous = seen.putIfAbsent((Nonterminal) symbol, (Nonterminal) symbol);
+                if (previous != null) {
+                    assertSame(previous, symbol);
+                    shared++;
+                }
+            }
+        }
+
+        assertTrue(shared > 0);
+    }
+
+    private static boolean isPlain(Nonterminal nonterminal) {
+        return JsonSerializer.SymbolInterner.isPlain(nonterminal);
+    }
+
+}